@@ -0,0 +1,98 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import com.google.common.primitives.Doubles;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+/**
+ * Exceedance curve calculation for each {@link ExceedanceModel} using the
+ * default PGA model curve. Batch calculations over many ground motions are
+ * measured with and without interpolated lookup tables.
+ *
+ * @author Peter Powers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ExceedanceModelBenchmark {
+
+  private static final double μ = -1.5;
+  private static final double σ = 0.65;
+  private static final double N = 3.0;
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({
+      "NONE",
+      "TRUNCATION_OFF",
+      "TRUNCATION_UPPER_ONLY",
+      "TRUNCATION_LOWER_UPPER",
+      "TRUNCATION_3SIGMA_UPPER",
+      "PEER_MIXTURE_REFERENCE",
+      "PEER_MIXTURE_MODEL",
+      "NSHM_CEUS_MAX_INTENSITY" })
+  public ExceedanceModel model;
+
+  @Param({ "false", "true" })
+  public boolean tables;
+
+  private XySequence curve;
+  private double[] μs;
+  private double[] σs;
+  private double[] rates;
+  private double[] xs;
+  private double[] ys;
+
+  @Setup
+  public void setup() {
+    CalcConfig config = CalcConfig.Builder.withDefaults().build();
+    curve = XySequence.copyOf(config.hazard.logModelCurves().get(Imt.PGA));
+    xs = Doubles.toArray(curve.xValues());
+    ys = new double[xs.length];
+    Random random = new Random(0);
+    μs = new double[BATCH_SIZE];
+    σs = new double[BATCH_SIZE];
+    rates = new double[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      μs[i] = -5.0 + 5.0 * random.nextDouble();
+      σs[i] = 0.5 + 0.3 * random.nextDouble();
+      rates[i] = 1e-4 * random.nextDouble();
+    }
+  }
+
+  @Benchmark
+  public XySequence exceedance() {
+    return model.exceedance(μ, σ, N, Imt.PGA, curve);
+  }
+
+  @Benchmark
+  public double[] batchExceedance() {
+    Arrays.fill(ys, 0.0);
+    if (tables) {
+      model.tableExceedance(μs, σs, rates, N, Imt.PGA, xs, ys);
+    } else {
+      model.exceedance(μs, σs, rates, N, Imt.PGA, xs, ys);
+    }
+    return ys;
+  }
+
+}
@@ -0,0 +1,70 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.calc.Transforms.InputsToGroundMotions;
+import gov.usgs.earthquake.nshmp.calc.Transforms.SourceToInputs;
+import gov.usgs.earthquake.nshmp.eq.model.FaultSource;
+import gov.usgs.earthquake.nshmp.eq.model.FaultSourceSet;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.eq.model.PeerFixtures;
+import gov.usgs.earthquake.nshmp.gmm.Gmm;
+
+/**
+ * Ground motion calculation for the inputs of the floating PEER fault source
+ * with a representative set of ground motion models.
+ *
+ * @author Peter Powers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class InputsToGroundMotionsBenchmark {
+
+  @Param({
+      "SADIGH_97",
+      "ASK_14",
+      "BSSA_14",
+      "CB_14",
+      "CY_14",
+      "NGA_EAST",
+      "ZHAO_16_SHALLOW_CRUST" })
+  public Gmm gmm;
+
+  private InputList inputs;
+  private InputsToGroundMotions function;
+
+  @Setup
+  public void setup() {
+    HazardModel model = PeerFixtures.model(PeerFixtures.FAULT_MODEL);
+    Site site = PeerFixtures.site(model, PeerFixtures.FAULT_MODEL);
+    FaultSource source = PeerFixtures.sourceSet(model, FaultSourceSet.class).iterator().next();
+    CalcConfig config = model.config();
+    inputs = new SourceToInputs(site).apply(source);
+    function = new InputsToGroundMotions(
+        config,
+        Gmm.instances(config.hazard.imts, EnumSet.of(gmm)));
+  }
+
+  @Benchmark
+  public GroundMotions inputsToGroundMotions() {
+    return function.apply(inputs);
+  }
+
+}
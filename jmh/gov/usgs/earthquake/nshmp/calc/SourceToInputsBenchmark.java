@@ -0,0 +1,52 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.calc.Transforms.SourceToInputs;
+import gov.usgs.earthquake.nshmp.eq.model.FaultSource;
+import gov.usgs.earthquake.nshmp.eq.model.FaultSourceSet;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.eq.model.PeerFixtures;
+
+/**
+ * Creation of ground motion inputs for every rupture of the floating PEER
+ * fault source.
+ *
+ * @author Peter Powers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SourceToInputsBenchmark {
+
+  private FaultSource source;
+  private SourceToInputs function;
+
+  @Setup
+  public void setup() {
+    HazardModel model = PeerFixtures.model(PeerFixtures.FAULT_MODEL);
+    Site site = PeerFixtures.site(model, PeerFixtures.FAULT_MODEL);
+    source = PeerFixtures.sourceSet(model, FaultSourceSet.class).iterator().next();
+    function = new SourceToInputs(site);
+  }
+
+  @Benchmark
+  public InputList sourceToInputs() {
+    return function.apply(source);
+  }
+
+}
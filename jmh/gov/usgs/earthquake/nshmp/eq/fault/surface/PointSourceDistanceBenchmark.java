@@ -0,0 +1,89 @@
+package gov.usgs.earthquake.nshmp.eq.fault.surface;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.CorrectionTable;
+
+/**
+ * Point source distance corrections for a typical gridded source MFD over a
+ * batch of site-to-node distances. Corrections computed per magnitude and
+ * distance with {@link RuptureScaling#pointSourceDistance(double, double)}
+ * are compared with {@link CorrectionTable} lookups using rows resolved once
+ * per magnitude.
+ *
+ * @author Peter Powers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PointSourceDistanceBenchmark {
+
+  private static final double M_MIN = 4.75;
+  private static final double M_DELTA = 0.1;
+  private static final int M_SIZE = 30;
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({
+      "NSHM_POINT_WC94_LENGTH",
+      "NSHM_SOMERVILLE" })
+  public RuptureScaling scaling;
+
+  private double[] mags;
+  private double[] distances;
+  private CorrectionTable table;
+  private int[] rows;
+
+  @Setup
+  public void setup() {
+    mags = new double[M_SIZE];
+    for (int i = 0; i < M_SIZE; i++) {
+      mags[i] = M_MIN + i * M_DELTA;
+    }
+    Random random = new Random(0);
+    distances = new double[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      distances[i] = 300.0 * random.nextDouble();
+    }
+    table = scaling.correctionTable().get();
+    rows = new int[M_SIZE];
+    for (int i = 0; i < M_SIZE; i++) {
+      rows[i] = table.row(mags[i]);
+    }
+  }
+
+  @Benchmark
+  public void pointSourceDistance(Blackhole bh) {
+    for (double r : distances) {
+      for (double m : mags) {
+        bh.consume(scaling.pointSourceDistance(m, r));
+      }
+    }
+  }
+
+  @Benchmark
+  public void correctionTable(Blackhole bh) {
+    for (double r : distances) {
+      for (int row : rows) {
+        bh.consume(table.distance(row, r));
+      }
+    }
+  }
+
+}
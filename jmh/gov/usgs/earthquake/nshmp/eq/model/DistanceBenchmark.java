@@ -0,0 +1,54 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.usgs.earthquake.nshmp.calc.Site;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+/**
+ * Distance calculations to every rupture surface of the floating PEER fault
+ * source.
+ *
+ * @author Peter Powers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DistanceBenchmark {
+
+  private List<GriddedSurface> surfaces;
+  private Location location;
+
+  @Setup
+  public void setup() {
+    HazardModel model = PeerFixtures.model(PeerFixtures.FAULT_MODEL);
+    Site site = PeerFixtures.site(model, PeerFixtures.FAULT_MODEL);
+    surfaces = PeerFixtures.faultSurfaces(model);
+    location = site.location;
+  }
+
+  @Benchmark
+  public void compute(Blackhole bh) {
+    for (GriddedSurface surface : surfaces) {
+      bh.consume(Distance.compute(surface, location));
+    }
+  }
+
+}
@@ -0,0 +1,50 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import com.google.common.base.Function;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.calc.Site;
+
+/**
+ * Initialization of an optimized {@code GridSourceSet.Table} for a grid source
+ * set synthesized from the PEER area source.
+ *
+ * @author Peter Powers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class GridTableBenchmark {
+
+  private GridSourceSet grid;
+  private Function<GridSourceSet, SourceSet<? extends Source>> optimizer;
+
+  @Setup
+  public void setup() {
+    HazardModel model = PeerFixtures.model(PeerFixtures.AREA_MODEL);
+    Site site = PeerFixtures.site(model, PeerFixtures.AREA_MODEL);
+    grid = PeerFixtures.gridSourceSet(model);
+    optimizer = GridSourceSet.optimizer(site.location);
+  }
+
+  @Benchmark
+  public SourceSet<? extends Source> tableInit() {
+    return optimizer.apply(grid);
+  }
+
+}
@@ -0,0 +1,216 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.NORMAL;
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.REVERSE;
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.STRIKE_SLIP;
+import static gov.usgs.earthquake.nshmp.eq.model.SourceType.GRID;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import gov.usgs.earthquake.nshmp.calc.Site;
+import gov.usgs.earthquake.nshmp.calc.Sites;
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.DefaultGriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
+import gov.usgs.earthquake.nshmp.geo.BorderType;
+import gov.usgs.earthquake.nshmp.geo.GriddedRegion;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.LocationList;
+import gov.usgs.earthquake.nshmp.geo.Regions;
+import gov.usgs.earthquake.nshmp.util.Maths;
+
+/**
+ * Benchmark fixtures derived from the PEER test models in
+ * {@code etc/peer/models}. The PEER models only include fault and area
+ * sources, so grid and system source sets are synthesized from PEER area and
+ * fault geometries, respectively.
+ *
+ * @author Peter Powers
+ */
+public final class PeerFixtures {
+
+  /** Single fault with floating ruptures. */
+  public static final String FAULT_MODEL = "Set1-Case2-fast";
+
+  /** Single area source. */
+  public static final String AREA_MODEL = "Set1-Case10-fast";
+
+  private static final Path MODEL_DIR = Paths.get("etc", "peer", "models");
+
+  private static final double GRID_SPACING = 0.05;
+  private static final double AREA_MFD_ΔM = 0.01;
+  private static final double GRID_MFD_ΔM = 0.1;
+  private static final double SECTION_LENGTH = 2.0;
+  private static final double SYSTEM_RATE = 1e-4;
+
+  private PeerFixtures() {}
+
+  /**
+   * Load a PEER model.
+   *
+   * @param modelId PEER model directory name
+   */
+  public static HazardModel model(String modelId) {
+    return HazardModel.load(MODEL_DIR.resolve(modelId));
+  }
+
+  /**
+   * The first site of a PEER model.
+   *
+   * @param model loaded PEER model
+   * @param modelId PEER model directory name
+   */
+  public static Site site(HazardModel model, String modelId) {
+    try {
+      Path sites = MODEL_DIR.resolve(modelId).resolve("sites.csv");
+      return Sites.fromCsv(sites, model.config()).iterator().next();
+    } catch (IOException ioe) {
+      throw new UncheckedIOException(ioe);
+    }
+  }
+
+  /**
+   * The first source set of the supplied type in a model.
+   */
+  public static <T extends SourceSet<? extends Source>> T sourceSet(
+      HazardModel model,
+      Class<T> type) {
+    return Iterables.getFirst(Iterables.filter(model, type), null);
+  }
+
+  /**
+   * All gridded rupture surfaces of the first fault source in a model.
+   */
+  public static List<GriddedSurface> faultSurfaces(HazardModel model) {
+    FaultSource fault = sourceSet(model, FaultSourceSet.class).iterator().next();
+    List<GriddedSurface> surfaces = new ArrayList<>(fault.size());
+    for (Rupture rupture : fault) {
+      surfaces.add((GriddedSurface) rupture.surface());
+    }
+    return surfaces;
+  }
+
+  /**
+   * A grid source set with nodes spaced at 0.05° over the first area source of
+   * a model. Node MFDs are the area MFD, resampled to 0.1 magnitude bins and
+   * scaled by the node count; nodes are represented as {@link PointSourceType#FINITE} sources.
+   */
+  public static GridSourceSet gridSourceSet(HazardModel model) {
+    AreaSourceSet areas = sourceSet(model, AreaSourceSet.class);
+    AreaSource area = areas.iterator().next();
+    GriddedRegion region = Regions.createGridded(
+        area.name(),
+        area.border(),
+        BorderType.MERCATOR_LINEAR,
+        GRID_SPACING,
+        GRID_SPACING,
+        null);
+
+    /*
+     * PEER area MFDs are discretized at 0.01 with bin centers that can not be
+     * represented by the magnitude master of a grid source set; resample to
+     * 0.1 magnitude bins.
+     */
+    XySequence areaMfd = area.mfds().get(0);
+    double mMin = areaMfd.min().x() - AREA_MFD_ΔM / 2.0 + GRID_MFD_ΔM / 2.0;
+    int binSize = (int) Math.round(GRID_MFD_ΔM / AREA_MFD_ΔM);
+    int binCount = areaMfd.size() / binSize;
+    double[] mags = new double[binCount];
+    double[] rates = new double[binCount];
+    for (int i = 0; i < binCount; i++) {
+      mags[i] = Maths.round(mMin + i * GRID_MFD_ΔM, 2);
+      for (int j = i * binSize; j < (i + 1) * binSize; j++) {
+        rates[i] += areaMfd.y(j) / region.size();
+      }
+    }
+    XySequence nodeMfd = XySequence.createImmutable(mags, rates);
+    double mMax = mags[binCount - 1];
+
+    NavigableMap<Double, Map<Double, Double>> depthMap = ImmutableSortedMap.of(
+        10.0, (Map<Double, Double>) ImmutableMap.of(5.0, 1.0));
+    Map<FocalMech, Double> mechMap = ImmutableMap.of(
+        STRIKE_SLIP, 1.0,
+        REVERSE, 0.0,
+        NORMAL, 0.0);
+
+    GridSourceSet.Builder builder = new GridSourceSet.Builder();
+    builder.name(area.name() + " (grid)")
+        .id(area.id())
+        .weight(areas.weight())
+        .gmms(areas.groundMotionModels());
+    builder.depthMap(depthMap, GRID)
+        .maxDepth(30.0, GRID)
+        .mechs(mechMap)
+        .ruptureScaling(RuptureScaling.PEER)
+        .strike(Double.NaN)
+        .sourceType(PointSourceType.FINITE)
+        .mfdData(mags[0], mMax, GRID_MFD_ΔM);
+    for (Location loc : region) {
+      builder.location(loc, nodeMfd);
+    }
+    return builder.build();
+  }
+
+  /**
+   * A system source set built by dividing the first fault source of a model
+   * into roughly 2 km long sections and creating a rupture for every
+   * contiguous run of two or more sections.
+   */
+  public static SystemSourceSet systemSourceSet(HazardModel model) {
+    FaultSourceSet faults = sourceSet(model, FaultSourceSet.class);
+    FaultSource fault = faults.iterator().next();
+
+    List<GriddedSurface> sections = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    for (LocationList trace : fault.trace.partition(SECTION_LENGTH)) {
+      sections.add(DefaultGriddedSurface.builder()
+          .trace(trace)
+          .depth(fault.surface.depth())
+          .dip(fault.dip)
+          .width(fault.width)
+          .spacing(fault.spacing)
+          .build());
+      names.add(fault.name() + " [" + names.size() + "]");
+    }
+
+    SystemSourceSet.Builder builder = new SystemSourceSet.Builder();
+    builder.name(fault.name() + " (system)")
+        .id(fault.id())
+        .weight(faults.weight())
+        .gmms(faults.groundMotionModels());
+    builder.sections(sections)
+        .sectionNames(names);
+
+    for (int start = 0; start < sections.size() - 1; start++) {
+      for (int end = start + 2; end <= sections.size(); end++) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+          indices.add(i);
+        }
+        double area = (end - start) * SECTION_LENGTH * fault.width;
+        builder.indices(indices)
+            .mag(4.07 + 0.98 * Math.log10(area))
+            .rate(SYSTEM_RATE)
+            .depth(fault.surface.depth())
+            .dip(fault.dip)
+            .width(fault.width)
+            .rake(fault.rake);
+      }
+    }
+    return builder.build();
+  }
+
+}
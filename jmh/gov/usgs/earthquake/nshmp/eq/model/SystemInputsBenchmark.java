@@ -0,0 +1,51 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import com.google.common.base.Function;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.earthquake.nshmp.calc.InputList;
+import gov.usgs.earthquake.nshmp.calc.Site;
+
+/**
+ * Creation of ground motion inputs for a system source set synthesized from
+ * the PEER fault source.
+ *
+ * @author Peter Powers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SystemInputsBenchmark {
+
+  private SystemSourceSet system;
+  private Function<SystemSourceSet, InputList> function;
+
+  @Setup
+  public void setup() {
+    HazardModel model = PeerFixtures.model(PeerFixtures.FAULT_MODEL);
+    Site site = PeerFixtures.site(model, PeerFixtures.FAULT_MODEL);
+    system = PeerFixtures.systemSourceSet(model);
+    function = SystemSourceSet.toInputsFunction(site);
+  }
+
+  @Benchmark
+  public InputList toInputs() {
+    return function.apply(system);
+  }
+
+}
@@ -1,7 +1,6 @@
 package gov.usgs.earthquake.nshmp;
 
 import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
-import static java.util.concurrent.Executors.newFixedThreadPool;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
@@ -11,9 +10,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
 
@@ -27,6 +26,8 @@ import gov.usgs.earthquake.nshmp.calc.Sites;
 import gov.usgs.earthquake.nshmp.calc.ThreadCount;
 import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
 import gov.usgs.earthquake.nshmp.internal.Logging;
+import gov.usgs.earthquake.nshmp.internal.Parsing;
+import gov.usgs.earthquake.nshmp.internal.Parsing.Delimiter;
 
 /**
  * Deaggregate probabilisitic seismic hazard.
@@ -40,7 +41,9 @@ public class DeaggCalc {
    * 
    * <p>Deaggregating siesmic hazard is largeley identical to a hazard
    * calculation except that a return period (in years) must be supplied as an
-   * additional argument after the 'site(s)' argument. See the
+   * additional argument after the 'site(s)' argument. Several comma-delimited
+   * return periods may be supplied, in which case hazard is computed once and
+   * deaggregated at all return periods in a single pass. See the
    * {@link HazardCalc#main(String[]) HazardCalc program} for more information
    * on required parameters.
    * 
@@ -98,9 +101,9 @@ public class DeaggCalc {
       Sites sites = HazardCalc.readSites(args[1], config, log);
       log.info("Sites: " + sites);
 
-      double returnPeriod = Double.valueOf(args[2]);
+      List<Double> returnPeriods = Parsing.splitToDoubleList(args[2], Delimiter.COMMA);
 
-      Path out = calc(model, config, sites, returnPeriod, log);
+      Path out = calc(model, config, sites, returnPeriods, log);
       log.info(PROGRAM + ": finished");
 
       /* Transfer log and write config, windows requires fh.close() */
@@ -133,14 +136,14 @@ public class DeaggCalc {
       HazardModel model,
       CalcConfig config,
       Sites sites,
-      double returnPeriod,
+      List<Double> returnPeriods,
       Logger log) throws IOException {
 
     ExecutorService execSvc = null;
     ThreadCount threadCount = config.performance.threadCount;
     if (threadCount != ThreadCount.ONE) {
-      execSvc = newFixedThreadPool(threadCount.value());
-      log.info("Threads: " + ((ThreadPoolExecutor) execSvc).getCorePoolSize());
+      execSvc = config.performance.executorType.create(threadCount);
+      log.info("Threads: " + threadCount.value());
     } else {
       log.info("Threads: Running on calling thread");
     }
@@ -152,8 +155,8 @@ public class DeaggCalc {
 
     for (Site site : sites) {
       Hazard hazard = HazardCalc.calc(model, config, site, executor);
-      Deaggregation deagg = calc(hazard, returnPeriod);
-      handler.add(hazard, Optional.of(deagg));
+      List<Deaggregation> deaggs = calc(hazard, returnPeriods, executor);
+      handler.add(hazard, deaggs);
       log.fine(hazard.toString());
     }
     handler.expire();
@@ -189,9 +192,45 @@ public class DeaggCalc {
     return HazardCalcs.deaggregation(hazard, returnPeriod);
   }
 
+  /**
+   * Deaggregate probabilistic seismic hazard at several return periods (in
+   * years). All return periods are deaggregated in a single pass over the
+   * ground motions retained in the supplied {@code hazard}.
+   *
+   * @param returnPeriods at which to deaggregate
+   * @return a {@code Deaggregation} for each return period, in the order
+   *         supplied
+   * @see #calc(Hazard, double)
+   */
+  public static List<Deaggregation> calc(
+      Hazard hazard,
+      List<Double> returnPeriods) {
+    return HazardCalcs.deaggregations(hazard, returnPeriods);
+  }
+
+  /**
+   * Deaggregate probabilistic seismic hazard at several return periods (in
+   * years), possibly using an {@link Optional} {@link Executor}. If an executor
+   * is supplied, the source sets contributing at each {@code Imt} are
+   * deaggregated concurrently; otherwise deaggregation runs on the current
+   * thread.
+   *
+   * @param returnPeriods at which to deaggregate
+   * @param ex optional {@code Executor} to use in deaggregation
+   * @return a {@code Deaggregation} for each return period, in the order
+   *         supplied
+   * @see #calc(Hazard, List)
+   */
+  public static List<Deaggregation> calc(
+      Hazard hazard,
+      List<Double> returnPeriods,
+      Optional<Executor> ex) {
+    return HazardCalcs.deaggregations(hazard, returnPeriods, ex);
+  }
+
   private static final String PROGRAM = DeaggCalc.class.getSimpleName();
   private static final String USAGE_COMMAND =
-      "java -cp nshmp-haz.jar gov.usgs.earthquake.nshmp.DeaggCalc model sites returnPeriod [config]";
+      "java -cp nshmp-haz.jar gov.usgs.earthquake.nshmp.DeaggCalc model sites returnPeriod(s) [config]";
   private static final String USAGE_URL1 = "https://github.com/usgs/nshmp-haz/wiki";
   private static final String USAGE_URL2 = "https://github.com/usgs/nshmp-haz/tree/master/etc";
   private static final String SITE_STRING = "name,lon,lat[,vs30,vsInf[,z1p0,z2p5]]";
@@ -220,6 +259,8 @@ public class DeaggCalc {
       .append(NEWLINE)
       .append("     - e.g. one might enter 2475 to represent a 2% in 50 year probability")
       .append(NEWLINE)
+      .append("     - several comma-delimited values, e.g. 475,2475,10000, may be entered")
+      .append(NEWLINE)
       .append("  'config' (optional) supplies a calculation configuration")
       .append(NEWLINE)
       .append(NEWLINE)
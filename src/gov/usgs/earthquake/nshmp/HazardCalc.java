@@ -5,24 +5,33 @@ import static java.util.concurrent.Executors.newFixedThreadPool;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Sets;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Future;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
 
 import gov.usgs.earthquake.nshmp.calc.CalcConfig;
+import gov.usgs.earthquake.nshmp.calc.DataType;
 import gov.usgs.earthquake.nshmp.calc.Deaggregation;
 import gov.usgs.earthquake.nshmp.calc.Hazard;
 import gov.usgs.earthquake.nshmp.calc.HazardCalcs;
@@ -153,7 +162,9 @@ public class HazardCalc {
 
   /*
    * Compute hazard curves using the supplied model, config, and sites. Method
-   * returns the path to the directory where results were written.
+   * returns the path to the directory where results were written. The growth
+   * in peak heap use over that at the start of the calculation is logged on
+   * completion.
    */
   private static Path calc(
       HazardModel model,
@@ -164,8 +175,8 @@ public class HazardCalc {
     ExecutorService execSvc = null;
     ThreadCount threadCount = config.performance.threadCount;
     if (threadCount != ThreadCount.ONE) {
-      execSvc = newFixedThreadPool(threadCount.value());
-      log.info("Threads: " + ((ThreadPoolExecutor) execSvc).getCorePoolSize());
+      execSvc = config.performance.executorType.create(threadCount);
+      log.info("Threads: " + threadCount.value());
     } else {
       log.info("Threads: Running on calling thread");
     }
@@ -173,17 +184,30 @@ public class HazardCalc {
 
     log.info(PROGRAM + ": calculating ...");
 
+    final boolean curvesOnly = curvesOnly(config, false);
+    long baseHeap = resetPeakHeap();
     HazardExport handler = HazardExport.create(config, sites, log);
-    for (Site site : sites) {
-      Hazard hazard = calc(model, config, site, executor);
-      handler.add(hazard, Optional.<Deaggregation> absent());
-      log.fine(hazard.toString());
+    int siteConcurrency = config.performance.siteConcurrency;
+    if (executor.isPresent() && siteConcurrency > 1) {
+      log.info("Site concurrency: " + siteConcurrency);
+      calcConcurrent(model, config, sites, executor.get(), siteConcurrency, curvesOnly,
+          handler, log);
+    } else {
+      for (Site site : sites) {
+        Hazard hazard = calc(model, config, site, executor, curvesOnly);
+        handler.add(hazard, Optional.<Deaggregation> absent());
+        log.fine(hazard.toString());
+      }
     }
     handler.expire();
 
     log.info(String.format(
         PROGRAM + ": %s sites completed in %s",
         handler.resultsProcessed(), handler.elapsedTime()));
+    log.info(String.format(
+        PROGRAM + ": peak heap growth %.1f MB%s",
+        (peakHeap() - baseHeap) / 1048576.0,
+        curvesOnly ? " (curve-only mode)" : ""));
 
     if (threadCount != ThreadCount.ONE) {
       execSvc.shutdown();
@@ -191,6 +215,95 @@ public class HazardCalc {
     return handler.outputDir();
   }
 
+  /*
+   * Compute hazard curves at up to 'concurrency' sites at a time. Each site is
+   * coordinated on a thread of a dedicated pool that may block waiting on the
+   * source set tasks it submits to the shared calculation executor. Pending
+   * results are held in submission order and exported from the head of the
+   * queue; when the queue is full, no further sites are submitted until the
+   * oldest result has been handed off, which bounds memory use and preserves
+   * site order in output files.
+   */
+  private static void calcConcurrent(
+      final HazardModel model,
+      final CalcConfig config,
+      Sites sites,
+      Executor executor,
+      int concurrency,
+      final boolean curvesOnly,
+      HazardExport handler,
+      Logger log) throws IOException {
+
+    final Optional<Executor> calcExecutor = Optional.of(executor);
+    ExecutorService siteSvc = newFixedThreadPool(concurrency);
+    Deque<Future<Hazard>> pending = new ArrayDeque<>(concurrency);
+    try {
+      for (final Site site : sites) {
+        if (pending.size() == concurrency) {
+          exportNext(pending, handler, log);
+        }
+        pending.add(siteSvc.submit(new Callable<Hazard>() {
+          @Override
+          public Hazard call() {
+            return calc(model, config, site, calcExecutor, curvesOnly);
+          }
+        }));
+      }
+      while (!pending.isEmpty()) {
+        exportNext(pending, handler, log);
+      }
+    } finally {
+      siteSvc.shutdownNow();
+    }
+  }
+
+  /* Wait on and export the oldest pending site result. */
+  private static void exportNext(
+      Deque<Future<Hazard>> pending,
+      HazardExport handler,
+      Logger log) throws IOException {
+
+    try {
+      Hazard hazard = pending.remove().get();
+      handler.add(hazard, Optional.<Deaggregation> absent());
+      log.fine(hazard.toString());
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  /*
+   * Reset the peak usage of all heap memory pools, returning the current heap
+   * use as a baseline against which to measure growth.
+   */
+  private static long resetPeakHeap() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+        used += pool.getUsage().getUsed();
+      }
+    }
+    return used;
+  }
+
+  /*
+   * Sum of the peak usage of all heap memory pools; this is an upper bound on
+   * the actual peak heap use as pools need not peak simultaneously.
+   */
+  private static long peakHeap() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
   static final String TMP_LOG = "nshmp-haz-log";
 
   static Path createTempLog() {
@@ -225,13 +338,54 @@ public class HazardCalc {
       CalcConfig config,
       Site site,
       Optional<Executor> executor) {
+    return calc(model, config, site, executor, false);
+  }
+
+  /*
+   * Compute hazard, discarding the ground motions otherwise retained for
+   * deaggregation if 'curvesOnly' is true.
+   */
+  static Hazard calc(
+      HazardModel model,
+      CalcConfig config,
+      Site site,
+      Optional<Executor> executor,
+      boolean curvesOnly) {
     try {
-      return HazardCalcs.hazard(model, config, site, executor);
-    } catch (ExecutionException | InterruptedException e) {
+      return curvesOnly
+          ? HazardCalcs.hazardCurves(model, config, site, executor)
+          : HazardCalcs.hazard(model, config, site, executor);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new RuntimeException(e);
     }
   }
 
+  /*
+   * Whether hazard may be computed in curve-only mode. Retained ground motions
+   * are only required to deaggregate a result; none of the output data types
+   * of HazardExport (total, Gmm, source type, and binary curves) require them.
+   */
+  static boolean curvesOnly(CalcConfig config, boolean deaggregate) {
+    if (deaggregate) {
+      return false;
+    }
+    for (DataType type : config.output.dataTypes) {
+      if (!CURVE_DATA_TYPES.contains(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static final Set<DataType> CURVE_DATA_TYPES = Sets.immutableEnumSet(
+      DataType.TOTAL,
+      DataType.GMM,
+      DataType.SOURCE,
+      DataType.BINARY);
+
   /**
    * The Git application version. This version string applies to all other
    * nshnmp-haz applications.
@@ -1,7 +1,6 @@
 package gov.usgs.earthquake.nshmp;
 
 import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
-import static java.util.concurrent.Executors.newFixedThreadPool;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
@@ -20,7 +19,6 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
 
@@ -149,9 +147,9 @@ public class RateCalc {
     ThreadCount threadCount = config.performance.threadCount;
     EqRateExport export = null;
     if (threadCount != ThreadCount.ONE) {
-      ExecutorService poolExecutor = newFixedThreadPool(threadCount.value());
+      ExecutorService poolExecutor = config.performance.executorType.create(threadCount);
       ListeningExecutorService executor = MoreExecutors.listeningDecorator(poolExecutor);
-      log.info("Threads: " + ((ThreadPoolExecutor) poolExecutor).getCorePoolSize());
+      log.info("Threads: " + threadCount.value());
       log.info(PROGRAM + ": calculating ...");
       export = concurrentCalc(model, config, sites, log, executor);
       executor.shutdown();
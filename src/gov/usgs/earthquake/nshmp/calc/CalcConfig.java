@@ -2,6 +2,7 @@ package gov.usgs.earthquake.nshmp.calc;
 
 import static com.google.common.base.CaseFormat.LOWER_CAMEL;
 import static com.google.common.base.CaseFormat.UPPER_UNDERSCORE;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.padEnd;
@@ -993,16 +994,142 @@ public final class CalcConfig {
      */
     public final ThreadCount threadCount;
 
+    /**
+     * The type of executor to use when distributing calculations.
+     *
+     * <p><b>Default:</b> {@link ExecutorType#FIXED_POOL}
+     */
+    public final ExecutorType executorType;
+
+    /**
+     * The maximum number of sites for which calculations may be in progress at
+     * any one time in a map (multi-site) calculation. A value of {@code 1}
+     * processes sites one at a time and only distributes work within a site.
+     * Larger values keep up to this many sites in flight, which improves
+     * processor utilization when per-site calculations are small. Results are
+     * always exported in site order, and the number of completed but unexported
+     * results held in memory never exceeds this value. Ignored when
+     * {@link #threadCount} is {@link ThreadCount#ONE}.
+     *
+     * <p><b>Default:</b> {@code 1}
+     */
+    public final int siteConcurrency;
+
+    /**
+     * Whether to merge the ground motion inputs of each source whose rupture
+     * properties are identical, or nearly so, prior to ground motion
+     * calculations, or not. Merged inputs have the summed rates of all inputs
+     * merged and the rate weighted mean of each property that is binned at a
+     * non-zero tolerance. The numbers of inputs collapsed for each source set
+     * are logged at level {@code FINE}. Inputs of {@link SourceType#SYSTEM}
+     * sources are never collapsed.
+     *
+     * <p>Inputs are only collapsed when hazard curves alone are computed.
+     * Hazard that may be deaggregated retains the original inputs because
+     * merged magnitudes and distances would move contributions between the
+     * bins of a deaggregation.
+     *
+     * <p><b>Default:</b> {@code false}
+     */
+    public final boolean collapseInputs;
+
+    /**
+     * The magnitude tolerance used to identify inputs that may be merged when
+     * {@link #collapseInputs} is {@code true}. Rupture magnitudes are binned at
+     * this interval. Inputs that fall in the same bin for every property are
+     * merged (see also {@link #collapseDistanceTolerance} and
+     * {@link #collapseAngleTolerance}). A value of {@code 0.0} only merges
+     * inputs with identical magnitudes.
+     *
+     * <p><b>Default:</b> {@code 0.0}
+     */
+    public final double collapseMagTolerance;
+
+    /**
+     * The distance tolerance, in km, used to identify inputs that may be merged
+     * when {@link #collapseInputs} is {@code true}. Rupture distances (rJB,
+     * rRup, and rX), widths, and depths (zTop and zHyp) are binned at this
+     * interval. A value of {@code 0.0} only merges inputs with identical
+     * distances, widths, and depths.
+     *
+     * <p><b>Default:</b> {@code 0.0}
+     */
+    public final double collapseDistanceTolerance;
+
+    /**
+     * The angle tolerance, in degrees, used to identify inputs that may be
+     * merged when {@link #collapseInputs} is {@code true}. Rupture dips and
+     * rakes are binned at this interval. A value of {@code 0.0} only merges
+     * inputs with identical dips and rakes. If all three tolerances are
+     * {@code 0.0}, only inputs with identical properties are merged and hazard
+     * results are unchanged.
+     *
+     * <p><b>Default:</b> {@code 0.0}
+     */
+    public final double collapseAngleTolerance;
+
+    /**
+     * Whether to compute hazard curve exceedances using compact, interpolated
+     * lookup tables of the complementary cumulative normal distribution, or
+     * not. Tables are built once per truncation level and are shared by all
+     * calculations. Table lookups are faster than direct evaluation of the
+     * error function, but results differ slightly (by less than 2.5 ×
+     * 10<sup>-7</sup> in probability for truncation levels of 0.5σ and
+     * greater). Deaggregation always uses direct evaluation.
+     *
+     * <p><b>Default:</b> {@code false}
+     */
+    public final boolean exceedanceTables;
+
+    /**
+     * Whether to retain and reuse the magnitude-distance rate tables built when
+     * {@link #optimizeGrids} is {@code true}, or not. Tables are keyed on site
+     * location snapped to {@link #gridTableResolution}.
+     *
+     * <p><b>Default:</b> {@code false}
+     */
+    public final boolean gridTableCache;
+
+    /**
+     * The resolution, in decimal degrees, at which site locations are snapped
+     * when reusing grid rate tables (see {@link #gridTableCache}). A value of
+     * {@code 0.0} only reuses tables for identical site locations, in which case
+     * hazard results are unchanged. Values larger than the spacing of map sites
+     * allow neighboring sites to share tables at the cost of grid node
+     * distances being in error by up to half the resolution.
+     *
+     * <p><b>Default:</b> {@code 0.0}
+     */
+    public final double gridTableResolution;
+
     private Performance(
         boolean optimizeGrids,
         boolean collapseMfds,
         int systemPartition,
-        ThreadCount threadCount) {
+        ThreadCount threadCount,
+        ExecutorType executorType,
+        int siteConcurrency,
+        boolean collapseInputs,
+        double collapseMagTolerance,
+        double collapseDistanceTolerance,
+        double collapseAngleTolerance,
+        boolean exceedanceTables,
+        boolean gridTableCache,
+        double gridTableResolution) {
 
       this.optimizeGrids = optimizeGrids;
       this.collapseMfds = collapseMfds;
       this.systemPartition = systemPartition;
       this.threadCount = threadCount;
+      this.executorType = executorType;
+      this.siteConcurrency = siteConcurrency;
+      this.collapseInputs = collapseInputs;
+      this.collapseMagTolerance = collapseMagTolerance;
+      this.collapseDistanceTolerance = collapseDistanceTolerance;
+      this.collapseAngleTolerance = collapseAngleTolerance;
+      this.exceedanceTables = exceedanceTables;
+      this.gridTableCache = gridTableCache;
+      this.gridTableResolution = gridTableResolution;
     }
 
     private StringBuilder asString() {
@@ -1011,7 +1138,16 @@ public final class CalcConfig {
           .append(formatEntry(Key.OPTIMIZE_GRIDS, optimizeGrids))
           .append(formatEntry(Key.COLLAPSE_MFDS, collapseMfds))
           .append(formatEntry(Key.SYSTEM_PARTITION, systemPartition))
-          .append(formatEntry(Key.THREAD_COUNT, threadCount.name()));
+          .append(formatEntry(Key.THREAD_COUNT, threadCount.name()))
+          .append(formatEntry(Key.EXECUTOR_TYPE, executorType.name()))
+          .append(formatEntry(Key.SITE_CONCURRENCY, siteConcurrency))
+          .append(formatEntry(Key.COLLAPSE_INPUTS, collapseInputs))
+          .append(formatEntry(Key.COLLAPSE_MAG_TOLERANCE, collapseMagTolerance))
+          .append(formatEntry(Key.COLLAPSE_DISTANCE_TOLERANCE, collapseDistanceTolerance))
+          .append(formatEntry(Key.COLLAPSE_ANGLE_TOLERANCE, collapseAngleTolerance))
+          .append(formatEntry(Key.EXCEEDANCE_TABLES, exceedanceTables))
+          .append(formatEntry(Key.GRID_TABLE_CACHE, gridTableCache))
+          .append(formatEntry(Key.GRID_TABLE_RESOLUTION, gridTableResolution));
     }
 
     private static final class Builder {
@@ -1020,13 +1156,31 @@ public final class CalcConfig {
       Boolean collapseMfds;
       Integer systemPartition;
       ThreadCount threadCount;
+      ExecutorType executorType;
+      Integer siteConcurrency;
+      Boolean collapseInputs;
+      Double collapseMagTolerance;
+      Double collapseDistanceTolerance;
+      Double collapseAngleTolerance;
+      Boolean exceedanceTables;
+      Boolean gridTableCache;
+      Double gridTableResolution;
 
       Performance build() {
         return new Performance(
             optimizeGrids,
             collapseMfds,
             systemPartition,
-            threadCount);
+            threadCount,
+            executorType,
+            siteConcurrency,
+            collapseInputs,
+            collapseMagTolerance,
+            collapseDistanceTolerance,
+            collapseAngleTolerance,
+            exceedanceTables,
+            gridTableCache,
+            gridTableResolution);
       }
 
       void copy(Performance that) {
@@ -1034,6 +1188,15 @@ public final class CalcConfig {
         this.collapseMfds = that.collapseMfds;
         this.systemPartition = that.systemPartition;
         this.threadCount = that.threadCount;
+        this.executorType = that.executorType;
+        this.siteConcurrency = that.siteConcurrency;
+        this.collapseInputs = that.collapseInputs;
+        this.collapseMagTolerance = that.collapseMagTolerance;
+        this.collapseDistanceTolerance = that.collapseDistanceTolerance;
+        this.collapseAngleTolerance = that.collapseAngleTolerance;
+        this.exceedanceTables = that.exceedanceTables;
+        this.gridTableCache = that.gridTableCache;
+        this.gridTableResolution = that.gridTableResolution;
       }
 
       void extend(Builder that) {
@@ -1049,6 +1212,33 @@ public final class CalcConfig {
         if (that.threadCount != null) {
           this.threadCount = that.threadCount;
         }
+        if (that.executorType != null) {
+          this.executorType = that.executorType;
+        }
+        if (that.siteConcurrency != null) {
+          this.siteConcurrency = that.siteConcurrency;
+        }
+        if (that.collapseInputs != null) {
+          this.collapseInputs = that.collapseInputs;
+        }
+        if (that.collapseMagTolerance != null) {
+          this.collapseMagTolerance = that.collapseMagTolerance;
+        }
+        if (that.collapseDistanceTolerance != null) {
+          this.collapseDistanceTolerance = that.collapseDistanceTolerance;
+        }
+        if (that.collapseAngleTolerance != null) {
+          this.collapseAngleTolerance = that.collapseAngleTolerance;
+        }
+        if (that.exceedanceTables != null) {
+          this.exceedanceTables = that.exceedanceTables;
+        }
+        if (that.gridTableCache != null) {
+          this.gridTableCache = that.gridTableCache;
+        }
+        if (that.gridTableResolution != null) {
+          this.gridTableResolution = that.gridTableResolution;
+        }
       }
 
       static Builder defaults() {
@@ -1057,6 +1247,15 @@ public final class CalcConfig {
         b.collapseMfds = true;
         b.systemPartition = 1000;
         b.threadCount = ThreadCount.ALL;
+        b.executorType = ExecutorType.FIXED_POOL;
+        b.siteConcurrency = 1;
+        b.collapseInputs = false;
+        b.collapseMagTolerance = 0.0;
+        b.collapseDistanceTolerance = 0.0;
+        b.collapseAngleTolerance = 0.0;
+        b.exceedanceTables = false;
+        b.gridTableCache = false;
+        b.gridTableResolution = 0.0;
         return b;
       }
 
@@ -1065,6 +1264,31 @@ public final class CalcConfig {
         checkNotNull(collapseMfds, STATE_ERROR, Performance.ID, Key.COLLAPSE_MFDS);
         checkNotNull(systemPartition, STATE_ERROR, Performance.ID, Key.SYSTEM_PARTITION);
         checkNotNull(threadCount, STATE_ERROR, Performance.ID, Key.THREAD_COUNT);
+        checkNotNull(executorType, STATE_ERROR, Performance.ID, Key.EXECUTOR_TYPE);
+        checkNotNull(siteConcurrency, STATE_ERROR, Performance.ID, Key.SITE_CONCURRENCY);
+        checkArgument(
+            siteConcurrency > 0,
+            "%s.%s [%s] must be greater than 0",
+            Performance.ID, Key.SITE_CONCURRENCY, siteConcurrency);
+        checkNotNull(collapseInputs, STATE_ERROR, Performance.ID, Key.COLLAPSE_INPUTS);
+        checkTolerance(collapseMagTolerance, Key.COLLAPSE_MAG_TOLERANCE);
+        checkTolerance(collapseDistanceTolerance, Key.COLLAPSE_DISTANCE_TOLERANCE);
+        checkTolerance(collapseAngleTolerance, Key.COLLAPSE_ANGLE_TOLERANCE);
+        checkNotNull(exceedanceTables, STATE_ERROR, Performance.ID, Key.EXCEEDANCE_TABLES);
+        checkNotNull(gridTableCache, STATE_ERROR, Performance.ID, Key.GRID_TABLE_CACHE);
+        checkNotNull(gridTableResolution, STATE_ERROR, Performance.ID, Key.GRID_TABLE_RESOLUTION);
+        checkArgument(
+            gridTableResolution >= 0.0,
+            "%s.%s [%s] must be greater than or equal to 0",
+            Performance.ID, Key.GRID_TABLE_RESOLUTION, gridTableResolution);
+      }
+
+      private static void checkTolerance(Double tolerance, Key key) {
+        checkNotNull(tolerance, STATE_ERROR, Performance.ID, key);
+        checkArgument(
+            tolerance >= 0.0,
+            "%s.%s [%s] must be greater than or equal to 0",
+            Performance.ID, key, tolerance);
       }
     }
   }
@@ -1092,6 +1316,15 @@ public final class CalcConfig {
     COLLAPSE_MFDS,
     SYSTEM_PARTITION,
     THREAD_COUNT,
+    EXECUTOR_TYPE,
+    SITE_CONCURRENCY,
+    COLLAPSE_INPUTS,
+    COLLAPSE_MAG_TOLERANCE,
+    COLLAPSE_DISTANCE_TOLERANCE,
+    COLLAPSE_ANGLE_TOLERANCE,
+    EXCEEDANCE_TABLES,
+    GRID_TABLE_CACHE,
+    GRID_TABLE_RESOLUTION,
     /* output */
     DIRECTORY,
     DATA_TYPES,
@@ -3,6 +3,7 @@ package gov.usgs.earthquake.nshmp.calc;
 import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.Futures.transformAsync;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -41,9 +42,10 @@ final class CalcFactory {
   static HazardCurveSet sourcesToCurves(
       SourceSet<? extends Source> sources,
       CalcConfig config,
-      Site site) {
+      Site site,
+      boolean curvesOnly) {
 
-    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, site);
+    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, site, curvesOnly);
     List<HazardCurves> curvesList = new ArrayList<>();
     for (Source source : sources.iterableForLocation(site.location)) {
       curvesList.add(sourceToCurves.apply(source));
@@ -57,9 +59,10 @@ final class CalcFactory {
       SourceSet<? extends Source> sources,
       CalcConfig config,
       Site site,
+      boolean curvesOnly,
       Executor ex) {
 
-    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, site);
+    SourceToCurves sourceToCurves = new SourceToCurves(sources, config, site, curvesOnly);
     AsyncList<HazardCurves> curvesList = AsyncList.create();
     for (Source source : sources.iterableForLocation(site.location)) {
       ListenableFuture<HazardCurves> curves = transform(
@@ -90,7 +93,7 @@ final class CalcFactory {
       Site site,
       final Executor ex) {
 
-    return transform(
+    return transformAsync(
         immediateFuture(sources),
         new ParallelSystemToCurves(site, config, ex),
         ex);
@@ -138,9 +141,10 @@ final class CalcFactory {
       HazardModel model,
       CalcConfig config,
       Site site,
-      List<HazardCurveSet> curveSets) {
+      List<HazardCurveSet> curveSets,
+      boolean curvesOnly) {
 
-    return new CurveSetConsolidator(model, config, site).apply(curveSets);
+    return new CurveSetConsolidator(model, config, site, curvesOnly).apply(curveSets);
   }
 
   /* Asynchronously reduce hazard curves to a result. */
@@ -149,11 +153,12 @@ final class CalcFactory {
       CalcConfig config,
       Site site,
       AsyncList<HazardCurveSet> curveSets,
+      boolean curvesOnly,
       Executor ex) throws InterruptedException, ExecutionException {
 
     return transform(
         allAsList(curveSets),
-        new CurveSetConsolidator(model, config, site), ex).get();
+        new CurveSetConsolidator(model, config, site, curvesOnly), ex).get();
   }
 
 }
@@ -0,0 +1,282 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static gov.usgs.earthquake.nshmp.eq.model.PointSourceType.FIXED_STRIKE;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import gov.usgs.earthquake.nshmp.calc.Transforms.ClusterCurveConsolidator;
+import gov.usgs.earthquake.nshmp.calc.Transforms.ClusterToCurves;
+import gov.usgs.earthquake.nshmp.calc.Transforms.CurveConsolidator;
+import gov.usgs.earthquake.nshmp.calc.Transforms.CurveSetConsolidator;
+import gov.usgs.earthquake.nshmp.calc.Transforms.InputsToCurves;
+import gov.usgs.earthquake.nshmp.calc.Transforms.SourceToCurves;
+import gov.usgs.earthquake.nshmp.eq.model.ClusterSource;
+import gov.usgs.earthquake.nshmp.eq.model.ClusterSourceSet;
+import gov.usgs.earthquake.nshmp.eq.model.FaultSource;
+import gov.usgs.earthquake.nshmp.eq.model.GridSourceSet;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.eq.model.SourceSet;
+import gov.usgs.earthquake.nshmp.eq.model.SystemSourceSet;
+
+/**
+ * Hazard calculation tasks for execution in a {@link ForkJoinPool}. These tasks
+ * compose the same {@link Transforms} used by {@link CalcFactory}, but rather
+ * than submitting one future per source, each source set is recursively split
+ * into chunks of roughly equal estimated rupture count that idle workers may
+ * steal.
+ *
+ * @author Peter Powers
+ * @see ExecutorType#FORK_JOIN
+ */
+final class CalcTasks {
+
+  /*
+   * Developer notes:
+   *
+   * The leaf size of a split is derived from the total estimated rupture count
+   * of a source set and the parallelism of the pool such that each worker
+   * receives several leaves to balance uneven source costs; it is never
+   * smaller than MIN_LEAF_WEIGHT so that tiny source sets are not shattered.
+   * Results are written to fixed slots of a shared array, preserving source
+   * order so consolidated curves match those of the CalcFactory pipeline.
+   */
+
+  private static final int MIN_LEAF_WEIGHT = 256;
+  private static final int LEAVES_PER_THREAD = 8;
+
+  private CalcTasks() {}
+
+  /* Compute hazard in the supplied pool. */
+  static Hazard hazard(
+      HazardModel model,
+      CalcConfig config,
+      Site site,
+      boolean curvesOnly,
+      ForkJoinPool pool) {
+
+    return pool.invoke(new HazardTask(model, config, site, curvesOnly));
+  }
+
+  /*
+   * HazardModel --> Hazard
+   */
+  private static final class HazardTask extends RecursiveTask<Hazard> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HazardModel model;
+    private final CalcConfig config;
+    private final Site site;
+    private final boolean curvesOnly;
+
+    HazardTask(HazardModel model, CalcConfig config, Site site, boolean curvesOnly) {
+      this.model = model;
+      this.config = config;
+      this.site = site;
+      this.curvesOnly = curvesOnly;
+    }
+
+    @Override
+    protected Hazard compute() {
+      List<SourceSetTask> tasks = new ArrayList<>(model.size());
+      for (SourceSet<? extends Source> sourceSet : model) {
+        tasks.add(new SourceSetTask(sourceSet, config, site, curvesOnly));
+      }
+      invokeAll(tasks);
+      List<HazardCurveSet> curveSets = new ArrayList<>(tasks.size());
+      for (SourceSetTask task : tasks) {
+        curveSets.add(task.join());
+      }
+      return new CurveSetConsolidator(model, config, site, curvesOnly).apply(curveSets);
+    }
+  }
+
+  /*
+   * SourceSet --> HazardCurveSet
+   */
+  private static final class SourceSetTask extends RecursiveTask<HazardCurveSet> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SourceSet<? extends Source> sourceSet;
+    private final CalcConfig config;
+    private final Site site;
+    private final boolean curvesOnly;
+
+    SourceSetTask(
+        SourceSet<? extends Source> sourceSet,
+        CalcConfig config,
+        Site site,
+        boolean curvesOnly) {
+
+      this.sourceSet = sourceSet;
+      this.config = config;
+      this.site = site;
+      this.curvesOnly = curvesOnly;
+    }
+
+    @Override
+    protected HazardCurveSet compute() {
+      switch (sourceSet.type()) {
+
+        case GRID:
+          GridSourceSet gss = (GridSourceSet) sourceSet;
+          if (config.performance.optimizeGrids && gss.sourceType() != FIXED_STRIKE &&
+              gss.optimizable()) {
+            return sourcesToCurves(HazardCalcs.gridOptimizer(config, site).apply(gss));
+          }
+          return sourcesToCurves(sourceSet);
+
+        case CLUSTER:
+          return clustersToCurves((ClusterSourceSet) sourceSet);
+
+        case SYSTEM:
+          return systemToCurves((SystemSourceSet) sourceSet);
+
+        default:
+          return sourcesToCurves(sourceSet);
+      }
+    }
+
+    private HazardCurveSet sourcesToCurves(SourceSet<? extends Source> sources) {
+      List<Source> sourceList = Lists.<Source> newArrayList(
+          sources.iterableForLocation(site.location));
+      int[] weights = new int[sourceList.size()];
+      for (int i = 0; i < weights.length; i++) {
+        weights[i] = sourceList.get(i).size();
+      }
+      List<HazardCurves> curvesList = apply(
+          sourceList,
+          weights,
+          new SourceToCurves(sources, config, site, curvesOnly));
+      return new CurveConsolidator(sources, config).apply(curvesList);
+    }
+
+    private HazardCurveSet clustersToCurves(ClusterSourceSet sources) {
+      List<ClusterSource> sourceList = Lists.newArrayList(
+          sources.iterableForLocation(site.location));
+      int[] weights = new int[sourceList.size()];
+      for (int i = 0; i < weights.length; i++) {
+        for (FaultSource fault : sourceList.get(i).faults()) {
+          weights[i] += fault.size();
+        }
+      }
+      List<ClusterCurves> curvesList = apply(
+          sourceList,
+          weights,
+          new ClusterToCurves(sources, config, site));
+      return new ClusterCurveConsolidator(sources, config).apply(curvesList);
+    }
+
+    private HazardCurveSet systemToCurves(SystemSourceSet sources) {
+      InputList master = SystemSourceSet.toInputsFunction(site).apply(sources);
+      if (master.isEmpty()) {
+        return HazardCurveSet.empty(sources);
+      }
+      List<InputList> partitions = master.partition(config.performance.systemPartition);
+      int[] weights = new int[partitions.size()];
+      for (int i = 0; i < weights.length; i++) {
+        weights[i] = partitions.get(i).size();
+      }
+      List<HazardCurves> curvesList = apply(
+          partitions,
+          weights,
+          new InputsToCurves(sources, config));
+      HazardCurves hazardCurves = HazardCurves.combine(master, curvesList);
+      return new CurveConsolidator(sources, config).apply(ImmutableList.of(hazardCurves));
+    }
+
+    /*
+     * Apply a function to every element of a list, splitting the list into
+     * subtasks by cumulative weight.
+     */
+    private <T, R> List<R> apply(List<T> inputs, int[] weights, Function<T, R> function) {
+      int size = inputs.size();
+      long[] cumulative = new long[size + 1];
+      for (int i = 0; i < size; i++) {
+        cumulative[i + 1] = cumulative[i] + Math.max(1, weights[i]);
+      }
+      long leafWeight = Math.max(
+          MIN_LEAF_WEIGHT,
+          cumulative[size] / (getPool().getParallelism() * LEAVES_PER_THREAD));
+      @SuppressWarnings("unchecked")
+      R[] results = (R[]) new Object[size];
+      new ApplyTask<>(inputs, cumulative, leafWeight, function, results, 0, size).invoke();
+      return Arrays.asList(results);
+    }
+  }
+
+  /*
+   * List<T> --> R[]
+   *
+   * Apply a function to a range of a list, writing results to the matching
+   * slots of an output array. Ranges heavier than the leaf weight are bisected
+   * at their weighted midpoint.
+   */
+  private static final class ApplyTask<T, R> extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> inputs;
+    private final long[] cumulative;
+    private final long leafWeight;
+    private final Function<T, R> function;
+    private final R[] results;
+    private final int lo;
+    private final int hi;
+
+    ApplyTask(
+        List<T> inputs,
+        long[] cumulative,
+        long leafWeight,
+        Function<T, R> function,
+        R[] results,
+        int lo,
+        int hi) {
+
+      this.inputs = inputs;
+      this.cumulative = cumulative;
+      this.leafWeight = leafWeight;
+      this.function = function;
+      this.results = results;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo < 2 || cumulative[hi] - cumulative[lo] <= leafWeight) {
+        for (int i = lo; i < hi; i++) {
+          results[i] = function.apply(inputs.get(i));
+        }
+        return;
+      }
+      int mid = split();
+      ForkJoinTask.invokeAll(
+          new ApplyTask<>(inputs, cumulative, leafWeight, function, results, lo, mid),
+          new ApplyTask<>(inputs, cumulative, leafWeight, function, results, mid, hi));
+    }
+
+    /* Index in (lo, hi) at which the cumulative weight is about halved. */
+    private int split() {
+      long target = (cumulative[lo] + cumulative[hi]) / 2;
+      int index = Arrays.binarySearch(cumulative, lo + 1, hi, target);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      return Math.min(Math.max(index, lo + 1), hi - 1);
+    }
+  }
+
+}
@@ -48,7 +48,7 @@ final class ClusterCurves {
       // look at first HazardGM to determine curve table dimensions
       GroundMotions model = clusterGroundMotions.get(0);
       curveMap = new EnumMap<>(Imt.class);
-      for (Imt imt : model.gmMap.keySet()) {
+      for (Imt imt : model.means.keySet()) {
         Map<Gmm, XySequence> gmmMap = new EnumMap<>(Gmm.class);
         curveMap.put(imt, gmmMap);
       }
@@ -0,0 +1,316 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+
+/**
+ * Comma-delimited ASCII text file writer. Fields are assembled in a reusable
+ * byte buffer that is written to an open {@code FileChannel} whenever it fills
+ * and on {@link #flush()}. Writers are intended to be held open across
+ * batches of results and closed once all results have been written.
+ *
+ * <p>{@code double} fields are formatted directly into the buffer and are
+ * identical to those produced by {@code String.format("%.8e", value)}, with
+ * the exception that zero-valued fields are written as {@code 0.0}. Fixed
+ * point {@code double} fields are identical to those produced by
+ * {@code String.format("%.Nf", value)}.
+ *
+ * @author Peter Powers
+ */
+final class CsvWriter implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 14;
+
+  /* Double.toString() yields at most 17 significant digits. */
+  private static final int DIGITS_MAX = 32;
+
+  /* Maximum field size of a formatted double, e.g. -1.23456789e-123, */
+  private static final int DOUBLE_FIELD_SIZE = 16;
+
+  /* Significant digits of %.8e */
+  private static final int PRECISION = 9;
+
+  /*
+   * Fixed point fields are formatted directly for values with at most 15
+   * integer digits and a scale of at most 15; the field is at most a sign, 15
+   * integer digits, and a decimal point, plus scale digits.
+   */
+  private static final double FIXED_MAX = 1e15;
+  private static final int FIXED_SCALE_MAX = 15;
+  private static final int FIXED_FIELD_SIZE = 17;
+
+  private static final byte DELIMITER = ',';
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(US_ASCII);
+  private static final byte[] ZERO = "0.0".getBytes(US_ASCII);
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final byte[] digits;
+  private int digitCount;
+  private boolean lineStart = true;
+
+  /**
+   * Create a new writer.
+   *
+   * @param path of file to write to
+   * @param options specifying how the file is opened
+   */
+  CsvWriter(Path path, OpenOption... options) throws IOException {
+    this.channel = FileChannel.open(path, options);
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    this.digits = new byte[DIGITS_MAX + 1];
+  }
+
+  /**
+   * Append a field to the current line. {@code null} fields are skipped.
+   *
+   * @param field to append
+   */
+  CsvWriter field(String field) throws IOException {
+    if (field == null) {
+      return this;
+    }
+    byte[] bytes = field.getBytes(US_ASCII);
+    ensure(bytes.length + 1);
+    delimit();
+    if (bytes.length > buffer.remaining()) {
+      flush();
+      channel.write(ByteBuffer.wrap(bytes));
+      return this;
+    }
+    buffer.put(bytes);
+    return this;
+  }
+
+  /**
+   * Append a {@code double} field to the current line.
+   *
+   * @param value to append
+   */
+  CsvWriter field(double value) throws IOException {
+    if (value == 0.0) {
+      ensure(ZERO.length + 1);
+      delimit();
+      buffer.put(ZERO);
+      return this;
+    }
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return field(String.format(HazardExport.RATE_FMT, value));
+    }
+    ensure(DOUBLE_FIELD_SIZE + 1);
+    delimit();
+    putScientific(value);
+    return this;
+  }
+
+  /**
+   * Append a fixed point {@code double} field to the current line.
+   *
+   * @param value to append
+   * @param scale number of digits after the decimal point
+   */
+  CsvWriter field(double value, int scale) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value) ||
+        Math.abs(value) >= FIXED_MAX || scale > FIXED_SCALE_MAX) {
+      return field(String.format("%." + scale + "f", value));
+    }
+    ensure(FIXED_FIELD_SIZE + scale + 1);
+    delimit();
+    putFixed(value, scale);
+    return this;
+  }
+
+  /**
+   * Terminate the current line.
+   */
+  CsvWriter line() throws IOException {
+    ensure(LINE_SEPARATOR.length);
+    buffer.put(LINE_SEPARATOR);
+    lineStart = true;
+    return this;
+  }
+
+  /**
+   * Write any buffered content to file.
+   */
+  void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Write any buffered content to file and close the underlying channel. The
+   * channel is closed even if writing fails.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void ensure(int size) throws IOException {
+    if (buffer.remaining() < size) {
+      flush();
+    }
+  }
+
+  private void delimit() {
+    if (!lineStart) {
+      buffer.put(DELIMITER);
+    }
+    lineStart = false;
+  }
+
+  /*
+   * Format a finite, non-zero value as d.dddddddde±XX. Formatter rounds
+   * (HALF_UP) the digits of the shortest decimal representation returned by
+   * Double.toString(), rather than the exact binary value, and so do we.
+   */
+  private void putScientific(double value) {
+    int exponent = decompose(Math.abs(value));
+    if (round(PRECISION)) {
+      exponent++;
+    }
+
+    if (value < 0.0) {
+      buffer.put((byte) '-');
+    }
+    buffer.put((byte) ('0' + digits[0]));
+    buffer.put((byte) '.');
+    for (int i = 1; i < PRECISION; i++) {
+      buffer.put((byte) ('0' + digits[i]));
+    }
+    buffer.put((byte) 'e');
+    buffer.put((byte) (exponent < 0 ? '-' : '+'));
+    int e = Math.abs(exponent);
+    if (e >= 100) {
+      buffer.put((byte) ('0' + e / 100));
+    }
+    buffer.put((byte) ('0' + e / 10 % 10));
+    buffer.put((byte) ('0' + e % 10));
+  }
+
+  /*
+   * Format a finite value, less than FIXED_MAX in magnitude, with 'scale'
+   * digits after the decimal point. As with putScientific(), the digits of
+   * Double.toString() are rounded HALF_UP. Formatter writes a sign for any
+   * value with its sign bit set, including -0.0 and negative values that round
+   * to zero.
+   */
+  private void putFixed(double value, int scale) {
+
+    /*
+     * A leading zero digit absorbs any carry out of rounding; a value that
+     * keeps no digits, even with the leading zero, rounds to zero.
+     */
+    int exponent = 0;
+    int kept = 0;
+    if (value != 0.0) {
+      exponent = decompose(Math.abs(value)) + 1;
+      System.arraycopy(digits, 0, digits, 1, digitCount);
+      digits[0] = 0;
+      digitCount++;
+      kept = exponent + 1 + scale;
+      if (kept > 0) {
+        round(kept);
+      }
+    }
+
+    if (Double.doubleToRawLongBits(value) < 0) {
+      buffer.put((byte) '-');
+    }
+    boolean leading = true;
+    for (int power = Math.max(exponent, 0); power >= 0; power--) {
+      int digit = fixedDigit(exponent - power, kept);
+      if (leading && digit == 0 && power > 0) {
+        continue;
+      }
+      leading = false;
+      buffer.put((byte) ('0' + digit));
+    }
+    if (scale > 0) {
+      buffer.put((byte) '.');
+      for (int power = -1; power >= -scale; power--) {
+        buffer.put((byte) ('0' + fixedDigit(exponent - power, kept)));
+      }
+    }
+  }
+
+  /* Digit at index i of the first 'kept' rounded digits; zero elsewhere. */
+  private int fixedDigit(int i, int kept) {
+    return (i >= 0 && i < kept) ? digits[i] : 0;
+  }
+
+  /*
+   * Fill 'digits' with the significant digits of the shortest decimal
+   * representation of a finite, positive value, as returned by
+   * Double.toString(), setting 'digitCount' and returning the decimal exponent
+   * of the first digit.
+   */
+  private int decompose(double value) {
+    String s = Double.toString(value);
+    int count = 0;
+    int pointIndex = -1;
+    int leadingZeros = 0;
+    int exponent = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '.') {
+        pointIndex = count + leadingZeros;
+      } else if (c == 'E') {
+        exponent = Integer.parseInt(s.substring(i + 1));
+        break;
+      } else if (count == 0 && c == '0') {
+        leadingZeros++;
+      } else if (count < DIGITS_MAX) {
+        digits[count++] = (byte) (c - '0');
+      }
+    }
+    if (pointIndex < 0) {
+      pointIndex = count + leadingZeros;
+    }
+    digitCount = count;
+    return exponent + pointIndex - leadingZeros - 1;
+  }
+
+  /*
+   * Round 'digits' (HALF_UP) to 'precision' digits, zero filling if there are
+   * fewer. Returns true if rounding carried out of the first digit, in which
+   * case digits are 1 followed by zeros and the decimal exponent increases by
+   * one.
+   */
+  private boolean round(int precision) {
+    if (digitCount <= precision) {
+      for (int i = digitCount; i < precision; i++) {
+        digits[i] = 0;
+      }
+      return false;
+    }
+    if (digits[precision] < 5) {
+      return false;
+    }
+    int i = precision - 1;
+    while (i >= 0 && digits[i] == 9) {
+      digits[i--] = 0;
+    }
+    if (i < 0) {
+      digits[0] = 1;
+      return true;
+    }
+    digits[i]++;
+    return false;
+  }
+
+}
@@ -81,7 +81,7 @@ final class DeaggConfig {
   static Builder builder(Hazard hazard) {
     return new Builder()
         .dataModel(
-            DeaggDataset.builder(hazard.config).build())
+            DeaggDataset.model(hazard.config))
         .probabilityModel(
             hazard.config.hazard.exceedanceModel,
             hazard.config.hazard.truncationLevel)
@@ -1,5 +1,6 @@
 package gov.usgs.earthquake.nshmp.calc;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static gov.usgs.earthquake.nshmp.data.Data.checkInRange;
 
@@ -9,6 +10,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Range;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -37,10 +39,21 @@ import gov.usgs.earthquake.nshmp.eq.model.Source;
  * rate of the contributing sources so the term 'weight' in a dataset is
  * synonymous with rate or a rate sum.
  *
+ * Datasets created directly from rupture data with a {@link Builder} are
+ * sparse: most r-m-ε bins are empty for any single {@code SourceSet} and
+ * {@code Gmm}, so only occupied bins are stored and the binned volumes, tables,
+ * and mean values below are absent ({@code null} or {@code NaN}). Sparse
+ * datasets must be combined with one of the consolidators, which create the
+ * dense volumes, before use.
+ *
  * @author Peter Powers
  */
 final class DeaggDataset {
 
+  /* Sparse data; model is null if dense. */
+  private final DeaggDataset model;
+  private final SparseBins bins;
+
   /* Rate bins. */
   final IntervalVolume rmε;
 
@@ -78,6 +91,8 @@ final class DeaggDataset {
       double residual,
       List<? extends DeaggContributor> contributors) {
 
+    this.model = null;
+    this.bins = null;
     this.rmε = rmε;
     this.rScaled = rScaled;
     this.mScaled = mScaled;
@@ -96,6 +111,33 @@ final class DeaggDataset {
     this.εBar = this.rmεScaled.collapse().sum() / binned;
   }
 
+  private DeaggDataset(
+      DeaggDataset model,
+      SparseBins bins,
+      double binned,
+      double residual,
+      List<? extends DeaggContributor> contributors) {
+
+    this.model = model;
+    this.bins = bins;
+    this.rmε = null;
+    this.rScaled = null;
+    this.mScaled = null;
+    this.εScaled = null;
+    this.binned = binned;
+    this.residual = residual;
+    this.contributors = contributors;
+
+    this.rmWeights = null;
+    this.rmrScaled = null;
+    this.rmmScaled = null;
+    this.rmεScaled = null;
+
+    this.rBar = Double.NaN;
+    this.mBar = Double.NaN;
+    this.εBar = Double.NaN;
+  }
+
   /*
    * Index methods delegate to the same method used to initialize internal data
    * tables and volumes.
@@ -149,7 +191,7 @@ final class DeaggDataset {
   /**
    * Initialize a deaggregation dataset builder using an existing dataset whose
    * immutable structural properties will be shared (e.g. row and column arrays
-   * of data tables).
+   * of data tables). The dataset created by the builder is sparse.
    *
    * @param model to mirror
    */
@@ -158,22 +200,22 @@ final class DeaggDataset {
   }
 
   /**
-   * Initialize a deaggregation dataset builder from the settings in a
-   * calculation configuration.
+   * Create an empty deaggregation dataset from the settings in a calculation
+   * configuration for use as a model.
    *
    * @param config to process
    * @see CalcConfig
    */
-  static Builder builder(CalcConfig config) {
+  static DeaggDataset model(CalcConfig config) {
     Bins bins = config.deagg.bins;
-    return builder(
+    return model(
         bins.rMin, bins.rMax, bins.Δr,
         bins.mMin, bins.mMax, bins.Δm,
         bins.εMin, bins.εMax, bins.Δε);
   }
 
   /**
-   * Initialize a deaggregation dataset builder.
+   * Create an empty deaggregation dataset for use as a model.
    *
    * @param rMin lower edge of lowermost distance bin
    * @param rMax upper edge of uppermost distance bin
@@ -185,7 +227,7 @@ final class DeaggDataset {
    * @param εMax upper edge of uppermost epsilon bin
    * @param Δε epsilon bin discretization
    */
-  static Builder builder(
+  static DeaggDataset model(
       double rMin, double rMax, double Δr,
       double mMin, double mMax, double Δm,
       double εMin, double εMax, double Δε) {
@@ -194,10 +236,19 @@ final class DeaggDataset {
      * Dataset fields (data tables and volumes) validate deltas relative to min
      * and max supplied; we only check ranges here.
      */
-    return new Builder(
+    AbstractBuilder builder = new AbstractBuilder(
         rMin, rMax, Δr,
         mMin, mMax, Δm,
         εMin, εMax, Δε);
+
+    return new DeaggDataset(
+        builder.rmε.build(),
+        builder.rScaled.build(),
+        builder.mScaled.build(),
+        builder.εScaled.build(),
+        0.0,
+        0.0,
+        ImmutableList.<DeaggContributor> of());
   }
 
   private static final Range<Double> rRange = Range.closed(0.0, 1000.0);
@@ -251,37 +302,44 @@ final class DeaggDataset {
     }
 
     private AbstractBuilder(DeaggDataset model) {
+      model = (model.bins == null) ? model : model.model;
       rmε = IntervalVolume.Builder.fromModel(model.rmε);
       rScaled = IntervalVolume.Builder.fromModel(model.rScaled);
       mScaled = IntervalVolume.Builder.fromModel(model.mScaled);
       εScaled = IntervalVolume.Builder.fromModel(model.εScaled);
     }
 
-    /*
-     * Return the current total rate of ruptures added to this builder thus far.
-     */
-    double rate() {
-      return binned + residual;
-    }
   }
 
   /*
    * Base DeaggDataset builder for which parent contributor can be of any type.
+   * Rupture data are accumulated in occupied bins only.
    */
-  static class Builder extends AbstractBuilder {
+  static class Builder {
+
+    private final DeaggDataset model;
+    private final SparseBins.Builder bins;
+
+    /* Binned and unbinned rate. */
+    private double binned;
+    private double residual;
 
     /* Primary contributor for this dataset. */
     DeaggContributor.Builder parent;
 
-    private Builder(
-        double rMin, double rMax, double Δr,
-        double mMin, double mMax, double Δm,
-        double εMin, double εMax, double Δε) {
-      super(rMin, rMax, Δr, mMin, mMax, Δm, εMin, εMax, Δε);
+    private Builder(DeaggDataset model) {
+      checkArgument(model.bins == null, "Model dataset must be dense");
+      this.model = model;
+      this.bins = new SparseBins.Builder(
+          model.rmε.columns().size(),
+          model.rmε.levels().size());
     }
 
-    private Builder(DeaggDataset model) {
-      super(model);
+    /*
+     * Return the current total rate of ruptures added to this builder thus far.
+     */
+    double rate() {
+      return binned + residual;
     }
 
     /*
@@ -298,10 +356,7 @@ final class DeaggDataset {
         double rw, double mw, double εw,
         double rate) {
 
-      rmε.add(ri, mi, εi, rate);
-      rScaled.add(ri, mi, εi, rw);
-      mScaled.add(ri, mi, εi, mw);
-      εScaled.add(ri, mi, εi, εw);
+      bins.add(ri, mi, εi, rate, rw, mw, εw);
       binned += rate;
       return this;
     }
@@ -338,10 +393,7 @@ final class DeaggDataset {
      * contributors. Parent rate is set on build().
      */
     Builder multiply(double scale) {
-      rmε.multiply(scale);
-      rScaled.multiply(scale);
-      mScaled.multiply(scale);
-      εScaled.multiply(scale);
+      bins.multiply(scale);
       binned *= scale;
       residual *= scale;
       parent.multiply(scale);
@@ -351,21 +403,17 @@ final class DeaggDataset {
     DeaggDataset build() {
 
       /*
-       * A dataset may not have any contributors if it was created from a
-       * DeaggConfig for use as a base DeaggDataset model. See the empty
-       * ImmutableList below. A Gmm dataset may also not have any contributors
-       * when the total contribution for a source set is low and one or more
-       * Gmm's do not make up any part of the contribution. (e.g. 2008 NSHM,
-       * site=Seattle, Imt=PGA, rp=2475: AB_03_GLOB_INTER contribution = 0.0)
+       * A Gmm dataset may not have any contributors when the total
+       * contribution for a source set is low and one or more Gmm's do not make
+       * up any part of the contribution. (e.g. 2008 NSHM, site=Seattle,
+       * Imt=PGA, rp=2475: AB_03_GLOB_INTER contribution = 0.0)
        */
       ImmutableList<DeaggContributor> contributorList = (parent == null)
           ? ImmutableList.<DeaggContributor> of() : ImmutableList.of(parent.build());
 
       return new DeaggDataset(
-          rmε.build(),
-          rScaled.build(),
-          mScaled.build(),
-          εScaled.build(),
+          model,
+          bins.build(),
           binned,
           residual,
           contributorList);
@@ -380,10 +428,14 @@ final class DeaggDataset {
 
     /* Add values from other datasets. */
     AbstractCombiner add(DeaggDataset other) {
-      rmε.add(other.rmε);
-      rScaled.add(other.rScaled);
-      mScaled.add(other.mScaled);
-      εScaled.add(other.εScaled);
+      if (other.bins == null) {
+        rmε.add(other.rmε);
+        rScaled.add(other.rScaled);
+        mScaled.add(other.mScaled);
+        εScaled.add(other.εScaled);
+      } else {
+        other.bins.addTo(rmε, rScaled, mScaled, εScaled);
+      }
       binned += other.binned;
       residual += other.residual;
       return this;
@@ -579,4 +631,128 @@ final class DeaggDataset {
     }
   }
 
+  /*
+   * Occupied r-m-ε bins of a dataset. Bin indices are flattened in row-major
+   * order and each bin has four values: [rate, rScaled, mScaled, εScaled].
+   */
+  static final class SparseBins {
+
+    private final int columns;
+    private final int levels;
+    private final int[] indices;
+    private final double[] values;
+
+    private SparseBins(int columns, int levels, int[] indices, double[] values) {
+      this.columns = columns;
+      this.levels = levels;
+      this.indices = indices;
+      this.values = values;
+    }
+
+    /* Add the values of each occupied bin to the supplied volume builders. */
+    void addTo(
+        IntervalVolume.Builder rmε,
+        IntervalVolume.Builder rScaled,
+        IntervalVolume.Builder mScaled,
+        IntervalVolume.Builder εScaled) {
+
+      for (int i = 0; i < indices.length; i++) {
+        int index = indices[i];
+        int εi = index % levels;
+        int mi = (index / levels) % columns;
+        int ri = index / levels / columns;
+        int j = i * 4;
+        rmε.add(ri, mi, εi, values[j]);
+        rScaled.add(ri, mi, εi, values[j + 1]);
+        mScaled.add(ri, mi, εi, values[j + 2]);
+        εScaled.add(ri, mi, εi, values[j + 3]);
+      }
+    }
+
+    /*
+     * Accumulator of bin values backed by an open addressed table of bin
+     * indices. Slots hold the position of a bin in the index array plus one;
+     * zero marks an empty slot.
+     */
+    static final class Builder {
+
+      private static final int INITIAL_SIZE = 16;
+
+      private final int columns;
+      private final int levels;
+
+      private int size;
+      private int[] indices = new int[INITIAL_SIZE];
+      private double[] values = new double[INITIAL_SIZE * 4];
+      private int[] slots = new int[INITIAL_SIZE * 2];
+
+      Builder(int columns, int levels) {
+        this.columns = columns;
+        this.levels = levels;
+      }
+
+      void add(int ri, int mi, int εi, double rate, double rw, double mw, double εw) {
+        int j = position((ri * columns + mi) * levels + εi) * 4;
+        values[j] += rate;
+        values[j + 1] += rw;
+        values[j + 2] += mw;
+        values[j + 3] += εw;
+      }
+
+      void multiply(double scale) {
+        for (int i = 0; i < size * 4; i++) {
+          values[i] *= scale;
+        }
+      }
+
+      SparseBins build() {
+        return new SparseBins(
+            columns,
+            levels,
+            Arrays.copyOf(indices, size),
+            Arrays.copyOf(values, size * 4));
+      }
+
+      /* Position of bin, adding it if absent. */
+      private int position(int index) {
+        int mask = slots.length - 1;
+        int slot = hash(index) & mask;
+        while (slots[slot] != 0) {
+          int position = slots[slot] - 1;
+          if (indices[position] == index) {
+            return position;
+          }
+          slot = (slot + 1) & mask;
+        }
+        if (size == indices.length) {
+          grow();
+          return position(index);
+        }
+        indices[size] = index;
+        slots[slot] = ++size;
+        return size - 1;
+      }
+
+      /* Double capacity and rehash occupied bins. */
+      private void grow() {
+        indices = Arrays.copyOf(indices, size * 2);
+        values = Arrays.copyOf(values, size * 8);
+        slots = new int[size * 4];
+        int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+          int slot = hash(indices[i]) & mask;
+          while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+          }
+          slots[slot] = i + 1;
+        }
+      }
+
+      private static int hash(int index) {
+        int h = index * 0x9E3779B9;
+        return h ^ (h >>> 16);
+      }
+    }
+  }
+
 }
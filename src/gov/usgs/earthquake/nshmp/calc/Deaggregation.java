@@ -1,21 +1,34 @@
 package gov.usgs.earthquake.nshmp.calc;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transform;
 import static gov.usgs.earthquake.nshmp.calc.DeaggDataset.SOURCE_CONSOLIDATOR;
 import static gov.usgs.earthquake.nshmp.calc.DeaggDataset.SOURCE_SET_CONSOLIDATOR;
 import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
 
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
 
+import gov.usgs.earthquake.nshmp.calc.Deaggregator.SystemPartition;
 import gov.usgs.earthquake.nshmp.data.Interpolator;
 import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.SourceType;
 import gov.usgs.earthquake.nshmp.gmm.Gmm;
 import gov.usgs.earthquake.nshmp.gmm.Imt;
 
@@ -81,9 +94,16 @@ public final class Deaggregation {
   final Map<Imt, ImtDeagg> deaggs;
   final Site site;
 
-  private Deaggregation(Map<Imt, ImtDeagg> deaggs, Site site) {
+  /*
+   * Identifies one of several deaggregations performed in a single pass,
+   * e.g. 'rp-2475'; absent for single target deaggregations.
+   */
+  final Optional<String> target;
+
+  private Deaggregation(Map<Imt, ImtDeagg> deaggs, Site site, Optional<String> target) {
     this.deaggs = deaggs;
     this.site = site;
+    this.target = target;
   }
 
   /**
@@ -94,21 +114,65 @@ public final class Deaggregation {
    * @param returnPeriod at which to deaggregate {@code hazard}
    */
   public static Deaggregation atReturnPeriod(Hazard hazard, double returnPeriod) {
-    Map<Imt, ImtDeagg> imtDeaggMap = Maps.newEnumMap(Imt.class);
+    return atReturnPeriods(hazard, ImmutableList.of(returnPeriod)).get(0);
+  }
+
+  /**
+   * Deaggregate {@code hazard} at the intensity measure levels corresponding to
+   * each of the supplied {@code returnPeriods}. The ground motions of each
+   * source set are traversed once for all return periods.
+   *
+   * @param hazard to deaggregate.
+   * @param returnPeriods at which to deaggregate {@code hazard}
+   * @return a {@code Deaggregation} for each return period, in the order
+   *         supplied
+   */
+  public static List<Deaggregation> atReturnPeriods(
+      Hazard hazard,
+      List<Double> returnPeriods) {
+
+    return atReturnPeriods(hazard, returnPeriods, Optional.<Executor> absent());
+  }
+
+  /**
+   * Deaggregate {@code hazard} at the intensity measure levels corresponding to
+   * each of the supplied {@code returnPeriods}, possibly using an
+   * {@link Optional} {@link Executor}. If an executor is supplied, each
+   * {@code Imt} and source set combination is deaggregated in a separate task;
+   * otherwise deaggregation runs on the current thread.
+   *
+   * @param hazard to deaggregate.
+   * @param returnPeriods at which to deaggregate {@code hazard}
+   * @param ex optional {@code Executor} to use in deaggregation
+   * @return a {@code Deaggregation} for each return period, in the order
+   *         supplied
+   */
+  public static List<Deaggregation> atReturnPeriods(
+      Hazard hazard,
+      List<Double> returnPeriods,
+      Optional<Executor> ex) {
+
+    checkArgument(!returnPeriods.isEmpty(), "No return periods supplied");
+    checkArgument(!hazard.isCurvesOnly(), CURVES_ONLY_ERROR);
+    Map<Imt, List<DeaggConfig>> configMap = Maps.newEnumMap(Imt.class);
     DeaggConfig.Builder cb = DeaggConfig.builder(hazard);
-    double rate = 1.0 / returnPeriod;
 
     for (Entry<Imt, XySequence> entry : hazard.totalCurves.entrySet()) {
       Imt imt = entry.getKey();
-      double iml = IML_INTERPOLATER.findX(entry.getValue(), rate);
-      DeaggConfig config = cb.imt(imt).iml(iml, rate, returnPeriod).build();
-      ImtDeagg imtDeagg = new ImtDeagg(hazard, config);
-      imtDeaggMap.put(imt, imtDeagg);
+      List<DeaggConfig> configs = new ArrayList<>(returnPeriods.size());
+      for (double returnPeriod : returnPeriods) {
+        double rate = 1.0 / returnPeriod;
+        double iml = IML_INTERPOLATER.findX(entry.getValue(), rate);
+        configs.add(cb.imt(imt).iml(iml, rate, returnPeriod).build());
+      }
+      configMap.put(imt, configs);
     }
 
-    return new Deaggregation(
-        Maps.immutableEnumMap(imtDeaggMap),
-        hazard.site);
+    return createDeaggregations(
+        deaggregate(hazard, configMap, returnPeriods.size(), ex),
+        hazard.site,
+        RP_TARGET,
+        returnPeriods);
   }
 
   /**
@@ -118,22 +182,141 @@ public final class Deaggregation {
    * @param iml intensity measure level at which to deaggregate {@code hazard}
    */
   public static Deaggregation atIml(Hazard hazard, double iml) {
+    return atImls(hazard, ImmutableList.of(iml)).get(0);
+  }
 
-    Map<Imt, ImtDeagg> imtDeaggMap = Maps.newEnumMap(Imt.class);
+  /**
+   * Deaggregate {@code hazard} at each of the supplied intensity measure
+   * levels. The ground motions of each source set are traversed once for all
+   * intensity measure levels.
+   *
+   * @param hazard to deaggregate.
+   * @param imls intensity measure levels at which to deaggregate
+   *        {@code hazard}
+   * @return a {@code Deaggregation} for each intensity measure level, in the
+   *         order supplied
+   */
+  public static List<Deaggregation> atImls(Hazard hazard, List<Double> imls) {
+    return atImls(hazard, imls, Optional.<Executor> absent());
+  }
+
+  /**
+   * Deaggregate {@code hazard} at each of the supplied intensity measure
+   * levels, possibly using an {@link Optional} {@link Executor}. If an executor
+   * is supplied, each {@code Imt} and source set combination is deaggregated
+   * in a separate task; otherwise deaggregation runs on the current thread.
+   *
+   * @param hazard to deaggregate.
+   * @param imls intensity measure levels at which to deaggregate
+   *        {@code hazard}
+   * @param ex optional {@code Executor} to use in deaggregation
+   * @return a {@code Deaggregation} for each intensity measure level, in the
+   *         order supplied
+   */
+  public static List<Deaggregation> atImls(
+      Hazard hazard,
+      List<Double> imls,
+      Optional<Executor> ex) {
+
+    checkArgument(!imls.isEmpty(), "No intensity measure levels supplied");
+    checkArgument(!hazard.isCurvesOnly(), CURVES_ONLY_ERROR);
+    Map<Imt, List<DeaggConfig>> configMap = Maps.newEnumMap(Imt.class);
     DeaggConfig.Builder cb = DeaggConfig.builder(hazard);
 
     for (Entry<Imt, XySequence> entry : hazard.totalCurves.entrySet()) {
       Imt imt = entry.getKey();
-      double rate = RATE_INTERPOLATER.findY(entry.getValue(), iml);
-      double returnPeriod = 1.0 / rate;
-      DeaggConfig config = cb.imt(imt).iml(iml, rate, returnPeriod).build();
-      ImtDeagg imtDeagg = new ImtDeagg(hazard, config);
-      imtDeaggMap.put(imt, imtDeagg);
+      List<DeaggConfig> configs = new ArrayList<>(imls.size());
+      for (double iml : imls) {
+        double rate = RATE_INTERPOLATER.findY(entry.getValue(), iml);
+        double returnPeriod = 1.0 / rate;
+        configs.add(cb.imt(imt).iml(iml, rate, returnPeriod).build());
+      }
+      configMap.put(imt, configs);
     }
 
-    return new Deaggregation(
-        Maps.immutableEnumMap(imtDeaggMap),
-        hazard.site);
+    return createDeaggregations(
+        deaggregate(hazard, configMap, imls.size(), ex),
+        hazard.site,
+        IML_TARGET,
+        imls);
+  }
+
+  /*
+   * Deaggregate at the configs of each Imt, returning a map of results for
+   * each target. All tasks are submitted before any results are combined.
+   */
+  private static List<Map<Imt, ImtDeagg>> deaggregate(
+      Hazard hazard,
+      Map<Imt, List<DeaggConfig>> configMap,
+      int targetCount,
+      Optional<Executor> ex) {
+
+    checkNotNull(ex);
+    Map<Imt, List<SourceSetDeagg>> sourceSetDeaggMap = Maps.newEnumMap(Imt.class);
+    for (Entry<Imt, List<DeaggConfig>> entry : configMap.entrySet()) {
+      sourceSetDeaggMap.put(entry.getKey(), ImtDeagg.submit(hazard, entry.getValue(), ex));
+    }
+
+    List<Map<Imt, ImtDeagg>> imtDeaggMaps = createImtDeaggMaps(targetCount);
+    for (Entry<Imt, List<DeaggConfig>> entry : configMap.entrySet()) {
+      Imt imt = entry.getKey();
+      List<ImtDeagg> imtDeaggs = ImtDeagg.combine(
+          hazard,
+          entry.getValue(),
+          sourceSetDeaggMap.get(imt));
+      putImtDeaggs(imt, imtDeaggs, imtDeaggMaps);
+    }
+    return imtDeaggMaps;
+  }
+
+  private static final String RP_TARGET = "rp-";
+  private static final String IML_TARGET = "iml-";
+  private static final String CURVES_ONLY_ERROR =
+      "Hazard computed in curve-only mode can not be deaggregated";
+
+  private static List<Map<Imt, ImtDeagg>> createImtDeaggMaps(int size) {
+    List<Map<Imt, ImtDeagg>> maps = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      maps.add(Maps.<Imt, ImtDeagg> newEnumMap(Imt.class));
+    }
+    return maps;
+  }
+
+  private static void putImtDeaggs(
+      Imt imt,
+      List<ImtDeagg> imtDeaggs,
+      List<Map<Imt, ImtDeagg>> imtDeaggMaps) {
+
+    for (int i = 0; i < imtDeaggs.size(); i++) {
+      imtDeaggMaps.get(i).put(imt, imtDeaggs.get(i));
+    }
+  }
+
+  private static List<Deaggregation> createDeaggregations(
+      List<Map<Imt, ImtDeagg>> imtDeaggMaps,
+      Site site,
+      String targetPrefix,
+      List<Double> targets) {
+
+    boolean multi = targets.size() > 1;
+    ImmutableList.Builder<Deaggregation> deaggs = ImmutableList.builder();
+    for (int i = 0; i < targets.size(); i++) {
+      Optional<String> target = multi
+          ? Optional.of(targetPrefix + targetString(targets.get(i)))
+          : Optional.<String> absent();
+      deaggs.add(new Deaggregation(
+          Maps.immutableEnumMap(imtDeaggMaps.get(i)),
+          site,
+          target));
+    }
+    return deaggs.build();
+  }
+
+  /* Whole numbers are written without a trailing '.0'. */
+  private static String targetString(double value) {
+    return (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE)
+        ? Long.toString((long) value)
+        : Double.toString(value);
   }
 
   /* Hazard curves are already in log-x space. */
@@ -182,50 +365,143 @@ public final class Deaggregation {
     final DeaggDataset totalDataset;
     final Map<Gmm, DeaggDataset> gmmDatasets;
 
-    ImtDeagg(Hazard hazard, DeaggConfig config) {
-      this.config = config;
+    private ImtDeagg(
+        DeaggConfig config,
+        DeaggDataset totalDataset,
+        Map<Gmm, DeaggDataset> gmmDatasets) {
 
-      /*
-       * Datasets are combined as follows: For each HazardCurveSet/SourceSet
-       * deaggregation is performed across all relevant Gmms. These are
-       * preserved in a ListMultimap for output of deaggregation by Gmm. It's
-       * too much work to consolidate the ListMultimap and keep track of all the
-       * nested DeaggContributors, so a list is maintained of datasets per
-       * SourceSet, the total across all Gmms that result from each call to
-       * deaggregate(). The combination of multiple datasets for single
-       * SourceSets is straightforward.
-       */
+      this.config = config;
+      this.totalDataset = totalDataset;
+      this.gmmDatasets = gmmDatasets;
+    }
 
-      int sourceSetCount = hazard.sourceSetCurves.size();
-      ListMultimap<Gmm, DeaggDataset> gmmDatasetLists = MultimapBuilder
-          .enumKeys(Gmm.class)
-          .arrayListValues(sourceSetCount)
-          .build();
-      List<DeaggDataset> totalDatasetList = new ArrayList<>(sourceSetCount);
+    /*
+     * Deaggregate each SourceSet at all of the supplied configs, which share an
+     * Imt, at which it has a non-zero rate. If an executor is present, each
+     * SourceSet is processed in a separate task; the sections of a
+     * SystemSourceSet, which typically has far more ruptures than any other
+     * source set, are further split across several tasks.
+     */
+    static List<SourceSetDeagg> submit(
+        Hazard hazard,
+        List<DeaggConfig> configs,
+        Optional<Executor> ex) {
 
+      List<SourceSetDeagg> sourceSetDeaggs = new ArrayList<>(hazard.sourceSetCurves.size());
       for (HazardCurveSet curveSet : hazard.sourceSetCurves.values()) {
-        XySequence sourceSetCurve = curveSet.totalCurves.get(config.imt);
-        double sourceSetRate = RATE_INTERPOLATER.findY(sourceSetCurve, config.iml);
-        if (Double.isNaN(sourceSetRate) || sourceSetRate == 0.0) {
-          // TODO log me instead FINER??
-          // System.out.println("Skipping: " + curveSet.sourceSet.name());
+        List<Integer> targets = new ArrayList<>(configs.size());
+        List<DeaggConfig> targetConfigs = new ArrayList<>(configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+          DeaggConfig config = configs.get(i);
+          XySequence sourceSetCurve = curveSet.totalCurves.get(config.imt);
+          double sourceSetRate = RATE_INTERPOLATER.findY(sourceSetCurve, config.iml);
+          if (Double.isNaN(sourceSetRate) || sourceSetRate == 0.0) {
+            // TODO log me instead FINER??
+            // System.out.println("Skipping: " + curveSet.sourceSet.name());
+            continue;
+          }
+          targets.add(i);
+          targetConfigs.add(config);
+        }
+        if (targets.isEmpty()) {
           continue;
         }
-        Map<Gmm, DeaggDataset> sourceSetDatasets = Deaggregator.deaggregate(
-            curveSet,
-            config,
-            hazard.site);
-        gmmDatasetLists.putAll(Multimaps.forMap(sourceSetDatasets));
-        totalDatasetList.add(SOURCE_CONSOLIDATOR.apply(sourceSetDatasets.values()));
+        ListenableFuture<List<Map<Gmm, DeaggDataset>>> datasets;
+        if (!ex.isPresent()) {
+          datasets = immediateFuture(
+              new CurveSetToDatasets(targetConfigs, hazard.site).apply(curveSet));
+        } else if (curveSet.sourceSet.type() == SourceType.SYSTEM) {
+          datasets = submitSystem(curveSet, targetConfigs, hazard.site, ex.get());
+        } else {
+          datasets = transform(
+              immediateFuture(curveSet),
+              new CurveSetToDatasets(targetConfigs, hazard.site),
+              ex.get());
+        }
+        sourceSetDeaggs.add(new SourceSetDeagg(targets, datasets));
+      }
+      return sourceSetDeaggs;
+    }
+
+    /*
+     * Deaggregate chunks of the sections of a SystemSourceSet in separate tasks,
+     * combining the datasets of all chunks for each target and Gmm.
+     */
+    private static ListenableFuture<List<Map<Gmm, DeaggDataset>>> submitSystem(
+        HazardCurveSet curveSet,
+        List<DeaggConfig> configs,
+        Site site,
+        Executor ex) {
+
+      SystemPartition partition = SystemPartition.create(curveSet, SYSTEM_CHUNK_SIZE);
+      if (partition.chunks() == 1) {
+        return transform(immediateFuture(curveSet), new CurveSetToDatasets(configs, site), ex);
+      }
+      SystemChunkToDatasets deaggregator =
+          new SystemChunkToDatasets(curveSet, configs, site, partition);
+      List<ListenableFuture<List<Map<Gmm, DeaggDataset>>>> chunks =
+          new ArrayList<>(partition.chunks());
+      for (int i = 0; i < partition.chunks(); i++) {
+        chunks.add(transform(immediateFuture(i), deaggregator, ex));
+      }
+      return transform(allAsList(chunks), SYSTEM_CHUNK_CONSOLIDATOR, ex);
+    }
+
+    /*
+     * Combine SourceSet deaggregations, in SourceSet order, into a result for
+     * each of the supplied configs.
+     *
+     * Datasets are combined as follows: For each HazardCurveSet/SourceSet
+     * deaggregation is performed across all relevant Gmms. These are preserved
+     * in a ListMultimap for output of deaggregation by Gmm. It's too much work
+     * to consolidate the ListMultimap and keep track of all the nested
+     * DeaggContributors, so a list is maintained of datasets per SourceSet, the
+     * total across all Gmms that result from each call to deaggregate(). The
+     * combination of multiple datasets for single SourceSets is
+     * straightforward.
+     */
+    static List<ImtDeagg> combine(
+        Hazard hazard,
+        List<DeaggConfig> configs,
+        List<SourceSetDeagg> sourceSetDeaggs) {
+
+      int sourceSetCount = hazard.sourceSetCurves.size();
+      List<ListMultimap<Gmm, DeaggDataset>> gmmDatasetLists = new ArrayList<>(configs.size());
+      List<List<DeaggDataset>> totalDatasetLists = new ArrayList<>(configs.size());
+      for (int i = 0; i < configs.size(); i++) {
+        ListMultimap<Gmm, DeaggDataset> gmmDatasetList = MultimapBuilder
+            .enumKeys(Gmm.class)
+            .arrayListValues(sourceSetCount)
+            .build();
+        gmmDatasetLists.add(gmmDatasetList);
+        totalDatasetLists.add(new ArrayList<DeaggDataset>(sourceSetCount));
+      }
+
+      for (SourceSetDeagg sourceSetDeagg : sourceSetDeaggs) {
+        List<Map<Gmm, DeaggDataset>> sourceSetDatasetsList =
+            getUnchecked(sourceSetDeagg.datasets);
+        for (int i = 0; i < sourceSetDeagg.targets.size(); i++) {
+          int target = sourceSetDeagg.targets.get(i);
+          Map<Gmm, DeaggDataset> sourceSetDatasets = sourceSetDatasetsList.get(i);
+          gmmDatasetLists.get(target).putAll(Multimaps.forMap(sourceSetDatasets));
+          totalDatasetLists.get(target).add(SOURCE_CONSOLIDATOR.apply(sourceSetDatasets.values()));
+        }
       }
 
-      /* Combine SourceSets across Gmms. */
-      gmmDatasets = Maps.immutableEnumMap(Maps.transformValues(
-          Multimaps.asMap(gmmDatasetLists),
-          SOURCE_SET_CONSOLIDATOR));
+      List<ImtDeagg> imtDeaggs = new ArrayList<>(configs.size());
+      for (int i = 0; i < configs.size(); i++) {
 
-      /* Combine SourceSet totals. */
-      totalDataset = SOURCE_SET_CONSOLIDATOR.apply(totalDatasetList);
+        /* Combine SourceSets across Gmms. */
+        Map<Gmm, DeaggDataset> gmmDatasets = Maps.immutableEnumMap(Maps.transformValues(
+            Multimaps.asMap(gmmDatasetLists.get(i)),
+            SOURCE_SET_CONSOLIDATOR));
+
+        /* Combine SourceSet totals. */
+        DeaggDataset totalDataset = SOURCE_SET_CONSOLIDATOR.apply(totalDatasetLists.get(i));
+
+        imtDeaggs.add(new ImtDeagg(configs.get(i), totalDataset, gmmDatasets));
+      }
+      return imtDeaggs;
     }
 
     @Override
@@ -280,4 +556,103 @@ public final class Deaggregation {
     }
   }
 
+  /*
+   * The pending deaggregation of a SourceSet; datasets are ordered as the
+   * indices of the targets (configs) at which the SourceSet contributes.
+   */
+  static final class SourceSetDeagg {
+
+    final List<Integer> targets;
+    final ListenableFuture<List<Map<Gmm, DeaggDataset>>> datasets;
+
+    SourceSetDeagg(
+        List<Integer> targets,
+        ListenableFuture<List<Map<Gmm, DeaggDataset>>> datasets) {
+
+      this.targets = targets;
+      this.datasets = datasets;
+    }
+  }
+
+  /* Deaggregate a HazardCurveSet at one or more targets. */
+  static final class CurveSetToDatasets
+      implements Function<HazardCurveSet, List<Map<Gmm, DeaggDataset>>> {
+
+    private final List<DeaggConfig> configs;
+    private final Site site;
+
+    CurveSetToDatasets(List<DeaggConfig> configs, Site site) {
+      this.configs = configs;
+      this.site = site;
+    }
+
+    @Override
+    public List<Map<Gmm, DeaggDataset>> apply(HazardCurveSet curveSet) {
+      return Deaggregator.deaggregate(curveSet, configs, site);
+    }
+  }
+
+  /*
+   * Minimum number of ruptures deaggregated in each task when a
+   * SystemSourceSet is split across tasks.
+   */
+  private static final int SYSTEM_CHUNK_SIZE = 10000;
+
+  static final class SystemChunkToDatasets
+      implements Function<Integer, List<Map<Gmm, DeaggDataset>>> {
+
+    private final HazardCurveSet curveSet;
+    private final List<DeaggConfig> configs;
+    private final Site site;
+    private final SystemPartition partition;
+
+    SystemChunkToDatasets(
+        HazardCurveSet curveSet,
+        List<DeaggConfig> configs,
+        Site site,
+        SystemPartition partition) {
+
+      this.curveSet = curveSet;
+      this.configs = configs;
+      this.site = site;
+      this.partition = partition;
+    }
+
+    @Override
+    public List<Map<Gmm, DeaggDataset>> apply(Integer chunk) {
+      return Deaggregator.deaggregate(curveSet, configs, site, partition, chunk);
+    }
+  }
+
+  private static final SystemChunkConsolidator SYSTEM_CHUNK_CONSOLIDATOR =
+      new SystemChunkConsolidator();
+
+  /*
+   * Combine the per-target, per-Gmm datasets of each chunk of a
+   * SystemSourceSet. Chunks have disjoint sections so section contributors are
+   * simply collected under a single SourceSetContributor.
+   */
+  static final class SystemChunkConsolidator implements
+      Function<List<List<Map<Gmm, DeaggDataset>>>, List<Map<Gmm, DeaggDataset>>> {
+
+    @Override
+    public List<Map<Gmm, DeaggDataset>> apply(List<List<Map<Gmm, DeaggDataset>>> chunks) {
+      int targetCount = chunks.get(0).size();
+      List<Map<Gmm, DeaggDataset>> datasets = new ArrayList<>(targetCount);
+      for (int t = 0; t < targetCount; t++) {
+        ListMultimap<Gmm, DeaggDataset> gmmDatasets = MultimapBuilder
+            .enumKeys(Gmm.class)
+            .arrayListValues(chunks.size())
+            .build();
+        for (List<Map<Gmm, DeaggDataset>> chunk : chunks) {
+          gmmDatasets.putAll(Multimaps.forMap(chunk.get(t)));
+        }
+        datasets.add(Maps.immutableEnumMap(Maps.transformValues(
+            Multimaps.asMap(gmmDatasets),
+            SOURCE_CONSOLIDATOR)));
+      }
+      return datasets;
+    }
+  }
+
 }
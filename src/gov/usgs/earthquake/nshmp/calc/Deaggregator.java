@@ -1,8 +1,11 @@
 package gov.usgs.earthquake.nshmp.calc;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static gov.usgs.earthquake.nshmp.calc.DeaggDataset.SOURCE_CONSOLIDATOR;
+import static gov.usgs.earthquake.nshmp.eq.model.SourceType.SYSTEM;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
@@ -11,11 +14,12 @@ import com.google.common.collect.Multimaps;
 import com.google.common.primitives.Ints;
 
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.EnumSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -25,7 +29,6 @@ import gov.usgs.earthquake.nshmp.calc.DeaggContributor.SectionSource;
 import gov.usgs.earthquake.nshmp.calc.DeaggContributor.SourceContributor;
 import gov.usgs.earthquake.nshmp.calc.DeaggContributor.SourceSetContributor;
 import gov.usgs.earthquake.nshmp.calc.DeaggContributor.SystemContributor;
-import gov.usgs.earthquake.nshmp.data.Indexing;
 import gov.usgs.earthquake.nshmp.data.IntervalArray;
 import gov.usgs.earthquake.nshmp.data.XySequence;
 import gov.usgs.earthquake.nshmp.eq.model.ClusterSource;
@@ -37,14 +40,15 @@ import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.Locations;
 import gov.usgs.earthquake.nshmp.gmm.Gmm;
 import gov.usgs.earthquake.nshmp.gmm.Imt;
-import gov.usgs.earthquake.nshmp.gmm.ScalarGroundMotion;
 import gov.usgs.earthquake.nshmp.util.Maths;
 
 import java.util.Set;
 
 /**
  * Factory class that deaggregates the hazard for a single {@code SourceSet}
- * across all relevant {@code Gmm}s.
+ * across all relevant {@code Gmm}s. The hazard may be deaggregated at several
+ * target intensity measure levels in a single pass over the ground motions of
+ * the {@code SourceSet}.
  * 
  * @author Peter Powers
  */
@@ -56,24 +60,44 @@ final class Deaggregator {
 
   private final Imt imt;
   private final DeaggDataset model;
-  private final double iml;
+  private final double[] imls;
   private final ExceedanceModel probModel;
   private final double trunc;
 
   private final Site site;
 
-  private Deaggregator(HazardCurveSet curves, DeaggConfig config, Site site) {
+  /*
+   * Per-target, per-gmm source data scratch arrays, reused for each source
+   * processed. The double[] arrays are [rate, residual, rScaled, mScaled,
+   * εScaled].
+   */
+  private final List<Map<Gmm, double[]>> targetData;
+
+  private Deaggregator(HazardCurveSet curves, List<DeaggConfig> configs, Site site) {
     this.curves = curves;
     this.sources = curves.sourceSet;
     this.gmmSet = sources.groundMotionModels();
 
+    /* Configs differ only in target iml. */
+    DeaggConfig config = configs.get(0);
     this.imt = config.imt;
     this.model = config.model;
-    this.iml = config.iml;
     this.probModel = config.probabilityModel;
     this.trunc = config.truncation;
 
+    this.imls = new double[configs.size()];
+    for (int i = 0; i < imls.length; i++) {
+      DeaggConfig target = configs.get(i);
+      checkArgument(target.imt == imt, "Deagg targets must share an IMT");
+      imls[i] = target.iml;
+    }
+
     this.site = site;
+
+    this.targetData = new ArrayList<>(imls.length);
+    for (int t = 0; t < imls.length; t++) {
+      targetData.add(createDataMap(gmmSet.gmms()));
+    }
   }
 
   static Map<Gmm, DeaggDataset> deaggregate(
@@ -81,16 +105,55 @@ final class Deaggregator {
       DeaggConfig config,
       Site site) {
 
-    Deaggregator deaggregator = new Deaggregator(curves, config, site);
-    return Maps.immutableEnumMap(deaggregator.run());
+    return deaggregate(curves, ImmutableList.of(config), site).get(0);
+  }
+
+  /*
+   * Deaggregate at each of the supplied targets; returned datasets are in
+   * target order.
+   */
+  static List<Map<Gmm, DeaggDataset>> deaggregate(
+      HazardCurveSet curves,
+      List<DeaggConfig> configs,
+      Site site) {
+
+    Deaggregator deaggregator = new Deaggregator(curves, configs, site);
+    return toImmutable(deaggregator.run());
+  }
+
+  /*
+   * Deaggregate the ruptures of a SystemSourceSet that are attributed to the
+   * sections in one chunk of the supplied partition; returned datasets are in
+   * target order. The datasets of all chunks, combined per Gmm, are equivalent
+   * to those of deaggregate(curves, configs, site).
+   */
+  static List<Map<Gmm, DeaggDataset>> deaggregate(
+      HazardCurveSet curves,
+      List<DeaggConfig> configs,
+      Site site,
+      SystemPartition partition,
+      int chunk) {
+
+    checkArgument(curves.sourceSet.type() == SYSTEM, "Not a system source set");
+    Deaggregator deaggregator = new Deaggregator(curves, configs, site);
+    return toImmutable(deaggregator.processSystemSources(partition, chunk));
+  }
+
+  private static List<Map<Gmm, DeaggDataset>> toImmutable(
+      List<Map<Gmm, DeaggDataset>> targetDatasets) {
+    List<Map<Gmm, DeaggDataset>> datasets = new ArrayList<>(targetDatasets.size());
+    for (Map<Gmm, DeaggDataset> datasetMap : targetDatasets) {
+      datasets.add(Maps.immutableEnumMap(datasetMap));
+    }
+    return datasets;
   }
 
-  private Map<Gmm, DeaggDataset> run() {
+  private List<Map<Gmm, DeaggDataset>> run() {
     switch (sources.type()) {
       case CLUSTER:
         return processClusterSources();
       case SYSTEM:
-        return processSystemSources();
+        return processSystemSources(SystemPartition.create(curves, Integer.MAX_VALUE), 0);
       default:
         return processSources();
     }
@@ -104,50 +167,66 @@ final class Deaggregator {
     return map;
   }
 
-  private Map<Gmm, DeaggDataset> processSources() {
-    Map<Gmm, DeaggDataset.Builder> builders = createBuilders(gmmSet.gmms(), model);
-    for (DeaggDataset.Builder builder : builders.values()) {
-      SourceSetContributor.Builder parent = new SourceSetContributor.Builder();
-      builder.setParentContributor(parent.sourceSet(sources));
+  /* Builders for each target. */
+  private List<Map<Gmm, DeaggDataset.Builder>> createTargetBuilders(Set<Gmm> gmms) {
+    List<Map<Gmm, DeaggDataset.Builder>> builders = new ArrayList<>(imls.length);
+    for (int t = 0; t < imls.length; t++) {
+      builders.add(createBuilders(gmms, model));
+    }
+    return builders;
+  }
+
+  private List<Map<Gmm, DeaggDataset>> processSources() {
+    List<Map<Gmm, DeaggDataset.Builder>> targetBuilders = createTargetBuilders(gmmSet.gmms());
+    for (Map<Gmm, DeaggDataset.Builder> builders : targetBuilders) {
+      for (DeaggDataset.Builder builder : builders.values()) {
+        SourceSetContributor.Builder parent = new SourceSetContributor.Builder();
+        builder.setParentContributor(parent.sourceSet(sources));
+      }
     }
     for (GroundMotions gms : curves.hazardGroundMotionsList) {
-      processSource(gms, builders);
+      processSource(gms, targetBuilders);
     }
-    return buildDatasets(builders);
+    return buildTargetDatasets(targetBuilders);
   }
 
-  private Map<Gmm, DeaggDataset> processClusterSources() {
+  private List<Map<Gmm, DeaggDataset>> processClusterSources() {
 
     List<Map<Gmm, XySequence>> clusterCurveList = curves.clusterCurveLists.get(imt);
 
-    ListMultimap<Gmm, DeaggDataset> datasets = MultimapBuilder
-        .enumKeys(Gmm.class)
-        .arrayListValues(clusterCurveList.size())
-        .build();
+    List<ListMultimap<Gmm, DeaggDataset>> targetDatasets = new ArrayList<>(imls.length);
+    for (int t = 0; t < imls.length; t++) {
+      ListMultimap<Gmm, DeaggDataset> datasets = MultimapBuilder
+          .enumKeys(Gmm.class)
+          .arrayListValues(clusterCurveList.size())
+          .build();
+      targetDatasets.add(datasets);
+    }
 
     for (int i = 0; i < curves.clusterGroundMotionsList.size(); i++) {
       ClusterGroundMotions cgms = curves.clusterGroundMotionsList.get(i);
 
+      /*
+       * Fetch site-specific source attributes so that they don't need to be
+       * recalculated multiple times downstream.
+       */
+      ClusterSource cluster = cgms.parent;
+      Location location = cluster.location(site.location);
+      double azimuth = Locations.azimuth(site.location, location);
+
       /* ClusterSource level builders. */
-      Map<Gmm, DeaggDataset.Builder> datasetBuilders = createBuilders(gmmSet.gmms(), model);
-      for (DeaggDataset.Builder datasetBuilder : datasetBuilders.values()) {
-
-        /*
-         * Fetch site-specific source attributes so that they don't need to be
-         * recalculated multiple times downstream.
-         */
-        ClusterSource cluster = cgms.parent;
-        Location location = cluster.location(site.location);
-        double azimuth = Locations.azimuth(site.location, location);
-
-        ClusterContributor.Builder clusterContributor = new ClusterContributor.Builder()
-            .cluster(cluster, location, azimuth);
-        datasetBuilder.setParentContributor(clusterContributor);
+      List<Map<Gmm, DeaggDataset.Builder>> targetBuilders = createTargetBuilders(gmmSet.gmms());
+      for (Map<Gmm, DeaggDataset.Builder> datasetBuilders : targetBuilders) {
+        for (DeaggDataset.Builder datasetBuilder : datasetBuilders.values()) {
+          ClusterContributor.Builder clusterContributor = new ClusterContributor.Builder()
+              .cluster(cluster, location, azimuth);
+          datasetBuilder.setParentContributor(clusterContributor);
+        }
       }
 
       /* Process the individual sources in a cluster. */
       for (GroundMotions gms : cgms) {
-        processSource(gms, datasetBuilders);
+        processSource(gms, targetBuilders);
       }
 
       /*
@@ -155,64 +234,75 @@ final class Deaggregator {
        * ClusterContributors to parent SourceSetContributors and swap.
        */
       Map<Gmm, XySequence> clusterCurves = clusterCurveList.get(i);
-      for (Entry<Gmm, DeaggDataset.Builder> entry : datasetBuilders.entrySet()) {
-
-        /*
-         * Due to Gmm variations with distance, cluster curves for some GMMs may
-         * not have been calculated. Skip non-participating clusters (curve will
-         * be absent). Scale to total cluster rate. Builder rate > 0.0 check
-         * assures no 0/0 --> NaN and is necessary for curves that are present
-         * but that end below the target deagg iml.
-         */
-        Gmm gmm = entry.getKey();
-        DeaggDataset.Builder clusterBuilder = entry.getValue();
-        if (clusterCurves.containsKey(gmm)) {
-          XySequence clusterCurve = clusterCurves.get(gmm);
-          double clusterRate = Deaggregation.RATE_INTERPOLATER.findY(clusterCurve, iml);
-          if (clusterBuilder.rate() > 0.0) {
-            clusterBuilder.multiply(clusterRate / clusterBuilder.rate());
+      for (int t = 0; t < imls.length; t++) {
+        Map<Gmm, DeaggDataset.Builder> datasetBuilders = targetBuilders.get(t);
+        for (Entry<Gmm, DeaggDataset.Builder> entry : datasetBuilders.entrySet()) {
+
+          /*
+           * Due to Gmm variations with distance, cluster curves for some GMMs
+           * may not have been calculated. Skip non-participating clusters
+           * (curve will be absent). Scale to total cluster rate. Builder rate >
+           * 0.0 check assures no 0/0 --> NaN and is necessary for curves that
+           * are present but that end below the target deagg iml.
+           */
+          Gmm gmm = entry.getKey();
+          DeaggDataset.Builder clusterBuilder = entry.getValue();
+          if (clusterCurves.containsKey(gmm)) {
+            XySequence clusterCurve = clusterCurves.get(gmm);
+            double clusterRate = Deaggregation.RATE_INTERPOLATER.findY(clusterCurve, imls[t]);
+            if (clusterBuilder.rate() > 0.0) {
+              clusterBuilder.multiply(clusterRate / clusterBuilder.rate());
+            }
           }
+
+          /* Swap parents. */
+          DeaggContributor.Builder sourceSetContributor = new SourceSetContributor.Builder()
+              .sourceSet(curves.sourceSet)
+              .addChild(clusterBuilder.parent);
+          clusterBuilder.setParentContributor(sourceSetContributor);
         }
 
-        /* Swap parents. */
-        DeaggContributor.Builder sourceSetContributor = new SourceSetContributor.Builder()
-            .sourceSet(curves.sourceSet)
-            .addChild(clusterBuilder.parent);
-        clusterBuilder.setParentContributor(sourceSetContributor);
+        /* Combine cluster datasets. */
+        Map<Gmm, DeaggDataset> clusterDatasets = buildDatasets(datasetBuilders);
+        targetDatasets.get(t).putAll(Multimaps.forMap(clusterDatasets));
       }
-
-      /* Combine cluster datasets. */
-      Map<Gmm, DeaggDataset> clusterDatasets = buildDatasets(datasetBuilders);
-      datasets.putAll(Multimaps.forMap(clusterDatasets));
     }
 
-    return ImmutableMap.copyOf(Maps.transformValues(
-        Multimaps.asMap(datasets),
-        SOURCE_CONSOLIDATOR));
+    List<Map<Gmm, DeaggDataset>> datasets = new ArrayList<>(imls.length);
+    for (ListMultimap<Gmm, DeaggDataset> clusterDatasets : targetDatasets) {
+      datasets.add(ImmutableMap.copyOf(Maps.transformValues(
+          Multimaps.asMap(clusterDatasets),
+          SOURCE_CONSOLIDATOR)));
+    }
+    return datasets;
   }
 
-  private void processSource(GroundMotions gms, Map<Gmm, DeaggDataset.Builder> builders) {
+  private void processSource(
+      GroundMotions gms,
+      List<Map<Gmm, DeaggDataset.Builder>> targetBuilders) {
 
     /* Local references from argument. */
     InputList inputs = gms.inputs;
     Map<Gmm, Double> gmms = gmmSet.gmmWeightMap(gms.inputs.minDistance);
-    Map<Gmm, List<ScalarGroundMotion>> gmLists = gms.gmMap.get(imt);
+    Map<Gmm, double[]> μLists = gms.means.get(imt);
+    Map<Gmm, double[]> σLists = gms.sigmas.get(imt);
 
     /* Local EnumSet based keys; gmms.keySet() is not an EnumSet. */
     final Set<Gmm> gmmKeys = EnumSet.copyOf(gmms.keySet());
 
-    /*
-     * Per-gmm data for the source being processed. The double[] arrays below
-     * are [rate, residual, rScaled, mScaled, εScaled].
-     */
-    Map<Gmm, double[]> gmmData = createDataMap(gmmKeys);
+    /* Clear per-target, per-gmm data for the source being processed. */
+    for (Map<Gmm, double[]> data : targetData) {
+      for (Gmm gmm : gmmKeys) {
+        Arrays.fill(data.get(gmm), 0.0);
+      }
+    }
 
     /* Add rupture data to builders */
     for (int i = 0; i < inputs.size(); i++) {
 
-      HazardInput in = inputs.get(i);
-      double rRup = in.rRup;
-      double Mw = in.Mw;
+      double rRup = inputs.rRup[i];
+      double Mw = inputs.Mw[i];
+      double inputRate = inputs.rate[i];
 
       int rIndex = model.distanceIndex(rRup);
       int mIndex = model.magnitudeIndex(Mw);
@@ -222,34 +312,38 @@ final class Deaggregator {
 
         double gmmWeight = gmms.get(gmm);
 
-        ScalarGroundMotion sgm = gmLists.get(gmm).get(i);
-        double μ = sgm.mean();
-        double σ = sgm.sigma();
-        double ε = Maths.epsilon(μ, σ, iml);
-
-        double probAtIml = probModel.exceedance(μ, σ, trunc, imt, iml);
-        double rate = probAtIml * in.rate * sources.weight() * gmmWeight;
-
-        double rScaled = rRup * rate;
-        double mScaled = Mw * rate;
-        double εScaled = ε * rate;
-        double[] data = gmmData.get(gmm);
-        data[2] += rScaled;
-        data[3] += mScaled;
-        data[4] += εScaled;
-
-        if (skipRupture) {
-          data[1] += rate;
-          builders.get(gmm).addResidual(rate);
-          continue;
-        }
-        data[0] += rate;
-        int εIndex = model.epsilonIndex(ε);
+        double μ = μLists.get(gmm)[i];
+        double σ = σLists.get(gmm)[i];
+
+        for (int t = 0; t < imls.length; t++) {
+          double iml = imls[t];
+          double ε = Maths.epsilon(μ, σ, iml);
+
+          double probAtIml = probModel.exceedance(μ, σ, trunc, imt, iml);
+          double rate = probAtIml * inputRate * sources.weight() * gmmWeight;
+
+          double rScaled = rRup * rate;
+          double mScaled = Mw * rate;
+          double εScaled = ε * rate;
+          double[] data = targetData.get(t).get(gmm);
+          data[2] += rScaled;
+          data[3] += mScaled;
+          data[4] += εScaled;
+
+          DeaggDataset.Builder builder = targetBuilders.get(t).get(gmm);
+          if (skipRupture) {
+            data[1] += rate;
+            builder.addResidual(rate);
+            continue;
+          }
+          data[0] += rate;
+          int εIndex = model.epsilonIndex(ε);
 
-        builders.get(gmm).addRate(
-            rIndex, mIndex, εIndex,
-            rScaled, mScaled, εScaled,
-            rate);
+          builder.addRate(
+              rIndex, mIndex, εIndex,
+              rScaled, mScaled, εScaled,
+              rate);
+        }
       }
     }
 
@@ -263,12 +357,14 @@ final class Deaggregator {
     double azimuth = Locations.azimuth(site.location, location);
 
     /* Add sources/contributors to builders. */
-    for (Gmm gmm : gmmKeys) {
-      double[] data = gmmData.get(gmm);
-      DeaggContributor.Builder contributor = new SourceContributor.Builder()
-          .source(source, location, azimuth)
-          .add(data[0], data[1], data[2], data[3], data[4]);
-      builders.get(gmm).addChildContributor(contributor);
+    for (int t = 0; t < imls.length; t++) {
+      for (Gmm gmm : gmmKeys) {
+        double[] data = targetData.get(t).get(gmm);
+        DeaggContributor.Builder contributor = new SourceContributor.Builder()
+            .source(source, location, azimuth)
+            .add(data[0], data[1], data[2], data[3], data[4]);
+        targetBuilders.get(t).get(gmm).addChildContributor(contributor);
+      }
     }
   }
 
@@ -290,6 +386,15 @@ final class Deaggregator {
     return ImmutableMap.copyOf(Maps.transformValues(builders, DATASET_BUILDER));
   }
 
+  private static List<Map<Gmm, DeaggDataset>> buildTargetDatasets(
+      List<Map<Gmm, DeaggDataset.Builder>> targetBuilders) {
+    List<Map<Gmm, DeaggDataset>> datasets = new ArrayList<>(targetBuilders.size());
+    for (Map<Gmm, DeaggDataset.Builder> builders : targetBuilders) {
+      datasets.add(buildDatasets(builders));
+    }
+    return datasets;
+  }
+
   private static Map<Gmm, double[]> createDataMap(Set<Gmm> gmms) {
     Map<Gmm, double[]> rateMap = Maps.newEnumMap(Gmm.class);
     for (Gmm gmm : gmms) {
@@ -298,27 +403,26 @@ final class Deaggregator {
     return rateMap;
   }
 
-  private Map<Gmm, DeaggDataset> processSystemSources() {
+  private List<Map<Gmm, DeaggDataset>> processSystemSources(
+      SystemPartition partition,
+      int chunk) {
 
     /* Safe covariant cast assuming switch handles variants. */
     SystemSourceSet systemSources = (SystemSourceSet) sources;
 
-    Map<Gmm, DeaggDataset.Builder> builders = createBuilders(gmmSet.gmms(), model);
-    for (DeaggDataset.Builder builder : builders.values()) {
-      SourceSetContributor.Builder parent = new SourceSetContributor.Builder();
-      builder.setParentContributor(parent.sourceSet(sources));
+    List<Map<Gmm, DeaggDataset.Builder>> targetBuilders = createTargetBuilders(gmmSet.gmms());
+    for (Map<Gmm, DeaggDataset.Builder> builders : targetBuilders) {
+      for (DeaggDataset.Builder builder : builders.values()) {
+        SourceSetContributor.Builder parent = new SourceSetContributor.Builder();
+        builder.setParentContributor(parent.sourceSet(sources));
+      }
     }
 
-    /*
-     * Subsequent to deaggregation we no longer need references to the source
-     * bitsets so we drain it in place rather than making a copy.
-     */
-
     GroundMotions gms = curves.hazardGroundMotionsList.get(0);
     SystemInputList inputs = (SystemInputList) gms.inputs;
-    List<BitSet> bitsets = inputs.bitsets;
     Map<Gmm, Double> gmms = gmmSet.gmmWeightMap(gms.inputs.minDistance);
-    Map<Gmm, List<ScalarGroundMotion>> gmLists = gms.gmMap.get(imt);
+    Map<Gmm, double[]> μLists = gms.means.get(imt);
+    Map<Gmm, double[]> σLists = gms.sigmas.get(imt);
 
     /* Local EnumSet based keys; gmms.keySet() is not an EnumSet. */
     final Set<Gmm> gmmKeys = EnumSet.copyOf(gmms.keySet());
@@ -334,9 +438,8 @@ final class Deaggregator {
         0.1).build();
     IntervalArray.Builder mfdIndexer = IntervalArray.Builder.fromModel(mfdModel);
 
-    List<Integer> sourceIndices = new LinkedList<>(Ints.asList(Indexing.indices(bitsets.size())));
-
-    for (int sectionIndex : inputs.sectionIndices) {
+    for (int p = partition.chunkStarts[chunk]; p < partition.chunkStarts[chunk + 1]; p++) {
+      int sectionIndex = partition.sections[p];
 
       /*
        * Init section and fetch site-specific source attributes so that they
@@ -355,50 +458,54 @@ final class Deaggregator {
        * Init sectionMfds, create system contributors for section and attach to
        * parent.
        */
-      Map<Gmm, SystemContributor.Builder> contributors = new EnumMap<>(Gmm.class);
-      for (Gmm gmm : gmmKeys) {
-        IntervalArray.Builder mfdBuilder = IntervalArray.Builder.fromModel(mfdModel);
-        SystemContributor.Builder contributor = new SystemContributor.Builder()
-            .section(section, location, azimuth, mfdBuilder);
-        contributors.put(gmm, contributor);
-        builders.get(gmm).addChildContributor(contributor);
+      List<Map<Gmm, SystemContributor.Builder>> targetContributors =
+          new ArrayList<>(imls.length);
+      for (int t = 0; t < imls.length; t++) {
+        Map<Gmm, SystemContributor.Builder> contributors = new EnumMap<>(Gmm.class);
+        for (Gmm gmm : gmmKeys) {
+          IntervalArray.Builder mfdBuilder = IntervalArray.Builder.fromModel(mfdModel);
+          SystemContributor.Builder contributor = new SystemContributor.Builder()
+              .section(section, location, azimuth, mfdBuilder);
+          contributors.put(gmm, contributor);
+          targetBuilders.get(t).get(gmm).addChildContributor(contributor);
+        }
+        targetContributors.add(contributors);
       }
 
-      Iterator<Integer> iter = sourceIndices.iterator();
-      while (iter.hasNext()) {
-        int sourceIndex = iter.next();
+      /* Sources attributed to section. */
+      for (int i = partition.sourceStarts[p]; i < partition.sourceStarts[p + 1]; i++) {
+        int sourceIndex = partition.sources[i];
 
-        /* Source includes section. */
-        if (bitsets.get(sourceIndex).get(sectionIndex)) {
+        double rRup = inputs.rRup[sourceIndex];
+        double Mw = inputs.Mw[sourceIndex];
+        double inputRate = inputs.rate[sourceIndex];
 
-          HazardInput in = inputs.get(sourceIndex);
-          double rRup = in.rRup;
-          double Mw = in.Mw;
+        int rIndex = model.distanceIndex(rRup);
+        int mIndex = model.magnitudeIndex(Mw);
+        boolean skipRupture = (rIndex == -1 || mIndex == -1);
 
-          int rIndex = model.distanceIndex(rRup);
-          int mIndex = model.magnitudeIndex(Mw);
-          boolean skipRupture = (rIndex == -1 || mIndex == -1);
+        int mfdIndex = -1;
+        try {
+          mfdIndex = mfdIndexer.rowIndex(Mw);
+        } catch (IndexOutOfBoundsException iobe) {
+          System.out.println(mfdModel.rowMax() + " " + Mw);
+        }
 
-          int mfdIndex = -1;
-          try {
-            mfdIndex = mfdIndexer.rowIndex(Mw);
-          } catch (IndexOutOfBoundsException iobe) {
-            System.out.println(mfdModel.rowMax() + " " + Mw);
-          }
+        for (Gmm gmm : gmmKeys) {
 
-          for (Gmm gmm : gmmKeys) {
+          double gmmWeight = gmms.get(gmm);
 
-            double gmmWeight = gmms.get(gmm);
+          double μ = μLists.get(gmm)[sourceIndex];
+          double σ = σLists.get(gmm)[sourceIndex];
 
-            ScalarGroundMotion sgm = gmLists.get(gmm).get(sourceIndex);
-            double μ = sgm.mean();
-            double σ = sgm.sigma();
+          for (int t = 0; t < imls.length; t++) {
+            double iml = imls[t];
             double ε = Maths.epsilon(μ, σ, iml);
 
             double probAtIml = probModel.exceedance(μ, σ, trunc, imt, iml);
-            double rate = probAtIml * in.rate * sources.weight() * gmmWeight;
+            double rate = probAtIml * inputRate * sources.weight() * gmmWeight;
 
-            SystemContributor.Builder contributor = contributors.get(gmm);
+            SystemContributor.Builder contributor = targetContributors.get(t).get(gmm);
 
             contributor.addToMfd(mfdIndex, rate);
 
@@ -406,24 +513,126 @@ final class Deaggregator {
             double mScaled = Mw * rate;
             double εScaled = ε * rate;
 
+            DeaggDataset.Builder builder = targetBuilders.get(t).get(gmm);
             if (skipRupture) {
               contributor.add(0.0, rate, rScaled, mScaled, εScaled);
-              builders.get(gmm).addResidual(rate);
+              builder.addResidual(rate);
               continue;
             }
             contributor.add(rate, 0.0, rScaled, mScaled, εScaled);
             int εIndex = model.epsilonIndex(ε);
 
-            builders.get(gmm).addRate(
+            builder.addRate(
                 rIndex, mIndex, εIndex,
                 rScaled, mScaled, εScaled,
                 rate);
           }
-          iter.remove();
         }
       }
     }
-    return buildDatasets(builders);
+    return buildTargetDatasets(targetBuilders);
+  }
+
+  /*
+   * Attribution of the ruptures of a SystemSourceSet to fault sections for
+   * deaggregation. Each rupture is attributed to the first section it
+   * includes, in the order of SystemInputList.sectionIndices (ascending
+   * rRup). Sections are grouped into contiguous chunks, each with at least
+   * 'chunkSize' attributed ruptures (save the last), that may be deaggregated
+   * independently.
+   *
+   * For the section at position p, the indices of attributed ruptures, in
+   * ascending order, are sources[sourceStarts[p]] to
+   * sources[sourceStarts[p + 1] - 1]. Chunk c spans section positions
+   * chunkStarts[c] to chunkStarts[c + 1] - 1.
+   */
+  static final class SystemPartition {
+
+    final int[] sections;
+    final int[] sourceStarts;
+    final int[] sources;
+    final int[] chunkStarts;
+
+    private SystemPartition(int[] sections, int[] sourceStarts, int[] sources, int[] chunkStarts) {
+      this.sections = sections;
+      this.sourceStarts = sourceStarts;
+      this.sources = sources;
+      this.chunkStarts = chunkStarts;
+    }
+
+    int chunks() {
+      return chunkStarts.length - 1;
+    }
+
+    static SystemPartition create(HazardCurveSet curves, int chunkSize) {
+      SystemInputList inputs = (SystemInputList) curves.hazardGroundMotionsList.get(0).inputs;
+      return create(inputs.bitsets, inputs.sectionIndices, chunkSize);
+    }
+
+    static SystemPartition create(
+        List<BitSet> bitsets,
+        Collection<Integer> sectionIndices,
+        int chunkSize) {
+
+      checkArgument(chunkSize > 0, "Chunk size [%s] must be positive", chunkSize);
+      int[] sections = Ints.toArray(sectionIndices);
+
+      /* Position of each section in attribution order; -1 if absent. */
+      int maxSection = -1;
+      for (int section : sections) {
+        maxSection = Math.max(maxSection, section);
+      }
+      int[] positions = new int[maxSection + 1];
+      Arrays.fill(positions, -1);
+      for (int p = 0; p < sections.length; p++) {
+        positions[sections[p]] = p;
+      }
+
+      /* Attribute sources, counting per section position. */
+      int[] attributions = new int[bitsets.size()];
+      int[] sourceStarts = new int[sections.length + 1];
+      for (int i = 0; i < attributions.length; i++) {
+        BitSet bitset = bitsets.get(i);
+        int position = Integer.MAX_VALUE;
+        for (int j = bitset.nextSetBit(0); j >= 0; j = bitset.nextSetBit(j + 1)) {
+          if (j > maxSection) {
+            break;
+          }
+          if (positions[j] >= 0) {
+            position = Math.min(position, positions[j]);
+          }
+        }
+        attributions[i] = (position == Integer.MAX_VALUE) ? -1 : position;
+        if (position != Integer.MAX_VALUE) {
+          sourceStarts[position + 1]++;
+        }
+      }
+      for (int p = 0; p < sections.length; p++) {
+        sourceStarts[p + 1] += sourceStarts[p];
+      }
+
+      /* Group sources by section position, preserving source order. */
+      int[] sources = new int[sourceStarts[sections.length]];
+      int[] next = Arrays.copyOf(sourceStarts, sections.length);
+      for (int i = 0; i < attributions.length; i++) {
+        if (attributions[i] >= 0) {
+          sources[next[attributions[i]]++] = i;
+        }
+      }
+
+      List<Integer> chunkStarts = new ArrayList<>();
+      chunkStarts.add(0);
+      int chunkStart = 0;
+      for (int p = 0; p < sections.length - 1; p++) {
+        if (sourceStarts[p + 1] - sourceStarts[chunkStart] >= chunkSize) {
+          chunkStart = p + 1;
+          chunkStarts.add(chunkStart);
+        }
+      }
+      chunkStarts.add(sections.length);
+
+      return new SystemPartition(sections, sourceStarts, sources, Ints.toArray(chunkStarts));
+    }
   }
 
 }
@@ -0,0 +1,48 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The type of {@link ExecutorService} with which to distribute hazard
+ * calculations. The executor type determines which calculation pipeline is
+ * used when an executor is supplied to
+ * {@link HazardCalcs#hazard(gov.usgs.earthquake.nshmp.eq.model.HazardModel, CalcConfig, Site, com.google.common.base.Optional)}.
+ *
+ * @author Peter Powers
+ */
+public enum ExecutorType {
+
+  /**
+   * A fixed size thread pool sharing a single task queue. Calculations are
+   * composed from chains of Guava {@code ListenableFuture} transforms, one per
+   * source.
+   */
+  FIXED_POOL {
+    @Override
+    public ExecutorService create(ThreadCount threadCount) {
+      return Executors.newFixedThreadPool(threadCount.value());
+    }
+  },
+
+  /**
+   * A work-stealing {@link ForkJoinPool}. Calculations are composed from
+   * recursive tasks that split source sets into chunks of roughly equal
+   * estimated rupture count.
+   */
+  FORK_JOIN {
+    @Override
+    public ExecutorService create(ThreadCount threadCount) {
+      return new ForkJoinPool(threadCount.value());
+    }
+  };
+
+  /**
+   * Create a new executor of this type.
+   *
+   * @param threadCount the number of threads to use
+   */
+  public abstract ExecutorService create(ThreadCount threadCount);
+
+}
@@ -18,6 +18,10 @@ import gov.usgs.earthquake.nshmp.gmm.ScalarGroundMotion;
  * any post processors are specified in the calculation configuration, they are
  * applied in the order listed to the computed scalar ground motions.
  *
+ * <p>Ground motions for a list of inputs may be computed in a single call. The
+ * default instance delegates to {@link GroundMotionModel#calcAll}, whereas
+ * instances with post processors compute and process each input in turn.
+ *
  * @author Peter Powers
  */
 @Beta
@@ -25,6 +29,14 @@ abstract class GmmProcessor {
 
   abstract ScalarGroundMotion apply(GroundMotionModel model, GmmInput in, Imt imt, Gmm gmm);
 
+  abstract void apply(
+      GroundMotionModel model,
+      List<? extends GmmInput> inputs,
+      Imt imt,
+      Gmm gmm,
+      double[] μ,
+      double[] σ);
+
   static GmmProcessor instance(CalcConfig config) {
     boolean defaultOnly = config.hazard.gmmPostProcessors.isEmpty();
     return defaultOnly ? new DefaultInstance() : new Instance(config);
@@ -49,6 +61,22 @@ abstract class GmmProcessor {
       return sgm;
     }
 
+    @Override
+    void apply(
+        GroundMotionModel model,
+        List<? extends GmmInput> inputs,
+        Imt imt,
+        Gmm gmm,
+        double[] μ,
+        double[] σ) {
+
+      for (int i = 0; i < inputs.size(); i++) {
+        ScalarGroundMotion sgm = apply(model, inputs.get(i), imt, gmm);
+        μ[i] = sgm.mean();
+        σ[i] = sgm.sigma();
+      }
+    }
+
   }
 
   private static final class DefaultInstance extends GmmProcessor {
@@ -56,6 +84,18 @@ abstract class GmmProcessor {
     public ScalarGroundMotion apply(GroundMotionModel model, GmmInput in, Imt imt, Gmm gmm) {
       return model.calc(in);
     }
+
+    @Override
+    void apply(
+        GroundMotionModel model,
+        List<? extends GmmInput> inputs,
+        Imt imt,
+        Gmm gmm,
+        double[] μ,
+        double[] σ) {
+
+      model.calcAll(inputs, μ, σ);
+    }
   }
 
 }
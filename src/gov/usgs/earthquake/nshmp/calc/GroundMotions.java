@@ -6,39 +6,56 @@ import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
 
 import com.google.common.collect.Maps;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import gov.usgs.earthquake.nshmp.gmm.Gmm;
 import gov.usgs.earthquake.nshmp.gmm.Imt;
+import gov.usgs.earthquake.nshmp.gmm.MultiScalarGroundMotion;
 import gov.usgs.earthquake.nshmp.gmm.ScalarGroundMotion;
 
-import java.util.Set;
-
 /**
  * Container class for scalar ground motions associated with individual
  * {@code Source}s in a {@code SourceSet}.
  *
+ * <p>Ground motions are stored in columnar form: for each {@code Imt} and
+ * {@code Gmm} there is a {@code double[]} of means and a {@code double[]} of
+ * standard deviations, both indexed in the same order as the
+ * {@code InputList}. No {@code ScalarGroundMotion} objects are retained, with
+ * the exception of any {@link MultiScalarGroundMotion}s, which carry
+ * additional logic tree branches that some {@link ExceedanceModel}s require.
+ *
  * @author Peter Powers
  */
 final class GroundMotions {
 
   /*
-   * NOTE the inputList supplied to Builder is immutable but the
-   * ScalarGroundMotion map it builds is not.
+   * NOTE the inputList supplied to Builder is immutable but the mean and sigma
+   * arrays it builds are not.
    */
 
   final InputList inputs;
-  final Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> gmMap;
+  final Map<Imt, Map<Gmm, double[]>> means;
+  final Map<Imt, Map<Gmm, double[]>> sigmas;
+
+  /*
+   * Only populated for Gmms that return MultiScalarGroundMotions (NGA-East);
+   * the inner map is empty otherwise.
+   */
+  final Map<Imt, Map<Gmm, MultiScalarGroundMotion[]>> multiGms;
 
   private GroundMotions(
       InputList inputs,
-      Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> gmMap) {
+      Map<Imt, Map<Gmm, double[]>> means,
+      Map<Imt, Map<Gmm, double[]>> sigmas,
+      Map<Imt, Map<Gmm, MultiScalarGroundMotion[]>> multiGms) {
 
     this.inputs = inputs;
-    this.gmMap = gmMap;
+    this.means = means;
+    this.sigmas = sigmas;
+    this.multiGms = multiGms;
   }
 
   @Override
@@ -46,16 +63,18 @@ final class GroundMotions {
     StringBuilder sb = new StringBuilder(getClass().getSimpleName());
     sb.append(" [").append(inputs.parentName()).append("]");
     sb.append(":").append(NEWLINE);
-    for (Entry<Imt, Map<Gmm, List<ScalarGroundMotion>>> imtEntry : gmMap.entrySet()) {
+    for (Entry<Imt, Map<Gmm, double[]>> imtEntry : means.entrySet()) {
       sb.append(" ");
       Imt imt = imtEntry.getKey();
-      for (Entry<Gmm, List<ScalarGroundMotion>> gmmEntry : imtEntry.getValue().entrySet()) {
+      for (Entry<Gmm, double[]> gmmEntry : imtEntry.getValue().entrySet()) {
         sb.append(imt.name()).append(" [ ");
         Gmm gmm = gmmEntry.getKey();
         sb.append(gmm.name()).append(" ");
-        for (ScalarGroundMotion sgm : gmmEntry.getValue()) {
-          sb.append(String.format("μ=%.3f", sgm.mean())).append(" ");
-          sb.append(String.format("σ=%.3f", sgm.sigma())).append(" ");
+        double[] μs = gmmEntry.getValue();
+        double[] σs = sigmas.get(imt).get(gmm);
+        for (int i = 0; i < μs.length; i++) {
+          sb.append(String.format("μ=%.3f", μs[i])).append(" ");
+          sb.append(String.format("σ=%.3f", σs[i])).append(" ");
         }
         sb.append("] ");
       }
@@ -75,7 +94,7 @@ final class GroundMotions {
    * against the combined result.
    */
   static GroundMotions combine(InputList inputs, List<GroundMotions> groundMotions) {
-    Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> keyModel = groundMotions.get(0).gmMap;
+    Map<Imt, Map<Gmm, double[]>> keyModel = groundMotions.get(0).means;
     Set<Imt> imtKeys = keyModel.keySet();
     Set<Gmm> gmmKeys = keyModel.get(imtKeys.iterator().next()).keySet();
     return builder(inputs, imtKeys, gmmKeys)
@@ -91,72 +110,118 @@ final class GroundMotions {
     private int addCount = 0;
 
     private final InputList inputs;
-    private final Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> gmMap;
+    private final Map<Imt, Map<Gmm, double[]>> means;
+    private final Map<Imt, Map<Gmm, double[]>> sigmas;
+    private final Map<Imt, Map<Gmm, MultiScalarGroundMotion[]>> multiGms;
 
     private Builder(InputList inputs, Set<Imt> imts, Set<Gmm> gmms) {
       checkArgument(inputs.size() > 0);
       checkArgument(gmms.size() > 0);
       this.inputs = inputs;
-      gmMap = initGmMap(imts, gmms, inputs.size());
+      means = initValueMap(imts, gmms, inputs.size());
+      sigmas = initValueMap(imts, gmms, inputs.size());
+      multiGms = initMultiMap(imts);
       size = imts.size() * gmms.size() * inputs.size();
     }
 
-    Builder add(Imt imt, Gmm gmm, ScalarGroundMotion sgm) {
+    /*
+     * Set the ground motion for the input at the supplied index.
+     */
+    Builder set(Imt imt, Gmm gmm, int index, ScalarGroundMotion sgm) {
       checkState(addCount < size, "This %s instance is already full", ID);
-      gmMap.get(imt).get(gmm).add(sgm);
+      means.get(imt).get(gmm)[index] = sgm.mean();
+      sigmas.get(imt).get(gmm)[index] = sgm.sigma();
+      if (sgm instanceof MultiScalarGroundMotion) {
+        multiArray(imt, gmm)[index] = (MultiScalarGroundMotion) sgm;
+      }
       addCount++;
       return this;
     }
 
+    /*
+     * Set the ground motions for all inputs.
+     */
+    Builder set(Imt imt, Gmm gmm, double[] μ, double[] σ) {
+      int inputCount = inputs.size();
+      checkArgument(μ.length == inputCount && σ.length == inputCount);
+      checkState(addCount + inputCount <= size, "This %s instance is already full", ID);
+      System.arraycopy(μ, 0, means.get(imt).get(gmm), 0, inputCount);
+      System.arraycopy(σ, 0, sigmas.get(imt).get(gmm), 0, inputCount);
+      addCount += inputCount;
+      return this;
+    }
+
     GroundMotions build() {
       checkState(!built, "This %s instance has already been used", ID);
       checkState(addCount == size, "Only %s of %s entries have been added", addCount, size);
       built = true;
-      GroundMotions gms = new GroundMotions(inputs, gmMap);
-      return gms;
+      return new GroundMotions(inputs, means, sigmas, multiGms);
+    }
+
+    private MultiScalarGroundMotion[] multiArray(Imt imt, Gmm gmm) {
+      Map<Gmm, MultiScalarGroundMotion[]> gmmMap = multiGms.get(imt);
+      MultiScalarGroundMotion[] multis = gmmMap.get(gmm);
+      if (multis == null) {
+        multis = new MultiScalarGroundMotion[inputs.size()];
+        gmmMap.put(gmm, multis);
+      }
+      return multis;
     }
 
-    static Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> initGmMap(
+    private static Map<Imt, Map<Gmm, double[]>> initValueMap(
         Set<Imt> imts,
         Set<Gmm> gmms,
         int size) {
 
-      Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> imtMap = Maps.newEnumMap(Imt.class);
+      Map<Imt, Map<Gmm, double[]>> imtMap = Maps.newEnumMap(Imt.class);
       for (Imt imt : imts) {
-        Map<Gmm, List<ScalarGroundMotion>> gmmMap = Maps.newEnumMap(Gmm.class);
+        Map<Gmm, double[]> gmmMap = Maps.newEnumMap(Gmm.class);
         for (Gmm gmm : gmms) {
-          gmmMap.put(gmm, new ArrayList<ScalarGroundMotion>(size));
+          gmmMap.put(gmm, new double[size]);
         }
         imtMap.put(imt, gmmMap);
       }
       return imtMap;
     }
 
+    private static Map<Imt, Map<Gmm, MultiScalarGroundMotion[]>> initMultiMap(Set<Imt> imts) {
+      Map<Imt, Map<Gmm, MultiScalarGroundMotion[]>> imtMap = Maps.newEnumMap(Imt.class);
+      for (Imt imt : imts) {
+        Map<Gmm, MultiScalarGroundMotion[]> gmmMap = Maps.newEnumMap(Gmm.class);
+        imtMap.put(imt, gmmMap);
+      }
+      return imtMap;
+    }
+
     /*
      * For internal use only. Combines multiple ordered GroundMotions that
      * result from InputList partitioning. Can only be called once after
      * intializing the builder with the original master InputList.
      */
     private Builder combine(List<GroundMotions> groundMotions) {
+      int offset = 0;
       for (GroundMotions gms : groundMotions) {
-        addCount += addValues(gmMap, gms.gmMap);
+        addCount += addValues(gms, offset);
+        offset += gms.inputs.size();
       }
       return this;
     }
 
-    private static int addValues(
-        Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> sgmTargetMap,
-        Map<Imt, Map<Gmm, List<ScalarGroundMotion>>> sgmValueMap) {
-
+    private int addValues(GroundMotions gms, int offset) {
       int setCount = 0;
-      for (Entry<Imt, Map<Gmm, List<ScalarGroundMotion>>> imtEntry : sgmTargetMap.entrySet()) {
+      int gmsSize = gms.inputs.size();
+      for (Entry<Imt, Map<Gmm, double[]>> imtEntry : means.entrySet()) {
         Imt imt = imtEntry.getKey();
-        for (Entry<Gmm, List<ScalarGroundMotion>> gmmEntry : imtEntry.getValue().entrySet()) {
-          Gmm gmm = gmmEntry.getKey();
-          List<ScalarGroundMotion> sgmTarget = gmmEntry.getValue();
-          List<ScalarGroundMotion> sgmValues = sgmValueMap.get(imt).get(gmm);
-          sgmTarget.addAll(sgmValues);
-          setCount += sgmValues.size();
+        for (Gmm gmm : imtEntry.getValue().keySet()) {
+          System.arraycopy(gms.means.get(imt).get(gmm), 0,
+              means.get(imt).get(gmm), offset, gmsSize);
+          System.arraycopy(gms.sigmas.get(imt).get(gmm), 0,
+              sigmas.get(imt).get(gmm), offset, gmsSize);
+          MultiScalarGroundMotion[] multis = gms.multiGms.get(imt).get(gmm);
+          if (multis != null) {
+            System.arraycopy(multis, 0, multiArray(imt, gmm), offset, gmsSize);
+          }
+          setCount += gmsSize;
         }
       }
       return setCount;
@@ -53,6 +53,19 @@ public final class Hazard {
     this.config = config;
   }
 
+  /*
+   * Whether this result was computed in curve-only mode and can therefore not
+   * be deaggregated.
+   */
+  boolean isCurvesOnly() {
+    for (HazardCurveSet curveSet : sourceSetCurves.values()) {
+      if (curveSet.isCurvesOnly()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public String toString() {
     String LF = StandardSystemProperty.LINE_SEPARATOR.value();
@@ -68,20 +81,10 @@ public final class Hazard {
         SourceSet<? extends Source> ss = curveSet.sourceSet;
         sb.append("  ").append(ss);
         sb.append("Used: ");
-        switch (type) {
-          case CLUSTER:
-            sb.append(curveSet.clusterGroundMotionsList.size());
-            break;
-          case SYSTEM:
-            sb.append(curveSet.hazardGroundMotionsList.get(0).inputs.size());
-            break;
-          case GRID:
-            sb.append(GridSourceSet.sizeString(
-                curveSet.sourceSet,
-                curveSet.hazardGroundMotionsList.size()));
-            break;
-          default:
-            sb.append(curveSet.hazardGroundMotionsList.size());
+        if (type == SourceType.GRID) {
+          sb.append(GridSourceSet.sizeString(curveSet.sourceSet, curveSet.sourceCount));
+        } else {
+          sb.append(curveSet.sourceCount);
         }
         sb.append(LF);
       }
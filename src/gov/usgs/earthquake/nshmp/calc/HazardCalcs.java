@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -105,10 +106,60 @@ public class HazardCalcs {
     return Deaggregation.atReturnPeriod(hazard, returnPeriod);
   }
 
+  /**
+   * Perform deaggregations of probabilisitic seismic hazard at several return
+   * periods in a single pass over the ground motions of {@code hazard}.
+   *
+   * @param hazard to deaggregate
+   * @param returnPeriods at which to deaggregate
+   * @return a {@code Deaggregation} for each return period, in the order
+   *         supplied
+   */
+  public static List<Deaggregation> deaggregations(
+      Hazard hazard,
+      List<Double> returnPeriods) {
+
+    checkNotNull(hazard);
+    for (double returnPeriod : returnPeriods) {
+      checkInRange(rpRange, "Return period", returnPeriod);
+    }
+
+    return Deaggregation.atReturnPeriods(hazard, returnPeriods);
+  }
+
+  /**
+   * Perform deaggregations of probabilisitic seismic hazard at several return
+   * periods in a single pass over the ground motions of {@code hazard},
+   * possibly using an {@link Optional} {@link Executor}. If an executor is
+   * supplied, each {@code Imt} and source set combination is deaggregated in a
+   * separate task; otherwise deaggregation runs on the current thread.
+   *
+   * @param hazard to deaggregate
+   * @param returnPeriods at which to deaggregate
+   * @param ex optional {@code Executor} to use in deaggregation
+   * @return a {@code Deaggregation} for each return period, in the order
+   *         supplied
+   */
+  public static List<Deaggregation> deaggregations(
+      Hazard hazard,
+      List<Double> returnPeriods,
+      Optional<Executor> ex) {
+
+    checkNotNull(hazard);
+    checkNotNull(ex);
+    for (double returnPeriod : returnPeriods) {
+      checkInRange(rpRange, "Return period", returnPeriod);
+    }
+
+    return Deaggregation.atReturnPeriods(hazard, returnPeriods, ex);
+  }
+
   /**
    * Compute probabilistic seismic hazard, possibly using an {@link Optional}
    * {@link Executor}. If no executor is supplied, the calculation will run on
-   * the current thread.
+   * the current thread. If the executor is a {@link ForkJoinPool}, the
+   * calculation is split into work-stealing tasks; otherwise it is composed
+   * from chained futures.
    *
    * @param model to use
    * @param config calculation properties
@@ -126,16 +177,58 @@ public class HazardCalcs {
       Optional<Executor> ex)
       throws InterruptedException, ExecutionException {
 
+    return hazard(model, config, site, false, ex);
+  }
+
+  /**
+   * Compute probabilistic seismic hazard curves, possibly using an
+   * {@link Optional} {@link Executor}. This method is identical to
+   * {@link #hazard(HazardModel, CalcConfig, Site, Optional)} except that the
+   * ground motions otherwise retained for deaggregation are discarded once the
+   * curves for a site have been combined. The returned {@code Hazard} is
+   * considerably smaller but can not be deaggregated. Use this method when
+   * only hazard curves are required, e.g. for large maps.
+   *
+   * @param model to use
+   * @param config calculation properties
+   * @param site of interest
+   * @param ex optional {@code Executor} to use in calculation
+   * @throws InterruptedException if an {@code Executor} was supplied and the
+   *         calculation is interrupted
+   * @throws ExecutionException if an {@code Executor} was supplied and a
+   *         problem arises during the calculation
+   */
+  public static Hazard hazardCurves(
+      HazardModel model,
+      CalcConfig config,
+      Site site,
+      Optional<Executor> ex)
+      throws InterruptedException, ExecutionException {
+
+    return hazard(model, config, site, true, ex);
+  }
+
+  private static Hazard hazard(
+      HazardModel model,
+      CalcConfig config,
+      Site site,
+      boolean curvesOnly,
+      Optional<Executor> ex)
+      throws InterruptedException, ExecutionException {
+
     checkNotNull(model);
     checkNotNull(config);
     checkNotNull(site);
     checkNotNull(ex);
 
     if (ex.isPresent()) {
-      return asyncHazardCurve(model, config, site, ex.get());
+      if (ex.get() instanceof ForkJoinPool) {
+        return CalcTasks.hazard(model, config, site, curvesOnly, (ForkJoinPool) ex.get());
+      }
+      return asyncHazardCurve(model, config, site, curvesOnly, ex.get());
     }
     Logger log = Logger.getLogger(HazardCalcs.class.getName());
-    return hazardCurve(model, config, site, log);
+    return hazardCurve(model, config, site, curvesOnly, log);
   }
 
   /*
@@ -145,6 +238,7 @@ public class HazardCalcs {
       HazardModel model,
       CalcConfig config,
       Site site,
+      boolean curvesOnly,
       Executor ex) throws InterruptedException, ExecutionException {
 
     AsyncList<HazardCurveSet> curveSets = AsyncList.createWithCapacity(model.size());
@@ -159,10 +253,10 @@ public class HazardCalcs {
           if (config.performance.optimizeGrids && gss.sourceType() != FIXED_STRIKE &&
               gss.optimizable()) {
             gridTables.add(transform(immediateFuture(gss),
-                GridSourceSet.optimizer(site.location), ex));
+                gridOptimizer(config, site), ex));
             break;
           }
-          curveSets.add(sourcesToCurves(sourceSet, config, site, ex));
+          curveSets.add(sourcesToCurves(sourceSet, config, site, curvesOnly, ex));
           break;
 
         case CLUSTER:
@@ -174,7 +268,7 @@ public class HazardCalcs {
           break;
 
         default:
-          curveSets.add(sourcesToCurves(sourceSet, config, site, ex));
+          curveSets.add(sourcesToCurves(sourceSet, config, site, curvesOnly, ex));
           break;
       }
     }
@@ -185,10 +279,10 @@ public class HazardCalcs {
      * source types have been submitted.
      */
     for (SourceSet<? extends Source> sourceSet : allAsList(gridTables).get()) {
-      curveSets.add(sourcesToCurves(sourceSet, config, site, ex));
+      curveSets.add(sourcesToCurves(sourceSet, config, site, curvesOnly, ex));
     }
 
-    return toHazardResult(model, config, site, curveSets, ex);
+    return toHazardResult(model, config, site, curveSets, curvesOnly, ex);
   }
 
   /*
@@ -198,6 +292,7 @@ public class HazardCalcs {
       HazardModel model,
       CalcConfig config,
       Site site,
+      boolean curvesOnly,
       Logger log) {
 
     List<HazardCurveSet> curveSets = new ArrayList<>(model.size());
@@ -212,10 +307,10 @@ public class HazardCalcs {
         case GRID:
           GridSourceSet gss = (GridSourceSet) sourceSet;
           if (config.performance.optimizeGrids && gss.sourceType() != FIXED_STRIKE) {
-            sourceSet = GridSourceSet.optimizer(site.location).apply(gss);
+            sourceSet = gridOptimizer(config, site).apply(gss);
             log(log, MSSG_GRID_INIT, sourceSet.name(), duration(swSource));
           }
-          curveSets.add(sourcesToCurves(sourceSet, config, site));
+          curveSets.add(sourcesToCurves(sourceSet, config, site, curvesOnly));
           log(log, MSSG_COMPLETED, sourceSet.name(), duration(swSource));
           break;
 
@@ -230,7 +325,7 @@ public class HazardCalcs {
           break;
 
         default:
-          curveSets.add(sourcesToCurves(sourceSet, config, site));
+          curveSets.add(sourcesToCurves(sourceSet, config, site, curvesOnly));
           log(log, MSSG_COMPLETED, sourceSet.name(), duration(swSource));
           break;
       }
@@ -239,7 +334,20 @@ public class HazardCalcs {
     log.log(Level.INFO, String.format(" %s: %s", MSSG_DURATION, duration(swTotal)));
     swTotal.stop();
     swSource.stop();
-    return toHazardResult(model, config, site, curveSets);
+    return toHazardResult(model, config, site, curveSets, curvesOnly);
+  }
+
+  /*
+   * Grid optimizer for a site that, if so configured, reuses previously built
+   * rate tables.
+   */
+  static Function<GridSourceSet, SourceSet<? extends Source>> gridOptimizer(
+      CalcConfig config,
+      Site site) {
+
+    return config.performance.gridTableCache
+        ? GridSourceSet.optimizer(site.location, config.performance.gridTableResolution)
+        : GridSourceSet.optimizer(site.location);
   }
 
   /*
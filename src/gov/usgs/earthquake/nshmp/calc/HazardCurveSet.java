@@ -49,6 +49,10 @@ import java.util.Set;
  * and infrequent use of {@code ClusterSource}s, this incurs little additional
  * overhead.
  *
+ * <p>When deaggregation is not required, a curve set may be reduced to a
+ * curve-only copy via {@link #curvesOnly()} that drops all references to
+ * ground motions and cluster curves.
+ *
  * @author Peter Powers
  */
 final class HazardCurveSet {
@@ -59,6 +63,7 @@ final class HazardCurveSet {
   final Map<Imt, List<Map<Gmm, XySequence>>> clusterCurveLists;
   final Map<Imt, Map<Gmm, XySequence>> curveMap;
   final Map<Imt, XySequence> totalCurves;
+  final int sourceCount;
 
   // TODO separate references by what is needed for hazard vs deagg
   // deagg of cluster and system types requires us to hold onto some
@@ -70,7 +75,8 @@ final class HazardCurveSet {
       List<ClusterGroundMotions> clusterGroundMotionsList,
       Map<Imt, List<Map<Gmm, XySequence>>> clusterCurveLists,
       Map<Imt, Map<Gmm, XySequence>> curveMap,
-      Map<Imt, XySequence> totalCurves) {
+      Map<Imt, XySequence> totalCurves,
+      int sourceCount) {
 
     this.sourceSet = sourceSet;
     this.hazardGroundMotionsList = hazardGroundMotionsList;
@@ -78,6 +84,7 @@ final class HazardCurveSet {
     this.clusterCurveLists = clusterCurveLists;
     this.curveMap = curveMap;
     this.totalCurves = totalCurves;
+    this.sourceCount = sourceCount;
   }
 
   static Builder builder(SourceSet<? extends Source> sourceSet,
@@ -93,13 +100,31 @@ final class HazardCurveSet {
    * source set.
    */
   static HazardCurveSet empty(SourceSet<? extends Source> sourceSet) {
-    return new HazardCurveSet(sourceSet, null, null, null, null, null);
+    return new HazardCurveSet(sourceSet, null, null, null, null, null, 0);
   }
 
   boolean isEmpty() {
     return totalCurves == null;
   }
 
+  /*
+   * Return a copy of this curve set that retains only the curves required for
+   * output. The ground motions and cluster curves that are otherwise held for
+   * deaggregation become eligible for garbage collection once this curve set
+   * is released.
+   */
+  HazardCurveSet curvesOnly() {
+    if (isEmpty() || isCurvesOnly()) {
+      return this;
+    }
+    return new HazardCurveSet(sourceSet, null, null, null, curveMap, totalCurves, sourceCount);
+  }
+
+  /* Whether this curve set has been reduced to curves only. */
+  boolean isCurvesOnly() {
+    return !isEmpty() && hazardGroundMotionsList == null && clusterGroundMotionsList == null;
+  }
+
   static class Builder {
 
     private static final String ID = "HazardCurveSet.Builder";
@@ -217,7 +242,22 @@ final class HazardCurveSet {
           clusterGroundMotionsList,
           clusterCurveLists,
           curveMap,
-          totalCurves);
+          totalCurves,
+          sourceCount());
+    }
+
+    /*
+     * The number of sources used: cluster sources for cluster source sets,
+     * ruptures for system source sets, and sources otherwise.
+     */
+    private int sourceCount() {
+      if (clusterGroundMotionsList != null) {
+        return clusterGroundMotionsList.size();
+      }
+      if (sourceSet.type() == SourceType.SYSTEM) {
+        return hazardGroundMotionsList.get(0).inputs.size();
+      }
+      return hazardGroundMotionsList.size();
     }
 
     /*
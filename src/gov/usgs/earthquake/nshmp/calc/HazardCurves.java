@@ -72,7 +72,7 @@ final class HazardCurves {
     private Builder(GroundMotions groundMotions) {
       this.groundMotions = groundMotions;
       curveMap = new EnumMap<>(Imt.class);
-      for (Imt imt : groundMotions.gmMap.keySet()) {
+      for (Imt imt : groundMotions.means.keySet()) {
         Map<Gmm, XySequence> gmmMap = new EnumMap<>(Gmm.class);
         curveMap.put(imt, gmmMap);
       }
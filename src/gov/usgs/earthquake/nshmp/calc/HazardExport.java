@@ -7,7 +7,6 @@ import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 
 import com.google.common.base.Function;
-import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
@@ -16,7 +15,6 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.primitives.Doubles;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -61,6 +59,7 @@ public final class HazardExport {
   static final String BINARY_SUFFIX = ".bin";
   static final String TEXT_SUFFIX = ".csv";
   static final String RATE_FMT = "%.8e";
+  private static final int LOCATION_SCALE = 5;
 
   static final OpenOption[] WRITE = new OpenOption[] {
       StandardOpenOption.CREATE,
@@ -92,6 +91,12 @@ public final class HazardExport {
   /* Only used for binary file export. */
   private final Map<Imt, Metadata> metaMap;
 
+  /* Text file writers; opened with the first batch and held open until expiry. */
+  private final Map<Imt, CsvWriter> totalWriters;
+  private final Map<Imt, Map<SourceType, CsvWriter>> typeWriters;
+  private final Map<Imt, Map<Gmm, CsvWriter>> gmmWriters;
+  private final List<CsvWriter> writers;
+
   private HazardExport(CalcConfig config, Sites sites, Logger log) throws IOException {
     this.log = log;
     this.dir = createOutputDir(config.output.directory);
@@ -101,6 +106,10 @@ public final class HazardExport {
     this.exportBinary = config.output.dataTypes.contains(DataType.BINARY);
     this.hazards = new ArrayList<>();
     this.deaggs = new ArrayList<>();
+    this.totalWriters = Maps.newEnumMap(Imt.class);
+    this.typeWriters = Maps.newEnumMap(Imt.class);
+    this.gmmWriters = Maps.newEnumMap(Imt.class);
+    this.writers = new ArrayList<>();
 
     Site demoSite = sites.iterator().next();
     this.namedSites = demoSite.name() != Site.NO_NAME;
@@ -173,6 +182,27 @@ public final class HazardExport {
     if (deagg.isPresent()) {
       deaggs.add(deagg.get());
     }
+    checkFlush();
+  }
+
+  /**
+   * Add a Hazard and the Deaggregation results of several targets (e.g. return
+   * periods) to this handler. Deaggregations performed at several targets in a
+   * single pass are each written to a target-specific subdirectory of the
+   * deaggregation output directories.
+   * 
+   * @param hazard to add
+   * @param deaggs to add
+   */
+  public void add(Hazard hazard, List<Deaggregation> deaggs) throws IOException {
+    checkState(!used, "This result handler is expired");
+    resultCount++;
+    hazards.add(hazard);
+    this.deaggs.addAll(deaggs);
+    checkFlush();
+  }
+
+  private void checkFlush() throws IOException {
     if (hazards.size() == config.output.flushLimit) {
       flush();
       batchCount++;
@@ -187,26 +217,69 @@ public final class HazardExport {
    * Flush any stored Hazard and Deaggregation results to file, clearing
    */
   public void flush() throws IOException {
-    if (!hazards.isEmpty()) {
-      writeHazards();
-      hazards.clear();
-      firstBatch = false;
-    }
-    if (!deaggs.isEmpty()) {
-      writeDeaggs();
-      deaggs.clear();
+    try {
+      if (!hazards.isEmpty()) {
+        writeHazards();
+        hazards.clear();
+        firstBatch = false;
+      }
+      if (!deaggs.isEmpty()) {
+        writeDeaggs();
+        deaggs.clear();
+      }
+    } catch (IOException | RuntimeException e) {
+      /* Output is incomplete; release files and refuse further results. */
+      used = true;
+      closeWriters(e);
+      throw e;
     }
   }
 
   /**
-   * Calls {@link #flush()} a final time, stops all timers and sets the state of
-   * this {@code Results} instance to 'used'; no more results may be added.
+   * Calls {@link #flush()} a final time, closes all open files, stops all
+   * timers and sets the state of this {@code Results} instance to 'used'; no
+   * more results may be added. Open files are closed even if the final flush
+   * fails.
    */
   public void expire() throws IOException {
-    flush();
-    batchWatch.stop();
-    totalWatch.stop();
-    used = true;
+    try {
+      flush();
+    } finally {
+      used = true;
+      if (batchWatch.isRunning()) {
+        batchWatch.stop();
+      }
+      if (totalWatch.isRunning()) {
+        totalWatch.stop();
+      }
+    }
+    closeWriters(null);
+  }
+
+  /*
+   * Close all open text file writers. If a cause is supplied, failures to close
+   * are added to it as suppressed exceptions; otherwise the first failure is
+   * thrown once all writers have been closed.
+   */
+  private void closeWriters(Exception cause) throws IOException {
+    IOException failure = null;
+    for (CsvWriter writer : writers) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        if (cause != null) {
+          cause.addSuppressed(e);
+        } else if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    writers.clear();
+    if (failure != null) {
+      throw failure;
+    }
   }
 
   /**
@@ -247,55 +320,17 @@ public final class HazardExport {
 
     Set<Gmm> gmms = gmmSet(demo.model);
 
-    OpenOption[] options = firstBatch ? WRITE : APPEND;
+    boolean poisson = demo.config.hazard.valueFormat == ValueFormat.POISSON_PROBABILITY;
 
-    Function<Double, String> formatter = Parsing.formatDoubleFunction(RATE_FMT);
-    if (demo.config.hazard.valueFormat == ValueFormat.POISSON_PROBABILITY) {
-      formatter = Functions.compose(
-          formatter,
-          Mfds.annualRateToProbabilityConverter());
+    if (firstBatch) {
+      initWriters(demo, gmms);
     }
 
-    /* Line maps for ascii output; may or may not be used */
-    Map<Imt, List<String>> totalLines = Maps.newEnumMap(Imt.class);
-    Map<Imt, Map<SourceType, List<String>>> typeLines = Maps.newEnumMap(Imt.class);
-    Map<Imt, Map<Gmm, List<String>>> gmmLines = Maps.newEnumMap(Imt.class);
-
     /* Curve maps for binary output; may or may not be used */
     Map<Imt, Map<Integer, XySequence>> totalCurves = Maps.newEnumMap(Imt.class);
     Map<Imt, Map<SourceType, Map<Integer, XySequence>>> typeCurves = Maps.newEnumMap(Imt.class);
     Map<Imt, Map<Gmm, Map<Integer, XySequence>>> gmmCurves = Maps.newEnumMap(Imt.class);
 
-    /* Initialize line maps. */
-    for (Imt imt : demo.totalCurves.keySet()) {
-
-      List<String> lines = new ArrayList<>();
-      totalLines.put(imt, lines);
-
-      if (firstBatch) {
-        Iterable<?> header = Iterables.concat(
-            Lists.newArrayList(namedSites ? "name" : null, "lon", "lat"),
-            demo.config.hazard.modelCurves().get(imt).xValues());
-        lines.add(Parsing.join(header, Delimiter.COMMA));
-      }
-
-      if (exportSource) {
-        Map<SourceType, List<String>> typeMap = new EnumMap<>(SourceType.class);
-        typeLines.put(imt, typeMap);
-        for (SourceType type : demo.model.types()) {
-          typeMap.put(type, Lists.newArrayList(lines));
-        }
-      }
-
-      if (exportGmm) {
-        Map<Gmm, List<String>> gmmMap = new EnumMap<>(Gmm.class);
-        gmmLines.put(imt, gmmMap);
-        for (Gmm gmm : gmms) {
-          gmmMap.put(gmm, Lists.newArrayList(lines));
-        }
-      }
-    }
-
     /* Initialize curve maps and binary output files. */
     if (exportBinary) {
       for (Imt imt : demo.totalCurves.keySet()) {
@@ -325,11 +360,6 @@ public final class HazardExport {
       String name = namedSites ? hazard.site.name : null;
       Location location = hazard.site.location;
 
-      List<String> locData = Lists.newArrayList(
-          name,
-          String.format("%.5f", location.lon()),
-          String.format("%.5f", location.lat()));
-
       Map<Imt, Map<SourceType, XySequence>> curvesBySource =
           exportSource ? curvesBySource(hazard) : null;
 
@@ -340,13 +370,8 @@ public final class HazardExport {
         Imt imt = imtEntry.getKey();
 
         XySequence totalCurve = imtEntry.getValue();
-        Iterable<Double> emptyValues = Doubles.asList(new double[totalCurve.size()]);
-        String emptyLine = toLine(locData, emptyValues, formatter);
-
-        totalLines.get(imt).add(toLine(
-            locData,
-            imtEntry.getValue().yValues(),
-            formatter));
+        int size = totalCurve.size();
+        writeLine(totalWriters.get(imt), name, location, totalCurve, size, poisson);
 
         Metadata meta = null;
         int binIndex = -1;
@@ -358,87 +383,134 @@ public final class HazardExport {
 
         if (exportSource) {
           Map<SourceType, XySequence> sourceCurveMap = curvesBySource.get(imt);
-          for (Entry<SourceType, List<String>> typeEntry : typeLines.get(imt).entrySet()) {
+          for (Entry<SourceType, CsvWriter> typeEntry : typeWriters.get(imt).entrySet()) {
             SourceType type = typeEntry.getKey();
-            String typeLine = emptyLine;
-            if (sourceCurveMap.containsKey(type)) {
-              XySequence typeCurve = sourceCurveMap.get(type);
-              typeLine = toLine(locData, typeCurve.yValues(), formatter);
-              if (exportBinary) {
-                typeCurves.get(imt).get(type).put(binIndex, typeCurve);
-              }
+            XySequence typeCurve = sourceCurveMap.get(type);
+            if (typeCurve != null && exportBinary) {
+              typeCurves.get(imt).get(type).put(binIndex, typeCurve);
             }
-            typeEntry.getValue().add(typeLine);
+            writeLine(typeEntry.getValue(), name, location, typeCurve, size, poisson);
           }
         }
 
         if (exportGmm) {
           Map<Gmm, XySequence> gmmCurveMap = curvesByGmm.get(imt);
-          for (Entry<Gmm, List<String>> gmmEntry : gmmLines.get(imt).entrySet()) {
+          for (Entry<Gmm, CsvWriter> gmmEntry : gmmWriters.get(imt).entrySet()) {
             Gmm gmm = gmmEntry.getKey();
-            String gmmLine = emptyLine;
-            if (gmmCurveMap.containsKey(gmm)) {
-              XySequence gmmCurve = gmmCurveMap.get(gmm);
-              gmmLine = toLine(locData, gmmCurveMap.get(gmm).yValues(), formatter);
-              if (exportBinary) {
-                gmmCurves.get(imt).get(gmm).put(binIndex, gmmCurve);
-              }
+            XySequence gmmCurve = gmmCurveMap.get(gmm);
+            if (gmmCurve != null && exportBinary) {
+              gmmCurves.get(imt).get(gmm).put(binIndex, gmmCurve);
             }
-            gmmEntry.getValue().add(gmmLine);
+            writeLine(gmmEntry.getValue(), name, location, gmmCurve, size, poisson);
           }
         }
       }
     }
 
-    /* write/append */
-    for (Entry<Imt, List<String>> totalEntry : totalLines.entrySet()) {
-      Imt imt = totalEntry.getKey();
-
-      Path imtDir = dir.resolve(imt.name());
-      Files.createDirectories(imtDir);
-      Path totalFile = imtDir.resolve("total" + TEXT_SUFFIX);
-      Files.write(totalFile, totalEntry.getValue(), US_ASCII, options);
-
-      Metadata meta = null;
+    /* Complete text batch. */
+    for (CsvWriter writer : writers) {
+      writer.flush();
+    }
 
-      if (exportBinary) {
-        meta = metaMap.get(imt);
+    /* Write binary batch. */
+    if (exportBinary) {
+      for (Imt imt : totalCurves.keySet()) {
+        Metadata meta = metaMap.get(imt);
+        Path imtDir = dir.resolve(imt.name());
         Path totalBinFile = imtDir.resolve("total" + BINARY_SUFFIX);
         writeBinaryBatch(totalBinFile, meta, totalCurves.get(imt));
+
+        if (exportSource) {
+          Path typeDir = imtDir.resolve("source");
+          for (Entry<SourceType, Map<Integer, XySequence>> typeEntry : typeCurves.get(imt)
+              .entrySet()) {
+            Path typeBinFile = typeDir.resolve(typeEntry.getKey().toString() + BINARY_SUFFIX);
+            writeBinaryBatch(typeBinFile, meta, typeEntry.getValue());
+          }
+        }
+
+        if (exportGmm) {
+          Path gmmDir = imtDir.resolve("gmm");
+          for (Entry<Gmm, Map<Integer, XySequence>> gmmEntry : gmmCurves.get(imt).entrySet()) {
+            Path gmmBinFile = gmmDir.resolve(gmmEntry.getKey().name() + BINARY_SUFFIX);
+            writeBinaryBatch(gmmBinFile, meta, gmmEntry.getValue());
+          }
+        }
       }
+    }
+  }
+
+  /*
+   * Create output directories and open text file writers for all Imts, and
+   * SourceTypes and Gmms as required, writing a header line to each.
+   */
+  private void initWriters(Hazard demo, Set<Gmm> gmms) throws IOException {
+    for (Imt imt : demo.totalCurves.keySet()) {
+
+      Iterable<?> header = Iterables.concat(
+          Lists.newArrayList(namedSites ? "name" : null, "lon", "lat"),
+          demo.config.hazard.modelCurves().get(imt).xValues());
+      String headerLine = Parsing.join(header, Delimiter.COMMA);
+
+      Path imtDir = dir.resolve(imt.name());
+      Files.createDirectories(imtDir);
+      Path totalFile = imtDir.resolve("total" + TEXT_SUFFIX);
+      totalWriters.put(imt, createWriter(totalFile, headerLine));
 
       if (exportSource) {
         Path typeDir = imtDir.resolve("source");
         Files.createDirectories(typeDir);
-        for (Entry<SourceType, List<String>> typeEntry : typeLines.get(imt).entrySet()) {
-          SourceType type = typeEntry.getKey();
-          String filename = type.toString();
-          Path typeFile = typeDir.resolve(filename + TEXT_SUFFIX);
-          Files.write(typeFile, typeEntry.getValue(), US_ASCII, options);
-          if (exportBinary) {
-            Path typeBinFile = typeDir.resolve(filename + BINARY_SUFFIX);
-            writeBinaryBatch(typeBinFile, meta, typeCurves.get(imt).get(type));
-          }
+        Map<SourceType, CsvWriter> typeMap = new EnumMap<>(SourceType.class);
+        typeWriters.put(imt, typeMap);
+        for (SourceType type : demo.model.types()) {
+          Path typeFile = typeDir.resolve(type.toString() + TEXT_SUFFIX);
+          typeMap.put(type, createWriter(typeFile, headerLine));
         }
       }
 
       if (exportGmm) {
         Path gmmDir = imtDir.resolve("gmm");
         Files.createDirectories(gmmDir);
-        for (Entry<Gmm, List<String>> gmmEntry : gmmLines.get(imt).entrySet()) {
-          Gmm gmm = gmmEntry.getKey();
-          String filename = gmm.name();
-          Path gmmFile = gmmDir.resolve(filename + TEXT_SUFFIX);
-          Files.write(gmmFile, gmmEntry.getValue(), US_ASCII, options);
-          if (exportBinary) {
-            Path gmmBinFile = gmmDir.resolve(filename + BINARY_SUFFIX);
-            writeBinaryBatch(gmmBinFile, meta, gmmCurves.get(imt).get(gmm));
-          }
+        Map<Gmm, CsvWriter> gmmMap = new EnumMap<>(Gmm.class);
+        gmmWriters.put(imt, gmmMap);
+        for (Gmm gmm : gmms) {
+          Path gmmFile = gmmDir.resolve(gmm.name() + TEXT_SUFFIX);
+          gmmMap.put(gmm, createWriter(gmmFile, headerLine));
         }
       }
     }
   }
 
+  private CsvWriter createWriter(Path path, String header) throws IOException {
+    CsvWriter writer = new CsvWriter(path, WRITE);
+    writer.field(header).line();
+    writers.add(writer);
+    return writer;
+  }
+
+  /*
+   * Write a line of site data and curve values, or zeros if the curve is null,
+   * optionally converting annual rates to Poisson probabilities. A null name
+   * is skipped.
+   */
+  private static void writeLine(
+      CsvWriter writer,
+      String name,
+      Location location,
+      XySequence curve,
+      int size,
+      boolean poisson) throws IOException {
+
+    writer.field(name)
+        .field(location.lon(), LOCATION_SCALE)
+        .field(location.lat(), LOCATION_SCALE);
+    for (int i = 0; i < size; i++) {
+      double value = (curve == null) ? 0.0 : curve.y(i);
+      writer.field(poisson ? Mfds.rateToProb(value, 1.0) : value);
+    }
+    writer.line();
+  }
+
   /*
    * Write the current list of {@code Deaggregation}s to file.
    */
@@ -455,6 +527,9 @@ public final class HazardExport {
         /* Write total dataset. */
         Path imtDir = dir.resolve(imtEntry.getKey().name());
         Path imtDeaggDir = imtDir.resolve(DEAGG_DIR);
+        if (deagg.target.isPresent()) {
+          imtDeaggDir = imtDeaggDir.resolve(deagg.target.get());
+        }
         Files.createDirectories(imtDeaggDir);
         ImtDeagg imtDeagg = imtEntry.getValue();
         DeaggDataset ddTotal = imtDeagg.totalDataset;
@@ -467,6 +542,9 @@ public final class HazardExport {
             Path gmmDir = imtDir.resolve(GMM_DIR)
                 .resolve(DEAGG_DIR)
                 .resolve(gmmEntry.getKey().name());
+            if (deagg.target.isPresent()) {
+              gmmDir = gmmDir.resolve(deagg.target.get());
+            }
             Files.createDirectories(gmmDir);
             DeaggDataset ddGmm = gmmEntry.getValue();
             exporter = new DeaggExport(ddTotal, ddGmm, dc, gmmEntry.getKey().toString(), false);
@@ -477,16 +555,6 @@ public final class HazardExport {
     }
   }
 
-  private static String toLine(
-      Iterable<String> location,
-      Iterable<Double> values,
-      Function<Double, String> formatter) {
-
-    return Parsing.join(
-        FluentIterable.from(location).append(Iterables.transform(values, formatter)),
-        Delimiter.COMMA);
-  }
-
   private static String lonLatStr(Location loc) {
     return new StringBuilder()
         .append(loc.lon())
@@ -704,13 +772,13 @@ public final class HazardExport {
       initBinary(path, meta);
     }
 
-    FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
-    for (Entry<Integer, XySequence> entry : curves.entrySet()) {
-      toBuffer(entry.getValue(), meta.buffer);
-      int position = HEADER_OFFSET + entry.getKey() * meta.curveByteSize;
-      channel.write(meta.buffer, position);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      for (Entry<Integer, XySequence> entry : curves.entrySet()) {
+        toBuffer(entry.getValue(), meta.buffer);
+        int position = HEADER_OFFSET + entry.getKey() * meta.curveByteSize;
+        channel.write(meta.buffer, position);
+      }
     }
-    channel.close();
   }
 
   private static void toBuffer(XySequence curve, ByteBuffer buffer) {
@@ -722,13 +790,13 @@ public final class HazardExport {
   }
 
   private void initBinary(Path path, Metadata meta) throws IOException {
-    FileChannel channel = FileChannel.open(path, WRITE);
-    ByteBuffer header = createHeader(meta);
-    header.flip();
-    channel.write(header);
-    /* Initialize with zero-valued curves. */
-    channel.write(ByteBuffer.allocate(meta.gridSize * meta.curveByteSize));
-    channel.close();
+    try (FileChannel channel = FileChannel.open(path, WRITE)) {
+      ByteBuffer header = createHeader(meta);
+      header.flip();
+      channel.write(header);
+      /* Initialize with zero-valued curves. */
+      channel.write(ByteBuffer.allocate(meta.gridSize * meta.curveByteSize));
+    }
   }
 
   /* Header occupies 1664 bytes total */
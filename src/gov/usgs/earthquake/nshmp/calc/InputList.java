@@ -1,24 +1,53 @@
 package gov.usgs.earthquake.nshmp.calc;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static gov.usgs.earthquake.nshmp.internal.TextUtils.NEWLINE;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 
 import java.util.AbstractList;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Lightweight {@code List} wrapper of {@code HazardInput}s. The {@code List}
- * may only be added to; all other optional operations of {@code AbstractList}
- * throw an {@code UnsupportedOperationException}.
+ * Columnar {@code List} of {@code HazardInput}s. Rupture properties are stored
+ * in parallel {@code double[]} columns and site properties, which are common to
+ * all inputs, are stored once. Rows may only be appended, either as the
+ * properties of a rupture via
+ * {@link #add(double, double, double, double, double, double, double, double, double, double)},
+ * or as a {@code HazardInput} via {@link #add(HazardInput)}; all other optional
+ * operations of {@code AbstractList} throw an
+ * {@code UnsupportedOperationException}.
+ *
+ * <p>{@link #get(int)} allocates and returns a new {@code HazardInput} view of
+ * a row on every call. Such views are not retained by the list, so callers
+ * that visit a row repeatedly should hold on to the returned instance.
  *
  * @author Peter Powers
  */
 public abstract class InputList extends AbstractList<HazardInput> {
 
-  private final List<HazardInput> delegate;
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /* Rupture columns; capacity may exceed size. */
+  double[] rate;
+  double[] Mw;
+  double[] rJB;
+  double[] rRup;
+  double[] rX;
+  double[] dip;
+  double[] width;
+  double[] zTop;
+  double[] zHyp;
+  double[] rake;
+  private int size;
+
+  /* Site properties common to all inputs. */
+  private final double vs30;
+  private final boolean vsInf;
+  private final double z1p0;
+  private final double z2p5;
 
   /*
    * minDistance is used to track the closest distance of any Rupture in a
@@ -27,29 +56,157 @@ public abstract class InputList extends AbstractList<HazardInput> {
    */
   double minDistance = Double.MAX_VALUE;
 
-  InputList() {
-    delegate = new ArrayList<>();
+  /*
+   * The number of inputs that were merged into others when this list was
+   * created; see SourceInputList.collapse().
+   */
+  int collapsed = 0;
+
+  InputList(Site site) {
+    this(site, DEFAULT_CAPACITY);
+  }
+
+  InputList(Site site, int capacity) {
+    this(site.vs30, site.vsInferred, site.z1p0, site.z2p5, capacity);
+  }
+
+  /* Create an empty list with the site properties of the supplied list. */
+  InputList(InputList template, int capacity) {
+    this(template.vs30, template.vsInf, template.z1p0, template.z2p5, capacity);
+  }
+
+  private InputList(double vs30, boolean vsInf, double z1p0, double z2p5, int capacity) {
+    this.vs30 = vs30;
+    this.vsInf = vsInf;
+    this.z1p0 = z1p0;
+    this.z2p5 = z2p5;
+    initColumns(Math.max(capacity, 1));
   }
 
   /* Internal use only for Partitions. */
-  private InputList(List<HazardInput> sublist) {
-    delegate = sublist;
+  private InputList(InputList parent, int from, int to) {
+    this(parent.vs30, parent.vsInf, parent.z1p0, parent.z2p5, 0);
+    rate = Arrays.copyOfRange(parent.rate, from, to);
+    Mw = Arrays.copyOfRange(parent.Mw, from, to);
+    rJB = Arrays.copyOfRange(parent.rJB, from, to);
+    rRup = Arrays.copyOfRange(parent.rRup, from, to);
+    rX = Arrays.copyOfRange(parent.rX, from, to);
+    dip = Arrays.copyOfRange(parent.dip, from, to);
+    width = Arrays.copyOfRange(parent.width, from, to);
+    zTop = Arrays.copyOfRange(parent.zTop, from, to);
+    zHyp = Arrays.copyOfRange(parent.zHyp, from, to);
+    rake = Arrays.copyOfRange(parent.rake, from, to);
+    size = to - from;
+    minDistance = parent.minDistance;
+  }
+
+  private void initColumns(int capacity) {
+    rate = new double[capacity];
+    Mw = new double[capacity];
+    rJB = new double[capacity];
+    rRup = new double[capacity];
+    rX = new double[capacity];
+    dip = new double[capacity];
+    width = new double[capacity];
+    zTop = new double[capacity];
+    zHyp = new double[capacity];
+    rake = new double[capacity];
   }
 
+  private void ensureCapacity() {
+    if (size < rate.length) {
+      return;
+    }
+    int capacity = rate.length * 2;
+    rate = Arrays.copyOf(rate, capacity);
+    Mw = Arrays.copyOf(Mw, capacity);
+    rJB = Arrays.copyOf(rJB, capacity);
+    rRup = Arrays.copyOf(rRup, capacity);
+    rX = Arrays.copyOf(rX, capacity);
+    dip = Arrays.copyOf(dip, capacity);
+    width = Arrays.copyOf(width, capacity);
+    zTop = Arrays.copyOf(zTop, capacity);
+    zHyp = Arrays.copyOf(zHyp, capacity);
+    rake = Arrays.copyOf(rake, capacity);
+  }
+
+  /**
+   * Append the properties of a rupture to this list.
+   *
+   * @param rate of the rupture
+   * @param Mw moment magnitude of rupture
+   * @param rJB Joyner-Boore distance to rupture (in km)
+   * @param rRup 3D distance to rupture plane (in km)
+   * @param rX distance X (in km)
+   * @param dip of rupture (in degrees)
+   * @param width down-dip rupture width (in km)
+   * @param zTop depth to the top of the rupture (in km)
+   * @param zHyp hypocentral depth (in km)
+   * @param rake of rupture
+   */
+  public void add(
+      double rate,
+      double Mw, double rJB, double rRup, double rX,
+      double dip, double width, double zTop, double zHyp, double rake) {
+
+    ensureCapacity();
+    this.rate[size] = rate;
+    this.Mw[size] = Mw;
+    this.rJB[size] = rJB;
+    this.rRup[size] = rRup;
+    this.rX[size] = rX;
+    this.dip[size] = dip;
+    this.width[size] = width;
+    this.zTop[size] = zTop;
+    this.zHyp[size] = zHyp;
+    this.rake[size] = rake;
+    size++;
+    minDistance = Math.min(minDistance, rJB);
+  }
+
+  /**
+   * Append a {@code HazardInput} to this list. The site properties of the
+   * input must match those of the list.
+   *
+   * @param input to append
+   * @return {@code true}
+   * @throws IllegalArgumentException if the site properties of the input
+   *         differ from those of this list
+   */
   @Override
   public boolean add(HazardInput input) {
-    minDistance = Math.min(minDistance, input.rJB);
-    return delegate.add(input);
+    checkArgument(
+        Double.compare(input.vs30, vs30) == 0 &&
+            input.vsInf == vsInf &&
+            Double.compare(input.z1p0, z1p0) == 0 &&
+            Double.compare(input.z2p5, z2p5) == 0,
+        "Input site properties differ from those of list");
+    add(
+        input.rate,
+        input.Mw, input.rJB, input.rRup, input.rX,
+        input.dip, input.width, input.zTop, input.zHyp, input.rake);
+    return true;
   }
 
+  /**
+   * Returns a new {@code HazardInput} view of the row at {@code index}. A new
+   * instance is allocated on every call.
+   *
+   * @param index of the row to return
+   */
   @Override
   public HazardInput get(int index) {
-    return delegate.get(index);
+    checkElementIndex(index, size);
+    return new HazardInput(
+        rate[index],
+        Mw[index], rJB[index], rRup[index], rX[index],
+        dip[index], width[index], zTop[index], zHyp[index], rake[index],
+        vs30, vsInf, z1p0, z2p5);
   }
 
   @Override
   public int size() {
-    return delegate.size();
+    return size;
   }
 
   @Override
@@ -64,22 +221,30 @@ public abstract class InputList extends AbstractList<HazardInput> {
 
   abstract String parentName();
 
+  /*
+   * Returns the rates of all inputs in a new array.
+   */
+  double[] rates() {
+    return Arrays.copyOf(rate, size);
+  }
+
   /*
    * Returns consecutive sub-{@code InputList}s of this list, each of the same
    * size, although the final list may be smaller.
    */
   List<InputList> partition(int size) {
+    checkArgument(size > 0);
     ImmutableList.Builder<InputList> builder = ImmutableList.builder();
-    for (List<HazardInput> subList : Lists.partition(this, size)) {
-      builder.add(new Partition(subList));
+    for (int from = 0; from < this.size; from += size) {
+      builder.add(new Partition(from, Math.min(from + size, this.size)));
     }
     return builder.build();
   }
 
   private class Partition extends InputList {
 
-    Partition(List<HazardInput> sublist) {
-      super(sublist);
+    Partition(int from, int to) {
+      super(InputList.this, from, to);
     }
 
     @Override
@@ -1,7 +1,15 @@
 package gov.usgs.earthquake.nshmp.calc;
 
-import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import gov.usgs.earthquake.nshmp.eq.fault.Faults;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureSurface;
+import gov.usgs.earthquake.nshmp.eq.model.BatchDistanceSource.DistanceConsumer;
+import gov.usgs.earthquake.nshmp.eq.model.Rupture;
 import gov.usgs.earthquake.nshmp.eq.model.Source;
 
 /**
@@ -9,14 +17,24 @@ import gov.usgs.earthquake.nshmp.eq.model.Source;
  * single parent {@code Source} from which the inputs were derived. This allows
  * for downstream access to parent source properties.
  *
+ * <p>A {@code SourceInputList} is also the {@code DistanceConsumer} that
+ * receives the ruptures of a {@code BatchDistanceSource}; inputs are appended
+ * in the order ruptures and their distances are supplied.
+ *
  * @author Peter Powers
  */
-final class SourceInputList extends InputList {
+final class SourceInputList extends InputList implements DistanceConsumer {
 
   final Source parent;
 
-  SourceInputList(Source parent) {
-    this.parent = checkNotNull(parent);
+  SourceInputList(Source parent, Site site) {
+    super(site, parent.size());
+    this.parent = parent;
+  }
+
+  private SourceInputList(SourceInputList template, int capacity) {
+    super(template, capacity);
+    this.parent = template.parent;
   }
 
   @Override
@@ -24,4 +42,131 @@ final class SourceInputList extends InputList {
     return parent.name();
   }
 
+  /*
+   * Append the properties of a rupture, given its distances from the site of
+   * this list.
+   */
+  @Override
+  public void accept(Rupture rup, double rJB, double rRup, double rX) {
+    RuptureSurface surface = rup.surface();
+    double dip = surface.dip();
+    double width = surface.width();
+    double zTop = surface.depth();
+    double zHyp = Faults.hypocentralDepth(dip, width, zTop);
+    add(rup.rate(), rup.mag(), rJB, rRup, rX, dip, width, zTop, zHyp, rup.rake());
+  }
+
+  /*
+   * Returns a list in which inputs with identical, or nearly identical, rupture
+   * properties have been merged. Magnitudes, distances and depths (rJB, rRup,
+   * rX, width, zTop, zHyp), and angles (dip, rake) are binned at their own
+   * tolerance, or compared exactly if a tolerance is 0. A merged input has the
+   * summed rate of all inputs in its bin; each binned property is the rate
+   * weighted mean of the values in the bin, and each exactly compared property
+   * is, by definition, the value common to the bin. Input order is otherwise
+   * preserved. Returns this list if no inputs could be merged.
+   */
+  SourceInputList collapse(double magTol, double distanceTol, double angleTol) {
+    checkArgument(magTol >= 0.0 && distanceTol >= 0.0 && angleTol >= 0.0);
+    int size = size();
+    Map<Bin, Integer> bins = new HashMap<>(size * 2);
+    int[] targets = new int[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      Bin bin = new Bin(new long[] {
+          key(Mw[i], magTol),
+          key(rJB[i], distanceTol),
+          key(rRup[i], distanceTol),
+          key(rX[i], distanceTol),
+          key(dip[i], angleTol),
+          key(width[i], distanceTol),
+          key(zTop[i], distanceTol),
+          key(zHyp[i], distanceTol),
+          key(rake[i], angleTol) });
+      Integer target = bins.get(bin);
+      if (target == null) {
+        target = count++;
+        bins.put(bin, target);
+      }
+      targets[i] = target;
+    }
+    if (count == size) {
+      return this;
+    }
+
+    /* Summed rates and rate weighted sums of properties of each bin. */
+    double[] rates = new double[count];
+    double[][] sums = new double[9][count];
+    int[] firsts = new int[count];
+    Arrays.fill(firsts, -1);
+    for (int i = 0; i < size; i++) {
+      int j = targets[i];
+      if (firsts[j] < 0) {
+        firsts[j] = i;
+      }
+      double r = rate[i];
+      rates[j] += r;
+      sums[0][j] += r * Mw[i];
+      sums[1][j] += r * rJB[i];
+      sums[2][j] += r * rRup[i];
+      sums[3][j] += r * rX[i];
+      sums[4][j] += r * dip[i];
+      sums[5][j] += r * width[i];
+      sums[6][j] += r * zTop[i];
+      sums[7][j] += r * zHyp[i];
+      sums[8][j] += r * rake[i];
+    }
+
+    SourceInputList collapsed = new SourceInputList(this, count);
+    for (int j = 0; j < count; j++) {
+      int i = firsts[j];
+      double r = rates[j];
+      boolean weighted = r > 0.0;
+      boolean mag = weighted && magTol > 0.0;
+      boolean distance = weighted && distanceTol > 0.0;
+      boolean angle = weighted && angleTol > 0.0;
+      collapsed.add(
+          r,
+          mag ? sums[0][j] / r : Mw[i],
+          distance ? sums[1][j] / r : rJB[i],
+          distance ? sums[2][j] / r : rRup[i],
+          distance ? sums[3][j] / r : rX[i],
+          angle ? sums[4][j] / r : dip[i],
+          distance ? sums[5][j] / r : width[i],
+          distance ? sums[6][j] / r : zTop[i],
+          distance ? sums[7][j] / r : zHyp[i],
+          angle ? sums[8][j] / r : rake[i]);
+    }
+    collapsed.collapsed = size - count;
+    return collapsed;
+  }
+
+  /* Exact bit pattern when tolerance is 0; otherwise, a bin index. */
+  private static long key(double value, double tolerance) {
+    return (tolerance == 0.0)
+        ? Double.doubleToLongBits(value)
+        : Math.round(value / tolerance);
+  }
+
+  private static final class Bin {
+
+    final long[] keys;
+    final int hash;
+
+    Bin(long[] keys) {
+      this.keys = keys;
+      this.hash = Arrays.hashCode(keys);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Bin && Arrays.equals(keys, ((Bin) obj).keys);
+    }
+  }
+
 }
@@ -43,15 +43,17 @@ public final class SystemInputList extends InputList {
 
   public SystemInputList(
       SystemSourceSet parent,
+      Site site,
       Set<Integer> sectionIndices) {
 
+    super(site);
     this.parent = checkNotNull(parent);
     this.sectionIndices = sectionIndices; // may be null for empty only
     this.bitsets = new ArrayList<>();
   }
 
-  public static SystemInputList empty(SystemSourceSet parent) {
-    return new SystemInputList(parent, null);
+  public static SystemInputList empty(SystemSourceSet parent, Site site) {
+    return new SystemInputList(parent, site, null);
   }
 
   public void addBitset(BitSet bitset) {
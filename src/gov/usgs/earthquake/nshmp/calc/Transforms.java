@@ -1,26 +1,32 @@
 package gov.usgs.earthquake.nshmp.calc;
 
 import static com.google.common.util.concurrent.Futures.allAsList;
-import static com.google.common.util.concurrent.Futures.getUnchecked;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.transform;
+import static gov.usgs.earthquake.nshmp.calc.ExceedanceModel.NSHM_CEUS_MAX_INTENSITY;
 import static gov.usgs.earthquake.nshmp.gmm.Gmm.instances;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
+import com.google.common.primitives.Doubles;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import gov.usgs.earthquake.nshmp.calc.ClusterCurves.Builder;
 import gov.usgs.earthquake.nshmp.data.XySequence;
-import gov.usgs.earthquake.nshmp.eq.fault.Faults;
-import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureSurface;
+import gov.usgs.earthquake.nshmp.eq.model.BatchDistanceSource;
 import gov.usgs.earthquake.nshmp.eq.model.ClusterSource;
 import gov.usgs.earthquake.nshmp.eq.model.ClusterSourceSet;
 import gov.usgs.earthquake.nshmp.eq.model.Distance;
@@ -30,12 +36,11 @@ import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
 import gov.usgs.earthquake.nshmp.eq.model.Rupture;
 import gov.usgs.earthquake.nshmp.eq.model.Source;
 import gov.usgs.earthquake.nshmp.eq.model.SourceSet;
+import gov.usgs.earthquake.nshmp.eq.model.SourceType;
 import gov.usgs.earthquake.nshmp.eq.model.SystemSourceSet;
 import gov.usgs.earthquake.nshmp.gmm.Gmm;
-import gov.usgs.earthquake.nshmp.gmm.GmmInput;
 import gov.usgs.earthquake.nshmp.gmm.GroundMotionModel;
 import gov.usgs.earthquake.nshmp.gmm.Imt;
-import gov.usgs.earthquake.nshmp.gmm.ScalarGroundMotion;
 
 /**
  * Data transform {@link Function}s. These are called exclusively from
@@ -59,49 +64,56 @@ final class Transforms {
   /*
    * Source --> InputList
    *
-   * Create a list of ground motion inputs from a source.
+   * Create a list of ground motion inputs from a source, optionally merging
+   * inputs with identical or nearly identical rupture properties. Inputs are
+   * only merged for curve-only calculations; merging shifts contributions
+   * between the distance, magnitude, and epsilon bins of a deaggregation.
    */
   static final class SourceToInputs implements Function<Source, InputList> {
 
     private final Site site;
+    private final boolean collapse;
+    private final double magTolerance;
+    private final double distanceTolerance;
+    private final double angleTolerance;
 
     SourceToInputs(Site site) {
       this.site = site;
+      this.collapse = false;
+      this.magTolerance = 0.0;
+      this.distanceTolerance = 0.0;
+      this.angleTolerance = 0.0;
+    }
+
+    SourceToInputs(Site site, CalcConfig config, boolean curvesOnly) {
+      this.site = site;
+      this.collapse = curvesOnly && config.performance.collapseInputs;
+      this.magTolerance = config.performance.collapseMagTolerance;
+      this.distanceTolerance = config.performance.collapseDistanceTolerance;
+      this.angleTolerance = config.performance.collapseAngleTolerance;
     }
 
     @Override
     public SourceInputList apply(Source source) {
-      SourceInputList hazardInputs = new SourceInputList(source);
-
-      for (Rupture rup : source) {
-
-        RuptureSurface surface = rup.surface();
-
-        Distance distances = surface.distanceTo(site.location);
-        double dip = surface.dip();
-        double width = surface.width();
-        double zTop = surface.depth();
-        double zHyp = Faults.hypocentralDepth(dip, width, zTop);
-
-        HazardInput input = new HazardInput(
-            rup.rate(),
-            rup.mag(),
-            distances.rJB,
-            distances.rRup,
-            distances.rX,
-            dip,
-            width,
-            zTop,
-            zHyp,
-            rup.rake(),
-            site.vs30,
-            site.vsInferred,
-            site.z1p0,
-            site.z2p5);
-        hazardInputs.add(input);
+      SourceInputList hazardInputs = new SourceInputList(source, site);
+
+      /*
+       * Batch sources compute distances to all ruptures from shared node
+       * distances, e.g. a single site-to-node distance for point sources,
+       * while iterating their ruptures.
+       */
+      if (source instanceof BatchDistanceSource) {
+        ((BatchDistanceSource) source).distances(site.location, hazardInputs);
+      } else {
+        for (Rupture rup : source) {
+          Distance distances = rup.surface().distanceTo(site.location);
+          hazardInputs.accept(rup, distances.rJB, distances.rRup, distances.rX);
+        }
       }
 
-      return hazardInputs;
+      return collapse
+          ? hazardInputs.collapse(magTolerance, distanceTolerance, angleTolerance)
+          : hazardInputs;
     }
   }
 
@@ -114,12 +126,18 @@ final class Transforms {
 
     private final GmmProcessor gmmProcessor;
     private final Map<Imt, Map<Gmm, GroundMotionModel>> gmmTable;
+    private final boolean batch;
 
     InputsToGroundMotions(
         CalcConfig config,
         Map<Imt, Map<Gmm, GroundMotionModel>> gmmTable) {
       this.gmmProcessor = GmmProcessor.instance(config);
       this.gmmTable = gmmTable;
+      /*
+       * Batch calculations only return weighted mean ground motions; retain
+       * MultiScalarGroundMotions for exceedance models that use them.
+       */
+      this.batch = config.hazard.exceedanceModel != NSHM_CEUS_MAX_INTENSITY;
     }
 
     @Override
@@ -132,14 +150,32 @@ final class Transforms {
           imtKeys,
           gmmKeys);
 
-      for (Imt imt : imtKeys) {
-        for (Gmm gmm : gmmKeys) {
-          GroundMotionModel model = gmmTable.get(imt).get(gmm);
-          for (GmmInput gmmInput : inputs) {
-            builder.add(
+      if (batch) {
+        /* Create each row view of the input list once. */
+        List<HazardInput> rows = new ArrayList<>(inputs);
+        double[] μ = new double[rows.size()];
+        double[] σ = new double[rows.size()];
+        for (Imt imt : imtKeys) {
+          Map<Gmm, GroundMotionModel> models = gmmTable.get(imt);
+          for (Gmm gmm : gmmKeys) {
+            gmmProcessor.apply(models.get(gmm), rows, imt, gmm, μ, σ);
+            builder.set(imt, gmm, μ, σ);
+          }
+        }
+        return builder.build();
+      }
+
+      /* Create each row view of the input list once. */
+      for (int i = 0; i < inputs.size(); i++) {
+        HazardInput input = inputs.get(i);
+        for (Imt imt : imtKeys) {
+          Map<Gmm, GroundMotionModel> models = gmmTable.get(imt);
+          for (Gmm gmm : gmmKeys) {
+            builder.set(
                 imt,
                 gmm,
-                gmmProcessor.apply(model, gmmInput, imt, gmm));
+                i,
+                gmmProcessor.apply(models.get(gmm), input, imt, gmm));
           }
         }
       }
@@ -157,38 +193,41 @@ final class Transforms {
     private final Map<Imt, XySequence> modelCurves;
     private final ExceedanceModel exceedanceModel;
     private final double truncationLevel;
+    private final boolean exceedanceTables;
 
     GroundMotionsToCurves(CalcConfig config) {
       this.modelCurves = config.hazard.logModelCurves();
       this.exceedanceModel = config.hazard.exceedanceModel;
       this.truncationLevel = config.hazard.truncationLevel;
+      this.exceedanceTables = config.performance.exceedanceTables;
     }
 
     @Override
     public HazardCurves apply(GroundMotions gms) {
 
       HazardCurves.Builder curveBuilder = HazardCurves.builder(gms);
+      double[] rates = gms.inputs.rates();
 
-      for (Entry<Imt, Map<Gmm, List<ScalarGroundMotion>>> imtEntry : gms.gmMap.entrySet()) {
+      for (Entry<Imt, Map<Gmm, double[]>> imtEntry : gms.means.entrySet()) {
 
         Imt imt = imtEntry.getKey();
         XySequence modelCurve = modelCurves.get(imt);
-        XySequence utilCurve = XySequence.copyOf(modelCurve);
+        double[] xs = Doubles.toArray(modelCurve.xValues());
+        double[] ys = new double[xs.length];
         XySequence gmmCurve = XySequence.copyOf(modelCurve);
 
-        for (Entry<Gmm, List<ScalarGroundMotion>> gmmEntry : imtEntry.getValue().entrySet()) {
-          gmmCurve.clear();
-          int i = 0;
-          for (ScalarGroundMotion sgm : gmmEntry.getValue()) {
-            exceedanceModel.exceedance(
-                sgm,
-                truncationLevel,
-                imt,
-                utilCurve);
-            utilCurve.multiply(gms.inputs.get(i++).rate);
-            gmmCurve.add(utilCurve);
-          }
-          curveBuilder.addCurve(imt, gmmEntry.getKey(), gmmCurve);
+        for (Gmm gmm : imtEntry.getValue().keySet()) {
+          Arrays.fill(ys, 0.0);
+          exceedanceModel.exceedance(
+              gms,
+              imt,
+              gmm,
+              rates,
+              truncationLevel,
+              exceedanceTables,
+              xs,
+              ys);
+          curveBuilder.addCurve(imt, gmm, gmmCurve.clear().add(ys));
         }
       }
       return curveBuilder.build();
@@ -224,36 +263,36 @@ final class Transforms {
       // initialize uncertainty for each input
       InputList inputs = gms.inputs;
       double[] uncertainties = new double[inputs.size()];
-      double[] rates = new double[inputs.size()];
+      double[] rates = inputs.rates();
       for (int i = 0; i < inputs.size(); i++) {
-        HazardInput input = inputs.get(i);
-        rates[i] = input.rate;
-        uncertainties[i] = gmmSet.epiValue(input.Mw, input.rJB);
+        uncertainties[i] = gmmSet.epiValue(inputs.Mw[i], inputs.rJB[i]);
       }
 
-      for (Entry<Imt, Map<Gmm, List<ScalarGroundMotion>>> imtEntry : gms.gmMap.entrySet()) {
+      for (Entry<Imt, Map<Gmm, double[]>> imtEntry : gms.means.entrySet()) {
 
         Imt imt = imtEntry.getKey();
         XySequence modelCurve = modelCurves.get(imt);
         XySequence utilCurve = XySequence.copyOf(modelCurve);
         XySequence gmmCurve = XySequence.copyOf(modelCurve);
 
-        for (Entry<Gmm, List<ScalarGroundMotion>> gmmEntry : imtEntry.getValue().entrySet()) {
+        for (Entry<Gmm, double[]> gmmEntry : imtEntry.getValue().entrySet()) {
           gmmCurve.clear();
-          int i = 0;
-          for (ScalarGroundMotion gm : gmmEntry.getValue()) {
-            double mean = gm.mean();
+          Gmm gmm = gmmEntry.getKey();
+          double[] means = gmmEntry.getValue();
+          double[] sigmas = gms.sigmas.get(imt).get(gmm);
+          for (int i = 0; i < means.length; i++) {
+            double mean = means[i];
             double epi = uncertainties[i];
             double[] epiMeans = new double[] { mean - epi, mean, mean + epi };
             exceedanceCurve(
                 epiMeans,
-                gm.sigma(),
+                sigmas[i],
                 imt,
                 utilCurve.clear());
-            utilCurve.multiply(inputs.get(i++).rate);
+            utilCurve.multiply(rates[i]);
             gmmCurve.add(utilCurve);
           }
-          curveBuilder.addCurve(imt, gmmEntry.getKey(), gmmCurve);
+          curveBuilder.addCurve(imt, gmm, gmmCurve);
         }
       }
       return curveBuilder.build();
@@ -303,14 +342,15 @@ final class Transforms {
     SourceToCurves(
         SourceSet<? extends Source> sources,
         CalcConfig config,
-        Site site) {
+        Site site,
+        boolean curvesOnly) {
 
       GmmSet gmmSet = sources.groundMotionModels();
       Map<Imt, Map<Gmm, GroundMotionModel>> gmmTable = instances(
           config.hazard.imts,
           gmmSet.gmms());
 
-      this.sourceToInputs = new SourceToInputs(site);
+      this.sourceToInputs = new SourceToInputs(site, config, curvesOnly);
       this.inputsToGroundMotions = new InputsToGroundMotions(config, gmmTable);
       this.groundMotionsToCurves = config.hazard.gmmUncertainty && gmmSet.epiUncertainty()
           ? new GroundMotionsToCurvesWithUncertainty(gmmSet, config)
@@ -335,8 +375,11 @@ final class Transforms {
    */
   static final class CurveConsolidator implements Function<List<HazardCurves>, HazardCurveSet> {
 
+    private static final Logger log = Logger.getLogger(CurveConsolidator.class.getName());
+
     private final SourceSet<? extends Source> sources;
     private final Map<Imt, XySequence> modelCurves;
+    private final boolean logCollapsed;
 
     CurveConsolidator(
         SourceSet<? extends Source> sources,
@@ -344,6 +387,9 @@ final class Transforms {
 
       this.sources = sources;
       this.modelCurves = config.hazard.logModelCurves();
+      this.logCollapsed = config.performance.collapseInputs &&
+          sources.type() != SourceType.SYSTEM &&
+          log.isLoggable(Level.FINE);
     }
 
     @Override
@@ -360,8 +406,24 @@ final class Transforms {
       for (HazardCurves curves : curvesList) {
         curveSetBuilder.addCurves(curves);
       }
+      if (logCollapsed) {
+        logCollapsed(curvesList);
+      }
       return curveSetBuilder.build();
     }
+
+    private void logCollapsed(List<HazardCurves> curvesList) {
+      int collapsed = 0;
+      int total = 0;
+      for (HazardCurves curves : curvesList) {
+        InputList inputs = curves.groundMotions.inputs;
+        collapsed += inputs.collapsed;
+        total += inputs.size() + inputs.collapsed;
+      }
+      log.fine(String.format(
+          "Collapsed inputs: %s of %s [%s]",
+          collapsed, total, sources.name()));
+    }
   }
 
   /*
@@ -424,9 +486,12 @@ final class Transforms {
    *
    * Compute hazard curves for system sources concurrently. This function
    * derives all inputs for an entire SystemSourceSet and partitions them before
-   * composing them with standard ground motion and hazard curve functions.
+   * composing them with standard ground motion and hazard curve functions. The
+   * result is returned as a future that completes once all partitions have been
+   * processed so that no executor thread blocks waiting on partition tasks.
    */
-  static final class ParallelSystemToCurves implements Function<SystemSourceSet, HazardCurveSet> {
+  static final class ParallelSystemToCurves implements
+      AsyncFunction<SystemSourceSet, HazardCurveSet> {
 
     private final Site site;
     private final Executor ex;
@@ -443,12 +508,12 @@ final class Transforms {
     }
 
     @Override
-    public HazardCurveSet apply(SystemSourceSet sources) {
+    public ListenableFuture<HazardCurveSet> apply(final SystemSourceSet sources) {
 
       // create input list
-      InputList master = SystemSourceSet.toInputsFunction(site).apply(sources);
+      final InputList master = SystemSourceSet.toInputsFunction(site).apply(sources);
       if (master.isEmpty()) {
-        return HazardCurveSet.empty(sources);
+        return immediateFuture(HazardCurveSet.empty(sources));
       }
 
       // calculate curves from list in parallel
@@ -461,13 +526,19 @@ final class Transforms {
             inputsToCurves,
             ex));
       }
-      List<HazardCurves> curvesList = getUnchecked(allAsList(asyncCurvesList));
 
       // combine and consolidate
-      HazardCurves hazardCurves = HazardCurves.combine(master, curvesList);
-      CurveConsolidator consolidator = new CurveConsolidator(sources, config);
-
-      return consolidator.apply(ImmutableList.of(hazardCurves));
+      final CurveConsolidator consolidator = new CurveConsolidator(sources, config);
+      return transform(
+          allAsList(asyncCurvesList),
+          new Function<List<HazardCurves>, HazardCurveSet>() {
+            @Override
+            public HazardCurveSet apply(List<HazardCurves> curvesList) {
+              HazardCurves hazardCurves = HazardCurves.combine(master, curvesList);
+              return consolidator.apply(ImmutableList.of(hazardCurves));
+            }
+          },
+          ex);
     }
   }
 
@@ -567,11 +638,13 @@ final class Transforms {
     private final Map<Imt, XySequence> logModelCurves;
     private final ExceedanceModel exceedanceModel;
     private final double truncationLevel;
+    private final boolean exceedanceTables;
 
     ClusterGroundMotionsToCurves(CalcConfig config) {
       this.logModelCurves = config.hazard.logModelCurves();
       this.exceedanceModel = config.hazard.exceedanceModel;
       this.truncationLevel = config.hazard.truncationLevel;
+      this.exceedanceTables = config.performance.exceedanceTables;
     }
 
     @Override
@@ -583,32 +656,30 @@ final class Transforms {
 
         XySequence modelCurve = entry.getValue();
         Imt imt = entry.getKey();
+        double[] xs = Doubles.toArray(modelCurve.xValues());
 
         // aggregator of curves for each fault in a cluster
         ListMultimap<Gmm, XySequence> faultCurves = MultimapBuilder
             .enumKeys(Gmm.class)
             .arrayListValues(clusterGroundMotions.size())
             .build();
-        XySequence utilCurve = XySequence.copyOf(modelCurve);
 
         for (GroundMotions groundMotions : clusterGroundMotions) {
 
-          Map<Gmm, List<ScalarGroundMotion>> gmmGmMap = groundMotions.gmMap.get(imt);
-
-          for (Gmm gmm : gmmGmMap.keySet()) {
-            XySequence magVarCurve = XySequence.copyOf(modelCurve);
-            List<ScalarGroundMotion> sgms = gmmGmMap.get(gmm);
-            int i = 0;
-            for (ScalarGroundMotion sgm : sgms) {
-              exceedanceModel.exceedance(
-                  sgm,
-                  truncationLevel,
-                  imt,
-                  utilCurve);
-              utilCurve.multiply(groundMotions.inputs.get(i++).rate);
-              magVarCurve.add(utilCurve);
-            }
-            faultCurves.put(gmm, magVarCurve);
+          double[] rates = groundMotions.inputs.rates();
+
+          for (Gmm gmm : groundMotions.means.get(imt).keySet()) {
+            double[] ys = new double[xs.length];
+            exceedanceModel.exceedance(
+                groundMotions,
+                imt,
+                gmm,
+                rates,
+                truncationLevel,
+                exceedanceTables,
+                xs,
+                ys);
+            faultCurves.put(gmm, XySequence.create(xs, ys));
           }
         }
 
@@ -696,22 +767,27 @@ final class Transforms {
   /*
    * ALL: List<HazardCurveSet> --> HazardResult
    *
-   * Final 'fan-in' consolidator function used for all source types.
+   * Final 'fan-in' consolidator function used for all source types. In
+   * curve-only mode, curve sets are stripped of the ground motions retained for
+   * deaggregation so that they are not held by the Hazard result.
    */
   static final class CurveSetConsolidator implements Function<List<HazardCurveSet>, Hazard> {
 
     private final HazardModel model;
     private final CalcConfig config;
     private final Site site;
+    private final boolean curvesOnly;
 
     CurveSetConsolidator(
         HazardModel model,
         CalcConfig config,
-        Site site) {
+        Site site,
+        boolean curvesOnly) {
 
       this.model = model;
       this.config = config;
       this.site = site;
+      this.curvesOnly = curvesOnly;
     }
 
     @Override
@@ -725,7 +801,7 @@ final class Transforms {
         if (curveSet.isEmpty()) {
           continue;
         }
-        resultBuilder.addCurveSet(curveSet);
+        resultBuilder.addCurveSet(curvesOnly ? curveSet.curvesOnly() : curveSet);
       }
       return resultBuilder.build();
     }
@@ -371,6 +371,28 @@ public interface IntervalTable {
       return add(row, ((ImmutableXySequence) sequence).ys);
     }
 
+    /**
+     * Add the y-values of the supplied sequence, multiplied by {@code scale},
+     * to the values in the specified row. The supplied sequence is not
+     * modified.
+     *
+     * @param row key
+     * @param sequence to add
+     * @param scale factor
+     * @throws IndexOutOfBoundsException if values overrun row
+     */
+    public Builder add(double row, XySequence sequence, double scale) {
+      // safe covariant cast
+      double[] values = ((ImmutableXySequence) sequence).ys;
+      checkElementIndex(values.length - 1, columns.length,
+          "Supplied values overrun end of row");
+      double[] rowData = data[rowIndex(row)];
+      for (int i = 0; i < values.length; i++) {
+        rowData[i] += values[i] * scale;
+      }
+      return this;
+    }
+
     /**
      * Add to the values in the specified row starting at the specified column.
      *
@@ -26,6 +26,9 @@ abstract class AbstractGriddedSurface extends Container2DImpl<Location> implemen
 
   double strikeSpacing;
   double dipSpacing;
+
+  /* Lazily initialized node arrays and distance calculator. */
+  private volatile SurfaceDistances distances;
   // protected Boolean sameGridSpacing;
 
   // for distance measures
@@ -148,7 +151,20 @@ abstract class AbstractGriddedSurface extends Container2DImpl<Location> implemen
 
   @Override
   public Distance distanceTo(Location loc) {
-    return Distance.compute(this, loc);
+    return distances().distanceTo(loc);
+  }
+
+  /*
+   * Surfaces are fully populated at construction and are not subsequently
+   * modified, so node arrays may be created on first use.
+   */
+  SurfaceDistances distances() {
+    SurfaceDistances sd = distances;
+    if (sd == null) {
+      sd = new SurfaceDistances(this, new SurfaceDistances.Nodes(this), 0, 0);
+      distances = sd;
+    }
+    return sd;
   }
 
   // @Deprecated
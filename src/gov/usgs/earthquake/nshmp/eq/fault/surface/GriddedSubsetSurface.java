@@ -215,9 +215,30 @@ class GriddedSubsetSurface extends ContainerSubset2D<Location> implements Gridde
     return getEvenlyDiscritizedUpperEdge();
   }
 
+  /*
+   * Distances to windows of AbstractGriddedSurfaces share the node arrays of
+   * the parent surface.
+   */
   @Override
   public Distance distanceTo(Location loc) {
-    return Distance.compute(this, loc);
+    if (!(parentSurface instanceof AbstractGriddedSurface)) {
+      return Distance.compute(this, loc);
+    }
+    return distances().distanceTo(loc);
+  }
+
+  /*
+   * Only valid for windows into an AbstractGriddedSurface. Calculators are
+   * lightweight views of the node arrays of the parent and are created per
+   * call rather than retained by each of the many floating ruptures of a
+   * model.
+   */
+  SurfaceDistances distances() {
+    return new SurfaceDistances(
+        this,
+        ((AbstractGriddedSurface) parentSurface).distances().nodes,
+        window.getStartRow(),
+        window.getStartCol());
   }
 
   // @Deprecated
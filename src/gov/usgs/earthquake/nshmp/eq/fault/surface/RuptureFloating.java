@@ -38,6 +38,12 @@ public enum RuptureFloating {
       floaters.add(Rupture.create(mag, rate, rake, surface));
       return floaters;
     }
+
+    @Override
+    public int floatingRuptureCount(GriddedSurface surface, RuptureScaling scaling,
+        double mag, boolean uncertainty) {
+      return 1;
+    }
   },
 
   /** Float both down-dip and along-strike. */
@@ -65,6 +71,23 @@ public enum RuptureFloating {
       List<GriddedSurface> surfaces = createFloatingSurfaces(surface, d.length, d.width);
       return createFloaters(surfaces, mag, rate, rake);
     }
+
+    @Override
+    public int floatingRuptureCount(GriddedSurface surface, RuptureScaling scaling,
+        double mag, boolean uncertainty) {
+
+      double maxWidth = surface.width();
+
+      if (uncertainty) {
+        int count = 0;
+        for (Dimensions d : scaling.dimensionsDistribution(mag, maxWidth).keySet()) {
+          count += floatingSurfaceCount(surface, d.length, d.width);
+        }
+        return count;
+      }
+      Dimensions d = scaling.dimensions(mag, maxWidth);
+      return floatingSurfaceCount(surface, d.length, d.width);
+    }
   },
 
   /**
@@ -80,6 +103,14 @@ public enum RuptureFloating {
       List<GriddedSurface> surfaces = createFloatingSurfaces(surface, d.length, maxWidth);
       return createFloaters(surfaces, mag, rate, rake);
     }
+
+    @Override
+    public int floatingRuptureCount(GriddedSurface surface, RuptureScaling scaling,
+        double mag, boolean uncertainty) {
+      double maxWidth = surface.width();
+      Dimensions d = scaling.dimensions(mag, maxWidth);
+      return floatingSurfaceCount(surface, d.length, maxWidth);
+    }
   },
 
   /**
@@ -95,6 +126,12 @@ public enum RuptureFloating {
       List<GriddedSurface> surfaces = floatListNshm(surface, scaling, mag);
       return createFloaters(surfaces, mag, rate, rake);
     }
+
+    @Override
+    public int floatingRuptureCount(GriddedSurface surface, RuptureScaling scaling,
+        double mag, boolean uncertainty) {
+      return floatCountNshm(surface, scaling, mag);
+    }
   },
 
   /**
@@ -116,6 +153,14 @@ public enum RuptureFloating {
           d.length, d.width);
       return createFloaters(surfaces, mag, rate, rake);
     }
+
+    @Override
+    public int floatingRuptureCount(GriddedSurface surface, RuptureScaling scaling,
+        double mag, boolean uncertainty) {
+      double maxWidth = surface.width();
+      Dimensions d = scaling.dimensions(mag, maxWidth);
+      return floatingSurfaceCount(surface, d.length, d.width);
+    }
   };
 
   /*
@@ -154,6 +199,47 @@ public enum RuptureFloating {
   public abstract List<Rupture> createFloatingRuptures(GriddedSurface surface,
       RuptureScaling scaling, double mag, double rate, double rake, boolean uncertainty);
 
+  /**
+   * Return the number of ruptures that
+   * {@link #createFloatingRuptures(GriddedSurface, RuptureScaling, double, double, double, boolean)}
+   * would create without creating any floating surfaces.
+   *
+   * @param surface (gridded) from which floaters are derived
+   * @param scaling the rupture scaling model used to determine floater
+   *        dimensions
+   * @param mag the magnitude of interest
+   * @param uncertainty whether rupture area uncertainty is considered
+   */
+  public abstract int floatingRuptureCount(GriddedSurface surface,
+      RuptureScaling scaling, double mag, boolean uncertainty);
+
+  /* Must agree with floatListNshm() */
+  private static int floatCountNshm(GriddedSurface parent, RuptureScaling scaling, double mag) {
+    double zTop = parent.depth();
+    int downDipCount = (zTop > 1.0 || mag > 7.0) ? 1 : (mag > 6.75) ? 2 : (mag > 6.5) ? 3 : 4;
+    double zWidthDelta = 2.0 / sin(parent.dipRad());
+    int count = 0;
+    for (int i = 0; i < downDipCount; i++) {
+      Dimensions d = scaling.dimensions(mag, parent.width() - i * zWidthDelta);
+      count += alongStrikeCount(parent, d.length);
+    }
+    return count;
+  }
+
+  /* Must agree with createFloatingSurfaces() and createWeightedFloatingSurfaces() */
+  private static int floatingSurfaceCount(GriddedSurface parent, double floatLength,
+      double floatWidth) {
+    int floaterRowSize = (int) Math.rint(floatWidth / parent.getGridSpacingDownDip() + 1);
+    int downCount = parent.getNumRows() - floaterRowSize + 1;
+    return alongStrikeCount(parent, floatLength) * Math.max(downCount, 1);
+  }
+
+  private static int alongStrikeCount(GriddedSurface parent, double floatLength) {
+    int floaterColSize = (int) Math.rint(floatLength / parent.getGridSpacingAlongStrike() + 1);
+    int alongCount = parent.getNumCols() - floaterColSize + 1;
+    return Math.max(alongCount, 1);
+  }
+
   private static List<GriddedSurface> floatListNshm(GriddedSurface parent,
       RuptureScaling scaling, double mag) {
 
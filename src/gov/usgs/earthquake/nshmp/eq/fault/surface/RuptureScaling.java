@@ -10,6 +10,8 @@ import static java.lang.Math.round;
 import static java.lang.Math.sqrt;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.Optional;
+
 import java.io.IOException;
 import java.net.URL;
 import java.util.LinkedHashMap;
@@ -118,7 +120,12 @@ public enum RuptureScaling {
 
     @Override
     public double pointSourceDistance(double mag, double distance) {
-      return correctedRjb(mag, distance, RJB_DAT_WC94LENGTH);
+      return TABLE_WC94LENGTH.distance(TABLE_WC94LENGTH.row(mag), distance);
+    }
+
+    @Override
+    public Optional<CorrectionTable> correctionTable() {
+      return Optional.of(TABLE_WC94LENGTH);
     }
   },
 
@@ -142,7 +149,12 @@ public enum RuptureScaling {
 
     @Override
     public double pointSourceDistance(double mag, double distance) {
-      return correctedRjb(mag, distance, RJB_DAT_GEOMATRIX);
+      return TABLE_GEOMATRIX.distance(TABLE_GEOMATRIX.row(mag), distance);
+    }
+
+    @Override
+    public Optional<CorrectionTable> correctionTable() {
+      return Optional.of(TABLE_GEOMATRIX);
     }
   },
 
@@ -210,7 +222,12 @@ public enum RuptureScaling {
 
     @Override
     public double pointSourceDistance(double mag, double distance) {
-      return correctedRjb(mag, distance, RJB_DAT_SOMERVILLE);
+      return TABLE_SOMERVILLE.distance(TABLE_SOMERVILLE.row(mag), distance);
+    }
+
+    @Override
+    public Optional<CorrectionTable> correctionTable() {
+      return Optional.of(TABLE_SOMERVILLE);
     }
   },
 
@@ -247,6 +264,16 @@ public enum RuptureScaling {
    */
   public abstract double pointSourceDistance(double mag, double distance);
 
+  /**
+   * Return the table of point source distance corrections used by
+   * {@link #pointSourceDistance(double, double)}, if this model tabulates its
+   * corrections. Callers that correct many distances for the same magnitudes
+   * may resolve table rows once and thereby avoid per-call magnitude indexing.
+   */
+  public Optional<CorrectionTable> correctionTable() {
+    return Optional.absent();
+  }
+
   private static final String MAG_ID = "#Mag";
   private static final String COMMENT_ID = "#";
   private static final double RJB_M_MIN = 6.05;
@@ -256,9 +283,12 @@ public enum RuptureScaling {
   private static final int RJB_M_MAX_INDEX = RJB_M_SIZE - 1;
   private static final int RJB_R_SIZE = 1001;
   private static final int RJB_R_MAX_INDEX = RJB_R_SIZE - 1;
-  private static final double[][] RJB_DAT_WC94LENGTH = readRjb("etc/rjb_wc94length.dat");
-  private static final double[][] RJB_DAT_GEOMATRIX = readRjb("etc/rjb_geomatrix.dat");
-  private static final double[][] RJB_DAT_SOMERVILLE = readRjb("etc/rjb_somerville.dat");
+  private static final CorrectionTable TABLE_WC94LENGTH =
+      new CorrectionTable(readRjb("etc/rjb_wc94length.dat"));
+  private static final CorrectionTable TABLE_GEOMATRIX =
+      new CorrectionTable(readRjb("etc/rjb_geomatrix.dat"));
+  private static final CorrectionTable TABLE_SOMERVILLE =
+      new CorrectionTable(readRjb("etc/rjb_somerville.dat"));
 
   /* package visibility for testing */
   static double[][] readRjb(String resource) {
@@ -289,23 +319,58 @@ public enum RuptureScaling {
     return rjbs;
   }
 
-  /*
-   * The rjb lookup tables span the magnitude range [6.05..8.55] and distance
-   * range [0..1000] km. For M<6 and distances > 1000, lookups return the
-   * supplied distance. For M>8.6, lookups return the corrected distance for
-   * M=8.55. NOTE that no NaN or ±INFINITY checking is done in this class. This
-   * would have to be added for a public api, but we are operating on the
-   * assumption that data from mfds and upstream distance calulations and
-   * dimensioning will have already been checked for odd values.
+  /**
+   * Point source distance corrections indexed by magnitude and integer
+   * distance. Each table is read once, when {@code RuptureScaling} is
+   * initialized, and stored as a single dense array of rows of corrected
+   * distances.
+   *
+   * <p>Tables span the magnitude range [6.05..8.55] and distance range
+   * [0..1000] km. For M<6 and distances > 1000, lookups return the supplied
+   * distance. For M>8.6, lookups return the corrected distance for M=8.55.
+   * Magnitudes are rounded to the nearest tabulated value and distances are
+   * truncated to whole kilometers; values are not interpolated. NOTE that no
+   * NaN or ±INFINITY checking is done in this class. This would have to be
+   * added for a fully public api, but we are operating on the assumption that
+   * data from mfds and upstream distance calulations and dimensioning will
+   * have already been checked for odd values.
    */
+  public static final class CorrectionTable {
+
+    private final double[] rjb;
+
+    private CorrectionTable(double[][] rjb) {
+      this.rjb = new double[RJB_M_SIZE * RJB_R_SIZE];
+      for (int i = 0; i < RJB_M_SIZE; i++) {
+        System.arraycopy(rjb[i], 0, this.rjb, i * RJB_R_SIZE, RJB_R_SIZE);
+      }
+    }
+
+    /**
+     * Return the table row of corrected distances for a magnitude, or
+     * {@code -1} if distances are not corrected at the magnitude.
+     *
+     * @param mag of a rupture
+     */
+    public int row(double mag) {
+      if (mag < RJB_M_CUTOFF) {
+        return -1;
+      }
+      return min((int) round((mag - RJB_M_MIN) / RJB_M_DELTA), RJB_M_MAX_INDEX) * RJB_R_SIZE;
+    }
 
-  private static double correctedRjb(double m, double r, double[][] rjb) {
-    if (m < RJB_M_CUTOFF) {
-      return r;
+    /**
+     * Return a corrected distance.
+     *
+     * @param row of corrected distances, as returned by {@link #row(double)}
+     * @param distance to the centroid of a point source
+     */
+    public double distance(int row, double distance) {
+      if (row < 0) {
+        return distance;
+      }
+      return rjb[row + min(RJB_R_MAX_INDEX, (int) floor(distance))];
     }
-    int mIndex = min((int) round((m - RJB_M_MIN) / RJB_M_DELTA), RJB_M_MAX_INDEX);
-    int rIndex = min(RJB_R_MAX_INDEX, (int) floor(r));
-    return rjb[mIndex][rIndex];
   }
 
   /**
@@ -0,0 +1,188 @@
+package gov.usgs.earthquake.nshmp.eq.fault.surface;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import gov.usgs.earthquake.nshmp.eq.model.Distance;
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+/**
+ * Site-scoped distance calculator for a gridded surface and the floating
+ * rupture surfaces that are windows into it. Horizontal and 3D distances from
+ * the site to each node of the parent surface are computed once, as needed,
+ * and the rJB and rRup values of each window are then derived from range
+ * minimum queries over those node distances. For faults with many floating
+ * ruptures, this avoids repeatedly computing distances to the same nodes. The
+ * rJB perimeter check and rX of each window are computed from the same node
+ * arrays without creating any geometry.
+ *
+ * <p>Results are identical to those of
+ * {@link RuptureSurface#distanceTo(Location)}. Surfaces that are neither the
+ * parent nor a window into it are delegated to that method, as are all
+ * surfaces if the parent is not a node-backed {@code GriddedSurface}.
+ *
+ * <p>Instances are intended for use by a single thread over the course of a
+ * calculation at a single site and are not thread safe.
+ *
+ * @author Peter Powers
+ */
+public final class SiteDistances {
+
+  private final GriddedSurface parent;
+  private final Location site;
+  private final SurfaceDistances parentDistances;
+
+  /* Node distances and flags indicating which rows have been computed. */
+  private final double[] rJB;
+  private final double[] rRupSq;
+  private final boolean[] rows;
+
+  /* Range minimum tables keyed to row ranges. */
+  private final Map<Integer, RangeMinima> minima;
+
+  private SiteDistances(GriddedSurface parent, Location site) {
+    this.parent = parent;
+    this.site = site;
+    if (parent instanceof AbstractGriddedSurface) {
+      parentDistances = ((AbstractGriddedSurface) parent).distances();
+      int size = parent.getNumRows() * parent.getNumCols();
+      rJB = new double[size];
+      rRupSq = new double[size];
+      rows = new boolean[parent.getNumRows()];
+      minima = new HashMap<>();
+    } else {
+      parentDistances = null;
+      rJB = null;
+      rRupSq = null;
+      rows = null;
+      minima = null;
+    }
+  }
+
+  /**
+   * Create a new distance calculator.
+   *
+   * @param parent surface
+   * @param site of interest
+   */
+  public static SiteDistances create(GriddedSurface parent, Location site) {
+    return new SiteDistances(parent, site);
+  }
+
+  /**
+   * Compute distance metrics from the site of this calculator to the supplied
+   * surface.
+   *
+   * @param surface to compute distances to, usually the parent surface or a
+   *        window into it
+   */
+  public Distance distanceTo(RuptureSurface surface) {
+    if (parentDistances == null) {
+      return surface.distanceTo(site);
+    }
+    SurfaceDistances sd;
+    if (surface == parent) {
+      sd = parentDistances;
+    } else if (surface instanceof GriddedSubsetSurface &&
+        ((GriddedSubsetSurface) surface).parentSurface == parent) {
+      sd = ((GriddedSubsetSurface) surface).distances();
+    } else {
+      return surface.distanceTo(site);
+    }
+    RangeMinima rm = rangeMinima(sd.startRow, sd.endRow);
+    return sd.distanceTo(
+        site,
+        rm.min(rm.rJB, sd.startCol, sd.endCol),
+        rm.min(rm.rRupSq, sd.startCol, sd.endCol));
+  }
+
+  /* Get or create the range minimum tables for a row range. */
+  private RangeMinima rangeMinima(int startRow, int endRow) {
+    int key = startRow * (rows.length + 1) + endRow;
+    RangeMinima rm = minima.get(key);
+    if (rm == null) {
+      rm = new RangeMinima(startRow, endRow);
+      minima.put(key, rm);
+    }
+    return rm;
+  }
+
+  /* Compute node distances for a row if necessary. */
+  private void computeRow(int row) {
+    if (rows[row]) {
+      return;
+    }
+    SurfaceDistances.Nodes nodes = parentDistances.nodes;
+    double lat = site.latRad();
+    double lon = site.lonRad();
+    double depth = site.depth();
+    int offset = row * nodes.columns;
+    for (int i = offset; i < offset + nodes.columns; i++) {
+      double rHorz = nodes.horzDistance(i, lat, lon);
+      double rVert = nodes.depth[i] - depth;
+      rJB[i] = rHorz;
+      rRupSq[i] = rHorz * rHorz + rVert * rVert;
+    }
+    rows[row] = true;
+  }
+
+  /*
+   * Sparse tables of the minimum rJB and squared rRup over a range of rows of
+   * the parent surface. Level k of a table holds the minimum over the 2^k
+   * columns starting at each index, so that the minimum over any column range
+   * is the lesser of two, possibly overlapping, lookups.
+   */
+  private final class RangeMinima {
+
+    final double[][] rJB;
+    final double[][] rRupSq;
+
+    RangeMinima(int startRow, int endRow) {
+      int columns = parentDistances.nodes.columns;
+      double[] colJB = new double[columns];
+      double[] colRupSq = new double[columns];
+      for (int row = startRow; row < endRow; row++) {
+        computeRow(row);
+        int offset = row * columns;
+        for (int col = 0; col < columns; col++) {
+          int i = offset + col;
+          if (row == startRow || SiteDistances.this.rJB[i] < colJB[col]) {
+            colJB[col] = SiteDistances.this.rJB[i];
+          }
+          if (row == startRow || SiteDistances.this.rRupSq[i] < colRupSq[col]) {
+            colRupSq[col] = SiteDistances.this.rRupSq[i];
+          }
+        }
+      }
+      rJB = createTable(colJB);
+      rRupSq = createTable(colRupSq);
+    }
+
+    /* Minimum over columns [startCol, endCol). */
+    double min(double[][] table, int startCol, int endCol) {
+      int k = 31 - Integer.numberOfLeadingZeros(endCol - startCol);
+      double v1 = table[k][startCol];
+      double v2 = table[k][endCol - (1 << k)];
+      return (v2 < v1) ? v2 : v1;
+    }
+  }
+
+  private static double[][] createTable(double[] values) {
+    int levels = 32 - Integer.numberOfLeadingZeros(values.length);
+    double[][] table = new double[levels][];
+    table[0] = values;
+    for (int k = 1; k < levels; k++) {
+      int span = 1 << (k - 1);
+      double[] prev = table[k - 1];
+      double[] level = new double[values.length - (1 << k) + 1];
+      for (int i = 0; i < level.length; i++) {
+        double v1 = prev[i];
+        double v2 = prev[i + span];
+        level[i] = (v2 < v1) ? v2 : v1;
+      }
+      table[k] = level;
+    }
+    return table;
+  }
+
+}
@@ -0,0 +1,341 @@
+package gov.usgs.earthquake.nshmp.eq.fault.surface;
+
+import static com.google.common.base.Preconditions.checkState;
+import static gov.usgs.earthquake.nshmp.geo.Coordinates.EARTH_RADIUS_MEAN;
+import static gov.usgs.earthquake.nshmp.util.Maths.TO_DEG;
+import static java.lang.Math.cos;
+import static java.lang.Math.sqrt;
+
+import java.awt.geom.Line2D;
+
+import gov.usgs.earthquake.nshmp.eq.fault.Faults;
+import gov.usgs.earthquake.nshmp.eq.model.Distance;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.LocationList;
+import gov.usgs.earthquake.nshmp.geo.LocationVector;
+import gov.usgs.earthquake.nshmp.geo.Locations;
+
+/**
+ * Distance calculator for a gridded surface, or a window of one, that is backed
+ * by primitive arrays of surface node coordinates. rJB and rRup are computed in
+ * a single pass over the nodes without allocation. The perimeter check for
+ * small rJB values and rX are computed directly from surface nodes using the
+ * same crossing rules as {@code java.awt.geom.Area}; no perimeter, trace, or
+ * polygon objects are created. The only geometry retained is that of a parent
+ * surface, whose perimeter and extended upper edge are created once on first
+ * use. A window only creates the four points that extend its upper edge on
+ * each call; a model may have millions of floating rupture surfaces and
+ * holding their geometry for the life of a model is prohibitive.
+ *
+ * <p>Results are identical to those of
+ * {@link Distance#compute(GriddedSurface, Location)}.
+ *
+ * @author Peter Powers
+ */
+final class SurfaceDistances {
+
+  private final GriddedSurface surface;
+  final Nodes nodes;
+  final int startRow;
+  final int endRow;
+  final int startCol;
+  final int endCol;
+  private final double gridSpacing;
+
+  /* Windows derive their perimeter from the nodes of their edge rows. */
+  private final boolean window;
+  private final int bottomRow;
+
+  /* Lazily initialized geometry; only ever set for parent surfaces. */
+  private volatile double[][] perimeter;
+  private volatile Extension extension;
+
+  /*
+   * Create a calculator for the window of the supplied nodes that corresponds
+   * to the supplied surface. Near-vertical surfaces only consider the top row.
+   */
+  SurfaceDistances(
+      GriddedSurface surface,
+      Nodes nodes,
+      int startRow,
+      int startCol) {
+
+    this.surface = surface;
+    this.nodes = nodes;
+    this.startRow = startRow;
+    this.endRow = startRow + ((surface.dip() > 89) ? 1 : surface.getNumRows());
+    this.startCol = startCol;
+    this.endCol = startCol + surface.getNumCols();
+    this.gridSpacing = surface.getAveGridSpacing();
+    this.window = surface instanceof GriddedSubsetSurface;
+    this.bottomRow = startRow + surface.getNumRows() - 1;
+  }
+
+  Distance distanceTo(Location site) {
+    double lat = site.latRad();
+    double lon = site.lonRad();
+    double depth = site.depth();
+
+    double rJB = Double.MAX_VALUE;
+    double rRupSq = Double.MAX_VALUE;
+    for (int row = startRow; row < endRow; row++) {
+      int offset = row * nodes.columns;
+      for (int i = offset + startCol; i < offset + endCol; i++) {
+        double rHorz = nodes.horzDistance(i, lat, lon);
+        double rVert = nodes.depth[i] - depth;
+        if (rHorz < rJB) {
+          rJB = rHorz;
+        }
+        double rSq = rHorz * rHorz + rVert * rVert;
+        if (rSq < rRupSq) {
+          rRupSq = rSq;
+        }
+      }
+    }
+    return distanceTo(site, rJB, rRupSq);
+  }
+
+  /*
+   * Complete a distance calculation given the minimum horizontal and squared
+   * 3D distances from a site to the nodes of a surface.
+   */
+  Distance distanceTo(Location site, double rJB, double rRupSq) {
+    if (rJB < gridSpacing && perimeterContains(site.lon(), site.lat())) {
+      rJB = 0.0;
+    }
+    return Distance.create(rJB, sqrt(rRupSq), distanceX(site));
+  }
+
+  /*
+   * Even-odd containment test against the perimeter. See Distance.isDjbZero()
+   * for details. The perimeter of a window is its top row followed by its
+   * bottom row reversed; that of a parent is supplied by the surface.
+   */
+  private boolean perimeterContains(double x, double y) {
+    int crossings = 0;
+    if (window) {
+      int columns = endCol - startCol;
+      int prev = nodeIndex(2 * columns - 1, columns);
+      for (int k = 0; k < 2 * columns; k++) {
+        int i = nodeIndex(k, columns);
+        crossings += crossings(x, y,
+            nodes.lon[prev] * TO_DEG, nodes.lat[prev] * TO_DEG,
+            nodes.lon[i] * TO_DEG, nodes.lat[i] * TO_DEG);
+        prev = i;
+      }
+    } else {
+      double[][] border = perimeter();
+      double[] lons = border[0];
+      double[] lats = border[1];
+      int prev = lons.length - 1;
+      for (int i = 0; i < lons.length; i++) {
+        crossings += crossings(x, y, lons[prev], lats[prev], lons[i], lats[i]);
+        prev = i;
+      }
+    }
+    return (crossings & 1) != 0;
+  }
+
+  /* Node index of the k-th perimeter vertex of a window. */
+  private int nodeIndex(int k, int columns) {
+    return (k < columns)
+        ? startRow * nodes.columns + startCol + k
+        : bottomRow * nodes.columns + endCol - 1 - (k - columns);
+  }
+
+  /* Perimeter vertex longitudes and latitudes in degrees. */
+  private double[][] perimeter() {
+    double[][] border = perimeter;
+    if (border == null) {
+      LocationList locs = surface.getPerimeter();
+      border = new double[2][locs.size()];
+      for (int i = 0; i < locs.size(); i++) {
+        border[0][i] = locs.get(i).lon();
+        border[1][i] = locs.get(i).lat();
+      }
+      perimeter = border;
+    }
+    return border;
+  }
+
+  /*
+   * Distance from a site to the upper edge of a surface extended 1000 km along
+   * strike in both directions; negative if the site is not within the polygon
+   * formed by projecting the extended edge 1000 km in the dip direction. Zero
+   * values are always on the hanging wall. See Distance.getDistanceX() for
+   * details.
+   */
+  private double distanceX(Location site) {
+    checkState(endCol - startCol > 1, "Trace is too short");
+    Extension ext = extension();
+    double lat = site.latRad();
+    double lon = site.lonRad();
+    int first = startRow * nodes.columns + startCol;
+    int last = first + endCol - startCol - 1;
+
+    /* Extended edge: p2, upper edge nodes, p3 */
+    double r = segmentDistance(
+        ext.p2.latRad(), ext.p2.lonRad(),
+        nodes.lat[first], nodes.lon[first],
+        lat, lon);
+    for (int i = first; i < last; i++) {
+      r = Math.min(r, segmentDistance(
+          nodes.lat[i], nodes.lon[i],
+          nodes.lat[i + 1], nodes.lon[i + 1],
+          lat, lon));
+    }
+    r = Math.min(r, segmentDistance(
+        nodes.lat[last], nodes.lon[last],
+        ext.p3.latRad(), ext.p3.lonRad(),
+        lat, lon));
+    if (r == 0.0) {
+      return r;
+    }
+
+    /* Hanging wall polygon: p1, p2, upper edge nodes, p3, p4 */
+    double x = site.lon();
+    double y = site.lat();
+    int crossings = crossings(x, y, ext.p4.lon(), ext.p4.lat(), ext.p1.lon(), ext.p1.lat());
+    crossings += crossings(x, y, ext.p1.lon(), ext.p1.lat(), ext.p2.lon(), ext.p2.lat());
+    crossings += crossings(x, y,
+        ext.p2.lon(), ext.p2.lat(),
+        nodes.lon[first] * TO_DEG, nodes.lat[first] * TO_DEG);
+    for (int i = first; i < last; i++) {
+      crossings += crossings(x, y,
+          nodes.lon[i] * TO_DEG, nodes.lat[i] * TO_DEG,
+          nodes.lon[i + 1] * TO_DEG, nodes.lat[i + 1] * TO_DEG);
+    }
+    crossings += crossings(x, y,
+        nodes.lon[last] * TO_DEG, nodes.lat[last] * TO_DEG,
+        ext.p3.lon(), ext.p3.lat());
+    crossings += crossings(x, y, ext.p3.lon(), ext.p3.lat(), ext.p4.lon(), ext.p4.lat());
+    return ((crossings & 1) != 0) ? r : -r;
+  }
+
+  /* The extension of a parent is created once; those of windows per call. */
+  private Extension extension() {
+    if (window) {
+      return new Extension(surface);
+    }
+    Extension ext = extension;
+    if (ext == null) {
+      ext = new Extension(surface);
+      extension = ext;
+    }
+    return ext;
+  }
+
+  /*
+   * Points that extend the upper edge of a surface 1000 km along strike (p2,
+   * p3) and then in the dip direction (p1, p4).
+   */
+  private static final class Extension {
+
+    final Location p1;
+    final Location p2;
+    final Location p3;
+    final Location p4;
+
+    Extension(GriddedSurface surface) {
+      Location first = surface.getLocation(0, 0);
+      Location last = surface.getLocation(0, surface.getNumCols() - 1);
+      double strike = Faults.strikeRad(first, last);
+      double dipDir = Faults.dipDirectionRad(strike);
+
+      LocationVector toP3 = LocationVector.create(strike, 1000.0, 0.0);
+      LocationVector toP2 = LocationVector.reverseOf(toP3);
+      LocationVector toP14 = LocationVector.create(dipDir, 1000.0, 0.0);
+
+      p3 = Locations.location(last, toP3);
+      p4 = Locations.location(p3, toP14);
+      p2 = Locations.location(first, toP2);
+      p1 = Locations.location(p2, toP14);
+    }
+  }
+
+  /*
+   * Same as Locations.distanceToSegmentFast() for points p1 and p2 on a
+   * segment and a point p3; coordinates in radians.
+   */
+  private static double segmentDistance(
+      double lat1, double lon1,
+      double lat2, double lon2,
+      double lat3, double lon3) {
+
+    double lonScale = cos(0.5 * lat3 + 0.25 * lat1 + 0.25 * lat2);
+    double x2 = (lon2 - lon1) * lonScale;
+    double y2 = lat2 - lat1;
+    double x3 = (lon3 - lon1) * lonScale;
+    double y3 = lat3 - lat1;
+    return Line2D.ptSegDist(0, 0, x2, y2, x3, y3) * EARTH_RADIUS_MEAN;
+  }
+
+  /*
+   * Number of times a ray cast from (px, py) in the +x direction crosses the
+   * line from (x0, y0) to (x1, y1), signed by direction. Same as the crossing
+   * rules used by Path2D and Area.
+   */
+  private static int crossings(
+      double px, double py,
+      double x0, double y0,
+      double x1, double y1) {
+
+    if (py < y0 && py < y1) {
+      return 0;
+    }
+    if (py >= y0 && py >= y1) {
+      return 0;
+    }
+    if (px >= x0 && px >= x1) {
+      return 0;
+    }
+    if (px < x0 && px < x1) {
+      return (y0 < y1) ? 1 : -1;
+    }
+    double xIntercept = x0 + (py - y0) * (x1 - x0) / (y1 - y0);
+    if (px >= xIntercept) {
+      return 0;
+    }
+    return (y0 < y1) ? 1 : -1;
+  }
+
+  /*
+   * Node coordinates of a surface in row-major order; latitude and longitude
+   * are in radians.
+   */
+  static final class Nodes {
+
+    final int columns;
+    final double[] lat;
+    final double[] lon;
+    final double[] depth;
+
+    Nodes(GriddedSurface surface) {
+      int rows = surface.getNumRows();
+      columns = surface.getNumCols();
+      lat = new double[rows * columns];
+      lon = new double[rows * columns];
+      depth = new double[rows * columns];
+      for (int row = 0; row < rows; row++) {
+        for (int col = 0; col < columns; col++) {
+          int i = row * columns + col;
+          Location loc = surface.getLocation(row, col);
+          lat[i] = loc.latRad();
+          lon[i] = loc.lonRad();
+          depth[i] = loc.depth();
+        }
+      }
+    }
+
+    /*
+     * Horizontal distance from a site to a node. Same as
+     * Locations.horzDistanceFast().
+     */
+    double horzDistance(int i, double siteLat, double siteLon) {
+      double Δlat = siteLat - lat[i];
+      double Δlon = (siteLon - lon[i]) * cos((siteLat + lat[i]) * 0.5);
+      return EARTH_RADIUS_MEAN * sqrt(Δlat * Δlat + Δlon * Δlon);
+    }
+  }
+
+}
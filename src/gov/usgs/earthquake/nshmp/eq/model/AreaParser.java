@@ -28,6 +28,7 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.logging.Logger;
@@ -224,11 +225,11 @@ class AreaParser extends DefaultHandler {
 
         if (log.isLoggable(FINE)) {
           log.fine("       Size: " + source.size());
-          log.finer("  Mag count: " + source.depthModel.magMaster.size());
-          log.finer(" Mag master: " + source.depthModel.magMaster);
-          log.finer("  MFD index: " + source.depthModel.magDepthIndices);
-          log.finer("     Depths: " + source.depthModel.magDepthDepths);
-          log.finer("    Weights: " + source.depthModel.magDepthWeights);
+          log.finer("  Mag count: " + source.depthModel.magMaster.length);
+          log.finer(" Mag master: " + Arrays.toString(source.depthModel.magMaster));
+          log.finer("  MFD index: " + Arrays.toString(source.depthModel.magDepthIndices));
+          log.finer("     Depths: " + Arrays.toString(source.depthModel.magDepthDepths));
+          log.finer("    Weights: " + Arrays.toString(source.depthModel.magDepthWeights));
           log.fine("");
         }
         break;
@@ -0,0 +1,48 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+/**
+ * A {@code Source} that can compute the distances from a site to all of its
+ * {@code Rupture}s in a single pass. Point sources implement this interface so
+ * that the site-to-node distance, and any corrections to it, are computed once
+ * per node rather than once per {@code Rupture}. Fault sources implement this
+ * interface so that distances to the nodes of a fault surface are computed once
+ * and shared by all floating {@code Rupture}s.
+ *
+ * @author Peter Powers
+ */
+public interface BatchDistanceSource extends Source {
+
+  /**
+   * Compute the rJB, rRup, and rX distances from a site to every
+   * {@code Rupture} of this source, supplying each {@code Rupture} and its
+   * distances to a consumer in {@link #iterator()} order. Distances are
+   * identical to those returned by
+   * {@link gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureSurface#distanceTo(Location)}
+   * for each {@code Rupture}. As with {@link #iterator()}, {@code Rupture}
+   * instances supplied to the consumer should not be retained.
+   *
+   * @param site location of the site of interest
+   * @param consumer of ruptures and distances
+   */
+  void distances(Location site, DistanceConsumer consumer);
+
+  /**
+   * Receiver of the distances from a site to each {@code Rupture} of a
+   * {@code BatchDistanceSource}.
+   */
+  interface DistanceConsumer {
+
+    /**
+     * Accept a {@code Rupture} and its distances from a site.
+     *
+     * @param rupture of interest
+     * @param rJB Joyner-Boore distance
+     * @param rRup rupture distance
+     * @param rX distance from the extended trace
+     */
+    void accept(Rupture rupture, double rJB, double rRup, double rX);
+  }
+
+}
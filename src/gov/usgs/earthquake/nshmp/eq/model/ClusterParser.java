@@ -182,7 +182,8 @@ class ClusterParser extends DefaultHandler {
               .ruptureScaling(rupScaling)
               .ruptureFloating(config.ruptureFloating)
               .ruptureVariability(config.ruptureVariability)
-              .surfaceSpacing(config.surfaceSpacing);
+              .surfaceSpacing(config.surfaceSpacing)
+              .lazyRuptures(config.lazyRuptures);
           log.finer("      Fault: " + srcName);
           break;
 
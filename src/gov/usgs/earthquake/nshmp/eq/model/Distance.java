@@ -51,7 +51,14 @@ public final class Distance {
     this.rX = rX;
   }
 
-  static Distance create(double rJB, double rRup, double rX) {
+  /**
+   * Create a new distance value wrapper.
+   *
+   * @param rJB Joyner-Boore distance
+   * @param rRup rupture distance
+   * @param rX distance from the extended trace
+   */
+  public static Distance create(double rJB, double rRup, double rX) {
     return new Distance(rJB, rRup, rX);
   }
 
@@ -166,7 +166,8 @@ class FaultParser extends DefaultHandler {
               .ruptureScaling(rupScaling)
               .ruptureFloating(config.ruptureFloating)
               .ruptureVariability(config.ruptureVariability)
-              .surfaceSpacing(config.surfaceSpacing);
+              .surfaceSpacing(config.surfaceSpacing)
+              .lazyRuptures(config.lazyRuptures);
           log.fine("     Source: " + srcName + " [" + srcId + "]");
           if (srcId < 0) {
             log.warning("  Invalid Id [" + srcId + ", " + srcName + "]");
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Range;
 
+import java.lang.ref.SoftReference;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,7 @@ import gov.usgs.earthquake.nshmp.eq.fault.surface.DefaultGriddedSurface;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureFloating;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.SiteDistances;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.LocationList;
 import gov.usgs.earthquake.nshmp.geo.Locations;
@@ -44,7 +46,7 @@ import gov.usgs.earthquake.nshmp.mfd.IncrementalMfd;
  *
  * @author Peter Powers
  */
-public class FaultSource implements Source {
+public class FaultSource implements BatchDistanceSource {
 
   final String name;
   final int id;
@@ -59,7 +61,10 @@ public class FaultSource implements Source {
   final boolean rupVariability;
   final GriddedSurface surface;
 
-  private final List<List<Rupture>> ruptureLists; // 1:1 with Mfds
+  private final boolean lazyRuptures;
+  private final List<List<Rupture>> ruptureLists; // 1:1 with Mfds; null if lazy
+  volatile SoftReference<List<List<Rupture>>> ruptureCache; // empty until iterated
+  private final int rupCount;
 
   // package privacy for subduction subclass
   FaultSource(
@@ -74,7 +79,8 @@ public class FaultSource implements Source {
       double spacing,
       RuptureScaling rupScaling,
       RuptureFloating rupFloating,
-      boolean rupVariability) {
+      boolean rupVariability,
+      boolean lazyRuptures) {
 
     this.name = name;
     this.id = id;
@@ -88,10 +94,22 @@ public class FaultSource implements Source {
     this.rupScaling = rupScaling;
     this.rupFloating = rupFloating;
     this.rupVariability = rupVariability;
+    this.lazyRuptures = lazyRuptures;
 
-    ruptureLists = initRuptureLists();
-    checkState(Iterables.size(Iterables.concat(ruptureLists)) > 0,
-        "FaultSource has no ruptures");
+    /*
+     * Lazy sources count, rather than create, their ruptures at load time so
+     * that a source without ruptures still fails fast; no surfaces are built
+     * until a source is first iterated.
+     */
+    if (lazyRuptures) {
+      ruptureLists = null;
+      ruptureCache = new SoftReference<>(null);
+      rupCount = countRuptures();
+    } else {
+      ruptureLists = initRuptureLists();
+      rupCount = Iterables.size(Iterables.concat(ruptureLists));
+    }
+    checkState(rupCount > 0, "FaultSource has no ruptures");
   }
 
   @Override
@@ -101,7 +119,7 @@ public class FaultSource implements Source {
 
   @Override
   public int size() {
-    return Iterables.size(this);
+    return rupCount;
   }
 
   @Override
@@ -138,7 +156,40 @@ public class FaultSource implements Source {
 
   @Override
   public Iterator<Rupture> iterator() {
-    return Iterables.concat(ruptureLists).iterator();
+    return Iterables.concat(ruptureLists()).iterator();
+  }
+
+  /*
+   * Lazily held ruptures are softly referenced so that they may be reused
+   * across sites until the garbage collector needs the memory. Ruptures may be
+   * recreated more than once if multiple threads iterate a source concurrently.
+   * Recreated ruptures hold no distance state of their own; the node arrays
+   * used for distance calculations belong to the retained parent surface.
+   */
+  private List<List<Rupture>> ruptureLists() {
+    if (!lazyRuptures) {
+      return ruptureLists;
+    }
+    List<List<Rupture>> lists = ruptureCache.get();
+    if (lists == null) {
+      lists = initRuptureLists();
+      ruptureCache = new SoftReference<>(lists);
+    }
+    return lists;
+  }
+
+  /*
+   * Floating ruptures are windows into the fault surface; distances from the
+   * site to the nodes of the surface are computed once and shared by all
+   * ruptures.
+   */
+  @Override
+  public void distances(Location site, DistanceConsumer consumer) {
+    SiteDistances siteDistances = SiteDistances.create(surface, site);
+    for (Rupture rup : this) {
+      Distance d = siteDistances.distanceTo(rup.surface());
+      consumer.accept(rup, d.rJB, d.rRup, d.rX);
+    }
   }
 
   @Override
@@ -164,6 +215,25 @@ public class FaultSource implements Source {
     return rupListsBuilder.build();
   }
 
+  /* Must agree with initRuptureLists() */
+  private int countRuptures() {
+    int count = 0;
+    for (IncrementalMfd mfd : mfds) {
+      int mfdCount = 0;
+      for (int i = 0; i < mfd.getNum(); ++i) {
+        if (mfd.getY(i) < 1e-14) {
+          continue;
+        }
+        mfdCount += mfd.floats()
+            ? rupFloating.floatingRuptureCount(surface, rupScaling, mfd.getX(i), rupVariability)
+            : 1;
+      }
+      checkState(mfdCount > 0, "Rupture list is empty");
+      count += mfdCount;
+    }
+    return count;
+  }
+
   private List<Rupture> createRuptureList(IncrementalMfd mfd) {
     ImmutableList.Builder<Rupture> rupListbuilder = ImmutableList.builder();
 
@@ -221,6 +291,9 @@ public class FaultSource implements Source {
     RuptureFloating rupFloating;
     Boolean rupVariability;
 
+    // optional
+    boolean lazyRuptures = false;
+
     Builder name(String name) {
       this.name = validateName(name);
       return this;
@@ -288,6 +361,11 @@ public class FaultSource implements Source {
       return this;
     }
 
+    Builder lazyRuptures(boolean lazyRuptures) {
+      this.lazyRuptures = lazyRuptures;
+      return this;
+    }
+
     void validateState(String buildId) {
       checkState(!built, "This %s instance as already been used", buildId);
       checkState(name != null, "%s name not set", buildId);
@@ -316,7 +394,8 @@ public class FaultSource implements Source {
           .depth(depth).dip(dip).width(width).spacing(spacing).build();
 
       return new FaultSource(name, id, trace, dip, width, surface, rake,
-          ImmutableList.copyOf(mfds), spacing, rupScaling, rupFloating, rupVariability);
+          ImmutableList.copyOf(mfds), spacing, rupScaling, rupFloating, rupVariability,
+          lazyRuptures);
     }
   }
 
@@ -30,6 +30,7 @@ import com.google.common.collect.Iterables;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -256,11 +257,11 @@ class GridParser extends DefaultHandler {
           // vis
           log.fine("       Size: " + sourceSet.size());
           log.finer("  MFD count: " + mfdHelper.size());
-          log.finer("  Mag count: " + sourceSet.depthModel.magMaster.size());
-          log.finer(" Mag master: " + sourceSet.depthModel.magMaster);
-          log.finer("  MFD index: " + sourceSet.depthModel.magDepthIndices);
-          log.finer("     Depths: " + sourceSet.depthModel.magDepthDepths);
-          log.finer("    Weights: " + sourceSet.depthModel.magDepthWeights);
+          log.finer("  Mag count: " + sourceSet.depthModel.magMaster.length);
+          log.finer(" Mag master: " + Arrays.toString(sourceSet.depthModel.magMaster));
+          log.finer("  MFD index: " + Arrays.toString(sourceSet.depthModel.magDepthIndices));
+          log.finer("     Depths: " + Arrays.toString(sourceSet.depthModel.magDepthDepths));
+          log.finer("    Weights: " + Arrays.toString(sourceSet.depthModel.magDepthWeights));
           log.fine("");
         }
         break;
@@ -14,16 +14,22 @@ import static gov.usgs.earthquake.nshmp.eq.model.PointSourceType.FIXED_STRIKE;
 import static gov.usgs.earthquake.nshmp.eq.model.SourceType.GRID;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Doubles;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 
 import gov.usgs.earthquake.nshmp.data.Data;
 import gov.usgs.earthquake.nshmp.data.IntervalTable;
@@ -46,6 +52,7 @@ import gov.usgs.earthquake.nshmp.mfd.IncrementalMfd;
 public class GridSourceSet extends AbstractSourceSet<PointSource> {
 
   private final List<Location> locs;
+  private final LocationIndex locIndex;
   private final List<XySequence> mfds;
   final RuptureScaling rupScaling;
   private final List<Map<FocalMech, Double>> mechMaps;
@@ -58,6 +65,12 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
   final double[] magMaster;
   final double Δm;
 
+  /* Grid optimization rate tables keyed by origin; populated on demand. */
+  private final LoadingCache<Location, RateTables> tableCache;
+
+  /* Maximum number of rate table origins retained per source set. */
+  private static final int TABLE_CACHE_SIZE = 1024;
+
   /*
    * Most grid sources have the same focal mech map everywhere; in these cases,
    * mechMaps will have been created using Collections.nCopies() with minimal
@@ -83,6 +96,7 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
 
     super(name, id, weight, gmmSet);
     this.locs = locs;
+    this.locIndex = new LocationIndex(locs);
     this.mfds = mfds;
     this.mechMaps = mechMaps;
     this.singularMechs = singularMechs;
@@ -93,6 +107,15 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
     this.magMaster = magMaster;
     this.Δm = Δm;
     this.optimizable = !Double.isNaN(Δm);
+    this.tableCache = CacheBuilder.newBuilder()
+        .maximumSize(TABLE_CACHE_SIZE)
+        .softValues()
+        .build(new CacheLoader<Location, RateTables>() {
+          @Override
+          public RateTables load(Location origin) {
+            return new RateTables(GridSourceSet.this, origin);
+          }
+        });
 
     depthModel = DepthModel.create(magDepthMap, Doubles.asList(magMaster), maxDepth);
   }
@@ -138,6 +161,45 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
     return new DistanceFilter(loc, distance);
   }
 
+  /*
+   * Overridden to only consider grid nodes in the vicinity of a site, as
+   * identified by a spatial index of node locations, and to only create point
+   * sources for nodes that pass the distance filter. Sources are returned in
+   * the same order as they would be by filtering iterator().
+   */
+  @Override
+  public Iterable<PointSource> iterableForLocation(final Location loc, final double distance) {
+    final BitSet candidates = nodesNear(loc, distance);
+    return new Iterable<PointSource>() {
+      @Override
+      public Iterator<PointSource> iterator() {
+        return new Iterator<PointSource>() {
+          int caret = candidates.nextSetBit(0);
+
+          @Override
+          public boolean hasNext() {
+            return caret >= 0;
+          }
+
+          @Override
+          public PointSource next() {
+            if (caret < 0) {
+              throw new NoSuchElementException();
+            }
+            PointSource source = getSource(caret);
+            caret = candidates.nextSetBit(caret + 1);
+            return source;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
   /* Not inlined for use by area sources */
   static final class DistanceFilter implements Predicate<PointSource> {
     private final Predicate<Location> filter;
@@ -179,6 +241,21 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
     };
   }
 
+  /*
+   * Return the indices of the nodes that pass a DistanceFilter for the
+   * supplied location and distance.
+   */
+  private BitSet nodesNear(Location loc, double distance) {
+    BitSet nodes = locIndex.candidates(loc, distance);
+    Predicate<Location> filter = Locations.distanceAndRectangleFilter(loc, distance);
+    for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+      if (!filter.apply(locs.get(i))) {
+        nodes.clear(i);
+      }
+    }
+    return nodes;
+  }
+
   private PointSource getSource(int index) {
 
     /*
@@ -536,19 +613,60 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
    * @param loc reference point for table
    */
   public static Function<GridSourceSet, SourceSet<? extends Source>> optimizer(Location loc) {
-    return new Optimizer(loc);
+    return new Optimizer(loc, Optional.<Double> absent());
+  }
+
+  /**
+   * Create a {@code Function} for a location the condenses a
+   * {@code GridSourceSet} into tabular form (distance, magnitude and azimuth
+   * bins) for speedier iteration, reusing previously computed rate tables.
+   *
+   * <p>The magnitude-distance rate tables of a {@code GridSourceSet} are
+   * computed relative to the supplied location snapped to the nearest multiple
+   * of {@code resolution} in latitude and longitude, and are retained by the
+   * source set for reuse by any location that snaps to the same point. A
+   * {@code resolution} of {@code 0.0} only reuses tables for identical
+   * locations and yields results identical to those of
+   * {@link #optimizer(Location)}. Larger values permit nearby map sites to
+   * share tables at the cost of distances to grid nodes being in error by up
+   * to half the {@code resolution}. Cached tables are softly referenced and may
+   * be reclaimed under memory pressure.
+   *
+   * @param loc reference point for table
+   * @param resolution in decimal degrees at which to snap {@code loc}
+   */
+  public static Function<GridSourceSet, SourceSet<? extends Source>> optimizer(
+      Location loc,
+      double resolution) {
+
+    checkArgument(resolution >= 0.0, "Resolution [%s] must be ≥ 0.0", resolution);
+    return new Optimizer(loc, Optional.of(resolution));
   }
 
   private static class Optimizer implements Function<GridSourceSet, SourceSet<? extends Source>> {
     private final Location loc;
+    private final Optional<Double> resolution;
 
-    Optimizer(Location loc) {
+    Optimizer(Location loc, Optional<Double> resolution) {
       this.loc = loc;
+      this.resolution = resolution;
     }
 
     @Override
     public Table apply(GridSourceSet sources) {
-      return new Table(sources, loc);
+      RateTables rateTables = resolution.isPresent()
+          ? sources.tableCache.getUnchecked(snap(loc, resolution.get()))
+          : new RateTables(sources, loc);
+      return new Table(sources, loc, rateTables);
+    }
+
+    private static Location snap(Location loc, double resolution) {
+      if (resolution == 0.0) {
+        return loc;
+      }
+      return Location.create(
+          Math.rint(loc.lat() / resolution) * resolution,
+          Math.rint(loc.lon() / resolution) * resolution);
     }
   }
 
@@ -576,7 +694,8 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
    * the point sources that influence hazard at a site using a
    * magnitude-distance-rate {@code DataTable}, from which a list of sources is
    * generated. A {@code Table} is created on a per-calculation basis and is
-   * unique to a location.
+   * unique to a location, although the rate tables from which it is built may
+   * be shared (see {@link GridSourceSet#optimizer(Location, double)}).
    *
    * @see GridSourceSet#optimizer(Location)
    */
@@ -595,13 +714,19 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
      */
     private int rowCount;
     private int maximumSize;
-    private int parentCount;
+    private final int parentCount;
 
-    private Table(GridSourceSet parent, Location origin) {
+    private Table(GridSourceSet parent, Location origin, RateTables rateTables) {
       super(parent.name(), parent.id(), parent.weight(), parent.groundMotionModels());
       this.parent = parent;
       this.origin = origin;
-      this.sources = parent.singularMechs ? initSources() : initMultiMechSources();
+      this.parentCount = rateTables.parentCount;
+      this.sources = parent.singularMechs
+          ? initSources(rateTables.tables.get(0))
+          : initMultiMechSources(
+              rateTables.tables.get(0),
+              rateTables.tables.get(1),
+              rateTables.tables.get(2));
     }
 
     /**
@@ -649,26 +774,7 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
     private static final double SRC_TO_SITE_AZIMUTH = 0.0;
 
     /* creates the type of point source specified in the parent */
-    private List<PointSource> initSources() {
-
-      // table keys are specified as lowermost and uppermost bin edges
-      double Δm = parent.Δm;
-      double ΔmBy2 = Δm / 2.0;
-      double mMin = parent.magMaster[0] - ΔmBy2;
-      double mMax = parent.magMaster[parent.magMaster.length - 1] + ΔmBy2;
-      double rMax = parent.groundMotionModels().maxDistance();
-
-      IntervalTable.Builder tableBuilder = new IntervalTable.Builder()
-          .rows(0.0, rMax, distanceDiscretization(rMax))
-          .columns(mMin, mMax, Δm);
-
-      for (PointSource source : parent.iterableForLocation(origin)) {
-        double r = Locations.horzDistanceFast(origin, source.loc);
-        tableBuilder.add(r, source.mfd);
-        parentCount++;
-      }
-
-      IntervalTable mfdTable = tableBuilder.build();
+    private List<PointSource> initSources(IntervalTable mfdTable) {
 
       // System.out.println(parent.name());
       // System.out.println(mfdTable);
@@ -697,66 +803,10 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
     }
 
     /* always creates finite point sources */
-    private List<PointSource> initMultiMechSources() {
-      double Δm = parent.Δm;
-      double ΔmBy2 = Δm / 2.0;
-      double mMin = parent.magMaster[0] - ΔmBy2;
-      double mMax = parent.magMaster[parent.magMaster.length - 1] + ΔmBy2;
-      double rMax = parent.groundMotionModels().maxDistance();
-
-      IntervalTable.Builder ssTableBuilder = new IntervalTable.Builder()
-          .rows(0.0, rMax, distanceDiscretization(rMax))
-          .columns(mMin, mMax, Δm);
-
-      IntervalTable.Builder rTableBuilder = new IntervalTable.Builder()
-          .rows(0.0, rMax, distanceDiscretization(rMax))
-          .columns(mMin, mMax, Δm);
-
-      IntervalTable.Builder nTableBuilder = new IntervalTable.Builder()
-          .rows(0.0, rMax, distanceDiscretization(rMax))
-          .columns(mMin, mMax, Δm);
-
-      // XySequence srcMfdSum = null;
-
-      for (PointSource source : parent.iterableForLocation(origin)) {
-        // if (srcMfdSum == null) {
-        // srcMfdSum = XySequence.emptyCopyOf(source.mfd);
-        // }
-        // srcMfdSum.add(source.mfd);
-
-        double r = Locations.horzDistanceFast(origin, source.loc);
-        ssTableBuilder.add(r, XySequence.copyOf(source.mfd)
-            .multiply(source.mechWtMap.get(STRIKE_SLIP)));
-        rTableBuilder.add(r, XySequence.copyOf(source.mfd)
-            .multiply(source.mechWtMap.get(REVERSE)));
-        nTableBuilder.add(r, XySequence.copyOf(source.mfd)
-            .multiply(source.mechWtMap.get(NORMAL)));
-        parentCount++;
-      }
-
-      IntervalTable ssTable = ssTableBuilder.build();
-      // System.out.println("SS Table:" + TextUtils.NEWLINE + ssTable);
-      IntervalTable rTable = rTableBuilder.build();
-      // System.out.println("R Table:" + TextUtils.NEWLINE + rTable);
-      IntervalTable nTable = nTableBuilder.build();
-      // System.out.println("N Table:" + TextUtils.NEWLINE + nTable);
-
-      // DataTable tableSum = DataTable.Builder.fromModel(ssTable)
-      // .add(ssTable)
-      // .add(rTable)
-      // .add(nTable)
-      // .build();
-      //
-      // XySequence tableMfdSum =
-      // XySequence.emptyCopyOf(tableSum.row(0.1));
-      // for (double row : tableSum.rows()) {
-      // tableMfdSum.add(tableSum.row(row));
-      // }
-      // System.out.println("sourcesMfd:");
-      // System.out.println(srcMfdSum);
-      //
-      // System.out.println("tableMfd:");
-      // System.out.println(tableMfdSum);
+    private List<PointSource> initMultiMechSources(
+        IntervalTable ssTable,
+        IntervalTable rTable,
+        IntervalTable nTable) {
 
       List<Double> distances = ssTable.rows();
       maximumSize = distances.size();
@@ -813,6 +863,72 @@ public class GridSourceSet extends AbstractSourceSet<PointSource> {
       }
       return b.build();
     }
+  }
+
+  /*
+   * Magnitude-distance rate tables of the nodes of a GridSourceSet relative to
+   * an origin. A single table is built when all nodes share the same focal
+   * mechanism map; otherwise, rates are partitioned across strike-slip,
+   * reverse, and normal tables (in that order). Tables are built directly from
+   * node data, without creating intermediate point sources, and are immutable
+   * so that they may be shared by all sites that map to the same origin.
+   */
+  private static final class RateTables {
+
+    final List<IntervalTable> tables;
+    final int parentCount;
+
+    RateTables(GridSourceSet parent, Location origin) {
+
+      // table keys are specified as lowermost and uppermost bin edges
+      double Δm = parent.Δm;
+      double ΔmBy2 = Δm / 2.0;
+      double mMin = parent.magMaster[0] - ΔmBy2;
+      double mMax = parent.magMaster[parent.magMaster.length - 1] + ΔmBy2;
+      double rMax = parent.groundMotionModels().maxDistance();
+
+      IntervalTable.Builder ssTableBuilder = new IntervalTable.Builder()
+          .rows(0.0, rMax, distanceDiscretization(rMax))
+          .columns(mMin, mMax, Δm);
+
+      if (parent.singularMechs) {
+        int count = 0;
+        BitSet nodes = parent.nodesNear(origin, rMax);
+        for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+          double r = Locations.horzDistanceFast(origin, parent.locs.get(i));
+          ssTableBuilder.add(r, parent.mfds.get(i));
+          count++;
+        }
+        tables = ImmutableList.of(ssTableBuilder.build());
+        parentCount = count;
+        return;
+      }
+
+      IntervalTable.Builder rTableBuilder = new IntervalTable.Builder()
+          .rows(0.0, rMax, distanceDiscretization(rMax))
+          .columns(mMin, mMax, Δm);
+
+      IntervalTable.Builder nTableBuilder = new IntervalTable.Builder()
+          .rows(0.0, rMax, distanceDiscretization(rMax))
+          .columns(mMin, mMax, Δm);
+
+      int count = 0;
+      BitSet nodes = parent.nodesNear(origin, rMax);
+      for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+        double r = Locations.horzDistanceFast(origin, parent.locs.get(i));
+        XySequence mfd = parent.mfds.get(i);
+        Map<FocalMech, Double> mechMap = parent.mechMaps.get(i);
+        ssTableBuilder.add(r, mfd, mechMap.get(STRIKE_SLIP));
+        rTableBuilder.add(r, mfd, mechMap.get(REVERSE));
+        nTableBuilder.add(r, mfd, mechMap.get(NORMAL));
+        count++;
+      }
+      tables = ImmutableList.of(
+          ssTableBuilder.build(),
+          rTableBuilder.build(),
+          nTableBuilder.build());
+      parentCount = count;
+    }
 
     /*
      * Return a distance dependent discretization. Currently this is fixed at
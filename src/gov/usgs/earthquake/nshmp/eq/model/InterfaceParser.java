@@ -146,6 +146,7 @@ class InterfaceParser extends DefaultHandler {
           sourceBuilder.ruptureFloating(config.ruptureFloating);
           sourceBuilder.ruptureVariability(config.ruptureVariability);
           sourceBuilder.surfaceSpacing(config.surfaceSpacing);
+          sourceBuilder.lazyRuptures(config.lazyRuptures);
           log.fine("     Source: " + srcName);
           break;
 
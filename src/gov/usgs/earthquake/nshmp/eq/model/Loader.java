@@ -12,10 +12,15 @@ import static java.util.logging.Level.SEVERE;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -29,8 +34,14 @@ import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -38,7 +49,7 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import gov.usgs.earthquake.nshmp.calc.CalcConfig;
-import gov.usgs.earthquake.nshmp.eq.model.HazardModel.Builder;
+import gov.usgs.earthquake.nshmp.calc.ThreadCount;
 
 /**
  * {@code HazardModel} loader. This class takes care of extensive checked
@@ -63,6 +74,10 @@ class Loader {
    * directory containing sub-directories by {@code SourceType}s, or the
    * absolute path to a zipped model.
    *
+   * <p>Source files are parsed concurrently using the {@code ThreadCount}
+   * specified in the model calculation configuration; source sets are always
+   * added to the model in directory traversal order.
+   *
    * <p>This method is not thread safe. Any exceptions thrown while loading will
    * be logged and the JVM will exit.
    *
@@ -71,15 +86,9 @@ class Loader {
    */
   static HazardModel load(Path path) {
 
-    SAXParser sax = null;
-    try {
-      sax = SAXParserFactory.newInstance().newSAXParser();
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new RuntimeException(e);
-    }
-
     HazardModel.Builder builder = HazardModel.builder();
     List<Path> typePaths = null;
+    ParseQueue queue = null;
 
     try {
 
@@ -93,6 +102,7 @@ class Loader {
           .extend(CalcConfig.Builder.fromFile(typeDirPath))
           .build();
       builder.config(calcConfig);
+      queue = new ParseQueue(calcConfig.performance.threadCount);
 
       typePaths = typeDirectoryList(typeDirPath);
       checkState(typePaths.size() > 0, "Empty model: %s", path.getFileName());
@@ -102,12 +112,17 @@ class Loader {
         String typeName = cleanZipName(typePath.getFileName().toString());
         log.info("");
         log.info("=======  " + typeName + " Sources  =======");
-        processTypeDir(typePath, builder, modelConfig, sax);
+        processTypeDir(typePath, queue, modelConfig);
         log.info("==========================" + Strings.repeat("=", typeName.length()));
       }
+      queue.drainTo(builder);
 
     } catch (IOException | URISyntaxException e) {
       handleConfigException(e);
+    } finally {
+      if (queue != null) {
+        queue.shutdown();
+      }
     }
 
     log.info("");
@@ -166,8 +181,8 @@ class Loader {
     }
   }
 
-  private static void processTypeDir(Path typeDir, Builder builder, ModelConfig modelConfig,
-      SAXParser sax) throws IOException {
+  private static void processTypeDir(Path typeDir, ParseQueue queue, ModelConfig modelConfig)
+      throws IOException {
 
     String typeName = cleanZipName(typeDir.getFileName().toString());
     SourceType type = SourceType.fromString(typeName);
@@ -213,14 +228,12 @@ class Loader {
     // we may have gmm.xml but no source files
     if (Files.exists(gmmPath)) {
       log.info("Parsing: " + typeDir.getParent().relativize(gmmPath));
-      gmmSet = parseGMM(gmmPath, sax);
+      gmmSet = parseGMM(gmmPath, queue.parser());
     }
 
     for (Path sourcePath : typePaths) {
       log.info("Parsing: " + typeDir.getParent().relativize(sourcePath));
-      SourceSet<? extends Source> sourceSet = parseSource(type, sourcePath, gmmSet, config,
-          sax);
-      builder.sourceSet(sourceSet);
+      queue.submit(type, sourcePath, gmmSet, config);
     }
 
     try (DirectoryStream<Path> ds =
@@ -232,13 +245,13 @@ class Loader {
           log.info("========  Nested " + typeName + " Sources  ========");
           firstDir = false;
         }
-        processNestedDir(nestedSourceDir, type, gmmSet, builder, config, sax);
+        processNestedDir(nestedSourceDir, type, gmmSet, queue, config);
       }
     }
   }
 
   private static void processNestedDir(Path sourceDir, SourceType type, GmmSet gmmSet,
-      Builder builder, ModelConfig parentConfig, SAXParser sax) throws IOException {
+      ParseQueue queue, ModelConfig parentConfig) throws IOException {
 
     /*
      * gmm.xml -- this MUST exist if there is at least one source file and there
@@ -279,7 +292,7 @@ class Loader {
 
       if (Files.exists(nestedGmmPath)) {
         log.info("Parsing: " + typeDir.relativize(nestedGmmPath));
-        nestedGmmSet = parseGMM(nestedGmmPath, sax);
+        nestedGmmSet = parseGMM(nestedGmmPath, queue.parser());
       } else {
         log.info("(using parent gmm.xml)");
         nestedGmmSet = gmmSet;
@@ -289,21 +302,18 @@ class Loader {
 
     if (type == SourceType.SYSTEM) {
       log.info("Parsing: " + typeDir.relativize(sourceDir));
-      parseSystemSource(sourceDir, nestedGmmSet, builder, nestedConfig, sax);
+      parseSystemSource(sourceDir, nestedGmmSet, queue, nestedConfig);
     } else {
       for (Path sourcePath : nestedSourcePaths) {
         log.info("Parsing: " + typeDir.relativize(sourcePath));
-        SourceSet<? extends Source> sourceSet = parseSource(type, sourcePath, nestedGmmSet,
-            nestedConfig, sax);
-        builder.sourceSet(sourceSet);
+        queue.submit(type, sourcePath, nestedGmmSet, nestedConfig);
       }
     }
   }
 
   private static SourceSet<? extends Source> parseSource(SourceType type, Path path,
-      GmmSet gmmSet, ModelConfig config, SAXParser sax) {
-    try {
-      InputStream in = Files.newInputStream(path);
+      GmmSet gmmSet, ModelConfig config, SAXParser sax) throws SAXException, IOException {
+    try (InputStream in = Files.newInputStream(path)) {
       switch (type) {
         case AREA:
           return AreaParser.create(sax).parse(in, gmmSet, config);
@@ -323,43 +333,109 @@ class Loader {
         default:
           throw new IllegalStateException("Unkown source type");
       }
-    } catch (Exception e) {
-      handleParseException(e, path);
-      return null;
     }
   }
 
-  private static void parseSystemSource(Path dir, GmmSet gmmSet, Builder builder,
-      ModelConfig config, SAXParser sax) {
-    log.info("");
-    try {
-      Path sectionsPath = dir.resolve(SECTIONS_FILENAME);
-      Path rupturesPath = dir.resolve(RUPTURES_FILENAME);
-      if (Files.exists(sectionsPath) && Files.exists(rupturesPath)) {
-        InputStream sectionsIn = Files.newInputStream(sectionsPath);
-        InputStream rupturesIn = Files.newInputStream(rupturesPath);
-
-        SystemParser systemParser = SystemParser.create(sax);
-        builder.sourceSet(systemParser.parse(sectionsIn, rupturesIn, gmmSet));
-      } else {
-        log.info("Fault model: (no fault sources supplied with system)");
+  /*
+   * The fault and grid source sets of a fault system are parsed as separate
+   * tasks. Their summaries are logged as the parse queue is drained.
+   */
+  private static void parseSystemSource(final Path dir, final GmmSet gmmSet,
+      ParseQueue queue, final ModelConfig config) {
+    final Path sectionsPath = dir.resolve(SECTIONS_FILENAME);
+    final Path rupturesPath = dir.resolve(RUPTURES_FILENAME);
+    if (Files.exists(sectionsPath) && Files.exists(rupturesPath)) {
+      queue.submit(dir, new ParseTask() {
+        @Override
+        public SourceSet<? extends Source> parse(SAXParser sax, List<String> summary)
+            throws SAXException, IOException {
+          return parseSystemSourceSet(dir, gmmSet, config, sax, summary);
+        }
+      });
+    } else {
+      log.info("Fault model: (no fault sources supplied with system)");
+    }
+
+    final Path gridSourcePath = dir.resolve(GRIDSOURCE_FILENAME);
+    if (Files.exists(gridSourcePath)) {
+      queue.submit(dir, new ParseTask() {
+        @Override
+        public SourceSet<? extends Source> parse(SAXParser sax, List<String> summary)
+            throws SAXException, IOException {
+          try (InputStream gridIn = Files.newInputStream(gridSourcePath)) {
+            GridSourceSet gridSet = GridParser.create(sax).parse(gridIn, gmmSet, config);
+            summary.add("");
+            summary.add(" Grid model: " + dir.getFileName() + "/" + GRIDSOURCE_FILENAME);
+            summary.add("     Weight: " + gridSet.weight());
+            summary.add("    Sources: " + gridSet.size());
+            return gridSet;
+          }
+        }
+      });
+    } else {
+      log.info(" Grid model: (no grid sources supplied with system)");
+    }
+  }
+
+  /*
+   * If enabled, system rupture data are restored from a snapshot in the
+   * configured snapshot directory that is named by, and validated against, a
+   * hash of the section and rupture files. If there is no such snapshot, or it
+   * can not be read, the rupture file is parsed and a new snapshot is written.
+   * Snapshots are only supported for models on the default file system (i.e.
+   * not zipped).
+   */
+  private static SystemSourceSet parseSystemSourceSet(Path dir, GmmSet gmmSet,
+      ModelConfig config, SAXParser sax, List<String> summary)
+      throws SAXException, IOException {
+
+    Path sectionsPath = dir.resolve(SECTIONS_FILENAME);
+    Path rupturesPath = dir.resolve(RUPTURES_FILENAME);
+    boolean snapshot = config.systemSnapshot &&
+        rupturesPath.getFileSystem().equals(FileSystems.getDefault());
+    Path snapshotPath = null;
+    HashCode hash = null;
+
+    if (snapshot) {
+      hash = SystemSnapshot.hash(sectionsPath, rupturesPath);
+      snapshotPath = SystemSnapshot.path(config.systemSnapshotDir.get(), hash);
+      try (InputStream sectionsIn = Files.newInputStream(sectionsPath)) {
+        Optional<SystemSourceSet> snapshotSet = SystemParser.create(sax)
+            .parse(sectionsIn, snapshotPath, hash, gmmSet);
+        if (snapshotSet.isPresent()) {
+          summarize(dir, snapshotSet.get(), "   Snapshot: " + snapshotPath, summary);
+          return snapshotSet.get();
+        }
       }
+    }
 
-      log.info("");
-      Path gridSourcePath = dir.resolve(GRIDSOURCE_FILENAME);
-      if (Files.exists(gridSourcePath)) {
-        InputStream gridIn = Files.newInputStream(gridSourcePath);
-        GridSourceSet gridSet = GridParser.create(sax).parse(gridIn, gmmSet, config);
-        builder.sourceSet(gridSet);
-        log.info(" Grid model: " + dir.getFileName() + "/" + GRIDSOURCE_FILENAME);
-        log.info("     Weight: " + gridSet.weight());
-        log.info("    Sources: " + gridSet.size());
-      } else {
-        log.info(" Grid model: (no grid sources supplied with system)");
+    SystemSourceSet sourceSet;
+    try (InputStream sectionsIn = Files.newInputStream(sectionsPath);
+        InputStream rupturesIn = Files.newInputStream(rupturesPath)) {
+      sourceSet = SystemParser.create(sax).parse(sectionsIn, rupturesIn, gmmSet);
+    }
+
+    String source = "   Ruptures: " + dir.getFileName() + "/" + RUPTURES_FILENAME;
+    if (snapshot) {
+      try {
+        SystemSnapshot.write(snapshotPath, hash, sourceSet);
+        source += " (snapshot updated)";
+      } catch (IOException ioe) {
+        log.warning("   Snapshot: unable to write " + snapshotPath + ": " + ioe.getMessage());
       }
-    } catch (Exception e) {
-      handleParseException(e, dir);
     }
+    summarize(dir, sourceSet, source, summary);
+    return sourceSet;
+  }
+
+  private static void summarize(Path dir, SystemSourceSet sourceSet, String source,
+      List<String> summary) {
+    summary.add("");
+    summary.add("Fault model: " + dir.getFileName() + "/" + SECTIONS_FILENAME);
+    summary.add("     Weight: " + sourceSet.weight());
+    summary.add("   Sections: " + sourceSet.sections.length);
+    summary.add(source);
+    summary.add("       Size: " + sourceSet.size());
   }
 
   private static GmmSet parseGMM(Path path, SAXParser sax) {
@@ -372,6 +448,129 @@ class Loader {
     }
   }
 
+  /*
+   * A source file parse that may be run on any thread. Summary lines are
+   * logged by the calling thread once parsing is complete.
+   */
+  private interface ParseTask {
+    SourceSet<? extends Source> parse(SAXParser sax, List<String> summary)
+        throws SAXException, IOException;
+  }
+
+  /*
+   * Parses source files concurrently using one SAX parser per thread. Results
+   * are added to a model builder in submission order, which is the directory
+   * traversal order, so that models are assembled identically regardless of
+   * thread count. A single thread parses each file as it is submitted.
+   *
+   * Parse failures are returned through the Future of each task and handled
+   * on the calling thread, in submission order, as the queue is drained. Task
+   * summaries are also logged as the queue is drained; detailed parser output
+   * and warnings are logged as they occur and may interleave when parsing
+   * concurrently.
+   */
+  private static final class ParseQueue {
+
+    private final ExecutorService executor;
+    private final boolean inline;
+    private final List<Task> tasks = new ArrayList<>();
+
+    private final ThreadLocal<SAXParser> parsers = new ThreadLocal<SAXParser>() {
+      @Override
+      protected SAXParser initialValue() {
+        try {
+          return SAXParserFactory.newInstance().newSAXParser();
+        } catch (ParserConfigurationException | SAXException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+
+    ParseQueue(ThreadCount threadCount) {
+      inline = threadCount == ThreadCount.ONE;
+      executor = inline
+          ? MoreExecutors.newDirectExecutorService()
+          : Executors.newFixedThreadPool(threadCount.value());
+    }
+
+    /* The parser for the calling thread. */
+    SAXParser parser() {
+      return parsers.get();
+    }
+
+    void submit(
+        final SourceType type,
+        final Path path,
+        final GmmSet gmmSet,
+        final ModelConfig config) {
+
+      submit(path, new ParseTask() {
+        @Override
+        public SourceSet<? extends Source> parse(SAXParser sax, List<String> summary)
+            throws SAXException, IOException {
+          return parseSource(type, path, gmmSet, config, sax);
+        }
+      });
+    }
+
+    void submit(Path path, final ParseTask parseTask) {
+      final List<String> summary = new ArrayList<>();
+      Future<SourceSet<? extends Source>> sourceSet = executor.submit(
+          new Callable<SourceSet<? extends Source>>() {
+            @Override
+            public SourceSet<? extends Source> call() throws SAXException, IOException {
+              return parseTask.parse(parser(), summary);
+            }
+          });
+      Task task = new Task(path, sourceSet, summary);
+      tasks.add(task);
+      /* Fail fast when parsing inline. */
+      if (inline) {
+        result(task);
+      }
+    }
+
+    void drainTo(HazardModel.Builder builder) {
+      for (Task task : tasks) {
+        SourceSet<? extends Source> sourceSet = result(task);
+        for (String line : task.summary) {
+          log.info(line);
+        }
+        builder.sourceSet(sourceSet);
+      }
+      tasks.clear();
+    }
+
+    void shutdown() {
+      executor.shutdownNow();
+    }
+
+    /* Handles a failed task (and exits) on the calling thread. */
+    private static SourceSet<? extends Source> result(Task task) {
+      try {
+        return Uninterruptibles.getUninterruptibly(task.sourceSet);
+      } catch (ExecutionException ee) {
+        Throwable cause = ee.getCause();
+        Throwables.throwIfInstanceOf(cause, Error.class);
+        handleParseException((Exception) cause, task.path);
+        return null;
+      }
+    }
+
+    private static final class Task {
+
+      final Path path;
+      final Future<SourceSet<? extends Source>> sourceSet;
+      final List<String> summary;
+
+      Task(Path path, Future<SourceSet<? extends Source>> sourceSet, List<String> summary) {
+        this.path = path;
+        this.sourceSet = sourceSet;
+        this.summary = summary;
+      }
+    }
+  }
+
   /* This method will exit runtime environment */
   private static void handleConfigException(Exception e) {
     StringBuilder sb = new StringBuilder(LF);
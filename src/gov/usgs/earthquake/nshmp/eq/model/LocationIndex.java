@@ -0,0 +1,124 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static gov.usgs.earthquake.nshmp.geo.Coordinates.degreesLatPerKm;
+import static gov.usgs.earthquake.nshmp.geo.Coordinates.degreesLonPerKm;
+
+import java.util.BitSet;
+import java.util.List;
+
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+/**
+ * Spatial index of a fixed list of {@code Location}s. Locations are assigned
+ * to the cells of a regular latitude-longitude bucket grid, and queries only
+ * visit the cells that overlap the geographic rectangle enclosing a circle of
+ * some radius about a site. Query results are a superset of the locations
+ * that pass a {@link gov.usgs.earthquake.nshmp.geo.Locations#distanceAndRectangleFilter(Location, double)}
+ * of the same radius; callers apply that filter to the (much smaller) set of
+ * candidates.
+ *
+ * @author Peter Powers
+ */
+final class LocationIndex {
+
+  /* Cell dimension in decimal degrees. */
+  private static final double CELL_SIZE = 1.0;
+
+  /* Query padding in decimal degrees; guards against rounding at cell edges. */
+  private static final double PAD = 1e-6;
+
+  private final double latMin;
+  private final double lonMin;
+  private final int rows;
+  private final int columns;
+  private final int size;
+
+  /*
+   * Location indices ordered by cell (row-major) and ascending within each
+   * cell; the indices of cell i occupy [cellStarts[i], cellStarts[i + 1]).
+   */
+  private final int[] cellStarts;
+  private final int[] indices;
+
+  LocationIndex(List<Location> locs) {
+    checkArgument(!locs.isEmpty(), "Location list is empty");
+    size = locs.size();
+
+    double latMin = Double.POSITIVE_INFINITY;
+    double latMax = Double.NEGATIVE_INFINITY;
+    double lonMin = Double.POSITIVE_INFINITY;
+    double lonMax = Double.NEGATIVE_INFINITY;
+    double[] lats = new double[size];
+    double[] lons = new double[size];
+    for (int i = 0; i < size; i++) {
+      Location loc = locs.get(i);
+      lats[i] = loc.lat();
+      lons[i] = loc.lon();
+      latMin = Math.min(latMin, lats[i]);
+      latMax = Math.max(latMax, lats[i]);
+      lonMin = Math.min(lonMin, lons[i]);
+      lonMax = Math.max(lonMax, lons[i]);
+    }
+    this.latMin = latMin;
+    this.lonMin = lonMin;
+    rows = cell(latMax, latMin) + 1;
+    columns = cell(lonMax, lonMin) + 1;
+
+    /* Counting sort of location indices by cell. */
+    int[] cells = new int[size];
+    cellStarts = new int[rows * columns + 1];
+    for (int i = 0; i < size; i++) {
+      cells[i] = cell(lats[i], latMin) * columns + cell(lons[i], lonMin);
+      cellStarts[cells[i] + 1]++;
+    }
+    for (int i = 1; i < cellStarts.length; i++) {
+      cellStarts[i] += cellStarts[i - 1];
+    }
+    int[] next = new int[rows * columns];
+    System.arraycopy(cellStarts, 0, next, 0, next.length);
+    indices = new int[size];
+    for (int i = 0; i < size; i++) {
+      indices[next[cells[i]]++] = i;
+    }
+  }
+
+  /**
+   * Return the set of indices of all locations in cells that intersect the
+   * rectangle of half-width and half-height {@code distance} centered on
+   * {@code loc}. Iterate set bits to visit indices in ascending order.
+   *
+   * @param loc center of query
+   * @param distance half-width and half-height of query rectangle (in km)
+   */
+  BitSet candidates(Location loc, double distance) {
+    double latΔ = distance * degreesLatPerKm(loc) + PAD;
+    double lonΔ = distance * degreesLonPerKm(loc) + PAD;
+    int rowMin = Math.max(cell(loc.lat() - latΔ, latMin), 0);
+    int rowMax = Math.min(cell(loc.lat() + latΔ, latMin), rows - 1);
+    int colMin = Math.max(cell(loc.lon() - lonΔ, lonMin), 0);
+    int colMax = Math.min(cell(loc.lon() + lonΔ, lonMin), columns - 1);
+
+    BitSet candidates = new BitSet(size);
+    if (rowMin > rowMax || colMin > colMax) {
+      return candidates;
+    }
+    for (int row = rowMin; row <= rowMax; row++) {
+      int rowOffset = row * columns;
+      for (int i = cellStarts[rowOffset + colMin]; i < cellStarts[rowOffset + colMax + 1]; i++) {
+        candidates.set(indices[i]);
+      }
+    }
+    return candidates;
+  }
+
+  /*
+   * Cell index of a coordinate; may be negative or exceed the number of cells
+   * for query coordinates. Infinite query extents (e.g. near the poles)
+   * saturate.
+   */
+  private static int cell(double value, double min) {
+    return (int) Math.floor((value - min) / CELL_SIZE);
+  }
+
+}
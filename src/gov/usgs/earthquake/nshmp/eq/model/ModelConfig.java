@@ -9,6 +9,7 @@ import static gov.usgs.earthquake.nshmp.internal.TextUtils.LOG_INDENT;
 import static gov.usgs.earthquake.nshmp.internal.TextUtils.LOG_VALUE_COLUMN;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.Optional;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
@@ -18,13 +19,17 @@ import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureFloating;
 import gov.usgs.earthquake.nshmp.eq.model.AreaSource.GridScaling;
 
 /**
  * Model and calculation configuration class. No defaults; 'config.json' must be
- * supplied with model.
+ * supplied with model. The only exceptions are {@code lazyRuptures} and
+ * {@code systemSnapshot}, which are optional and default to {@code false}, and
+ * {@code systemSnapshotDir}, which is only required if {@code systemSnapshot}
+ * is {@code true}.
  *
  * @author Peter Powers
  */
@@ -46,6 +51,25 @@ final class ModelConfig {
   final PointSourceType pointSourceType;
   final GridScaling areaGridScaling;
 
+  /*
+   * If true, fault source ruptures are held in a memory sensitive cache rather
+   * than for the life of a model. Ruptures are counted and validated, but not
+   * created, at load time; they are created when a source is first iterated,
+   * and recreated if the cache has since been cleared.
+   */
+  final boolean lazyRuptures;
+
+  /*
+   * If true, the rupture data of fault system source sets are read from, or
+   * written to, binary snapshots in the system snapshot directory. Relative
+   * snapshot directories are resolved against the working directory; model
+   * directories are never written to. There is no default directory; snapshots
+   * are mapped and trusted once their checksum has been verified, so the
+   * directory should be one that only the user can write to.
+   */
+  final boolean systemSnapshot;
+  final Optional<Path> systemSnapshotDir;
+
   private ModelConfig(
       String name,
       Path resource,
@@ -53,7 +77,10 @@ final class ModelConfig {
       RuptureFloating ruptureFloating,
       boolean ruptureVariability,
       PointSourceType pointSourceType,
-      GridScaling areaGridScaling) {
+      GridScaling areaGridScaling,
+      boolean lazyRuptures,
+      boolean systemSnapshot,
+      Optional<Path> systemSnapshotDir) {
 
     this.name = name;
     this.resource = resource;
@@ -62,6 +89,9 @@ final class ModelConfig {
     this.ruptureVariability = ruptureVariability;
     this.pointSourceType = pointSourceType;
     this.areaGridScaling = areaGridScaling;
+    this.lazyRuptures = lazyRuptures;
+    this.systemSnapshot = systemSnapshot;
+    this.systemSnapshotDir = systemSnapshotDir;
   }
 
   private enum Key {
@@ -71,7 +101,10 @@ final class ModelConfig {
     RUPTURE_FLOATING,
     RUPTURE_VARIABILITY,
     POINT_SOURCE_TYPE,
-    AREA_GRID_SCALING;
+    AREA_GRID_SCALING,
+    LAZY_RUPTURES,
+    SYSTEM_SNAPSHOT,
+    SYSTEM_SNAPSHOT_DIR;
 
     private String label;
 
@@ -96,6 +129,9 @@ final class ModelConfig {
         .append(formatEntry(Key.RUPTURE_VARIABILITY, ruptureVariability))
         .append(formatEntry(Key.POINT_SOURCE_TYPE, pointSourceType))
         .append(formatEntry(Key.AREA_GRID_SCALING, areaGridScaling))
+        .append(formatEntry(Key.LAZY_RUPTURES, lazyRuptures))
+        .append(formatEntry(Key.SYSTEM_SNAPSHOT, systemSnapshot))
+        .append(formatEntry(Key.SYSTEM_SNAPSHOT_DIR, systemSnapshotDir.orNull()))
         .toString();
   }
 
@@ -116,6 +152,9 @@ final class ModelConfig {
     private Boolean ruptureVariability;
     private PointSourceType pointSourceType;
     private GridScaling areaGridScaling;
+    private Boolean lazyRuptures;
+    private Boolean systemSnapshot;
+    private String systemSnapshotDir;
 
     static Builder copyOf(ModelConfig that) {
       checkNotNull(that);
@@ -127,6 +166,11 @@ final class ModelConfig {
       b.ruptureVariability = that.ruptureVariability;
       b.pointSourceType = that.pointSourceType;
       b.areaGridScaling = that.areaGridScaling;
+      b.lazyRuptures = that.lazyRuptures;
+      b.systemSnapshot = that.systemSnapshot;
+      if (that.systemSnapshotDir.isPresent()) {
+        b.systemSnapshotDir = that.systemSnapshotDir.get().toString();
+      }
       return b;
     }
 
@@ -172,6 +216,15 @@ final class ModelConfig {
       if (that.areaGridScaling != null) {
         this.areaGridScaling = that.areaGridScaling;
       }
+      if (that.lazyRuptures != null) {
+        this.lazyRuptures = that.lazyRuptures;
+      }
+      if (that.systemSnapshot != null) {
+        this.systemSnapshot = that.systemSnapshot;
+      }
+      if (that.systemSnapshotDir != null) {
+        this.systemSnapshotDir = that.systemSnapshotDir;
+      }
       return this;
     }
 
@@ -184,6 +237,10 @@ final class ModelConfig {
       checkNotNull(ruptureVariability, STATE_ERROR, ID, Key.RUPTURE_VARIABILITY);
       checkNotNull(pointSourceType, STATE_ERROR, ID, Key.POINT_SOURCE_TYPE);
       checkNotNull(areaGridScaling, STATE_ERROR, ID, Key.AREA_GRID_SCALING);
+      checkState(
+          systemSnapshot == null || !systemSnapshot || systemSnapshotDir != null,
+          "%s %s must be set if %s is true",
+          ID, Key.SYSTEM_SNAPSHOT_DIR, Key.SYSTEM_SNAPSHOT);
       built = true;
     }
 
@@ -191,7 +248,12 @@ final class ModelConfig {
       validateState();
       return new ModelConfig(
           name, resource, surfaceSpacing, ruptureFloating,
-          ruptureVariability, pointSourceType, areaGridScaling);
+          ruptureVariability, pointSourceType, areaGridScaling,
+          (lazyRuptures == null) ? false : lazyRuptures,
+          (systemSnapshot == null) ? false : systemSnapshot,
+          (systemSnapshotDir == null)
+              ? Optional.<Path> absent()
+              : Optional.of(Paths.get(systemSnapshotDir)));
     }
   }
 
@@ -5,12 +5,17 @@ import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.REVERSE;
 import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.STRIKE_SLIP;
 import static gov.usgs.earthquake.nshmp.util.Maths.hypot;
 import static java.lang.Math.ceil;
+import static java.lang.Math.cos;
+import static java.lang.Math.min;
+import static java.lang.Math.sin;
+import static java.lang.Math.tan;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Doubles;
 import com.google.common.primitives.Ints;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +24,8 @@ import java.util.NavigableMap;
 import gov.usgs.earthquake.nshmp.data.XySequence;
 import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.CorrectionTable;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.Dimensions;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureSurface;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.Locations;
@@ -49,7 +56,7 @@ import gov.usgs.earthquake.nshmp.util.Maths;
  *
  * @author Peter Powers
  */
-class PointSource implements Source {
+class PointSource implements BatchDistanceSource {
 
   final SourceType type;
   final Location loc;
@@ -62,6 +69,20 @@ class PointSource implements Source {
   int magDepthSize;
   int ssIndex, revIndex;
 
+  /* Focal mech weights in rupture iteration order: SS, REV, NOR. */
+  double[] mechWts;
+
+  /* Focal mechs and their dips (in radians) and rakes in iteration order. */
+  static final FocalMech[] MECHS = { STRIKE_SLIP, REVERSE, NORMAL };
+  static final double[] MECH_DIPS_RAD = {
+      STRIKE_SLIP.dip() * Maths.TO_RAD,
+      REVERSE.dip() * Maths.TO_RAD,
+      NORMAL.dip() * Maths.TO_RAD };
+  static final double[] MECH_RAKES = {
+      STRIKE_SLIP.rake(),
+      REVERSE.rake(),
+      NORMAL.rake() };
+
   /**
    * Constructs a new point earthquake source. This is a simple model that does
    * not simulate finiteness (e.g. rupture rRup values will differ from rJB only
@@ -141,27 +162,60 @@ class PointSource implements Source {
   private void updateRupture(Rupture rup, int index) {
 
     int magDepthIndex = index % magDepthSize;
-    int magIndex = depthModel.magDepthIndices.get(magDepthIndex);
+    int magIndex = depthModel.magDepthIndices[magDepthIndex];
     double mag = mfd.x(magIndex);
     double rate = mfd.y(magIndex);
 
-    double zTop = depthModel.magDepthDepths.get(magDepthIndex);
-    double zTopWt = depthModel.magDepthWeights.get(magDepthIndex);
+    double zTop = depthModel.magDepthDepths[magDepthIndex];
+    double zTopWt = depthModel.magDepthWeights[magDepthIndex];
 
-    FocalMech mech = mechForIndex(index);
-    double mechWt = mechWtMap.get(mech);
+    int mech = mechIndex(index);
 
     rup.mag = mag;
-    rup.rake = mech.rake();
-    rup.rate = rate * zTopWt * mechWt;
+    rup.rake = MECH_RAKES[mech];
+    rup.rate = rate * zTopWt * mechWts[mech];
 
     PointSurface pSurf = (PointSurface) rup.surface;
     pSurf.mag = mag; // KLUDGY needed for distance correction
-    pSurf.dipRad = mech.dip() * Maths.TO_RAD;
+    pSurf.dipRad = MECH_DIPS_RAD[mech];
     pSurf.zTop = zTop;
 
   }
 
+  @Override
+  public void distances(Location site, DistanceConsumer consumer) {
+    double[] rJBs = correctedDistances(site);
+    Rupture rup = new Rupture();
+    rup.surface = new PointSurface(loc, rupScaling);
+    for (int i = 0; i < rupCount; i++) {
+      updateRupture(rup, i);
+      int magDepthIndex = i % magDepthSize;
+      double r = rJBs[depthModel.magDepthIndices[magDepthIndex]];
+      consumer.accept(rup, r, hypot(r, depthModel.magDepthDepths[magDepthIndex]), r);
+    }
+  }
+
+  /*
+   * Returns the site-to-node distance, corrected for the rupture scaling model,
+   * for each magnitude of the mfd. The uncorrected distance is the same for
+   * all ruptures and is only computed once.
+   */
+  double[] correctedDistances(Location site) {
+    double r = Locations.horzDistanceFast(loc, site);
+    double[] rJBs = new double[mfd.size()];
+    CorrectionRows corrections = depthModel.correctionRows(mfd, rupScaling);
+    if (corrections.table == null) {
+      for (int i = 0; i < rJBs.length; i++) {
+        rJBs[i] = rupScaling.pointSourceDistance(mfd.x(i), r);
+      }
+      return rJBs;
+    }
+    for (int i = 0; i < rJBs.length; i++) {
+      rJBs[i] = corrections.table.distance(corrections.rows[i], r);
+    }
+    return rJBs;
+  }
+
   @Override
   public Iterator<Rupture> iterator() {
     return new Iterator<Rupture>() {
@@ -196,15 +250,19 @@ class PointSource implements Source {
      * Get the number of mag-depth iterations required to get to mMax. See
      * explanation in GridSourceSet for how magDepthIndices is set up
      */
-    magDepthSize = depthModel.magDepthIndices.lastIndexOf(mfd.size() - 1) + 1;
+    magDepthSize = depthModel.magDepthSize(mfd.size());
+    mechWts = new double[] {
+        mechWtMap.get(STRIKE_SLIP),
+        mechWtMap.get(REVERSE),
+        mechWtMap.get(NORMAL) };
 
     /*
      * Init rupture indexing: SS RV NR. Each category will have ruptures for
      * every mag in 'mfd' and depth in parent 'magDepthMap'.
      */
-    int ssCount = (int) ceil(mechWtMap.get(STRIKE_SLIP)) * magDepthSize;
-    int revCount = (int) ceil(mechWtMap.get(REVERSE)) * magDepthSize;
-    int norCount = (int) ceil(mechWtMap.get(NORMAL)) * magDepthSize;
+    int ssCount = (int) ceil(mechWts[0]) * magDepthSize;
+    int revCount = (int) ceil(mechWts[1]) * magDepthSize;
+    int norCount = (int) ceil(mechWts[2]) * magDepthSize;
     ssIndex = ssCount;
     revIndex = ssCount + revCount;
 
@@ -215,8 +273,16 @@ class PointSource implements Source {
    * Returns the focal mechanism of the rupture at the supplied index.
    */
   FocalMech mechForIndex(int index) {
+    return MECHS[mechIndex(index)];
+  }
+
+  /*
+   * Returns the index in MECHS of the focal mechanism of the rupture at the
+   * supplied index.
+   */
+  int mechIndex(int index) {
     // iteration order is always SS -> REV -> NOR
-    return (index < ssIndex) ? STRIKE_SLIP : (index < revIndex) ? REVERSE : NORMAL;
+    return (index < ssIndex) ? 0 : (index < revIndex) ? 1 : 2;
   }
 
   static class PointSurface implements RuptureSurface {
@@ -336,6 +402,12 @@ class PointSource implements Source {
    * source type dependent and may be used when computing the maximum width of a
    * point source.
    *
+   * Lookup arrays are primitive so that rupture iteration neither unboxes nor
+   * allocates. The finite rupture parameters that derive from magnitude, depth,
+   * and focal mech, and that are therefore the same for every node, are also
+   * precomputed in a RuptureTable that is shared by all point sources whose
+   * MFD magnitudes are a prefix of those of the table.
+   *
    * All DepthModel validation is currently performed in GridSourceSet.Builder.
    */
   static final class DepthModel {
@@ -359,11 +431,25 @@ class PointSource implements Source {
      */
     final double maxDepth;
 
-    final List<Double> magMaster;
+    final double[] magMaster;
 
-    final List<Integer> magDepthIndices;
-    final List<Double> magDepthDepths;
-    final List<Double> magDepthWeights;
+    final int[] magDepthIndices;
+    final double[] magDepthDepths;
+    final double[] magDepthWeights;
+
+    /*
+     * The number of mag-depth combinations required to reach each magnitude
+     * index (inclusive).
+     */
+    private final int[] magDepthSizes;
+
+    /*
+     * Rupture and distance correction tables, usually one of each per rupture
+     * scaling model. Arrays are replaced, never modified, as tables are added
+     * so that lookups need not lock.
+     */
+    private volatile RuptureTable[] ruptureTables = {};
+    private volatile CorrectionRows[] correctionRows = {};
 
     static DepthModel create(
         NavigableMap<Double, Map<Double, Double>> magDepthMap,
@@ -378,7 +464,7 @@ class PointSource implements Source {
         List<Double> magMaster,
         double maxDepth) {
 
-      this.magMaster = magMaster;
+      this.magMaster = Doubles.toArray(magMaster);
       this.maxDepth = maxDepth;
 
       List<Integer> indices = Lists.newArrayList();
@@ -395,10 +481,196 @@ class PointSource implements Source {
         }
       }
 
-      magDepthIndices = Ints.asList(Ints.toArray(indices));
-      magDepthDepths = Doubles.asList(Doubles.toArray(depths));
-      magDepthWeights = Doubles.asList(Doubles.toArray(weights));
+      magDepthIndices = Ints.toArray(indices);
+      magDepthDepths = Doubles.toArray(depths);
+      magDepthWeights = Doubles.toArray(weights);
+
+      magDepthSizes = new int[magMaster.size()];
+      for (int i = 0; i < magDepthIndices.length; i++) {
+        magDepthSizes[magDepthIndices[i]] = i + 1;
+      }
+    }
+
+    /*
+     * Return the number of mag-depth iterations required to reach the last
+     * magnitude of an MFD with the supplied number of magnitudes.
+     */
+    int magDepthSize(int magCount) {
+      return (magCount > 0 && magCount <= magDepthSizes.length)
+          ? magDepthSizes[magCount - 1] : 0;
+    }
+
+    /*
+     * Return a rupture table for the supplied MFD and rupture scaling model.
+     * Any existing table that supports the MFD is reused; otherwise a new table
+     * is built and retained.
+     */
+    RuptureTable ruptureTable(XySequence mfd, RuptureScaling rupScaling) {
+      for (RuptureTable table : ruptureTables) {
+        if (table.supports(mfd, rupScaling)) {
+          return table;
+        }
+      }
+      return addRuptureTable(mfd, rupScaling);
+    }
+
+    private synchronized RuptureTable addRuptureTable(
+        XySequence mfd,
+        RuptureScaling rupScaling) {
+
+      RuptureTable[] tables = ruptureTables;
+      for (RuptureTable table : tables) {
+        if (table.supports(mfd, rupScaling)) {
+          return table;
+        }
+      }
+      RuptureTable table = new RuptureTable(this, tableMags(mfd), rupScaling);
+      tables = Arrays.copyOf(tables, tables.length + 1);
+      tables[tables.length - 1] = table;
+      ruptureTables = tables;
+      return table;
+    }
+
+    /*
+     * Return the distance correction rows for the supplied MFD and rupture
+     * scaling model; reuse follows that of rupture tables.
+     */
+    CorrectionRows correctionRows(XySequence mfd, RuptureScaling rupScaling) {
+      for (CorrectionRows rows : correctionRows) {
+        if (rows.supports(mfd, rupScaling)) {
+          return rows;
+        }
+      }
+      return addCorrectionRows(mfd, rupScaling);
+    }
+
+    private synchronized CorrectionRows addCorrectionRows(
+        XySequence mfd,
+        RuptureScaling rupScaling) {
+
+      CorrectionRows[] tables = correctionRows;
+      for (CorrectionRows rows : tables) {
+        if (rows.supports(mfd, rupScaling)) {
+          return rows;
+        }
+      }
+      CorrectionRows rows = new CorrectionRows(tableMags(mfd), rupScaling);
+      tables = Arrays.copyOf(tables, tables.length + 1);
+      tables[tables.length - 1] = rows;
+      correctionRows = tables;
+      return rows;
+    }
+
+    /*
+     * Tables span all master magnitudes where possible so that one table
+     * serves every MFD of a source set.
+     */
+    private double[] tableMags(XySequence mfd) {
+      return isPrefix(mfd, magMaster) ? magMaster : Doubles.toArray(mfd.xValues());
+    }
+  }
+
+  /*
+   * Finite rupture dimensions indexed by focal mech (in MECHS order) and
+   * mag-depth index. Tables are immutable and are built for a set of
+   * magnitudes, usually the master magnitudes of a depth model, and may be used
+   * by any MFD whose magnitudes are a prefix of those of the table.
+   */
+  static final class RuptureTable {
+
+    private final double[] mags;
+    private final RuptureScaling rupScaling;
+
+    final double[][] widthDD; // down-dip width
+    final double[][] widthH; // horizontal width (surface projection)
+    final double[][] zBot; // base of rupture
+    final double[][] length;
+
+    /*
+     * Hanging wall rRup terms: the rJB cutoff beyond which rRup is measured to
+     * the base of the rupture, and rRup at zero and cutoff rJB.
+     */
+    final double[][] rCut;
+    final double[][] rRup0;
+    final double[][] rRupC;
+
+    private RuptureTable(DepthModel depthModel, double[] mags, RuptureScaling rupScaling) {
+      this.mags = mags;
+      this.rupScaling = rupScaling;
+
+      int size = depthModel.magDepthSize(mags.length);
+      widthDD = new double[MECHS.length][size];
+      widthH = new double[MECHS.length][size];
+      zBot = new double[MECHS.length][size];
+      length = new double[MECHS.length][size];
+      rCut = new double[MECHS.length][size];
+      rRup0 = new double[MECHS.length][size];
+      rRupC = new double[MECHS.length][size];
+
+      for (int i = 0; i < size; i++) {
+        double mag = mags[depthModel.magDepthIndices[i]];
+        double zTop = depthModel.magDepthDepths[i];
+        for (int j = 0; j < MECHS.length; j++) {
+          double dipRad = MECH_DIPS_RAD[j];
+          double maxWidthDD = (depthModel.maxDepth - zTop) / sin(dipRad);
+          Dimensions dimensions = rupScaling.dimensions(mag, maxWidthDD);
+          widthDD[j][i] = dimensions.width;
+          widthH[j][i] = dimensions.width * cos(dipRad);
+          zBot[j][i] = zTop + dimensions.width * sin(dipRad);
+          length[j][i] = dimensions.length;
+          rCut[j][i] = zBot[j][i] * tan(dipRad);
+          rRup0[j][i] = min(hypot(widthH[j][i], zTop), zBot[j][i] * cos(dipRad));
+          rRupC[j][i] = zBot[j][i] / cos(dipRad);
+        }
+      }
+    }
+
+    private boolean supports(XySequence mfd, RuptureScaling rupScaling) {
+      return rupScaling == this.rupScaling && isPrefix(mfd, mags);
+    }
+  }
+
+  /*
+   * Rows of a rupture scaling model's distance correction table for each of a
+   * set of magnitudes. The table is null if the model does not tabulate its
+   * corrections. Reuse is the same as for RuptureTables.
+   */
+  static final class CorrectionRows {
+
+    private final double[] mags;
+    private final RuptureScaling rupScaling;
+
+    final CorrectionTable table;
+    final int[] rows;
+
+    private CorrectionRows(double[] mags, RuptureScaling rupScaling) {
+      this.mags = mags;
+      this.rupScaling = rupScaling;
+      this.table = rupScaling.correctionTable().orNull();
+      this.rows = new int[mags.length];
+      if (table != null) {
+        for (int i = 0; i < mags.length; i++) {
+          rows[i] = table.row(mags[i]);
+        }
+      }
+    }
+
+    private boolean supports(XySequence mfd, RuptureScaling rupScaling) {
+      return rupScaling == this.rupScaling && isPrefix(mfd, mags);
+    }
+  }
+
+  /* Whether the magnitudes of the supplied MFD are a prefix of mags. */
+  private static boolean isPrefix(XySequence mfd, double[] mags) {
+    if (mfd.size() > mags.length) {
+      return false;
+    }
+    for (int i = 0; i < mfd.size(); i++) {
+      if (mfd.x(i) != mags[i]) {
+        return false;
+      }
     }
+    return true;
   }
 
 }
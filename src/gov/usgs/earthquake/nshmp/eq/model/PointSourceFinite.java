@@ -7,7 +7,6 @@ import static gov.usgs.earthquake.nshmp.util.Maths.hypot;
 import static java.lang.Math.ceil;
 import static java.lang.Math.cos;
 import static java.lang.Math.min;
-import static java.lang.Math.sin;
 import static java.lang.Math.tan;
 
 import java.util.Iterator;
@@ -18,7 +17,6 @@ import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.Locations;
-import gov.usgs.earthquake.nshmp.util.Maths;
 
 /**
  * Point-source earthquake implementation in which all magnitudes are
@@ -45,6 +43,9 @@ class PointSourceFinite extends PointSource {
 
   int fwIndexLo, fwIndexHi;
 
+  /* Shared finite rupture dimensions. */
+  RuptureTable ruptures;
+
   /**
    * Constructs a new point earthquake source that provides ruptures will
    * simulate finite fault parameterizations such as hanging-wall effects.
@@ -67,7 +68,6 @@ class PointSourceFinite extends PointSource {
       DepthModel depthModel) {
 
     super(type, loc, mfd, mechWtMap, rupScaling, depthModel);
-    init();
   }
 
   @Override
@@ -87,37 +87,55 @@ class PointSourceFinite extends PointSource {
   private void updateRupture(Rupture rup, int index) {
 
     int magDepthIndex = index % magDepthSize;
-    int magIndex = depthModel.magDepthIndices.get(magDepthIndex);
+    int magIndex = depthModel.magDepthIndices[magDepthIndex];
     double mag = mfd.x(magIndex);
     double rate = mfd.y(magIndex);
 
-    double zTop = depthModel.magDepthDepths.get(magDepthIndex);
-    double zTopWt = depthModel.magDepthWeights.get(magDepthIndex);
-
-    FocalMech mech = mechForIndex(index);
-    double mechWt = mechWtMap.get(mech);
-    if (mech != STRIKE_SLIP) {
-      mechWt *= 0.5;
-    }
-    double dipRad = mech.dip() * Maths.TO_RAD;
+    double zTop = depthModel.magDepthDepths[magDepthIndex];
+    double zTopWt = depthModel.magDepthWeights[magDepthIndex];
 
-    double maxWidthDD = (depthModel.maxDepth - zTop) / sin(dipRad);
-    double widthDD = rupScaling.dimensions(mag, maxWidthDD).width;
+    int mech = mechIndex(index);
 
     rup.mag = mag;
-    rup.rake = mech.rake();
-    rup.rate = rate * zTopWt * mechWt;
+    rup.rake = MECH_RAKES[mech];
+    rup.rate = rate * zTopWt * mechWts[mech];
 
     FiniteSurface fpSurf = (FiniteSurface) rup.surface;
     fpSurf.mag = mag; // KLUDGY needed for distance correction
-    fpSurf.dipRad = dipRad;
-    fpSurf.widthDD = widthDD;
-    fpSurf.widthH = widthDD * cos(dipRad);
+    fpSurf.dipRad = MECH_DIPS_RAD[mech];
+    fpSurf.widthDD = ruptures.widthDD[mech][magDepthIndex];
+    fpSurf.widthH = ruptures.widthH[mech][magDepthIndex];
     fpSurf.zTop = zTop;
-    fpSurf.zBot = zTop + widthDD * sin(dipRad);
+    fpSurf.zBot = ruptures.zBot[mech][magDepthIndex];
     fpSurf.footwall = isOnFootwall(index);
   }
 
+  @Override
+  public void distances(Location site, DistanceConsumer consumer) {
+    double[] rJBs = correctedDistances(site);
+    Rupture rup = new Rupture();
+    rup.surface = new FiniteSurface(loc, rupScaling);
+    for (int i = 0; i < rupCount; i++) {
+      updateRupture(rup, i);
+      int magDepthIndex = i % magDepthSize;
+      double r = rJBs[depthModel.magDepthIndices[magDepthIndex]];
+      if (isOnFootwall(i)) {
+        consumer.accept(rup, r, hypot(r, depthModel.magDepthDepths[magDepthIndex]), -r);
+        continue;
+      }
+      int mech = mechIndex(i);
+      double rX = r + ruptures.widthH[mech][magDepthIndex];
+      double rCut = ruptures.rCut[mech][magDepthIndex];
+      if (r > rCut) {
+        consumer.accept(rup, r, hypot(r, ruptures.zBot[mech][magDepthIndex]), rX);
+        continue;
+      }
+      double rRup0 = ruptures.rRup0[mech][magDepthIndex];
+      double rRup = (ruptures.rRupC[mech][magDepthIndex] - rRup0) * r / rCut + rRup0;
+      consumer.accept(rup, r, rRup, rX);
+    }
+  }
+
   @Override
   public Iterator<Rupture> iterator() {
     return new Iterator<Rupture>() {
@@ -153,7 +171,17 @@ class PointSourceFinite extends PointSource {
      * Get the number of mag-depth iterations required to get to mMax. See
      * explanation in GridSourceSet for how magDepthIndices is set up
      */
-    magDepthSize = depthModel.magDepthIndices.lastIndexOf(mfd.size() - 1) + 1;
+    magDepthSize = depthModel.magDepthSize(mfd.size());
+    ruptures = depthModel.ruptureTable(mfd, rupScaling);
+
+    /*
+     * Weights of dipping mechs are split across their footwall and hanging
+     * wall representations.
+     */
+    mechWts = new double[] {
+        mechWtMap.get(STRIKE_SLIP),
+        mechWtMap.get(REVERSE) * 0.5,
+        mechWtMap.get(NORMAL) * 0.5 };
 
     /*
      * Init rupture indexing: SS-FW RV-FW RV-HW NR-FW NR-HW. Each category will
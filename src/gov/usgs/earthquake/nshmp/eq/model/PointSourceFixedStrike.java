@@ -2,7 +2,6 @@ package gov.usgs.earthquake.nshmp.eq.model;
 
 import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.STRIKE_SLIP;
 import static gov.usgs.earthquake.nshmp.util.Maths.hypot;
-import static java.lang.Math.cos;
 import static java.lang.Math.min;
 import static java.lang.Math.sin;
 import static java.lang.Math.sqrt;
@@ -17,7 +16,6 @@ import gov.usgs.earthquake.nshmp.data.XySequence;
 import gov.usgs.earthquake.nshmp.eq.fault.Faults;
 import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
 import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
-import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.Dimensions;
 import gov.usgs.earthquake.nshmp.geo.Location;
 import gov.usgs.earthquake.nshmp.geo.LocationVector;
 import gov.usgs.earthquake.nshmp.geo.Locations;
@@ -43,8 +41,7 @@ import gov.usgs.earthquake.nshmp.util.Maths;
  */
 class PointSourceFixedStrike extends PointSourceFinite {
 
-  // TODO store this natively in radians
-  private final double strike;
+  private final double strikeRad;
 
   /**
    * Constructs a new point earthquake source that provides fixed-strike
@@ -70,7 +67,7 @@ class PointSourceFixedStrike extends PointSourceFinite {
       double strike) {
 
     super(type, loc, mfd, mechWtMap, rupScaling, depthModel);
-    this.strike = strike;
+    this.strikeRad = strike * Maths.TO_RAD;
   }
 
   @Override
@@ -91,30 +88,24 @@ class PointSourceFixedStrike extends PointSourceFinite {
   private void updateRupture(Rupture rup, int index) {
 
     int magDepthIndex = index % magDepthSize;
-    int magIndex = depthModel.magDepthIndices.get(magDepthIndex);
+    int magIndex = depthModel.magDepthIndices[magDepthIndex];
     double mag = mfd.x(magIndex);
     double rate = mfd.y(magIndex);
 
-    double zTop = depthModel.magDepthDepths.get(magDepthIndex);
-    double zTopWt = depthModel.magDepthWeights.get(magDepthIndex);
+    double zTop = depthModel.magDepthDepths[magDepthIndex];
+    double zTopWt = depthModel.magDepthWeights[magDepthIndex];
 
-    FocalMech mech = mechForIndex(index);
-    double mechWt = mechWtMap.get(mech);
-    if (mech != STRIKE_SLIP) {
-      mechWt *= 0.5;
-    }
-    double dipRad = mech.dip() * Maths.TO_RAD;
-    double strikeRad = strike * Maths.TO_RAD;
+    int mechIndex = mechIndex(index);
+    FocalMech mech = MECHS[mechIndex];
+    double dipRad = MECH_DIPS_RAD[mechIndex];
 
-    double maxWidthDD = (depthModel.maxDepth - zTop) / sin(dipRad);
-    Dimensions dimensions = rupScaling.dimensions(mag, maxWidthDD);
-    double widthDD = dimensions.width;
-    double widthH = widthDD * cos(dipRad);
-    double zBot = zTop + widthDD * sin(dipRad);
+    double widthDD = ruptures.widthDD[mechIndex][magDepthIndex];
+    double widthH = ruptures.widthH[mechIndex][magDepthIndex];
+    double zBot = ruptures.zBot[mechIndex][magDepthIndex];
 
     rup.mag = mag;
-    rup.rake = mech.rake();
-    rup.rate = rate * zTopWt * mechWt;
+    rup.rake = MECH_RAKES[mechIndex];
+    rup.rate = rate * zTopWt * mechWts[mechIndex];
 
     FixedStrikeSurface fsSurf = (FixedStrikeSurface) rup.surface;
     fsSurf.mag = mag; // KLUDGY needed for distance correction
@@ -125,7 +116,7 @@ class PointSourceFixedStrike extends PointSourceFinite {
     fsSurf.zBot = zBot;
     fsSurf.footwall = isOnFootwall(index);
 
-    double distToEndpoint = dimensions.length / 2;
+    double distToEndpoint = ruptures.length[mechIndex][magDepthIndex] / 2;
     Location locWithDepth = Location.create(loc.lat(), loc.lon(), zTop);
     LocationVector v1 = LocationVector.create(strikeRad, distToEndpoint, 0.0);
     LocationVector v2 = LocationVector.reverseOf(v1);
@@ -162,6 +153,20 @@ class PointSourceFixedStrike extends PointSourceFinite {
     }
   }
 
+  /*
+   * Fixed strike rupture distances depend on the position of a site relative
+   * to each rupture trace and can not be derived from the site-to-node
+   * distance; they are computed rupture by rupture, as for any other source,
+   * in a single pass.
+   */
+  @Override
+  public void distances(Location site, DistanceConsumer consumer) {
+    for (Rupture rup : this) {
+      Distance d = rup.surface.distanceTo(site);
+      consumer.accept(rup, d.rJB, d.rRup, d.rX);
+    }
+  }
+
   @Override
   public Iterator<Rupture> iterator() {
     return new Iterator<Rupture>() {
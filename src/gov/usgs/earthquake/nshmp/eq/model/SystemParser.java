@@ -27,10 +27,13 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -109,6 +112,24 @@ class SystemParser extends DefaultHandler {
     return sourceSet;
   }
 
+  /*
+   * Restore a source set from a snapshot of a previously parsed rupture file;
+   * only fault sections are parsed. Returns absent if the snapshot is missing,
+   * does not match the supplied hash, or can not be read.
+   */
+  Optional<SystemSourceSet> parse(InputStream sectionsIn, Path snapshot, HashCode hash,
+      GmmSet gmmSet) throws SAXException, IOException {
+    checkState(!used, "This parser has expired");
+    parseSections(sectionsIn);
+    Optional<SystemSourceSet> snapshotSet = SystemSnapshot.read(
+        snapshot, hash, sections, sectionNames, gmmSet);
+    if (snapshotSet.isPresent()) {
+      sourceSet = snapshotSet.get();
+    }
+    used = true;
+    return snapshotSet;
+  }
+
   private void parseSections(InputStream in) throws SAXException, IOException {
     SystemSectionParser parser = SystemSectionParser.create(sax);
     parser.parse(in);
@@ -142,9 +163,9 @@ class SystemParser extends DefaultHandler {
               .gmms(gmmSet);
           sourceSetBuilder.sections(sections);
           sourceSetBuilder.sectionNames(sectionNames);
-          log.info("     Weight: " + weight);
-          log.info("   Sections: " + sections.size());
-          log.info("   Ruptures: " + name + "/" + RUPTURES_FILENAME);
+          log.fine("     Weight: " + weight);
+          log.fine("   Sections: " + sections.size());
+          log.fine("   Ruptures: " + name + "/" + RUPTURES_FILENAME);
           mfdHelperBuilder = MfdHelper.builder();
           mfdHelper = mfdHelperBuilder.build(); // dummy; usually
           // overwritten
@@ -202,7 +223,7 @@ class SystemParser extends DefaultHandler {
 
         case SYSTEM_SOURCE_SET:
           sourceSet = sourceSetBuilder.build();
-          log.info("       Size: " + sourceSet.size());
+          log.fine("       Size: " + sourceSet.size());
           break;
       }
 
@@ -105,7 +105,7 @@ class SystemSectionParser extends DefaultHandler {
           sections = Lists.newArrayList();
           sectionNames = Lists.newArrayList();
           String setName = readString(NAME, atts);
-          log.info("Fault model: " + setName + "/" + SECTIONS_FILENAME);
+          log.fine("Fault model: " + setName + "/" + SECTIONS_FILENAME);
           break;
 
         /*
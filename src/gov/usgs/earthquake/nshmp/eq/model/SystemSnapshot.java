@@ -0,0 +1,330 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.common.base.Optional;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+
+/**
+ * Versioned binary snapshot of the rupture data of a {@link SystemSourceSet}.
+ * Parsing the XML rupture file of a large fault system (e.g. ~300K UCERF3
+ * ruptures) dominates model load times. A snapshot stores the fully validated
+ * rupture bitsets and attribute arrays, together with a hash of the XML
+ * section and rupture files they were derived from, and is memory mapped when
+ * read. Rupture attributes are read directly from the mapped file for the life
+ * of the source set; snapshots are therefore only ever replaced, never
+ * modified in place. Fault section surfaces are always built from XML.
+ *
+ * <p>File layout: magic, version, hash, source set name, id and weight,
+ * section and rupture counts, the six per-rupture attribute arrays, per-rupture
+ * bitset word counts, all bitset words, and a checksum of everything that
+ * precedes it. A snapshot is only used once its checksum has been verified.
+ *
+ * @author Peter Powers
+ */
+final class SystemSnapshot {
+
+  private static final int MAGIC = 0x4E534853; // NSHS
+  private static final int VERSION = 2;
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final String EXTENSION = ".bin";
+  private static final HashFunction HASH = Hashing.sha256();
+  private static final int CHECKSUM_BYTES = HASH.bits() / Byte.SIZE;
+
+  /* Six attributes and a bitset word count. */
+  private static final int RUPTURE_BYTES = 6 * Double.BYTES + Integer.BYTES;
+
+  private static final Logger log = Logger.getLogger(SystemSnapshot.class.getName());
+
+  private SystemSnapshot() {}
+
+  /**
+   * Compute a hash of the contents of the supplied files, in order.
+   *
+   * @param paths to hash
+   */
+  static HashCode hash(Path... paths) throws IOException {
+    Hasher hasher = HASH.newHasher();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    for (Path path : paths) {
+      try (InputStream in = Files.newInputStream(path)) {
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+          hasher.putBytes(buffer, 0, count);
+        }
+      }
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Return the path to the snapshot of the source set derived from files with
+   * the supplied hash. Snapshots are named by hash so that the snapshots of
+   * any number of models may share a directory.
+   *
+   * @param dir snapshot directory
+   * @param hash of the files a snapshot is derived from
+   */
+  static Path path(Path dir, HashCode hash) {
+    return dir.resolve(hash + EXTENSION);
+  }
+
+  /**
+   * Restore a {@code SystemSourceSet} from a snapshot. Returns
+   * {@code Optional.absent()} if the snapshot does not exist, was written by a
+   * different version of this class, fails its checksum, does not match the
+   * supplied hash, or can not be read (e.g. is truncated or otherwise corrupt).
+   * The checksum is verified before any content beyond the version is read.
+   * Rupture attributes remain backed by the mapped snapshot; bitsets are
+   * decoded as they are read.
+   *
+   * @param path to snapshot
+   * @param hash of the files the snapshot must have been derived from
+   * @param sections fault section surfaces
+   * @param sectionNames fault section names
+   * @param gmmSet ground motion models
+   */
+  static Optional<SystemSourceSet> read(
+      Path path,
+      HashCode hash,
+      List<GriddedSurface> sections,
+      List<String> sectionNames,
+      GmmSet gmmSet) {
+
+    if (!Files.exists(path)) {
+      return Optional.absent();
+    }
+    try {
+      return read(map(path), hash, sections, sectionNames, gmmSet);
+    } catch (IOException | RuntimeException e) {
+      log.warning("   Snapshot: unable to read " + path + ": " + e);
+      return Optional.absent();
+    }
+  }
+
+  private static Optional<SystemSourceSet> read(
+      ByteBuffer buffer,
+      HashCode hash,
+      List<GriddedSurface> sections,
+      List<String> sectionNames,
+      GmmSet gmmSet) {
+
+    if (buffer.remaining() < 8 ||
+        buffer.getInt() != MAGIC ||
+        buffer.getInt() != VERSION) {
+      return Optional.absent();
+    }
+    verify(buffer);
+    byte[] hashBytes = hash.asBytes();
+    checkState(buffer.remaining() >= hashBytes.length, "file is shorter than hash");
+    byte[] snapshotHash = new byte[hashBytes.length];
+    buffer.get(snapshotHash);
+    if (!HashCode.fromBytes(snapshotHash).equals(hash)) {
+      return Optional.absent();
+    }
+
+    int nameLength = buffer.getInt();
+    checkState(
+        nameLength >= 0 && nameLength <= buffer.remaining(),
+        "name length (%s) exceeds file size",
+        nameLength);
+    byte[] nameBytes = new byte[nameLength];
+    buffer.get(nameBytes);
+    String name = new String(nameBytes, UTF_8);
+    int id = buffer.getInt();
+    double weight = buffer.getDouble();
+
+    int sectionCount = buffer.getInt();
+    checkState(
+        sectionCount == sections.size(),
+        "section count (%s) does not match section list (%s)",
+        sectionCount, sections.size());
+    int size = buffer.getInt();
+    checkState(
+        size > 0 && (long) size * RUPTURE_BYTES <= buffer.remaining(),
+        "rupture count (%s) does not match file size",
+        size);
+
+    DoubleBuffer mags = doubles(buffer, size);
+    DoubleBuffer rates = doubles(buffer, size);
+    DoubleBuffer depths = doubles(buffer, size);
+    DoubleBuffer dips = doubles(buffer, size);
+    DoubleBuffer widths = doubles(buffer, size);
+    DoubleBuffer rakes = doubles(buffer, size);
+
+    IntBuffer wordCounts = slice(buffer, size * Integer.BYTES).asIntBuffer();
+    LongBuffer words = buffer.slice().asLongBuffer();
+    BitSet[] bitsets = new BitSet[size];
+    int offset = 0;
+    for (int i = 0; i < size; i++) {
+      int count = wordCounts.get(i);
+      checkState(
+          count >= 0 && count <= words.capacity() - offset,
+          "bitset %s word count (%s) exceeds file size",
+          i, count);
+      words.limit(offset + count).position(offset);
+      bitsets[i] = BitSet.valueOf(words);
+      offset += count;
+    }
+    checkState(
+        offset == words.capacity(),
+        "%s trailing bitset words",
+        words.capacity() - offset);
+
+    double mMin = Double.POSITIVE_INFINITY;
+    double mMax = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < size; i++) {
+      double mag = mags.get(i);
+      mMin = (mag < mMin) ? mag : mMin;
+      mMax = (mag > mMax) ? mag : mMax;
+    }
+
+    return Optional.of(new SystemSourceSet(
+        name,
+        id,
+        weight,
+        gmmSet,
+        sections.toArray(new GriddedSurface[] {}),
+        sectionNames.toArray(new String[] {}),
+        bitsets,
+        mags,
+        rates,
+        depths,
+        dips,
+        widths,
+        rakes,
+        new SystemSourceSet.Statistics(mMin, mMax)));
+  }
+
+  /**
+   * Write a snapshot of a {@code SystemSourceSet}. The snapshot is written to
+   * a temporary file that then replaces any existing snapshot so that readers
+   * never encounter a partially written file. The parent directory of the
+   * snapshot is created if necessary.
+   *
+   * @param path to snapshot
+   * @param hash of the files the source set was derived from
+   * @param sourceSet to write
+   */
+  static void write(Path path, HashCode hash, SystemSourceSet sourceSet) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    Path tmp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      try (OutputStream file = Files.newOutputStream(tmp, StandardOpenOption.CREATE_NEW)) {
+        HashingOutputStream checksum = new HashingOutputStream(HASH, file);
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(checksum, BUFFER_SIZE));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(hash.asBytes());
+
+        byte[] nameBytes = sourceSet.name().getBytes(UTF_8);
+        out.writeInt(nameBytes.length);
+        out.write(nameBytes);
+        out.writeInt(sourceSet.id());
+        out.writeDouble(sourceSet.weight());
+
+        out.writeInt(sourceSet.sections.length);
+        int size = sourceSet.size();
+        out.writeInt(size);
+
+        writeDoubles(out, sourceSet.mags);
+        writeDoubles(out, sourceSet.rates);
+        writeDoubles(out, sourceSet.depths);
+        writeDoubles(out, sourceSet.dips);
+        writeDoubles(out, sourceSet.widths);
+        writeDoubles(out, sourceSet.rakes);
+
+        long[][] words = new long[size][];
+        for (int i = 0; i < size; i++) {
+          words[i] = sourceSet.bitsets[i].toLongArray();
+          out.writeInt(words[i].length);
+        }
+        for (long[] bits : words) {
+          for (long word : bits) {
+            out.writeLong(word);
+          }
+        }
+        out.flush();
+        file.write(checksum.hash().asBytes());
+      }
+      Files.move(tmp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private static MappedByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  /*
+   * Compare the checksum at the end of a snapshot with that of all preceding
+   * content and exclude the checksum from the buffer.
+   */
+  private static void verify(ByteBuffer buffer) {
+    checkState(buffer.remaining() >= CHECKSUM_BYTES, "file is shorter than checksum");
+    int end = buffer.limit() - CHECKSUM_BYTES;
+    ByteBuffer content = buffer.duplicate();
+    content.limit(end).position(0);
+    ByteBuffer trailer = buffer.duplicate();
+    trailer.position(end);
+    byte[] stored = new byte[CHECKSUM_BYTES];
+    trailer.get(stored);
+    checkState(
+        HASH.newHasher().putBytes(content).hash().equals(HashCode.fromBytes(stored)),
+        "checksum does not match contents");
+    buffer.limit(end);
+  }
+
+  /* Return a view of the next byte count bytes, advancing the buffer. */
+  private static ByteBuffer slice(ByteBuffer buffer, int count) {
+    ByteBuffer slice = buffer.slice();
+    slice.limit(count);
+    buffer.position(buffer.position() + count);
+    return slice;
+  }
+
+  private static DoubleBuffer doubles(ByteBuffer buffer, int size) {
+    return slice(buffer, size * Double.BYTES).asDoubleBuffer();
+  }
+
+  private static void writeDoubles(DataOutputStream out, DoubleBuffer values)
+      throws IOException {
+    for (int i = 0; i < values.limit(); i++) {
+      out.writeDouble(values.get(i));
+    }
+  }
+
+}
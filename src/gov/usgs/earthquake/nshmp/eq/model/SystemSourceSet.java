@@ -19,13 +19,13 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Doubles;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import gov.usgs.earthquake.nshmp.calc.HazardInput;
 import gov.usgs.earthquake.nshmp.calc.InputList;
 import gov.usgs.earthquake.nshmp.calc.Site;
 import gov.usgs.earthquake.nshmp.calc.SystemInputList;
@@ -43,15 +43,19 @@ import gov.usgs.earthquake.nshmp.geo.Location;
  */
 public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.SystemSource> {
 
-  private final GriddedSurface[] sections;
-  private final String[] sectionNames;
-  private final BitSet[] bitsets;
-  private final double[] mags;
-  private final double[] rates;
-  private final double[] depths;
-  private final double[] dips;
-  private final double[] widths;
-  private final double[] rakes;
+  /*
+   * Package privacy for snapshots. Rupture attributes are held in buffers so
+   * that those restored from a snapshot remain backed by the mapped file.
+   */
+  final GriddedSurface[] sections;
+  final String[] sectionNames;
+  final BitSet[] bitsets;
+  final DoubleBuffer mags;
+  final DoubleBuffer rates;
+  final DoubleBuffer depths;
+  final DoubleBuffer dips;
+  final DoubleBuffer widths;
+  final DoubleBuffer rakes;
 
   public final Statistics stats;
 
@@ -63,18 +67,18 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
    * same for other attributes
    */
 
-  private SystemSourceSet(
+  SystemSourceSet(
       String name, int id, double weight,
       GmmSet gmmSet,
       GriddedSurface[] sections,
       String[] sectionNames,
       BitSet[] bitsets,
-      double[] mags,
-      double[] rates,
-      double[] depths,
-      double[] dips,
-      double[] widths,
-      double[] rakes,
+      DoubleBuffer mags,
+      DoubleBuffer rates,
+      DoubleBuffer depths,
+      DoubleBuffer dips,
+      DoubleBuffer widths,
+      DoubleBuffer rakes,
       Statistics stats) {
 
     super(name, id, weight, gmmSet);
@@ -219,27 +223,27 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
     }
 
     private final double magnitude() {
-      return mags[index];
+      return mags.get(index);
     }
 
     private final double rate() {
-      return rates[index];
+      return rates.get(index);
     }
 
     private final double depth() {
-      return depths[index];
+      return depths.get(index);
     }
 
     private final double dip() {
-      return dips[index];
+      return dips.get(index);
     }
 
     private final double width() {
-      return widths[index];
+      return widths.get(index);
     }
 
     private final double rake() {
-      return rakes[index];
+      return rakes.get(index);
     }
   }
 
@@ -384,12 +388,12 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
           sections.toArray(new GriddedSurface[] {}),
           sectionNames.toArray(new String[] {}),
           bitsets.toArray(new BitSet[] {}),
-          Doubles.toArray(mags),
-          Doubles.toArray(rates),
-          Doubles.toArray(depths),
-          Doubles.toArray(dips),
-          Doubles.toArray(widths),
-          Doubles.toArray(rakes),
+          DoubleBuffer.wrap(Doubles.toArray(mags)),
+          DoubleBuffer.wrap(Doubles.toArray(rates)),
+          DoubleBuffer.wrap(Doubles.toArray(depths)),
+          DoubleBuffer.wrap(Doubles.toArray(dips)),
+          DoubleBuffer.wrap(Doubles.toArray(widths)),
+          DoubleBuffer.wrap(Doubles.toArray(rakes)),
           stats);
     }
   }
@@ -541,7 +545,7 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
         double maxDistance = sourceSet.groundMotionModels().maxDistance();
         BitSet siteBitset = sourceSet.bitsetForLocation(site.location, maxDistance);
         if (siteBitset.isEmpty()) {
-          return SystemInputList.empty(sourceSet);
+          return SystemInputList.empty(sourceSet, site);
         }
 
         /* Create and fill distance map. */
@@ -556,14 +560,14 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
 
         /* Create inputs. */
         Map<Integer, double[]> rMap = rMapBuilder.build();
-        Function<SystemSource, HazardInput> inputGenerator = new InputGenerator(rMap, site);
+        InputGenerator inputGenerator = new InputGenerator(rMap);
         Predicate<SystemSource> rFilter = new BitsetFilter(siteBitset);
         Iterable<SystemSource> sources = Iterables.filter(sourceSet, rFilter);
 
         /* Fill input list. */
-        SystemInputList inputs = new SystemInputList(sourceSet, rMap.keySet());
+        SystemInputList inputs = new SystemInputList(sourceSet, site, rMap.keySet());
         for (SystemSource source : sources) {
-          inputs.add(inputGenerator.apply(source));
+          inputGenerator.addInput(source, inputs);
           // for deagg
           inputs.addBitset(source.bitset());
         }
@@ -621,21 +625,18 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
 
   private static final int R_HIT_LIMIT = 3;
 
-  private static final class InputGenerator implements Function<SystemSource, HazardInput> {
+  /*
+   * Appends the input for a SystemSource to a SystemInputList.
+   */
+  private static final class InputGenerator {
 
     private final Map<Integer, double[]> rMap;
-    private final Site site;
-
-    InputGenerator(
-        final Map<Integer, double[]> rMap,
-        final Site site) {
 
+    InputGenerator(final Map<Integer, double[]> rMap) {
       this.rMap = rMap;
-      this.site = site;
     }
 
-    @Override
-    public HazardInput apply(SystemSource source) {
+    void addInput(SystemSource source, SystemInputList inputs) {
 
       /* Find r minima. */
       BitSet sections = source.bitset();
@@ -663,7 +664,7 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
       double zTop = source.depth();
       double zHyp = Faults.hypocentralDepth(dip, width, zTop);
 
-      return new HazardInput(
+      inputs.add(
           source.rate(),
           source.magnitude(),
           rJB,
@@ -673,11 +674,7 @@ public final class SystemSourceSet extends AbstractSourceSet<SystemSourceSet.Sys
           width,
           zTop,
           zHyp,
-          source.rake(),
-          site.vs30,
-          site.vsInferred,
-          site.z1p0,
-          site.z2p5);
+          source.rake());
     }
   }
 
@@ -17,6 +17,7 @@ import static java.lang.Math.sqrt;
 
 import com.google.common.collect.Range;
 
+import java.util.List;
 import java.util.Map;
 
 import gov.usgs.earthquake.nshmp.data.Interpolate;
@@ -128,17 +129,77 @@ public final class AbrahamsonEtAl_2014 implements GroundMotionModel {
   }
 
   private final Coefficients coeffs;
+  private final SiteTermCache<SiteTerms> siteTerms;
 
   AbrahamsonEtAl_2014(final Imt imt) {
     coeffs = new Coefficients(imt, COEFFS);
+    siteTerms = new SiteTermCache<SiteTerms>() {
+      @Override
+      SiteTerms compute(GmmInput in) {
+        return new SiteTerms(coeffs, in);
+      }
+    };
   }
 
   @Override
   public final ScalarGroundMotion calc(final GmmInput in) {
-    return calc(coeffs, in);
+    return calc(coeffs, siteTerms.get(in), in);
   }
 
-  private static final ScalarGroundMotion calc(final Coefficients c, final GmmInput in) {
+  @Override
+  public final void calcAll(final List<? extends GmmInput> inputs, final double[] μ,
+      final double[] σ) {
+
+    for (int i = 0; i < inputs.size(); i++) {
+      GmmInput in = inputs.get(i);
+      SiteTerms site = siteTerms.get(in);
+      ScalarGroundMotion sgm = calc(coeffs, site, in);
+      μ[i] = sgm.mean();
+      σ[i] = sgm.sigma();
+    }
+  }
+
+  // Site response terms independent of saRock and the soil depth term
+  // -- Equations 7-9, 17
+  private static final class SiteTerms {
+
+    final boolean nonlinear;
+    final double f5;
+    final double f5_rk;
+    final double cVs30sPowN;
+    final double cVs30PowN;
+    final double f10;
+
+    SiteTerms(final Coefficients c, final GmmInput in) {
+      double vs30 = in.vs30;
+      double z1p0 = in.z1p0;
+
+      double v1 = getV1(c.imt); // -- Equation 9
+      double vs30s = (vs30 < v1) ? vs30 : v1; // -- Equation 8
+
+      // Site term -- Equation 7; f5 is the complete linear term or the
+      // saRock independent part of the nonlinear term
+      nonlinear = vs30 < c.Vlin;
+      if (nonlinear) {
+        double vs30s_rk = (VS_RK < v1) ? VS_RK : v1;
+        f5_rk = (c.a10 + c.b * N) * log(vs30s_rk / c.Vlin);
+        f5 = c.a10 * log(vs30s / c.Vlin);
+        cVs30sPowN = c.c * pow(vs30s / c.Vlin, N);
+        cVs30PowN = c.c * pow(vs30 / c.Vlin, N);
+      } else {
+        f5_rk = 0.0;
+        f5 = (c.a10 + c.b * N) * log(vs30s / c.Vlin);
+        cVs30sPowN = 0.0;
+        cVs30PowN = 0.0;
+      }
+
+      // Soil Depth Model -- Equation 17
+      f10 = calcSoilTerm(c, vs30, z1p0);
+    }
+  }
+
+  private static final ScalarGroundMotion calc(final Coefficients c, final SiteTerms site,
+      final GmmInput in) {
 
     // frequently used method locals
     double Mw = in.Mw;
@@ -147,7 +208,6 @@ public final class AbrahamsonEtAl_2014 implements GroundMotionModel {
     double rX = in.rX;
     double dip = in.dip;
     double zTop = in.zTop;
-    double vs30 = in.vs30;
 
     // ****** Mean ground motion and standard deviation model ******
 
@@ -233,34 +293,21 @@ public final class AbrahamsonEtAl_2014 implements GroundMotionModel {
     double f78 = (style == NORMAL) ? (Mw > 5.0) ? c.a12 : (Mw >= 4.0) ? c.a12 * (Mw - 4) : 0.0
         : 0.0;
 
-    // Soil Depth Model -- Equation 17
-    double f10 = calcSoilTerm(c, vs30, in.z1p0);
-
-    // Site Response Model
-    double f5 = 0.0;
-    double v1 = getV1(c.imt); // -- Equation 9
-    double vs30s = (vs30 < v1) ? vs30 : v1; // -- Equation 8
-
-    // Site term -- Equation 7
+    // Site Response Model -- Equation 7
+    double f5 = site.f5;
     double saRock = 0.0; // calc Sa1180 (rock reference) if necessary
-    double c_Vlin = c.Vlin;
     double c_b = c.b;
     double c_c = c.c;
-    if (vs30 < c_Vlin) {
+    if (site.nonlinear) {
       // soil term (f10) for Sa1180 is zero per R. Kamai's code where
-      // Z1 < 0 for Sa1180 loop
-      double vs30s_rk = (VS_RK < v1) ? VS_RK : v1;
-      // use this f5 form for Sa1180 Vlin is always < 1180
-      double f5_rk = (c.a10 + c_b * N) * log(vs30s_rk / c_Vlin);
-      saRock = exp(f1 + f78 + f5_rk + f4 + f6);
-      f5 = c.a10 * log(vs30s / c_Vlin) - c_b * log(saRock + c_c) + c_b *
-          log(saRock + c_c * pow(vs30s / c_Vlin, N));
-    } else {
-      f5 = (c.a10 + c_b * N) * log(vs30s / c_Vlin);
+      // Z1 < 0 for Sa1180 loop; use site f5_rk form for Sa1180 as Vlin is
+      // always < 1180
+      saRock = exp(f1 + f78 + site.f5_rk + f4 + f6);
+      f5 = f5 - c_b * log(saRock + c_c) + c_b * log(saRock + site.cVs30sPowN);
     }
 
     // total model (no aftershock f11) -- Equation 1
-    double μ = f1 + f78 + f5 + f4 + f6 + f10;
+    double μ = f1 + f78 + f5 + f4 + f6 + site.f10;
 
     // ****** Aleatory uncertainty model ******
 
@@ -276,7 +323,7 @@ public final class AbrahamsonEtAl_2014 implements GroundMotionModel {
 
     // Parital deriv. of ln(soil amp) w.r.t. ln(SA1180) -- Equation 30
     // saRock subject to same vs30 < Vlin test as in mean model
-    double dAmp_p1 = get_dAmp(c_b, c_c, c_Vlin, vs30, saRock) + 1.0;
+    double dAmp_p1 = get_dAmp(c_b, c_c, site, saRock) + 1.0;
 
     // phi squared, with non-linear effects -- Equation 28
     double phiSq = phiBsq * dAmp_p1 * dAmp_p1 + PHI_AMP_SQ;
@@ -342,13 +389,13 @@ public final class AbrahamsonEtAl_2014 implements GroundMotionModel {
   }
 
   // -- Equation 30
-  private static final double get_dAmp(final double b, final double c, final double vLin,
-      final double vs30, final double saRock) {
-    if (vs30 >= vLin) {
+  private static final double get_dAmp(final double b, final double c, final SiteTerms site,
+      final double saRock) {
+    if (!site.nonlinear) {
       return 0.0;
     }
     return (-b * saRock) / (saRock + c) +
-        (b * saRock) / (saRock + c * pow(vs30 / vLin, N));
+        (b * saRock) / (saRock + site.cVs30PowN);
   }
 
 }
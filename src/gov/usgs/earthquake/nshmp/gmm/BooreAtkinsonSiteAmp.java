@@ -2,7 +2,10 @@ package gov.usgs.earthquake.nshmp.gmm;
 
 import static java.lang.Math.log;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Boore & Atkinson 2008 site amplification model.
@@ -51,6 +54,15 @@ class BooreAtkinsonSiteAmp {
     c = new SiteAmpCoefficients(imt, COEFFS);
   }
 
+  /*
+   * Terms that depend only on vs30 and vs30r are cached by those values, as in
+   * SiteTermCache, so that concurrently processed sites do not evict each
+   * other's terms; the cached terms are immutable so the instance may be
+   * shared across threads. The most recently used terms are checked first.
+   */
+  private final Map<List<Double>, SiteTerms> siteTermsMap = new ConcurrentHashMap<>();
+  private volatile SiteTerms siteTerms;
+
   /**
    * Utility method returns a site response value that is a continuous function
    * of <code>vs30</code>: log(AMP at vs30)-log(AMP at vs30r). Value at
@@ -65,41 +77,23 @@ class BooreAtkinsonSiteAmp {
    */
   double calc(final double lnPga, final double vs30, final double vs30r) {
 
-    double dy, dyr, site, siter = 0.0;
-
-    double bnl, bnlr;
-    // some site term precalcs that are not M or d dependent
-    if (V1 < vs30 && vs30 <= V2) {
-      bnl = (c.b1 - c.b2) * log(vs30 / V2) / log(V1 / V2) + c.b2;
-    } else if (V2 < vs30 && vs30 <= VREF) {
-      bnl = c.b2 * log(vs30 / VREF) / log(V2 / VREF);
-    } else if (vs30 <= V1) {
-      bnl = c.b1;
-    } else {
-      bnl = 0.0;
-    }
-
-    if (V1 < vs30r && vs30r <= V2) {
-      // repeat site term precalcs that are not M or d dependent
-      // @ reference vs
-      bnlr = (c.b1 - c.b2) * log(vs30r / V2) / log(V1 / V2) + c.b2;
-    } else if (V2 < vs30r && vs30r <= VREF) {
-      bnlr = c.b2 * log(vs30r / VREF) / log(V2 / VREF);
-    } else if (vs30r <= V1) {
-      bnlr = c.b1;
-    } else {
-      bnlr = 0.0;
+    SiteTerms t = siteTerms;
+    if (t == null || t.vs30 != vs30 || t.vs30r != vs30r) {
+      List<Double> key = Arrays.asList(vs30, vs30r);
+      t = siteTermsMap.get(key);
+      if (t == null) {
+        t = new SiteTerms(c, vs30, vs30r);
+        if (siteTermsMap.size() >= SiteTermCache.MAX_SIZE) {
+          siteTermsMap.clear();
+        }
+        siteTermsMap.put(key, t);
+      }
+      siteTerms = t;
     }
 
-    dy = bnl * A2FAC; // ADF added line
-    dyr = bnlr * A2FAC;
-    site = c.blin * log(vs30 / VREF);
-    siter = c.blin * log(vs30r / VREF);
-
     // Second part, nonlinear siteamp reductions below.
     if (lnPga <= A1) {
-      site = site + bnl * PLFAC;
-      siter = siter + bnlr * PLFAC;
+      return t.site - t.siter;
     } else if (lnPga <= A2) {
       // extra lines smooth a kink in siteamp, pp 9-11 of boore sept
       // report. c and d from p 10 of boore sept report. Smoothing
@@ -109,20 +103,64 @@ class BooreAtkinsonSiteAmp {
       // and a2 change from their sept 06 values the parameters will also
       // have to be redefined. (a1,a2) represents a siteamp smoothing
       // range (units g)
-      double cc = (3. * dy - bnl * DX) / DXSQ;
-      double dd = (bnl * DX - 2. * dy) / DXCUBE;
       double pgafac = log(lnPga / A1);
       double psq = pgafac * pgafac;
-      site = site + bnl * PLFAC + (cc + dd * pgafac) * psq;
-      cc = (3. * dyr - bnlr * DX) / DXSQ;
-      dd = (bnlr * DX - 2. * dyr) / DXCUBE;
-      siter = siter + bnlr * PLFAC + (cc + dd * pgafac) * psq;
+      double site = t.site + (t.cc + t.dd * pgafac) * psq;
+      double siter = t.siter + (t.ccr + t.ddr * pgafac) * psq;
+      return site - siter;
     } else {
       double pgafac = log(lnPga / 0.1);
-      site = site + bnl * pgafac;
-      siter = siter + bnlr * pgafac;
+      double site = t.siteLin + t.bnl * pgafac;
+      double siter = t.siterLin + t.bnlr * pgafac;
+      return site - siter;
+    }
+  }
+
+  /*
+   * Site term precalcs that are not M or d dependent, at the site and
+   * reference vs30. site and siter include the low-pga nonlinear term that is
+   * also the base of the smoothed kink.
+   */
+  private static final class SiteTerms {
+
+    final double vs30, vs30r;
+    final double bnl, bnlr;
+    final double siteLin, siterLin;
+    final double site, siter;
+    final double cc, dd, ccr, ddr;
+
+    SiteTerms(final SiteAmpCoefficients c, final double vs30, final double vs30r) {
+      this.vs30 = vs30;
+      this.vs30r = vs30r;
+
+      bnl = nonlinearSlope(c, vs30);
+      // repeat site term precalcs @ reference vs
+      bnlr = nonlinearSlope(c, vs30r);
+
+      double dy = bnl * A2FAC; // ADF added line
+      double dyr = bnlr * A2FAC;
+      siteLin = c.blin * log(vs30 / VREF);
+      siterLin = c.blin * log(vs30r / VREF);
+
+      site = siteLin + bnl * PLFAC;
+      siter = siterLin + bnlr * PLFAC;
+
+      cc = (3. * dy - bnl * DX) / DXSQ;
+      dd = (bnl * DX - 2. * dy) / DXCUBE;
+      ccr = (3. * dyr - bnlr * DX) / DXSQ;
+      ddr = (bnlr * DX - 2. * dyr) / DXCUBE;
+    }
+  }
+
+  private static double nonlinearSlope(final SiteAmpCoefficients c, final double vs30) {
+    if (V1 < vs30 && vs30 <= V2) {
+      return (c.b1 - c.b2) * log(vs30 / V2) / log(V1 / V2) + c.b2;
+    } else if (V2 < vs30 && vs30 <= VREF) {
+      return c.b2 * log(vs30 / VREF) / log(V2 / VREF);
+    } else if (vs30 <= V1) {
+      return c.b1;
     }
-    return site - siter;
+    return 0.0;
   }
 
 }
@@ -17,6 +17,7 @@ import static java.lang.Math.sqrt;
 
 import com.google.common.collect.Range;
 
+import java.util.List;
 import java.util.Map;
 
 import gov.usgs.earthquake.nshmp.eq.fault.Faults;
@@ -116,38 +117,89 @@ public final class BooreEtAl_2014 implements GroundMotionModel {
 
   private final Coefficients coeffs;
   private final Coefficients coeffsPGA;
+  private final SiteTermCache<SiteTerms> siteTerms;
 
   BooreEtAl_2014(final Imt imt) {
     coeffs = new Coefficients(imt, COEFFS);
     coeffsPGA = new Coefficients(PGA, COEFFS);
+    siteTerms = new SiteTermCache<SiteTerms>() {
+      @Override
+      SiteTerms compute(GmmInput in) {
+        return new SiteTerms(coeffs, in);
+      }
+    };
   }
 
   // TODO limit supplied z1p0 to 0-3 km
 
   @Override
   public final ScalarGroundMotion calc(final GmmInput in) {
-    return calc(coeffs, coeffsPGA, in);
+    return calc(coeffs, coeffsPGA, siteTerms.get(in), in);
+  }
+
+  @Override
+  public final void calcAll(final List<? extends GmmInput> inputs, final double[] μ,
+      final double[] σ) {
+
+    for (int i = 0; i < inputs.size(); i++) {
+      GmmInput in = inputs.get(i);
+      SiteTerms site = siteTerms.get(in);
+      FaultStyle style = GmmUtils.rakeToFaultStyle_NSHMP(in.rake);
+      double pgaRock = calcPGArock(coeffsPGA, in.Mw, in.rJB, style);
+      μ[i] = calcMean(coeffs, style, pgaRock, site, in);
+      σ[i] = calcStdDev(coeffs, site, in);
+    }
   }
 
   private static final ScalarGroundMotion calc(final Coefficients c, final Coefficients cPGA,
-      final GmmInput in) {
+      final SiteTerms site, final GmmInput in) {
 
     FaultStyle style = GmmUtils.rakeToFaultStyle_NSHMP(in.rake);
     double pgaRock = calcPGArock(cPGA, in.Mw, in.rJB, style);
 
-    double μ = calcMean(c, style, pgaRock, in);
-    double σ = calcStdDev(c, in);
+    double μ = calcMean(c, style, pgaRock, site, in);
+    double σ = calcStdDev(c, site, in);
 
     return DefaultScalarGroundMotion.create(μ, σ);
   }
 
+  // Linear site, nonlinear site (f2), and basin depth terms, and the
+  // intra-event site adjustment -- Equations 6, 8, 9-11, 17
+  private static final class SiteTerms {
+
+    final double lnFlin;
+    final double f2;
+    final double Fdz1;
+    final double Δφ_v;
+
+    SiteTerms(final Coefficients c, final GmmInput in) {
+      double vs30 = in.vs30;
+      double z1p0 = in.z1p0;
+
+      // Site Linear Term -- Equation 6
+      double vsLin = (vs30 <= c.Vc) ? vs30 : c.Vc;
+      lnFlin = c.c * log(vsLin / V_REF);
+
+      // Site Nonlinear Term -- Equation 8
+      f2 = c.f4 * (exp(c.f5 * (min(vs30, 760.0) - 360.0)) - exp(c.f5 * (760.0 - 360.0)));
+
+      // Basin depth term -- Equations 9, 10 , 11
+      double DZ1 = calcDeltaZ1(z1p0, vs30);
+      Fdz1 = (c.imt.isSA() && c.imt.period() >= 0.65)
+          ? (DZ1 <= c.f7 / c.f6) ? c.f6 * DZ1 : c.f7 : 0.0;
+
+      // Intra-event site adjustment -- Equation 17
+      Δφ_v = (vs30 <= V1) ? c.Δφ_v
+          : (vs30 < V2) ? c.Δφ_v * (log(V2 / vs30) / log(V2 / V1)) : 0.0;
+    }
+  }
+
   // Mean ground motion model
   private static final double calcMean(final Coefficients c, final FaultStyle style,
-      final double pgaRock, final GmmInput in) {
+      final double pgaRock, final SiteTerms site, final GmmInput in) {
 
     double Mw = in.Mw;
     double rJB = in.rJB;
-    double vs30 = in.vs30;
 
     // Source/Event Term -- Equation 2
     double Fe = calcSourceTerm(c, Mw, style);
@@ -156,21 +208,11 @@ public final class BooreEtAl_2014 implements GroundMotionModel {
     double R = sqrt(rJB * rJB + c.h * c.h);
     double Fp = calcPathTerm(c, Mw, R);
 
-    // Site Linear Term -- Equation 6
-    double vsLin = (vs30 <= c.Vc) ? vs30 : c.Vc;
-    double lnFlin = c.c * log(vsLin / V_REF);
-
-    // Site Nonlinear Term -- Equations 7, 8
-    double f2 = c.f4 * (exp(c.f5 * (min(vs30, 760.0) - 360.0)) - exp(c.f5 * (760.0 - 360.0)));
-    double lnFnl = F1 + f2 * log((pgaRock + F3) / F3);
-
-    // Basin depth term -- Equations 9, 10 , 11
-    double DZ1 = calcDeltaZ1(in.z1p0, vs30);
-    double Fdz1 = (c.imt.isSA() && c.imt.period() >= 0.65)
-        ? (DZ1 <= c.f7 / c.f6) ? c.f6 * DZ1 : c.f7 : 0.0;
+    // Site Nonlinear Term -- Equation 7
+    double lnFnl = F1 + site.f2 * log((pgaRock + F3) / F3);
 
     // Total site term -- Equation 5
-    double Fs = lnFlin + lnFnl + Fdz1;
+    double Fs = site.lnFlin + lnFnl + site.Fdz1;
 
     // Total model -- Equation 1
     return Fe + Fp + Fs;
@@ -223,11 +265,11 @@ public final class BooreEtAl_2014 implements GroundMotionModel {
   }
 
   // Aleatory uncertainty model
-  private static final double calcStdDev(final Coefficients c, final GmmInput in) {
+  private static final double calcStdDev(final Coefficients c, final SiteTerms site,
+      final GmmInput in) {
 
     double Mw = in.Mw;
     double rJB = in.rJB;
-    double vs30 = in.vs30;
 
     // Inter-event Term -- Equation 14
     double τ = (Mw >= 5.5) ? c.τ2 : (Mw <= 4.5) ? c.τ1 : c.τ1 + (c.τ2 - c.τ1) * (Mw - 4.5);
@@ -242,12 +284,7 @@ public final class BooreEtAl_2014 implements GroundMotionModel {
       φ_mr += c.Δφ_r * (log(rJB / c.r1) / log(c.r2 / c.r1));
     }
 
-    double φ_mrv = φ_mr;
-    if (vs30 <= V1) {
-      φ_mrv -= c.Δφ_v;
-    } else if (vs30 < V2) {
-      φ_mrv -= c.Δφ_v * (log(V2 / vs30) / log(V2 / V1));
-    }
+    double φ_mrv = φ_mr - site.Δφ_v;
 
     // Total model -- Equation 13
     return sqrt(φ_mrv * φ_mrv + τ * τ);
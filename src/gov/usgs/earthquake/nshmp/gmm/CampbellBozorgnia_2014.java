@@ -22,6 +22,7 @@ import static java.lang.Math.sqrt;
 import com.google.common.collect.Range;
 
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -135,44 +136,105 @@ public final class CampbellBozorgnia_2014 implements GroundMotionModel {
 
   final Coefficients coeffs;
   private final Coefficients coeffsPGA;
+  private final SiteTerms rockPGA;
+  private final SiteTermCache<SiteTerms> siteTerms;
+  private final SiteTermCache<SiteTerms> siteTermsPGA;
 
   CampbellBozorgnia_2014(final Imt imt) {
     coeffs = new Coefficients(imt, COEFFS);
     coeffsPGA = new Coefficients(PGA, COEFFS);
+    // pga rock reference site terms use CA vs30 z2p5 value: 0.398
+    rockPGA = new SiteTerms(coeffsPGA, 1100.0, 0.398);
+    siteTerms = new SiteTermCache<SiteTerms>() {
+      @Override
+      SiteTerms compute(GmmInput in) {
+        return new SiteTerms(coeffs, in.vs30, in.z2p5);
+      }
+    };
+    siteTermsPGA = !SHORT_PERIODS.contains(imt) ? null : new SiteTermCache<SiteTerms>() {
+      @Override
+      SiteTerms compute(GmmInput in) {
+        return new SiteTerms(coeffsPGA, in.vs30, in.z2p5);
+      }
+    };
   }
 
   @Override
   public final ScalarGroundMotion calc(final GmmInput in) {
-    return calc(coeffs, coeffsPGA, in);
+    return calc(coeffs, coeffsPGA, rockPGA, siteTerms.get(in), sitePGA(in), in);
+  }
+
+  @Override
+  public final void calcAll(final List<? extends GmmInput> inputs, final double[] μ,
+      final double[] σ) {
+
+    for (int i = 0; i < inputs.size(); i++) {
+      GmmInput in = inputs.get(i);
+      ScalarGroundMotion sgm = calc(coeffs, coeffsPGA, rockPGA,
+          siteTerms.get(in), sitePGA(in), in);
+      μ[i] = sgm.mean();
+      σ[i] = sgm.sigma();
+    }
+  }
+
+  /*
+   * The PGA site terms, sitePGA, are only required (non-null) for short periods
+   * where SA may not be less than PGA.
+   */
+  private SiteTerms sitePGA(final GmmInput in) {
+    return (siteTermsPGA == null) ? null : siteTermsPGA.get(in);
   }
 
   private static final ScalarGroundMotion calc(final Coefficients c, final Coefficients cPGA,
+      final SiteTerms rockPGA, final SiteTerms site, final SiteTerms sitePGA,
       final GmmInput in) {
 
     FaultStyle style = GmmUtils.rakeToFaultStyle_NSHMP(in.rake);
-    double vs30 = in.vs30;
-    double z2p5 = in.z2p5;
 
-    // calc pga rock reference value using CA vs30 z2p5 value: 0.398
-    double pgaRock = (vs30 < c.k1) ? exp(calcMean(cPGA, style, 1100.0, 0.398, 0.0, in)) : 0.0;
+    // calc pga rock reference value
+    double pgaRock = (site.vs30 < c.k1) ? exp(calcMean(cPGA, style, rockPGA, 0.0, in)) : 0.0;
 
-    double μ = calcMean(c, style, vs30, z2p5, pgaRock, in);
+    double μ = calcMean(c, style, site, pgaRock, in);
 
     // prevent SA<PGA for short periods
-    if (SHORT_PERIODS.contains(c.imt)) {
-      double pgaMean = calcMean(cPGA, style, vs30, z2p5, pgaRock, in);
+    if (sitePGA != null) {
+      double pgaMean = calcMean(cPGA, style, sitePGA, pgaRock, in);
       μ = max(μ, pgaMean);
     }
 
-    double σ = calcStdDev(c, cPGA, in.Mw, in.vs30, pgaRock);
+    double σ = calcStdDev(c, cPGA, in.Mw, site, pgaRock);
 
     return DefaultScalarGroundMotion.create(μ, σ);
   }
 
-  // Mean ground motion model -- we use supplied vs30 and z2p5 rather than
-  // values from input to impose 1100 and 0.398 when computing rock reference
+  // Shallow site response terms independent of pgaRock and the basin
+  // response term -- Equations 18, 20; also built once for the rock site
+  private static final class SiteTerms {
+
+    final double vs30;
+
+    final double Fsite;
+    final double cVsk1PowN;
+    final double Fsed;
+
+    SiteTerms(final Coefficients c, final double vs30, final double z2p5) {
+      this.vs30 = vs30;
+
+      // Shallow Site Response term; Fsite is the complete linear term or the
+      // pgaRock independent part of the nonlinear term -- Equation 18
+      double vsk1 = vs30 / c.k1;
+      cVsk1PowN = C * pow(vsk1, N);
+      Fsite = (vs30 <= c.k1) ? c.c11 * log(vsk1) : (c.c11 + c.k2 * N) * log(vsk1);
+
+      // Basin Response term -- Equation 20
+      Fsed = basinResponseTerm(c, vs30, z2p5);
+    }
+  }
+
+  // Mean ground motion model -- we use supplied site terms rather than values
+  // from input to impose 1100 and 0.398 when computing rock reference
   private static final double calcMean(final Coefficients c, final FaultStyle style,
-      final double vs30, final double z2p5, final double pgaRock, final GmmInput in) {
+      final SiteTerms site, final double pgaRock, final GmmInput in) {
 
     double Mw = in.Mw;
     double rRup = in.rRup;
@@ -243,13 +305,9 @@ public final class CampbellBozorgnia_2014 implements GroundMotionModel {
     // Shallow Site Response term - pgaRock term is computed through an
     // initial call to this method with vs30=1100; 1100 is higher than any
     // k1 value so else condition always prevails -- Equation 18
-    double vsk1 = vs30 / c.k1;
-    double Fsite = (vs30 <= c.k1) ? c.c11 * log(vsk1) +
-        c.k2 * (log(pgaRock + C * pow(vsk1, N)) - log(pgaRock + C))
-        : (c.c11 + c.k2 * N) * log(vsk1);
-
-    // Basin Response term -- Equation 20
-    double Fsed = basinResponseTerm(c, vs30, z2p5);
+    double Fsite = (site.vs30 <= c.k1)
+        ? site.Fsite + c.k2 * (log(pgaRock + site.cVsk1PowN) - log(pgaRock + C))
+        : site.Fsite;
 
     // Hypocentral Depth term -- Equations 21, 22, 23
     double zHyp = in.zHyp;
@@ -269,7 +327,7 @@ public final class CampbellBozorgnia_2014 implements GroundMotionModel {
     double Fatn = (rRup > 80.0) ? c.c20 * (rRup - 80.0) : 0.0;
 
     // total model -- Equation 1
-    return Fmag + Fr + Fflt + Fhw + Fsite + Fsed + Fhyp + Fdip + Fatn;
+    return Fmag + Fr + Fflt + Fhw + Fsite + site.Fsed + Fhyp + Fdip + Fatn;
   }
 
   // Basin Response term -- Equation 20
@@ -289,12 +347,11 @@ public final class CampbellBozorgnia_2014 implements GroundMotionModel {
 
   // Aleatory uncertainty model
   private static final double calcStdDev(final Coefficients c, final Coefficients cPGA,
-      final double Mw, final double vs30, final double pgaRock) {
+      final double Mw, final SiteTerms site, final double pgaRock) {
 
     // -- Equation 31
-    double vsk1 = vs30 / c.k1;
-    double alpha = (vs30 < c.k1) ? c.k2 * pgaRock *
-        (1 / (pgaRock + C * pow(vsk1, N)) - 1 / (pgaRock + C)) : 0.0;
+    double alpha = (site.vs30 < c.k1) ? c.k2 * pgaRock *
+        (1 / (pgaRock + site.cVsk1PowN) - 1 / (pgaRock + C)) : 0.0;
 
     // Magnitude dependence -- Equations 29 & 30
     double tau_lnYB, tau_lnPGAB, phi_lnY, phi_lnPGAB;
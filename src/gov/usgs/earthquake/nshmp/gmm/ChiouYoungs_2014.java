@@ -20,6 +20,7 @@ import static java.lang.Math.tanh;
 
 import com.google.common.collect.Range;
 
+import java.util.List;
 import java.util.Map;
 
 import gov.usgs.earthquake.nshmp.eq.fault.Faults;
@@ -133,28 +134,72 @@ public final class ChiouYoungs_2014 implements GroundMotionModel {
   }
 
   private final Coefficients coeffs;
+  private final SiteTermCache<SiteTerms> siteTerms;
 
   ChiouYoungs_2014(final Imt imt) {
     coeffs = new Coefficients(imt, COEFFS);
+    siteTerms = new SiteTermCache<SiteTerms>() {
+      @Override
+      SiteTerms compute(GmmInput in) {
+        return new SiteTerms(coeffs, in);
+      }
+    };
   }
 
   @Override
   public final ScalarGroundMotion calc(final GmmInput in) {
-    return calc(coeffs, in);
+    return calc(coeffs, siteTerms.get(in), in);
   }
 
-  private static final ScalarGroundMotion calc(final Coefficients c, final GmmInput in) {
+  @Override
+  public final void calcAll(final List<? extends GmmInput> inputs, final double[] μ,
+      final double[] σ) {
+
+    for (int i = 0; i < inputs.size(); i++) {
+      GmmInput in = inputs.get(i);
+      SiteTerms site = siteTerms.get(in);
+      double saRef = calcSAref(coeffs, in);
+      μ[i] = calcMean(coeffs, site, saRef);
+      σ[i] = calcStdDev(coeffs, in.Mw, in.vsInf, site.snl, saRef);
+    }
+  }
+
+  private static final ScalarGroundMotion calc(final Coefficients c, final SiteTerms site,
+      final GmmInput in) {
 
     // terms used by both mean and stdDev
     double saRef = calcSAref(c, in);
-    double soilNonLin = calcSoilNonLin(c, in.vs30);
 
-    double μ = calcMean(c, in.vs30, in.z1p0, soilNonLin, saRef);
-    double σ = calcStdDev(c, in.Mw, in.vsInf, soilNonLin, saRef);
+    double μ = calcMean(c, site, saRef);
+    double σ = calcStdDev(c, in.Mw, in.vsInf, site.snl, saRef);
 
     return DefaultScalarGroundMotion.create(μ, σ);
   }
 
+  // Soil effect terms of Equation 12: linear response, the vs30 dependent
+  // part of the nonlinear response, and sediment thickness
+  private static final class SiteTerms {
+
+    final double sl;
+    final double snl;
+    final double rkdepth;
+
+    SiteTerms(final Coefficients c, final GmmInput in) {
+      double vs30 = in.vs30;
+      double z1p0 = in.z1p0;
+
+      // Soil effect: linear response
+      sl = c.φ1 * min(log(vs30 / 1130.0), 0.0);
+
+      // Soil effect: nonlinear response base, used by mean and stdDev
+      snl = calcSoilNonLin(c, vs30);
+
+      // Soil effect: sediment thickness
+      double dZ1 = calcDeltaZ1(z1p0, vs30);
+      rkdepth = c.φ5 * (1.0 - exp(-dZ1 / PHI6));
+    }
+  }
+
   // Seismic Source Scaling -- Equation 11
   private static final double calcSAref(final Coefficients c, final GmmInput in) {
 
@@ -213,21 +258,14 @@ public final class ChiouYoungs_2014 implements GroundMotionModel {
   }
 
   // Mean ground motion model -- Equation 12
-  private static final double calcMean(final Coefficients c, final double vs30,
-      final double z1p0, final double snl, final double saRef) {
-
-    // Soil effect: linear response
-    double sl = c.φ1 * min(log(vs30 / 1130.0), 0.0);
-
-    // Soil effect: nonlinear response (base passed in)
-    double snl_mod = snl * log((saRef + c.φ4) / c.φ4);
+  private static final double calcMean(final Coefficients c, final SiteTerms site,
+      final double saRef) {
 
-    // Soil effect: sediment thickness
-    double dZ1 = calcDeltaZ1(z1p0, vs30);
-    double rkdepth = c.φ5 * (1.0 - exp(-dZ1 / PHI6));
+    // Soil effect: nonlinear response (base from site terms)
+    double snl_mod = site.snl * log((saRef + c.φ4) / c.φ4);
 
-    // total model
-    return log(saRef) + sl + snl_mod + rkdepth;
+    // total model (linear response and sediment thickness from site terms)
+    return log(saRef) + site.sl + snl_mod + site.rkdepth;
   }
 
   // Center zTop on the zTop-M relation -- Equations 4, 5
@@ -1,5 +1,7 @@
 package gov.usgs.earthquake.nshmp.gmm;
 
+import java.util.List;
+
 /**
  * Interface implemented by all ground motion models (GMMs); these are also
  * commonly referred to as ground motion prediction equations (GMPEs) or
@@ -26,4 +28,29 @@ public interface GroundMotionModel {
    */
   ScalarGroundMotion calc(GmmInput args);
 
+  /**
+   * Compute scalar ground motions and their standard deviations for a list of
+   * arguments, writing results to the supplied arrays in list order. The
+   * default implementation simply loops over {@link #calc(GmmInput)}. Models
+   * that are expensive to evaluate override this method to hoist terms that
+   * are invariant across inputs, such as coefficient lookups and site terms,
+   * out of the loop. Results are identical to those of repeated calls to
+   * {@code calc(GmmInput)}.
+   *
+   * <p>Inputs are typically, but need not be, associated with a single site.
+   * Only the natural log mean and standard deviation of any
+   * {@link MultiScalarGroundMotion} are returned.
+   *
+   * @param inputs ground motion model input argument containers
+   * @param μ natural log mean ground motion output array
+   * @param σ standard deviation output array
+   */
+  default void calcAll(List<? extends GmmInput> inputs, double[] μ, double[] σ) {
+    for (int i = 0; i < inputs.size(); i++) {
+      ScalarGroundMotion sgm = calc(inputs.get(i));
+      μ[i] = sgm.mean();
+      σ[i] = sgm.sigma();
+    }
+  }
+
 }
@@ -8,6 +8,7 @@ import com.google.common.annotations.Beta;
 import com.google.common.collect.Range;
 import com.google.common.primitives.Ints;
 
+import java.util.List;
 import java.util.Map;
 
 import gov.usgs.earthquake.nshmp.calc.ExceedanceModel;
@@ -179,6 +180,25 @@ public abstract class NgaEastUsgs_2017 implements GroundMotionModel {
     return Maths.hypot(τ, φ);
   }
 
+  /*
+   * Batch calculation for single table models with a total sigma model. The
+   * sigma is reused across consecutive inputs of the same magnitude.
+   */
+  void calcAllTotal(GroundMotionTable table, List<? extends GmmInput> inputs, double[] μ,
+      double[] σ) {
+    double Mw = Double.NaN;
+    double σTotal = Double.NaN;
+    for (int i = 0; i < inputs.size(); i++) {
+      GmmInput in = inputs.get(i);
+      μ[i] = table.get(table.position(in.rRup, in.Mw));
+      if (in.Mw != Mw) {
+        Mw = in.Mw;
+        σTotal = calcSigmaTotal(Mw);
+      }
+      σ[i] = σTotal;
+    }
+  }
+
   /* 3-branch sigma model. */
   double[] calcSigmas(double Mw) {
     return new double[] {
@@ -226,12 +246,17 @@ public abstract class NgaEastUsgs_2017 implements GroundMotionModel {
 
     final int[] models;
     final double[] weights;
+    final GroundMotionTable[] modelTables;
 
     /* Specifiy an array of models ids. */
     ModelGroup(Imt imt, int[] models) {
       super(imt);
       this.models = models;
       this.weights = Data.round(8, Data.normalize(selectWeights(super.weights, models)));
+      this.modelTables = new GroundMotionTable[models.length];
+      for (int i = 0; i < models.length; i++) {
+        modelTables[i] = super.tables[models[i] - 1];
+      }
     }
 
     @Override
@@ -245,6 +270,41 @@ public abstract class NgaEastUsgs_2017 implements GroundMotionModel {
       double[] σWts = σs.length > 1 ? SIGMA_WTS : new double[] { 1.0 };
       return new MultiScalarGroundMotion(μs, weights, σs, σWts);
     }
+
+    /*
+     * Returns the weighted means and sigmas of the MultiScalarGroundMotions
+     * that would be returned by calc(), without creating them. The weighted
+     * sigma is reused across consecutive inputs of the same magnitude.
+     */
+    @Override
+    public void calcAll(List<? extends GmmInput> inputs, double[] μ, double[] σ) {
+      double Mw = Double.NaN;
+      double σWeighted = Double.NaN;
+      for (int i = 0; i < inputs.size(); i++) {
+        GmmInput in = inputs.get(i);
+        Position p = super.tables[0].position(in.rRup, in.Mw);
+        double μWeighted = 0.0;
+        for (int j = 0; j < modelTables.length; j++) {
+          μWeighted += modelTables[j].get(p) * weights[j];
+        }
+        μ[i] = μWeighted;
+        if (in.Mw != Mw) {
+          Mw = in.Mw;
+          σWeighted = weightedSigma(Mw);
+        }
+        σ[i] = σWeighted;
+      }
+    }
+
+    private double weightedSigma(double Mw) {
+      double[] σs = calcSigmas(Mw);
+      double[] σWts = σs.length > 1 ? SIGMA_WTS : new double[] { 1.0 };
+      double σWeighted = 0.0;
+      for (int i = 0; i < σs.length; i++) {
+        σWeighted += σs[i] * σWts[i];
+      }
+      return σWeighted;
+    }
   }
 
   static class TotalSigmaModel extends ModelGroup {
@@ -287,6 +347,11 @@ public abstract class NgaEastUsgs_2017 implements GroundMotionModel {
           table.get(p),
           calcSigmaTotal(in.Mw));
     }
+
+    @Override
+    public void calcAll(List<? extends GmmInput> inputs, double[] μ, double[] σ) {
+      calcAllTotal(table, inputs, μ, σ);
+    }
   }
 
   static class Sammons_1 extends Sammons {
@@ -425,6 +490,11 @@ public abstract class NgaEastUsgs_2017 implements GroundMotionModel {
           table.get(p),
           calcSigmaTotal(in.Mw));
     }
+
+    @Override
+    public void calcAll(List<? extends GmmInput> inputs, double[] μ, double[] σ) {
+      calcAllTotal(table, inputs, μ, σ);
+    }
   }
 
   static final class Seed_1CCSP extends Seed {
@@ -626,6 +696,11 @@ public abstract class NgaEastUsgs_2017 implements GroundMotionModel {
           table.get(p),
           calcSigmaTotal(in.Mw));
     }
+
+    @Override
+    public void calcAll(List<? extends GmmInput> inputs, double[] μ, double[] σ) {
+      calcAllTotal(table, inputs, μ, σ);
+    }
   }
 
   static final class UpdatedSeed_Graizer16 extends UpdatedSeed {
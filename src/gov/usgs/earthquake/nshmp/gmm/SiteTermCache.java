@@ -0,0 +1,118 @@
+package gov.usgs.earthquake.nshmp.gmm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of ground motion model terms that depend only on site properties (and
+ * model coefficients). Models that opt in create one cache per instance, and
+ * therefore per {@link Gmm} and {@link Imt}, and supply the calculation of their
+ * site terms via {@link #compute(GmmInput)}.
+ *
+ * <p>Terms are keyed by the {@code vs30}, {@code vsInf}, {@code z1p0}, and
+ * {@code z2p5} properties of an input. Model instances are shared across
+ * threads, and with site concurrency enabled several sites, each with its own
+ * properties, may be in progress at once. The cache therefore holds the terms
+ * of up to {@link #MAX_SIZE} distinct sets of site properties and is cleared
+ * if that limit is exceeded. The most recently used terms are also checked
+ * first, which makes repeated calls for the same site as cheap as a single
+ * field read. Cached terms must be immutable (or safe to publish); concurrent
+ * misses for the same site properties at worst recompute terms.
+ *
+ * @author Peter Powers
+ * @param <T> the site term container type
+ */
+abstract class SiteTermCache<T> {
+
+  /* Typical runs have few distinct site property sets. */
+  static final int MAX_SIZE = 64;
+
+  private final Map<Key, T> terms = new ConcurrentHashMap<>();
+  private volatile Entry<T> last;
+
+  /**
+   * Compute the site terms for the site properties of the supplied input.
+   *
+   * @param in a ground motion model input argument container
+   */
+  abstract T compute(GmmInput in);
+
+  /**
+   * Return the site terms for the site properties of the supplied input,
+   * computing them only if they have not been computed before.
+   *
+   * @param in a ground motion model input argument container
+   */
+  final T get(GmmInput in) {
+    Entry<T> e = last;
+    if (e != null && e.key.matches(in)) {
+      return e.terms;
+    }
+    Key key = new Key(in);
+    T t = terms.get(key);
+    if (t == null) {
+      t = compute(in);
+      if (terms.size() >= MAX_SIZE) {
+        terms.clear();
+      }
+      terms.put(key, t);
+    }
+    last = new Entry<>(key, t);
+    return t;
+  }
+
+  private static final class Entry<T> {
+
+    final Key key;
+    final T terms;
+
+    Entry(Key key, T terms) {
+      this.key = key;
+      this.terms = terms;
+    }
+  }
+
+  private static final class Key {
+
+    final double vs30;
+    final boolean vsInf;
+    final double z1p0;
+    final double z2p5;
+
+    Key(GmmInput in) {
+      this.vs30 = in.vs30;
+      this.vsInf = in.vsInf;
+      this.z1p0 = in.z1p0;
+      this.z2p5 = in.z2p5;
+    }
+
+    /* Double.compare treats NaN basin depths as equal. */
+    boolean matches(GmmInput in) {
+      return Double.compare(in.vs30, vs30) == 0 &&
+          in.vsInf == vsInf &&
+          Double.compare(in.z1p0, z1p0) == 0 &&
+          Double.compare(in.z2p5, z2p5) == 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) obj;
+      return Double.compare(k.vs30, vs30) == 0 &&
+          k.vsInf == vsInf &&
+          Double.compare(k.z1p0, z1p0) == 0 &&
+          Double.compare(k.z2p5, z2p5) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      int h = Double.hashCode(vs30);
+      h = 31 * h + Boolean.hashCode(vsInf);
+      h = 31 * h + Double.hashCode(z1p0);
+      return 31 * h + Double.hashCode(z2p5);
+    }
+  }
+
+}
@@ -16,6 +16,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Range;
 
+import java.util.List;
 import java.util.Map;
 
 import gov.usgs.earthquake.nshmp.data.Interpolator;
@@ -109,6 +110,7 @@ public abstract class ZhaoEtAl_2016 implements GroundMotionModel {
   static final CoefficientContainer SITE_AMP = new CoefficientContainer("Zhao16_siteamp.csv");
 
   private final SiteAmp siteAmp;
+  private final SiteTermCache<SiteTerms> siteTerms;
 
   private static final double MC = 7.1;
   private static final double X_0_CR = 2.0;
@@ -116,6 +118,12 @@ public abstract class ZhaoEtAl_2016 implements GroundMotionModel {
 
   ZhaoEtAl_2016(final Imt imt) {
     siteAmp = new SiteAmp(imt, SITE_AMP);
+    siteTerms = new SiteTermCache<SiteTerms>() {
+      @Override
+      SiteTerms compute(GmmInput in) {
+        return new SiteTerms(in.vs30);
+      }
+    };
   }
 
   /*
@@ -141,38 +149,115 @@ public abstract class ZhaoEtAl_2016 implements GroundMotionModel {
   @Override
   public ScalarGroundMotion calc(GmmInput in) {
     double lnSaRock = saRock(in);
-    double siteTerm = siteTerm(in, exp(lnSaRock));
+    double siteTerm = siteTerm(siteTerms.get(in), in.zTop, exp(lnSaRock));
     return new DefaultScalarGroundMotion(
         lnSaRock + siteTerm,
         sigma());
   }
 
-  private double siteTerm(GmmInput in, double saRock) {
-    Range<SiteClass> siteRange = siteRange(in.vs30);
-    /*
-     * Reverse range values here because lower site classes correspond to higher
-     * Vs30 values.
-     */
-    SiteClass lower = siteRange.upperEndpoint();
-    SiteClass upper = siteRange.lowerEndpoint();
-    if (lower == upper) {
-      return siteTerm(lower, in.zTop, saRock);
+  @Override
+  public void calcAll(List<? extends GmmInput> inputs, double[] μ, double[] σ) {
+    for (int i = 0; i < inputs.size(); i++) {
+      GmmInput in = inputs.get(i);
+      double lnSaRock = saRock(in);
+      μ[i] = lnSaRock + siteTerm(siteTerms.get(in), in.zTop, exp(lnSaRock));
+      σ[i] = sigma();
     }
-    double fsLower = siteTerm(lower, in.zTop, saRock);
-    double fsUpper = siteTerm(upper, in.zTop, saRock);
+  }
+
+  private double siteTerm(SiteTerms site, double zTop, double saRock) {
+    if (site.lower == site.upper) {
+      return site.lowerTerms(zTop).siteTerm(saRock);
+    }
+    double fsLower = site.lowerTerms(zTop).siteTerm(saRock);
+    double fsUpper = site.upperTerms(zTop).siteTerm(saRock);
     return Interpolator.findY(
-        lower.vs30, fsLower,
-        upper.vs30, fsUpper,
-        in.vs30);
+        site.lower.vs30, fsLower,
+        site.upper.vs30, fsUpper,
+        site.vs30);
+  }
+
+  /*
+   * The bounding site classes of a site and their site class terms. Class terms
+   * are rebuilt only when the elastic site amplification ratio changes, which
+   * may only occur for depth dependent (interface) models. Site terms are
+   * cached and shared across threads; class terms are immutable and published
+   * via volatile fields so concurrent rebuilds are harmless.
+   */
+  private final class SiteTerms {
+
+    final double vs30;
+    final SiteClass lower;
+    final SiteClass upper;
+
+    private volatile ClassTerms lowerTerms;
+    private volatile ClassTerms upperTerms;
+
+    SiteTerms(double vs30) {
+      this.vs30 = vs30;
+      Range<SiteClass> siteRange = siteRange(vs30);
+      /*
+       * Reverse range values here because lower site classes correspond to
+       * higher Vs30 values.
+       */
+      lower = siteRange.upperEndpoint();
+      upper = siteRange.lowerEndpoint();
+    }
+
+    ClassTerms lowerTerms(double zTop) {
+      double aNmax = elasticSiteAmpRatio(lower, zTop);
+      ClassTerms terms = lowerTerms;
+      if (terms == null || terms.aNmax != aNmax) {
+        terms = new ClassTerms(lower, aNmax);
+        lowerTerms = terms;
+      }
+      return terms;
+    }
+
+    ClassTerms upperTerms(double zTop) {
+      double aNmax = elasticSiteAmpRatio(upper, zTop);
+      ClassTerms terms = upperTerms;
+      if (terms == null || terms.aNmax != aNmax) {
+        terms = new ClassTerms(upper, aNmax);
+        upperTerms = terms;
+      }
+      return terms;
+    }
   }
 
-  private double siteTerm(SiteClass siteClass, double zTop, double saRock) {
-    double aNmax = elasticSiteAmpRatio(siteClass, zTop);
-    double aMax = siteAmp.aMax.get(siteClass);
-    double sRC = siteAmp.sRc.get(siteClass);
-    double Imf = siteClass.impedance;
-    double fSR = smoothingFactor(siteClass);
-    return siteTerm(aNmax, aMax, sRC, Imf, fSR, saRock);
+  /*
+   * Site class terms that are independent of rock ground motion.
+   */
+  private final class ClassTerms {
+
+    final double aNmax;
+    final double Imf;
+    final double fSR;
+    final double sReffC;
+    final double sNC;
+    final double lnANmax;
+    final double lnAMax;
+    final double lnSqββsReffC;
+
+    ClassTerms(SiteClass siteClass, double aNmax) {
+      this.aNmax = aNmax;
+      double aMax = siteAmp.aMax.get(siteClass);
+      double sRC = siteAmp.sRc.get(siteClass);
+      Imf = siteClass.impedance;
+      fSR = smoothingFactor(siteClass);
+      sReffC = sRC * Imf;
+      sNC = nonlinCrossover(aNmax, aMax, sReffC);
+      lnANmax = log(aNmax);
+      lnAMax = log(aMax);
+      lnSqββsReffC = lnSqββ(sReffC);
+    }
+
+    /* Nonlinear amplification ratio. */
+    double siteTerm(double saRock) {
+      double sReff = saRock * Imf;
+      double sMR = sReff * fSR * sNC / sReffC;
+      return lnANmax - lnAMax * lnSqββ(sMR) / lnSqββsReffC;
+    }
   }
 
   /*
@@ -620,25 +705,6 @@ public abstract class ZhaoEtAl_2016 implements GroundMotionModel {
     }
   }
 
-  static double siteTerm(
-      double aNmax,
-      double aMax,
-      double sRC,
-      double Imf,
-      double fSR,
-      double saRock) {
-
-    double sReff = saRock * Imf;
-    double sReffC = sRC * Imf;
-    double sNC = nonlinCrossover(aNmax, aMax, sReffC);
-    double sMR = sReff * fSR * sNC / sReffC;
-    return nonlinAmpRatio(aNmax, aMax, sMR, sReffC);
-  }
-
-  private static double nonlinAmpRatio(double aNmax, double aMax, double sMR, double sReffC) {
-    return log(aNmax) - log(aMax) * lnSqββ(sMR) / lnSqββ(sReffC);
-  }
-
   private static double lnSqβ(double x) {
     return log(x * x + β);
   }
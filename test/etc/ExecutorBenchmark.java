@@ -0,0 +1,75 @@
+package etc;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Stopwatch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import gov.usgs.earthquake.nshmp.calc.ExecutorType;
+import gov.usgs.earthquake.nshmp.calc.HazardCalcs;
+import gov.usgs.earthquake.nshmp.calc.Site;
+import gov.usgs.earthquake.nshmp.calc.Sites;
+import gov.usgs.earthquake.nshmp.calc.ThreadCount;
+import gov.usgs.earthquake.nshmp.eq.model.HazardModel;
+
+/**
+ * Quick benchmark comparing the fixed thread pool ({@code AsyncList} based) and
+ * fork-join hazard calculation pipelines. Repeatedly computes hazard at the
+ * sites of several PEER models with each {@link ExecutorType}, after an initial
+ * warm up pass.
+ *
+ * @author Peter Powers
+ */
+class ExecutorBenchmark {
+
+  private static final Path MODEL_DIR = Paths.get("etc", "peer", "models");
+  private static final String[] MODELS = {
+      "Set1-Case10-fast", // area
+      "Set1-Case2-fast", // fault
+      "Set2-Case3d-fast" // fault + area
+  };
+  private static final int WARMUP = 3;
+  private static final int ITERATIONS = 10;
+
+  public static void main(String[] args) throws Exception {
+    for (String modelId : MODELS) {
+      HazardModel model = HazardModel.load(MODEL_DIR.resolve(modelId));
+      Sites sites = Sites.fromCsv(MODEL_DIR.resolve(modelId).resolve("sites.csv"), model.config());
+      System.out.println(modelId);
+      for (ExecutorType type : ExecutorType.values()) {
+        run(model, sites, type);
+      }
+      System.out.println();
+    }
+  }
+
+  private static void run(HazardModel model, Sites sites, ExecutorType type)
+      throws IOException, InterruptedException, ExecutionException {
+
+    ExecutorService execSvc = type.create(ThreadCount.ALL);
+    Optional<Executor> ex = Optional.<Executor> of(execSvc);
+    for (int i = 0; i < WARMUP; i++) {
+      calc(model, sites, ex);
+    }
+    Stopwatch sw = Stopwatch.createStarted();
+    for (int i = 0; i < ITERATIONS; i++) {
+      calc(model, sites, ex);
+    }
+    sw.stop();
+    execSvc.shutdown();
+    System.out.println(String.format("  %-12s %s", type, sw));
+  }
+
+  private static void calc(HazardModel model, Sites sites, Optional<Executor> ex)
+      throws InterruptedException, ExecutionException {
+    for (Site site : sites) {
+      HazardCalcs.hazard(model, model.config(), site, ex);
+    }
+  }
+
+}
@@ -0,0 +1,179 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+@SuppressWarnings("javadoc")
+public class CsvWriterTests {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final double[] EDGE_VALUES = {
+      1.0,
+      -1.0,
+      0.1,
+      -2.5e-3,
+      1.23456789e-123,
+      Double.MIN_VALUE,
+      -Double.MIN_VALUE,
+      Double.MIN_NORMAL,
+      2.2250738585072e-309,
+      Double.MAX_VALUE,
+      -Double.MAX_VALUE,
+      9.99999999e-5,
+      9.999999994e-5,
+      9.999999995e-5,
+      -9.999999995e-5,
+      9.999999995e99,
+      9.999999995e-100,
+      1.000000005e-10,
+      1.234567895,
+      5e-324,
+      Double.NaN,
+      Double.POSITIVE_INFINITY,
+      Double.NEGATIVE_INFINITY };
+
+  @Test
+  public void scientific() throws IOException {
+    for (double value : EDGE_VALUES) {
+      assertEquals(String.valueOf(value), String.format("%.8e", value), scientific(value));
+    }
+  }
+
+  @Test
+  public void scientificZero() throws IOException {
+    assertEquals("0.0", scientific(0.0));
+    assertEquals("0.0", scientific(-0.0));
+  }
+
+  @Test
+  public void scientificRandom() throws IOException {
+    Random random = new Random(13L);
+    double[] values = new double[20000];
+    for (int i = 0; i < values.length; i++) {
+      /* Uniform bits cover all exponents, subnormals and specials included. */
+      values[i] = (i % 2 == 0)
+          ? Double.longBitsToDouble(random.nextLong())
+          : random.nextDouble() * Math.pow(10.0, random.nextInt(40) - 20);
+    }
+    List<String> lines = write(values, -1);
+    for (int i = 0; i < values.length; i++) {
+      String expected = (values[i] == 0.0) ? "0.0" : String.format("%.8e", values[i]);
+      assertEquals(String.valueOf(values[i]), expected, lines.get(i));
+    }
+  }
+
+  @Test
+  public void fixed() throws IOException {
+    double[] values = {
+        0.0,
+        -0.0,
+        -1e-9,
+        5e-6,
+        -5e-6,
+        1.5e-5,
+        4.9e-324,
+        -122.123455,
+        -179.999995,
+        179.999994,
+        37.5,
+        99999.999995,
+        123456789012345.6,
+        1e15,
+        Double.NaN,
+        Double.NEGATIVE_INFINITY };
+    for (int scale : new int[] { 0, 1, 5, 8 }) {
+      List<String> lines = write(values, scale);
+      for (int i = 0; i < values.length; i++) {
+        assertEquals(
+            values[i] + " scale " + scale,
+            String.format("%." + scale + "f", values[i]),
+            lines.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void fixedRandom() throws IOException {
+    Random random = new Random(17L);
+    double[] values = new double[20000];
+    for (int i = 0; i < values.length; i++) {
+      /* Longitudes and latitudes, and values near rounding boundaries. */
+      values[i] = (i % 2 == 0)
+          ? random.nextDouble() * 360.0 - 180.0
+          : Math.round(random.nextDouble() * 1e7) / 1e7 - 0.000005;
+    }
+    List<String> lines = write(values, 5);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(String.valueOf(values[i]), String.format("%.5f", values[i]), lines.get(i));
+    }
+  }
+
+  @Test
+  public void fields() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("fields.csv");
+    try (CsvWriter writer = new CsvWriter(path, CREATE, WRITE)) {
+      writer.field("name").field((String) null).field(-118.25, 5).field(34.05, 5)
+          .field(1e-4).field(0.0).line();
+      writer.field(1.5).line();
+    }
+    List<String> lines = Files.readAllLines(path, US_ASCII);
+    assertEquals(2, lines.size());
+    assertEquals("name,-118.25000,34.05000,1.00000000e-04,0.0", lines.get(0));
+    assertEquals("1.50000000e+00", lines.get(1));
+  }
+
+  @Test
+  public void longLines() throws IOException {
+    /* Lines much longer than the internal buffer are written intact. */
+    Path path = folder.getRoot().toPath().resolve("long.csv");
+    StringBuilder expected = new StringBuilder();
+    StringBuilder field = new StringBuilder();
+    for (int i = 0; i < 50000; i++) {
+      field.append((char) ('a' + i % 26));
+    }
+    try (CsvWriter writer = new CsvWriter(path, CREATE, WRITE)) {
+      for (int i = 0; i < 3000; i++) {
+        writer.field(i * 1.1);
+        expected.append(i == 0 ? "" : ",").append(i == 0 ? "0.0" : String.format("%.8e", i * 1.1));
+      }
+      writer.field(field.toString()).line();
+      expected.append(",").append(field);
+    }
+    assertEquals(expected.toString(), Files.readAllLines(path, US_ASCII).get(0));
+  }
+
+  private String scientific(double value) throws IOException {
+    return write(new double[] { value }, -1).get(0);
+  }
+
+  /* Write one value per line, as scientific if scale is negative. */
+  private List<String> write(double[] values, int scale) throws IOException {
+    Path path = folder.newFile().toPath();
+    try (CsvWriter writer = new CsvWriter(path, WRITE)) {
+      for (double value : values) {
+        if (scale < 0) {
+          writer.field(value);
+        } else {
+          writer.field(value, scale);
+        }
+        writer.line();
+      }
+    }
+    return Files.readAllLines(path, US_ASCII);
+  }
+
+}
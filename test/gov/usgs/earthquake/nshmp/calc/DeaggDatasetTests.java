@@ -0,0 +1,208 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.usgs.earthquake.nshmp.calc.DeaggDataset.SparseBins;
+import gov.usgs.earthquake.nshmp.data.IntervalVolume;
+
+@SuppressWarnings("javadoc")
+public class DeaggDatasetTests {
+
+  /* 10 distance rows, 10 magnitude columns, 10 epsilon levels. */
+  private static final DeaggDataset MODEL = DeaggDataset.model(
+      0.0, 100.0, 10.0,
+      5.0, 7.0, 0.2,
+      -2.5, 2.5, 0.5);
+
+  private static final int ROWS = 10;
+  private static final int COLUMNS = 10;
+  private static final int LEVELS = 10;
+
+  @Test
+  public void sparseBinsCollisions() {
+    /* Bins whose hashes share a slot of the initial 32 slot table. */
+    List<Integer> colliding = new ArrayList<>();
+    int slot = hash(0) & 31;
+    for (int index = 0; index < ROWS * COLUMNS * LEVELS && colliding.size() < 6; index++) {
+      if ((hash(index) & 31) == slot) {
+        colliding.add(index);
+      }
+    }
+    assertEquals(6, colliding.size());
+
+    SparseBins.Builder sparse = new SparseBins.Builder(COLUMNS, LEVELS);
+    Dense dense = new Dense();
+    for (int pass = 1; pass <= 3; pass++) {
+      for (int index : colliding) {
+        double rate = pass * 0.1 + index * 1e-4;
+        add(sparse, dense, index, rate);
+      }
+    }
+    dense.assertEquals(sparse.build());
+  }
+
+  @Test
+  public void sparseBinsGrowth() {
+    /* Occupy every bin, well beyond the initial capacity of 16. */
+    Random random = new Random(3L);
+    SparseBins.Builder sparse = new SparseBins.Builder(COLUMNS, LEVELS);
+    Dense dense = new Dense();
+    Dense scaled = new Dense();
+    for (int i = 0; i < 5000; i++) {
+      int index = random.nextInt(ROWS * COLUMNS * LEVELS);
+      double rate = random.nextDouble();
+      add(sparse, dense, index, rate);
+      add(null, scaled, index, rate);
+    }
+    dense.assertEquals(sparse.build());
+
+    /* Scaling applies to all occupied bins. */
+    sparse.multiply(0.25);
+    scaled.multiply(0.25);
+    scaled.assertEquals(sparse.build());
+  }
+
+  @Test
+  public void consolidation() {
+    /* Datasets accumulated sparsely consolidate to dense reference sums. */
+    Random random = new Random(5L);
+    List<DeaggDataset> datasets = new ArrayList<>();
+    Dense total = new Dense();
+    double binned = 0.0;
+    double residual = 0.0;
+    for (int d = 0; d < 4; d++) {
+      DeaggDataset.Builder builder = DeaggDataset.builder(MODEL);
+      Dense dense = new Dense();
+      for (int i = 0; i < 200; i++) {
+        double r = random.nextDouble() * 100.0;
+        double m = 5.0 + random.nextDouble() * 2.0;
+        double ε = -3.0 + random.nextDouble() * 6.0;
+        double rate = random.nextDouble() * 1e-4;
+        int ri = MODEL.distanceIndex(r);
+        int mi = MODEL.magnitudeIndex(m);
+        int εi = MODEL.epsilonIndex(ε);
+        builder.addRate(ri, mi, εi, r * rate, m * rate, ε * rate, rate);
+        dense.add(ri, mi, εi, rate, r * rate, m * rate, ε * rate);
+        binned += rate;
+      }
+      builder.addResidual(1e-6 * d);
+      residual += 1e-6 * d;
+      DeaggDataset dataset = builder.build();
+      assertTrue(Double.isNaN(dataset.rBar));
+      datasets.add(dataset);
+      total.add(dense);
+    }
+
+    DeaggDataset combined = DeaggDataset.SOURCE_SET_CONSOLIDATOR.apply(datasets);
+    assertEquals(binned, combined.binned, 1e-15);
+    assertEquals(residual, combined.residual, 1e-15);
+
+    /*
+     * Per-bin sums accumulate in the same order as dense per-dataset volumes
+     * that are then combined, and match exactly.
+     */
+    IntervalVolume rScaled = total.rScaled.build();
+    total.assertEquals(combined, rScaled);
+
+    double rSum = 0.0;
+    for (int ri = 0; ri < ROWS; ri++) {
+      for (int mi = 0; mi < COLUMNS; mi++) {
+        for (int εi = 0; εi < LEVELS; εi++) {
+          rSum += rScaled.get(ri, mi, εi);
+        }
+      }
+    }
+    assertEquals(rSum / binned, combined.rBar, 1e-9);
+
+    /* Combining consolidated and sparse datasets is also supported. */
+    List<DeaggDataset> mixed = new ArrayList<>(datasets);
+    mixed.set(0, DeaggDataset.SOURCE_SET_CONSOLIDATOR.apply(datasets.subList(0, 1)));
+    DeaggDataset mixedCombined = DeaggDataset.SOURCE_SET_CONSOLIDATOR.apply(mixed);
+    assertEquals(combined.rBar, mixedCombined.rBar, 1e-12);
+    assertEquals(combined.mBar, mixedCombined.mBar, 1e-12);
+    assertEquals(combined.εBar, mixedCombined.εBar, 1e-12);
+  }
+
+  private static void add(SparseBins.Builder sparse, Dense dense, int index, double rate) {
+    int εi = index % LEVELS;
+    int mi = (index / LEVELS) % COLUMNS;
+    int ri = index / LEVELS / COLUMNS;
+    double rw = rate * 2.0;
+    double mw = rate * 3.0;
+    double εw = -rate;
+    if (sparse != null) {
+      sparse.add(ri, mi, εi, rate, rw, mw, εw);
+    }
+    dense.add(ri, mi, εi, rate, rw, mw, εw);
+  }
+
+  /* Mirrors SparseBins.Builder. */
+  private static int hash(int index) {
+    int h = index * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /* Dense reference accumulator. */
+  private static final class Dense {
+
+    final IntervalVolume.Builder rmε = IntervalVolume.Builder.fromModel(MODEL.rmε);
+    final IntervalVolume.Builder rScaled = IntervalVolume.Builder.fromModel(MODEL.rScaled);
+    final IntervalVolume.Builder mScaled = IntervalVolume.Builder.fromModel(MODEL.mScaled);
+    final IntervalVolume.Builder εScaled = IntervalVolume.Builder.fromModel(MODEL.εScaled);
+
+    void add(int ri, int mi, int εi, double rate, double rw, double mw, double εw) {
+      rmε.add(ri, mi, εi, rate);
+      rScaled.add(ri, mi, εi, rw);
+      mScaled.add(ri, mi, εi, mw);
+      εScaled.add(ri, mi, εi, εw);
+    }
+
+    void add(Dense other) {
+      rmε.add(other.rmε.build());
+      rScaled.add(other.rScaled.build());
+      mScaled.add(other.mScaled.build());
+      εScaled.add(other.εScaled.build());
+    }
+
+    void multiply(double scale) {
+      rmε.multiply(scale);
+      rScaled.multiply(scale);
+      mScaled.multiply(scale);
+      εScaled.multiply(scale);
+    }
+
+    void assertEquals(SparseBins bins) {
+      Dense actual = new Dense();
+      bins.addTo(actual.rmε, actual.rScaled, actual.mScaled, actual.εScaled);
+      assertVolumeEquals(rmε.build(), actual.rmε.build());
+      assertVolumeEquals(rScaled.build(), actual.rScaled.build());
+      assertVolumeEquals(mScaled.build(), actual.mScaled.build());
+      assertVolumeEquals(εScaled.build(), actual.εScaled.build());
+    }
+
+    void assertEquals(DeaggDataset dataset, IntervalVolume rScaled) {
+      assertVolumeEquals(rmε.build(), dataset.rmε);
+      assertVolumeEquals(rScaled, dataset.rScaled);
+      assertVolumeEquals(mScaled.build(), dataset.mScaled);
+      assertVolumeEquals(εScaled.build(), dataset.εScaled);
+    }
+  }
+
+  private static void assertVolumeEquals(IntervalVolume expected, IntervalVolume actual) {
+    for (int ri = 0; ri < ROWS; ri++) {
+      for (int mi = 0; mi < COLUMNS; mi++) {
+        for (int εi = 0; εi < LEVELS; εi++) {
+          assertEquals(expected.get(ri, mi, εi), actual.get(ri, mi, εi), 0.0);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import gov.usgs.earthquake.nshmp.calc.Deaggregator.SystemPartition;
+
+@SuppressWarnings("javadoc")
+public class DeaggregatorTests {
+
+  private static final int SECTION_COUNT = 200;
+  private static final int SOURCE_COUNT = 5000;
+
+  @Test
+  public void systemPartitionAttribution() {
+    Random random = new Random(7L);
+    List<BitSet> bitsets = createBitsets(random);
+    Set<Integer> sectionIndices = createSectionIndices(random);
+
+    SystemPartition partition = SystemPartition.create(bitsets, sectionIndices, Integer.MAX_VALUE);
+    assertEquals(1, partition.chunks());
+
+    /* Reference: drain sources in section order. */
+    List<Integer> remaining = new LinkedList<>();
+    for (int i = 0; i < bitsets.size(); i++) {
+      remaining.add(i);
+    }
+    int p = 0;
+    for (int section : sectionIndices) {
+      assertEquals(section, partition.sections[p]);
+      List<Integer> expected = new ArrayList<>();
+      Iterator<Integer> iter = remaining.iterator();
+      while (iter.hasNext()) {
+        int source = iter.next();
+        if (bitsets.get(source).get(section)) {
+          expected.add(source);
+          iter.remove();
+        }
+      }
+      int[] actual = new int[partition.sourceStarts[p + 1] - partition.sourceStarts[p]];
+      System.arraycopy(partition.sources, partition.sourceStarts[p], actual, 0, actual.length);
+      assertArrayEquals(toArray(expected), actual);
+      p++;
+    }
+
+    /* Sources that include no listed section are not attributed. */
+    assertEquals(bitsets.size() - remaining.size(), partition.sources.length);
+  }
+
+  @Test
+  public void systemPartitionChunks() {
+    Random random = new Random(11L);
+    List<BitSet> bitsets = createBitsets(random);
+    Set<Integer> sectionIndices = createSectionIndices(random);
+    SystemPartition single = SystemPartition.create(bitsets, sectionIndices, Integer.MAX_VALUE);
+
+    int chunkSize = 400;
+    SystemPartition partition = SystemPartition.create(bitsets, sectionIndices, chunkSize);
+    assertTrue(partition.chunks() > 1);
+    assertArrayEquals(single.sources, partition.sources);
+    assertArrayEquals(single.sourceStarts, partition.sourceStarts);
+
+    int[] starts = partition.chunkStarts;
+    assertEquals(0, starts[0]);
+    assertEquals(partition.sections.length, starts[starts.length - 1]);
+    for (int c = 0; c < partition.chunks(); c++) {
+      assertTrue(starts[c + 1] > starts[c]);
+      int size = partition.sourceStarts[starts[c + 1]] - partition.sourceStarts[starts[c]];
+      if (c < partition.chunks() - 1) {
+        assertTrue(size >= chunkSize);
+        /* Chunk closes at the first section that reaches the minimum size. */
+        int previous = partition.sourceStarts[starts[c + 1] - 1] -
+            partition.sourceStarts[starts[c]];
+        assertTrue(previous < chunkSize);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void systemPartitionChunkSize() {
+    SystemPartition.create(new ArrayList<BitSet>(), new LinkedHashSet<Integer>(), 0);
+  }
+
+  /* Ruptures of 1 to 8 adjacent sections. */
+  private static List<BitSet> createBitsets(Random random) {
+    List<BitSet> bitsets = new ArrayList<>(SOURCE_COUNT);
+    for (int i = 0; i < SOURCE_COUNT; i++) {
+      int length = 1 + random.nextInt(8);
+      int start = random.nextInt(SECTION_COUNT - length);
+      BitSet bitset = new BitSet(SECTION_COUNT);
+      bitset.set(start, start + length);
+      bitsets.add(bitset);
+    }
+    return bitsets;
+  }
+
+  /* A shuffled subset of sections, as though sorted by distance. */
+  private static Set<Integer> createSectionIndices(Random random) {
+    List<Integer> sections = new ArrayList<>();
+    for (int i = 0; i < SECTION_COUNT; i++) {
+      if (random.nextInt(4) > 0) {
+        sections.add(i);
+      }
+    }
+    Collections.shuffle(sections, random);
+    return new LinkedHashSet<>(sections);
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    int[] array = new int[values.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = values.get(i);
+    }
+    return array;
+  }
+
+}
@@ -0,0 +1,95 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import gov.usgs.earthquake.nshmp.gmm.Imt;
+
+@SuppressWarnings("javadoc")
+public class ExceedanceModelTests {
+
+  /* Documented agreement of table and direct exceedance calculations. */
+  private static final double TABLE_TOL = 2.5e-7;
+
+  private static final double[] TRUNCATIONS = { 0.5, 1.0, 2.0, 3.0, 4.0, 8.0, 10.0 };
+
+  @Test
+  public void tableExceedance() {
+    /* Means and sigmas in natural log units spanning typical gmm output. */
+    int count = 400;
+    double[] μ = new double[count];
+    double[] σ = new double[count];
+    double[] rates = new double[count];
+    for (int i = 0; i < count; i++) {
+      μ[i] = -7.0 + 0.0173 * i;
+      σ[i] = 0.3 + 0.0021 * i;
+      rates[i] = 1.0;
+    }
+    double[] xs = new double[500];
+    for (int j = 0; j < xs.length; j++) {
+      xs[j] = -12.0 + 0.0247 * j;
+    }
+    for (ExceedanceModel model : ExceedanceModel.values()) {
+      for (double n : TRUNCATIONS) {
+        for (int i = 0; i < count; i++) {
+          double[] μi = { μ[i] };
+          double[] σi = { σ[i] };
+          double[] ri = { rates[i] };
+          double[] expected = new double[xs.length];
+          double[] actual = new double[xs.length];
+          exact(model, μi, σi, ri, n, xs, expected);
+          model.tableExceedance(μi, σi, ri, n, Imt.PGA, xs, actual);
+          for (int j = 0; j < xs.length; j++) {
+            assertEquals(model + " n=" + n, expected[j], actual[j], TABLE_TOL);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void tableExceedanceSum() {
+    /* Rate-weighted sums accumulate no more than the rate-weighted error. */
+    double[] μ = { -3.2, -2.9, -1.1, 0.4 };
+    double[] σ = { 0.55, 0.62, 0.7, 0.8 };
+    double[] rates = { 1e-3, 4e-4, 2e-5, 1e-6 };
+    double rateSum = 1e-3 + 4e-4 + 2e-5 + 1e-6;
+    double[] xs = new double[100];
+    for (int j = 0; j < xs.length; j++) {
+      xs[j] = -8.0 + 0.09 * j;
+    }
+    for (ExceedanceModel model : ExceedanceModel.values()) {
+      for (double n : TRUNCATIONS) {
+        double[] expected = new double[xs.length];
+        double[] actual = new double[xs.length];
+        exact(model, μ, σ, rates, n, xs, expected);
+        model.tableExceedance(μ, σ, rates, n, Imt.PGA, xs, actual);
+        for (int j = 0; j < xs.length; j++) {
+          assertEquals(model + " n=" + n, expected[j], actual[j], TABLE_TOL * rateSum);
+        }
+      }
+    }
+  }
+
+  /*
+   * The direct calculation of TRUNCATION_3SIGMA_UPPER uses a nearest-node
+   * array limited to ±4σ; compare its tables to an exact 3σ truncation.
+   */
+  private static void exact(
+      ExceedanceModel model,
+      double[] μ,
+      double[] σ,
+      double[] rates,
+      double n,
+      double[] xs,
+      double[] curve) {
+
+    if (model == ExceedanceModel.TRUNCATION_3SIGMA_UPPER) {
+      ExceedanceModel.TRUNCATION_UPPER_ONLY.exceedance(μ, σ, rates, 3.0, Imt.PGA, xs, curve);
+      return;
+    }
+    model.exceedance(μ, σ, rates, n, Imt.PGA, xs, curve);
+  }
+
+}
@@ -0,0 +1,175 @@
+package gov.usgs.earthquake.nshmp.calc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.model.Rupture;
+import gov.usgs.earthquake.nshmp.eq.model.Source;
+import gov.usgs.earthquake.nshmp.eq.model.SourceType;
+import gov.usgs.earthquake.nshmp.geo.Location;
+
+@SuppressWarnings("javadoc")
+public class SourceInputListTests {
+
+  private static final double TOL = 1e-12;
+
+  private static final Site SITE = Site.builder().location(34.0, -118.0).build();
+
+  @Test
+  public void exactMatchesMerged() {
+    SourceInputList inputs = create();
+    inputs.add(0.1, 6.5, 10.0, 12.0, 10.0, 90.0, 12.0, 0.0, 6.0, 0.0);
+    inputs.add(0.2, 6.5, 10.0, 12.0, 10.0, 90.0, 12.0, 0.0, 6.0, 0.0);
+    inputs.add(0.3, 6.6, 10.0, 12.0, 10.0, 90.0, 12.0, 0.0, 6.0, 0.0);
+    SourceInputList collapsed = inputs.collapse(0.0, 0.0, 0.0);
+    assertEquals(2, collapsed.size());
+    assertEquals(1, collapsed.collapsed);
+    assertEquals(0.3, collapsed.get(0).rate, TOL);
+    assertEquals(6.5, collapsed.get(0).Mw, 0.0);
+    assertEquals(0.3, collapsed.get(1).rate, TOL);
+    assertEquals(6.6, collapsed.get(1).Mw, 0.0);
+    assertEquals(total(inputs), total(collapsed), TOL);
+  }
+
+  @Test
+  public void noMatchesReturnsSelf() {
+    SourceInputList inputs = create();
+    inputs.add(0.1, 6.5, 10.0, 12.0, 10.0, 90.0, 12.0, 0.0, 6.0, 0.0);
+    inputs.add(0.2, 6.6, 10.0, 12.0, 10.0, 90.0, 12.0, 0.0, 6.0, 0.0);
+    assertSame(inputs, inputs.collapse(0.0, 0.0, 0.0));
+  }
+
+  @Test
+  public void tolerancesApplyPerUnit() {
+    /* A 1 km distance tolerance must not merge Mw 6.6 and 7.4. */
+    SourceInputList inputs = create();
+    inputs.add(0.1, 6.6, 10.0, 12.0, 10.0, 90.0, 12.0, 0.0, 6.0, 0.0);
+    inputs.add(0.2, 7.4, 10.2, 12.2, 10.2, 90.0, 12.0, 0.0, 6.0, 0.0);
+    assertSame(inputs, inputs.collapse(0.0, 1.0, 0.0));
+    assertSame(inputs, inputs.collapse(0.1, 1.0, 1.0));
+
+    /* Merged once magnitudes fall in a common bin. */
+    SourceInputList collapsed = inputs.collapse(4.0, 1.0, 1.0);
+    assertEquals(1, collapsed.size());
+    assertEquals(total(inputs), total(collapsed), TOL);
+  }
+
+  @Test
+  public void mergeIsRateWeighted() {
+    SourceInputList inputs = create();
+    inputs.add(0.1, 6.5, 10.0, 12.0, -10.0, 50.0, 14.0, 1.0, 5.0, 90.0);
+    inputs.add(0.3, 6.54, 10.4, 12.4, -10.4, 50.0, 14.4, 1.4, 5.4, 90.0);
+    SourceInputList collapsed = inputs.collapse(0.1, 1.0, 0.0);
+    assertEquals(1, collapsed.size());
+    HazardInput in = collapsed.get(0);
+    assertEquals(0.4, in.rate, TOL);
+    assertEquals((0.1 * 6.5 + 0.3 * 6.54) / 0.4, in.Mw, TOL);
+    assertEquals((0.1 * 10.0 + 0.3 * 10.4) / 0.4, in.rJB, TOL);
+    assertEquals((0.1 * 12.0 + 0.3 * 12.4) / 0.4, in.rRup, TOL);
+    assertEquals((0.1 * -10.0 + 0.3 * -10.4) / 0.4, in.rX, TOL);
+    assertEquals((0.1 * 14.0 + 0.3 * 14.4) / 0.4, in.width, TOL);
+    assertEquals((0.1 * 1.0 + 0.3 * 1.4) / 0.4, in.zTop, TOL);
+    assertEquals((0.1 * 5.0 + 0.3 * 5.4) / 0.4, in.zHyp, TOL);
+    /* Exactly compared angles are unchanged. */
+    assertEquals(50.0, in.dip, 0.0);
+    assertEquals(90.0, in.rake, 0.0);
+  }
+
+  @Test
+  public void ratesPreserved() {
+    SourceInputList inputs = create();
+    for (int i = 0; i < 200; i++) {
+      double m = 5.0 + (i % 20) * 0.05;
+      double r = 5.0 + (i % 7) * 0.3;
+      inputs.add(1e-4 * (i + 1), m, r, r + 1.0, r, 45.0 + (i % 3), 10.0, 2.0, 6.0, 90.0);
+    }
+    double total = total(inputs);
+    double[][] tolerances = {
+        { 0.0, 0.0, 0.0 },
+        { 0.1, 0.0, 0.0 },
+        { 0.1, 0.5, 0.0 },
+        { 0.2, 1.0, 5.0 },
+        { 10.0, 100.0, 180.0 } };
+    for (double[] tol : tolerances) {
+      SourceInputList collapsed = inputs.collapse(tol[0], tol[1], tol[2]);
+      assertEquals(total, total(collapsed), 1e-12 * total);
+      assertEquals(inputs.size(), collapsed.size() + collapsed.collapsed);
+    }
+    assertEquals(1, inputs.collapse(10.0, 100.0, 180.0).size());
+  }
+
+  @Test
+  public void zeroRatesRetainFirst() {
+    SourceInputList inputs = create();
+    inputs.add(0.0, 6.5, 10.0, 12.0, 10.0, 90.0, 12.0, 0.0, 6.0, 0.0);
+    inputs.add(0.0, 6.52, 10.2, 12.2, 10.2, 90.0, 12.0, 0.0, 6.0, 0.0);
+    SourceInputList collapsed = inputs.collapse(0.1, 1.0, 1.0);
+    assertEquals(1, collapsed.size());
+    assertEquals(0.0, collapsed.get(0).rate, 0.0);
+    assertEquals(6.5, collapsed.get(0).Mw, 0.0);
+    assertEquals(10.0, collapsed.get(0).rJB, 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeTolerance() {
+    create().collapse(0.0, -1.0, 0.0);
+  }
+
+  private static double total(InputList inputs) {
+    double sum = 0.0;
+    for (double rate : inputs.rates()) {
+      sum += rate;
+    }
+    return sum;
+  }
+
+  private static SourceInputList create() {
+    return new SourceInputList(new TestSource(), SITE);
+  }
+
+  private static final class TestSource implements Source {
+
+    @Override
+    public String name() {
+      return "Test source";
+    }
+
+    @Override
+    public Iterator<Rupture> iterator() {
+      return Collections.<Rupture> emptyIterator();
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @Override
+    public int id() {
+      return 0;
+    }
+
+    @Override
+    public SourceType type() {
+      return SourceType.FAULT;
+    }
+
+    @Override
+    public Location location(Location site) {
+      return site;
+    }
+
+    @Override
+    public List<XySequence> mfds() {
+      return Collections.emptyList();
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+package gov.usgs.earthquake.nshmp.eq.fault.surface;
+
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.NSHM_POINT_WC94_LENGTH;
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.NSHM_SOMERVILLE;
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.NSHM_SUB_GEOMAT_LENGTH;
+import static java.lang.Math.floor;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.CorrectionTable;
+
+@SuppressWarnings("javadoc")
+public class RuptureScalingTests {
+
+  /*
+   * Magnitudes below the correction cutoff, either side of the rounding
+   * boundaries between adjacent rows, and above the largest tabulated
+   * magnitude.
+   */
+  private static final double[] MAGS = {
+      4.5, 5.95, 5.9999, 6.0, 6.04, 6.05, 6.0999, 6.1001, 6.15, 6.65, 7.0499, 7.0501,
+      8.45, 8.4999, 8.5001, 8.55, 8.6, 8.7, 9.5 };
+
+  /* Distances either side of whole kilometers and at and beyond 1000 km. */
+  private static final double[] DISTANCES = {
+      0.0, 0.4, 0.9999, 1.0, 1.0001, 37.6, 999.0, 999.9999, 1000.0, 1000.5, 2500.0 };
+
+  @Test
+  public void correctionTables() {
+    check(NSHM_POINT_WC94_LENGTH, "etc/rjb_wc94length.dat");
+    check(NSHM_SUB_GEOMAT_LENGTH, "etc/rjb_geomatrix.dat");
+    check(NSHM_SOMERVILLE, "etc/rjb_somerville.dat");
+  }
+
+  @Test
+  public void adjacentRows() {
+    CorrectionTable table = NSHM_POINT_WC94_LENGTH.correctionTable().get();
+    assertEquals(-1, table.row(5.9999));
+    assertEquals(table.row(6.0), table.row(6.0999));
+    assertNotEquals(table.row(6.0999), table.row(6.1001));
+    assertEquals(table.row(8.5001), table.row(9.5));
+    assertNotEquals(table.row(8.4999), table.row(8.5001));
+  }
+
+  private static void check(RuptureScaling scaling, String resource) {
+    double[][] rjb = RuptureScaling.readRjb(resource);
+    CorrectionTable table = scaling.correctionTable().get();
+    for (double m : MAGS) {
+      int row = table.row(m);
+      for (double r : DISTANCES) {
+        String id = scaling + " " + m + " " + r;
+        double expected = correctedRjb(m, r, rjb);
+        assertEquals(id, expected, scaling.pointSourceDistance(m, r), 0.0);
+        assertEquals(id, expected, table.distance(row, r), 0.0);
+        if (m < 6.0) {
+          assertEquals(id, r, table.distance(row, r), 0.0);
+        }
+      }
+    }
+  }
+
+  /* The original per-call lookup into [magnitude][distance] arrays. */
+  private static double correctedRjb(double m, double r, double[][] rjb) {
+    if (m < 6.0) {
+      return r;
+    }
+    int mIndex = min((int) round((m - 6.05) / 0.1), 25);
+    int rIndex = min(1000, (int) floor(r));
+    return rjb[mIndex][rIndex];
+  }
+
+}
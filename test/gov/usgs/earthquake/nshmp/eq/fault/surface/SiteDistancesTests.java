@@ -0,0 +1,118 @@
+package gov.usgs.earthquake.nshmp.eq.fault.surface;
+
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.NSHM_FAULT_WC94_LENGTH;
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.PEER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.usgs.earthquake.nshmp.eq.fault.Faults;
+import gov.usgs.earthquake.nshmp.eq.model.Distance;
+import gov.usgs.earthquake.nshmp.eq.model.Rupture;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.LocationList;
+import gov.usgs.earthquake.nshmp.geo.Locations;
+
+@SuppressWarnings("javadoc")
+public class SiteDistancesTests {
+
+  /* Kinked trace so that window upper edges vary in strike. */
+  private static final LocationList TRACE = LocationList.create(
+      Location.create(34.0, -118.0),
+      Location.create(34.25, -117.9),
+      Location.create(34.45, -117.95));
+
+  private static final double[] MAGS = { 6.4, 7.2 };
+
+  /* Counts of the distance cases covered. */
+  private int rJbZero;
+  private int hangingWall;
+  private int footwall;
+
+  @Test
+  public void floaters() {
+    for (double dip : new double[] { 90.0, 89.5, 60.0, 35.0 }) {
+      for (double depth : new double[] { 0.0, 2.0 }) {
+        DefaultGriddedSurface surface = DefaultGriddedSurface.builder()
+            .trace(TRACE)
+            .depth(depth)
+            .dip(dip)
+            .width(15.0)
+            .spacing(1.0)
+            .build();
+        List<Location> sites = sites();
+        checkFloaters(surface, sites, RuptureFloating.ON, NSHM_FAULT_WC94_LENGTH);
+        checkFloaters(surface, sites, RuptureFloating.NSHM, NSHM_FAULT_WC94_LENGTH);
+        checkFloaters(surface, sites, RuptureFloating.TRIANGULAR, PEER);
+      }
+    }
+    assertTrue(rJbZero > 0);
+    assertTrue(hangingWall > 0);
+    assertTrue(footwall > 0);
+  }
+
+  private void checkFloaters(
+      DefaultGriddedSurface surface,
+      List<Location> sites,
+      RuptureFloating floating,
+      RuptureScaling scaling) {
+
+    List<GriddedSurface> surfaces = new ArrayList<>();
+    surfaces.add(surface);
+    for (double mag : MAGS) {
+      for (Rupture rup : floating.createFloatingRuptures(
+          surface, scaling, mag, 1.0, 0.0, false)) {
+        surfaces.add((GriddedSurface) rup.surface());
+      }
+    }
+    for (Location site : sites) {
+      SiteDistances siteDistances = SiteDistances.create(surface, site);
+      for (GriddedSurface s : surfaces) {
+        String id = floating + " " + surface.dip() + " " + surface.depth() + " " + site;
+        Distance expected = Distance.compute(s, site);
+        check(id, expected, siteDistances.distanceTo(s));
+        check(id, expected, s.distanceTo(site));
+        rJbZero += (expected.rJB == 0.0) ? 1 : 0;
+        hangingWall += (expected.rX > 0.0) ? 1 : 0;
+        footwall += (expected.rX < 0.0) ? 1 : 0;
+      }
+    }
+  }
+
+  private static void check(String id, Distance expected, Distance actual) {
+    assertEquals(id, expected.rJB, actual.rJB, 0.0);
+    assertEquals(id, expected.rRup, actual.rRup, 0.0);
+    assertEquals(id, expected.rX, actual.rX, 0.0);
+  }
+
+  /*
+   * Sites on the hanging wall, on the footwall, off the ends of the trace, and
+   * inside the surface projection, plus a random scatter about the fault.
+   */
+  private static List<Location> sites() {
+    List<Location> sites = new ArrayList<>();
+    double strike = Faults.strikeRad(TRACE);
+    double dipDir = Faults.dipDirectionRad(strike);
+    double footDir = dipDir + Math.PI;
+    Location mid = Locations.location(TRACE.get(1), strike, 0.3);
+    for (double r : new double[] { 0.4, 3.0, 7.5, 40.0 }) {
+      sites.add(Locations.location(mid, dipDir, r));
+      sites.add(Locations.location(mid, footDir, r));
+      sites.add(Locations.location(TRACE.first(), strike + Math.PI, r));
+      sites.add(Locations.location(TRACE.last(), strike, r));
+    }
+    Random random = new Random(3);
+    for (int i = 0; i < 15; i++) {
+      sites.add(Location.create(
+          33.8 + random.nextDouble() * 0.9,
+          -118.25 + random.nextDouble() * 0.6));
+    }
+    return sites;
+  }
+
+}
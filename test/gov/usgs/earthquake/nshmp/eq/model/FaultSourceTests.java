@@ -0,0 +1,119 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.NSHM_FAULT_WC94_LENGTH;
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.PEER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import java.util.List;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureFloating;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.LocationList;
+import gov.usgs.earthquake.nshmp.mfd.IncrementalMfd;
+import gov.usgs.earthquake.nshmp.mfd.Mfds;
+
+@SuppressWarnings("javadoc")
+public class FaultSourceTests {
+
+  private static final LocationList TRACE = LocationList.create(
+      Location.create(34.0, -118.0),
+      Location.create(34.4, -117.8),
+      Location.create(34.7, -117.7));
+
+  /* Includes a rate below the low rate cutoff. */
+  private static final List<IncrementalMfd> MFDS = ImmutableList.of(
+      Mfds.newIncrementalMFD(
+          new double[] { 6.05, 6.35, 6.65, 6.95, 7.25, 7.55 },
+          new double[] { 1e-3, 5e-4, 1e-15, 1e-4, 5e-5, 1e-5 }),
+      Mfds.newSingleMFD(7.1, 1e-4, true),
+      Mfds.newSingleMFD(7.4, 1e-4, false));
+
+  @Test
+  public void lazyRuptures() {
+    for (RuptureFloating floating : RuptureFloating.values()) {
+      for (double dip : new double[] { 90.0, 50.0 }) {
+        for (double depth : new double[] { 0.0, 2.0 }) {
+          checkLazy(floating, NSHM_FAULT_WC94_LENGTH, false, dip, depth, MFDS);
+          checkLazy(floating, PEER, false, dip, depth, MFDS);
+        }
+      }
+    }
+    /* Only ON considers rupture area uncertainty. */
+    checkLazy(RuptureFloating.ON, PEER, true, 90.0, 0.0, MFDS);
+    checkLazy(RuptureFloating.ON, PEER, true, 50.0, 2.0, MFDS);
+  }
+
+  @Test
+  public void lazyNoRuptures() {
+    List<IncrementalMfd> mfds = ImmutableList.of(
+        MFDS.get(0),
+        Mfds.newSingleMFD(7.4, 1e-15, false));
+    for (boolean lazy : new boolean[] { false, true }) {
+      try {
+        create(RuptureFloating.ON, NSHM_FAULT_WC94_LENGTH, false, 90.0, 0.0, mfds, lazy);
+        fail("Expected IllegalStateException");
+      } catch (IllegalStateException ise) {}
+    }
+  }
+
+  private static void checkLazy(
+      RuptureFloating floating,
+      RuptureScaling scaling,
+      boolean variability,
+      double dip,
+      double depth,
+      List<IncrementalMfd> mfds) {
+
+    String id = floating + " " + scaling + " " + variability + " " + dip + " " + depth;
+    FaultSource eager = create(floating, scaling, variability, dip, depth, mfds, false);
+    FaultSource lazy = create(floating, scaling, variability, dip, depth, mfds, true);
+
+    /* Counted, but nothing built, at load time. */
+    assertNull(id, lazy.ruptureCache.get());
+    assertEquals(id, eager.size(), lazy.size());
+
+    /* Built when first iterated and reused thereafter. */
+    assertEquals(id, eager.size(), Iterables.size(lazy));
+    List<List<Rupture>> ruptures = lazy.ruptureCache.get();
+    assertNotNull(id, ruptures);
+    Iterables.size(lazy);
+    assertSame(id, ruptures, lazy.ruptureCache.get());
+  }
+
+  private static FaultSource create(
+      RuptureFloating floating,
+      RuptureScaling scaling,
+      boolean variability,
+      double dip,
+      double depth,
+      List<IncrementalMfd> mfds,
+      boolean lazy) {
+
+    return new FaultSource.Builder()
+        .name("Test Fault")
+        .id(0)
+        .trace(TRACE)
+        .dip(dip)
+        .width(15.0)
+        .depth(depth)
+        .rake(0.0)
+        .mfds(mfds)
+        .surfaceSpacing(1.0)
+        .ruptureScaling(scaling)
+        .ruptureFloating(floating)
+        .ruptureVariability(variability)
+        .lazyRuptures(lazy)
+        .buildFaultSource();
+  }
+
+}
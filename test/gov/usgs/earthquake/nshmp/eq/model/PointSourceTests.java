@@ -0,0 +1,185 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.NORMAL;
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.REVERSE;
+import static gov.usgs.earthquake.nshmp.eq.fault.FocalMech.STRIKE_SLIP;
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.NSHM_POINT_WC94_LENGTH;
+import static gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling.PEER;
+import static gov.usgs.earthquake.nshmp.eq.model.SourceType.GRID;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.primitives.Doubles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import gov.usgs.earthquake.nshmp.data.XySequence;
+import gov.usgs.earthquake.nshmp.eq.fault.FocalMech;
+import gov.usgs.earthquake.nshmp.eq.fault.surface.RuptureScaling;
+import gov.usgs.earthquake.nshmp.eq.model.BatchDistanceSource.DistanceConsumer;
+import gov.usgs.earthquake.nshmp.eq.model.PointSource.CorrectionRows;
+import gov.usgs.earthquake.nshmp.eq.model.PointSource.DepthModel;
+import gov.usgs.earthquake.nshmp.eq.model.PointSource.RuptureTable;
+import gov.usgs.earthquake.nshmp.eq.model.PointSourceFinite.FiniteSurface;
+import gov.usgs.earthquake.nshmp.geo.Location;
+import gov.usgs.earthquake.nshmp.geo.Locations;
+
+@SuppressWarnings("javadoc")
+public class PointSourceTests {
+
+  private static final Location LOC = Location.create(35.0, -118.0);
+
+  /* Within and beyond the hanging wall cutoff of the largest ruptures. */
+  private static final double[] DISTANCES = { 0.0, 0.3, 2.0, 6.0, 15.0, 40.0, 150.0, 600.0 };
+
+  private static final double[] MAGS = new double[30];
+  static {
+    for (int i = 0; i < MAGS.length; i++) {
+      MAGS[i] = 5.05 + i * 0.1;
+    }
+  }
+
+  @Test
+  public void batchDistances() {
+    for (RuptureScaling scaling : new RuptureScaling[] { NSHM_POINT_WC94_LENGTH, PEER }) {
+      DepthModel depthModel = depthModel();
+      checkDistances(new PointSource(GRID, LOC, mfd(), mechs(), scaling, depthModel));
+      checkDistances(new PointSourceFinite(GRID, LOC, mfd(), mechs(), scaling, depthModel));
+      checkDistances(
+          new PointSourceFixedStrike(GRID, LOC, mfd(), mechs(), scaling, depthModel, 30.0));
+    }
+  }
+
+  @Test
+  public void sharedTables() {
+    DepthModel depthModel = depthModel();
+    RuptureScaling[] scalings = { NSHM_POINT_WC94_LENGTH, PEER };
+    RuptureTable[] tables = new RuptureTable[scalings.length];
+    CorrectionRows[] rows = new CorrectionRows[scalings.length];
+
+    /* Alternate scalings and MFD lengths as a source set would. */
+    for (int size : new int[] { 30, 12, 1, 20, 30 }) {
+      for (int i = 0; i < scalings.length; i++) {
+        RuptureScaling scaling = scalings[i];
+        String id = scaling + " " + size;
+        XySequence mfd = mfd(size);
+        PointSourceFinite source =
+            new PointSourceFinite(GRID, LOC, mfd, mechs(), scaling, depthModel);
+        CorrectionRows sourceRows = depthModel.correctionRows(mfd, scaling);
+        if (tables[i] == null) {
+          tables[i] = source.ruptures;
+          rows[i] = sourceRows;
+        }
+        assertSame(id, tables[i], source.ruptures);
+        assertSame(id, rows[i], sourceRows);
+        checkRuptures(id, source, depthModel);
+      }
+    }
+  }
+
+  /* Compare ruptures with the original per-rupture dimension calculation. */
+  private static void checkRuptures(String id, PointSource source, DepthModel depthModel) {
+    int count = 0;
+    for (Rupture rup : source) {
+      FiniteSurface surface = (FiniteSurface) rup.surface();
+      double maxWidthDD = (depthModel.maxDepth - surface.zTop) / sin(surface.dipRad);
+      double widthDD = source.rupScaling.dimensions(surface.mag, maxWidthDD).width;
+      assertEquals(id, widthDD, surface.widthDD, 0.0);
+      assertEquals(id, widthDD * cos(surface.dipRad), surface.widthH, 0.0);
+      assertEquals(id, surface.zTop + widthDD * sin(surface.dipRad), surface.zBot, 0.0);
+      assertEquals(id, rup.mag(), surface.mag, 0.0);
+      count++;
+    }
+    assertEquals(id, source.size(), count);
+  }
+
+  private static void checkDistances(PointSource source) {
+    int footwall = 0;
+    int hangingWall = 0;
+    for (double r : DISTANCES) {
+      for (double azimuth : new double[] { 0.0, 2.0 }) {
+        Location site = Locations.location(LOC, azimuth, r);
+        Recorder recorder = new Recorder();
+        source.distances(site, recorder);
+        assertEquals(source.size(), recorder.distances.size());
+
+        int i = 0;
+        for (Rupture rup : source) {
+          String id = source.name() + " " + source.rupScaling + " " + r + " " + i;
+          Distance expected = rup.surface().distanceTo(site);
+          double[] actual = recorder.distances.get(i);
+          assertEquals(id, rup.mag(), actual[0], 0.0);
+          assertEquals(id, rup.rate(), actual[1], 0.0);
+          assertEquals(id, expected.rJB, actual[2], 0.0);
+          assertEquals(id, expected.rRup, actual[3], 0.0);
+          assertEquals(id, expected.rX, actual[4], 0.0);
+          footwall += (expected.rX < 0.0) ? 1 : 0;
+          hangingWall += (expected.rX > 0.0 && expected.rJB > 0.0) ? 1 : 0;
+          i++;
+        }
+      }
+    }
+    if (source instanceof PointSourceFinite) {
+      assertTrue(footwall > 0);
+      assertTrue(hangingWall > 0);
+    }
+  }
+
+  /* Rupture state is only valid during a callback; record it immediately. */
+  private static final class Recorder implements DistanceConsumer {
+
+    final List<double[]> distances = new ArrayList<>();
+
+    @Override
+    public void accept(Rupture rup, double rJB, double rRup, double rX) {
+      distances.add(new double[] { rup.mag(), rup.rate(), rJB, rRup, rX });
+    }
+  }
+
+  static XySequence mfd() {
+    return mfd(MAGS.length);
+  }
+
+  /* An MFD spanning the supplied number of the smallest magnitudes. */
+  static XySequence mfd(int size) {
+    double[] mags = Arrays.copyOf(MAGS, size);
+    double[] rates = new double[size];
+    for (int i = 0; i < size; i++) {
+      rates[i] = Math.pow(10, -0.9 * mags[i]);
+    }
+    return XySequence.create(mags, rates);
+  }
+
+  static Map<FocalMech, Double> mechs() {
+    Map<FocalMech, Double> mechs = new EnumMap<>(FocalMech.class);
+    mechs.put(STRIKE_SLIP, 0.5);
+    mechs.put(REVERSE, 0.3);
+    mechs.put(NORMAL, 0.2);
+    return mechs;
+  }
+
+  /* NSHM style depths; shallower ruptures above M6.5. */
+  static DepthModel depthModel() {
+    NavigableMap<Double, Map<Double, Double>> magDepthMap = new TreeMap<>();
+    Map<Double, Double> small = new TreeMap<>();
+    small.put(5.0, 1.0);
+    Map<Double, Double> large = new TreeMap<>();
+    large.put(1.0, 0.6);
+    large.put(5.0, 0.4);
+    magDepthMap.put(6.5, small);
+    magDepthMap.put(10.0, large);
+    return DepthModel.create(magDepthMap, Doubles.asList(MAGS), 14.0);
+  }
+
+}
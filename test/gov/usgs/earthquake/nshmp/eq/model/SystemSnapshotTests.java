@@ -0,0 +1,205 @@
+package gov.usgs.earthquake.nshmp.eq.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Optional;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import gov.usgs.earthquake.nshmp.eq.fault.surface.GriddedSurface;
+
+@SuppressWarnings("javadoc")
+public class SystemSnapshotTests {
+
+  private static final int SECTIONS = 130;
+  private static final int SIZE = 50;
+  private static final int CHECKSUM_BYTES = Hashing.sha256().bits() / Byte.SIZE;
+
+  private static final List<GriddedSurface> SURFACES =
+      Collections.nCopies(SECTIONS, (GriddedSurface) null);
+  private static final List<String> NAMES = Collections.nCopies(SECTIONS, "section");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void roundTrip() throws IOException {
+    SystemSourceSet expected = sourceSet();
+    HashCode hash = hash("ruptures");
+    Path dir = folder.getRoot().toPath().resolve("cache");
+    Path path = SystemSnapshot.path(dir, hash);
+    assertFalse(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+
+    SystemSnapshot.write(path, hash, expected);
+    assertTrue(Files.exists(path));
+    Optional<SystemSourceSet> actual = SystemSnapshot.read(path, hash, SURFACES, NAMES, null);
+    assertTrue(actual.isPresent());
+    SystemSourceSet set = actual.get();
+
+    assertEquals(expected.name(), set.name());
+    assertEquals(expected.id(), set.id());
+    assertEquals(expected.weight(), set.weight(), 0.0);
+    assertEquals(SIZE, set.size());
+    assertEquals(expected.stats.mMin, set.stats.mMin, 0.0);
+    assertEquals(expected.stats.mMax, set.stats.mMax, 0.0);
+    assertArrayEquals(expected.bitsets, set.bitsets);
+    assertEquals(expected.mags, set.mags);
+    assertEquals(expected.rates, set.rates);
+    assertEquals(expected.depths, set.depths);
+    assertEquals(expected.dips, set.dips);
+    assertEquals(expected.widths, set.widths);
+    assertEquals(expected.rakes, set.rakes);
+
+    /* Attributes are read from the mapped file. */
+    assertTrue(set.mags.isDirect());
+  }
+
+  @Test
+  public void hashMismatch() throws IOException {
+    HashCode hash = hash("ruptures");
+    Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+    SystemSnapshot.write(path, hash, sourceSet());
+    assertFalse(SystemSnapshot.read(path, hash("edited"), SURFACES, NAMES, null).isPresent());
+  }
+
+  @Test
+  public void sectionMismatch() throws IOException {
+    HashCode hash = hash("ruptures");
+    Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+    SystemSnapshot.write(path, hash, sourceSet());
+    List<GriddedSurface> surfaces = SURFACES.subList(1, SECTIONS);
+    List<String> names = NAMES.subList(1, SECTIONS);
+    assertFalse(SystemSnapshot.read(path, hash, surfaces, names, null).isPresent());
+  }
+
+  @Test
+  public void checksumMismatch() throws IOException {
+    HashCode hash = hash("ruptures");
+    Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+    SystemSnapshot.write(path, hash, sourceSet());
+    byte[] bytes = Files.readAllBytes(path);
+
+    /* Any altered byte, including those of the checksum itself. */
+    for (int offset : new int[] { 8, 100, bytes.length / 2, bytes.length - 1 }) {
+      byte[] corrupt = bytes.clone();
+      corrupt[offset] ^= 1;
+      Files.write(path, corrupt);
+      assertFalse(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+    }
+
+    /* An altered magnitude with a matching checksum is accepted. */
+    byte[] altered = bytes.clone();
+    altered[bytes.length / 2] ^= 1;
+    Files.write(path, checksum(altered));
+    assertTrue(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+  }
+
+  @Test
+  public void corrupt() throws IOException {
+    HashCode hash = hash("ruptures");
+    Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+    SystemSnapshot.write(path, hash, sourceSet());
+    byte[] bytes = Files.readAllBytes(path);
+
+    /*
+     * Corrupt content is re-checksummed so that it is rejected by validation
+     * of the content itself rather than by the checksum.
+     */
+    int content = bytes.length - CHECKSUM_BYTES;
+
+    /* Truncated at every point through the header and into the data. */
+    for (int length = 0; length < 200; length++) {
+      Files.write(path, checksum(Arrays.copyOf(bytes, length + CHECKSUM_BYTES)));
+      assertFalse(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+    }
+
+    /* Truncated by a single byte. */
+    byte[] truncated = Arrays.copyOf(bytes, content - 1 + CHECKSUM_BYTES);
+    Files.write(path, checksum(truncated));
+    assertFalse(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+
+    /* Trailing garbage. */
+    Files.write(path, checksum(Arrays.copyOf(bytes, bytes.length + 8)));
+    assertFalse(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+
+    /* Corrupt name length, rupture count, and first bitset word count. */
+    int nameLength = 8 + hash.bits() / 8;
+    int size = nameLength + 4 + "system".length() + 4 + 8 + 4;
+    int wordCounts = size + 4 + 6 * SIZE * Double.BYTES;
+    for (int offset : new int[] { nameLength, size, wordCounts }) {
+      byte[] corrupt = bytes.clone();
+      corrupt[offset] = (byte) 0x7f;
+      Files.write(path, checksum(corrupt));
+      assertFalse(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+    }
+
+    /* Rewritten snapshot is read normally. */
+    SystemSnapshot.write(path, hash, sourceSet());
+    assertTrue(SystemSnapshot.read(path, hash, SURFACES, NAMES, null).isPresent());
+  }
+
+  /* Replace the trailing checksum with that of the preceding bytes. */
+  private static byte[] checksum(byte[] bytes) {
+    int content = bytes.length - CHECKSUM_BYTES;
+    byte[] checksum = Hashing.sha256().hashBytes(bytes, 0, content).asBytes();
+    System.arraycopy(checksum, 0, bytes, content, CHECKSUM_BYTES);
+    return bytes;
+  }
+
+  private HashCode hash(String contents) throws IOException {
+    Path path = folder.newFile().toPath();
+    Files.write(path, contents.getBytes(UTF_8));
+    return SystemSnapshot.hash(path);
+  }
+
+  private static SystemSourceSet sourceSet() {
+    BitSet[] bitsets = new BitSet[SIZE];
+    double[] mags = new double[SIZE];
+    double[] rates = new double[SIZE];
+    double[] depths = new double[SIZE];
+    double[] dips = new double[SIZE];
+    double[] widths = new double[SIZE];
+    double[] rakes = new double[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      /* Spans of varying length and bitset word count. */
+      bitsets[i] = new BitSet();
+      bitsets[i].set(i, i + 2 + (i * 7) % (SECTIONS - i - 1));
+      mags[i] = 6.0 + i * 0.05;
+      rates[i] = 1e-5 * (i + 1);
+      depths[i] = i % 5;
+      dips[i] = 45.0 + i % 45;
+      widths[i] = 10.0 + i % 3;
+      rakes[i] = -90.0 + i;
+    }
+    return new SystemSourceSet(
+        "system", 42, 0.5, null,
+        SURFACES.toArray(new GriddedSurface[] {}),
+        NAMES.toArray(new String[] {}),
+        bitsets,
+        DoubleBuffer.wrap(mags),
+        DoubleBuffer.wrap(rates),
+        DoubleBuffer.wrap(depths),
+        DoubleBuffer.wrap(dips),
+        DoubleBuffer.wrap(widths),
+        DoubleBuffer.wrap(rakes),
+        new SystemSourceSet.Statistics(mags[0], mags[SIZE - 1]));
+  }
+
+}
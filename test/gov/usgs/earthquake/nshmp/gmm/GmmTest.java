@@ -62,6 +62,15 @@ public class GmmTest {
     assertEquals(exSigma, sgm.sigma(), TOL);
   }
 
+  @Test
+  public void testBatch() {
+    double[] μ = new double[inputsList.size()];
+    double[] σ = new double[inputsList.size()];
+    gmm.instance(imt).calcAll(inputsList, μ, σ);
+    assertEquals(exMedian, Math.exp(μ[index]), TOL);
+    assertEquals(exSigma, σ[index], TOL);
+  }
+
   /* Use to generate Gmm result file */
   static void generateResults(
       Set<Gmm> gmms, 